@@ -11,6 +11,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.jgit.api.CheckoutCommand;
@@ -26,12 +27,18 @@ import org.eclipse.jgit.api.RenameBranchCommand;
 import org.eclipse.jgit.api.TransportCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.NoHeadException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.RepositoryState;
 import org.eclipse.jgit.lib.StoredConfig;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.FetchResult;
 import org.eclipse.jgit.transport.PushResult;
 import org.eclipse.jgit.transport.RefSpec;
@@ -39,8 +46,10 @@ import org.eclipse.jgit.transport.RemoteConfig;
 import org.eclipse.jgit.transport.RemoteRefUpdate;
 import org.eclipse.jgit.transport.URIish;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 import alien4cloud.exception.GitConflictException;
 import alien4cloud.exception.GitException;
@@ -257,6 +266,45 @@ public class RepositoryManager {
         return null;
     }
 
+    /**
+     * Get the paths of the files that changed between two commits of a repository.
+     *
+     * @param git The repository in which to compare the commits.
+     * @param fromHash The hash of the previous commit.
+     * @param toHash The hash of the new commit.
+     * @return The paths (relative to the repository root) of the files added, modified, renamed or deleted between the two commits or null if one of the
+     *         commits cannot be found in the repository (for example if the history has been rewritten).
+     */
+    public static Set<String> getChangedFiles(Git git, String fromHash, String toHash) {
+        Repository repository = git.getRepository();
+        try (RevWalk revWalk = new RevWalk(repository); ObjectReader reader = repository.newObjectReader()) {
+            ObjectId fromId = repository.resolve(fromHash);
+            ObjectId toId = repository.resolve(toHash);
+            if (fromId == null || toId == null) {
+                return null;
+            }
+            CanonicalTreeParser fromTree = new CanonicalTreeParser();
+            fromTree.reset(reader, revWalk.parseCommit(fromId).getTree());
+            CanonicalTreeParser toTree = new CanonicalTreeParser();
+            toTree.reset(reader, revWalk.parseCommit(toId).getTree());
+            Set<String> changedFiles = Sets.newHashSet();
+            for (DiffEntry diffEntry : git.diff().setOldTree(fromTree).setNewTree(toTree).call()) {
+                if (!DiffEntry.DEV_NULL.equals(diffEntry.getOldPath())) {
+                    changedFiles.add(diffEntry.getOldPath());
+                }
+                if (!DiffEntry.DEV_NULL.equals(diffEntry.getNewPath())) {
+                    changedFiles.add(diffEntry.getNewPath());
+                }
+            }
+            return changedFiles;
+        } catch (MissingObjectException | IncorrectObjectTypeException e) {
+            log.debug("Commit not found in repository, unable to compute changed files.", e);
+            return null;
+        } catch (IOException | GitAPIException e) {
+            throw new GitException("Failed to compare git commits", e);
+        }
+    }
+
     private static void setCredentials(TransportCommand<?, ?> command, String username, String password) {
         if (StringUtils.isNotBlank(username)) {
             if (password == null) {
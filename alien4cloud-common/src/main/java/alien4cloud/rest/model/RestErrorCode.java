@@ -35,6 +35,7 @@ public enum RestErrorCode {
     MAINTENANCE_MODE_ERROR(373),
     EMPTY_META_PROPERTY_ERROR(374),
     SCALING_ERROR(375),
+    ORCHESTRATOR_UNAVAILABLE_ERROR(376),
 
     // User errors
     DELETE_LAST_ADMIN_USER_ERROR(390),
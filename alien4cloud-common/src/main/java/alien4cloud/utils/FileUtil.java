@@ -343,6 +343,31 @@ public final class FileUtil {
         return files;
     }
 
+    /**
+     * Write a gzip compressed copy (with the .gz extension) of every file of a directory of which name is matching the pattern. Files that don't shrink
+     * when compressed are left alone.
+     *
+     * @param directory the start point
+     * @param matcher the regex expression to match files
+     * @return The number of compressed copies written.
+     * @throws IOException In case something fails.
+     */
+    public static int gzipFiles(Path directory, String matcher) throws IOException {
+        int count = 0;
+        for (Path file : listFiles(directory, matcher)) {
+            Path gzippedFile = file.resolveSibling(file.getFileName() + ".gz");
+            try (OutputStream outputStream = new GzipCompressorOutputStream(new BufferedOutputStream(Files.newOutputStream(gzippedFile)))) {
+                Files.copy(file, outputStream);
+            }
+            if (Files.size(gzippedFile) < Files.size(file)) {
+                count++;
+            } else {
+                Files.delete(gzippedFile);
+            }
+        }
+        return count;
+    }
+
     /**
      * Computes a SHA-1 checksum on a single file.
      * 
@@ -0,0 +1,179 @@
+package alien4cloud.utils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.util.ClassUtils;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import alien4cloud.exception.InvalidArgumentException;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Merge engine used by {@link ReflectionUtil#mergeObject(Object, Object, String...)}.
+ *
+ * Bean introspection is performed only once per class: readable and writable properties are resolved to {@link MethodHandle} that are cached along with the
+ * class. When the value of a property cannot be directly assigned to the target property, the merge falls back to a spring {@link BeanWrapper} in order to
+ * keep the type conversion of the previous implementation.
+ */
+@Slf4j
+public final class ObjectMerger {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<ClassAccessors> ACCESSORS = new ClassValue<ClassAccessors>() {
+        @Override
+        protected ClassAccessors computeValue(Class<?> type) {
+            return new ClassAccessors(type);
+        }
+    };
+
+    private ObjectMerger() {
+    }
+
+    /**
+     * Merge object from an object to another. Properties with a null value in the source object are not merged. Failsafe : resist to invalid property.
+     *
+     * @param from source of the update
+     * @param to target of the update
+     * @param ignores properties names that should be ignored
+     */
+    public static void merge(Object from, Object to, String... ignores) {
+        Set<String> ignoredProps = ignores.length == 0 ? Collections.<String> emptySet() : Sets.newHashSet(ignores);
+        ClassAccessors fromAccessors = ACCESSORS.get(from.getClass());
+        ClassAccessors toAccessors = ACCESSORS.get(to.getClass());
+
+        // read all values first as from and to may be the same instance.
+        List<PropertyReader> readers = fromAccessors.mergeableReaders;
+        Object[] values = new Object[readers.size()];
+        for (int i = 0; i < readers.size(); i++) {
+            PropertyReader reader = readers.get(i);
+            if (!ignoredProps.contains(reader.name)) {
+                values[i] = reader.read(from);
+            }
+        }
+
+        BeanWrapper fallbackWrapper = null;
+        for (int i = 0; i < readers.size(); i++) {
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            PropertyReader reader = readers.get(i);
+            PropertyWriter writer = toAccessors.writers.get(reader.name);
+            if (writer == null) {
+                continue;
+            }
+            if (writer.accepts(value)) {
+                writer.write(to, value);
+            } else {
+                // type conversion is required, let spring manage it.
+                if (fallbackWrapper == null) {
+                    fallbackWrapper = new BeanWrapperImpl(to);
+                }
+                try {
+                    fallbackWrapper.setPropertyValue(reader.name, value);
+                } catch (RuntimeException e) {
+                    throw new InvalidArgumentException("Cannot merge object", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Merge plan of a class: handles to read the properties that can be merged from an instance and handles to write the properties of an instance.
+     */
+    private static class ClassAccessors {
+        /** Properties that have both a getter and a setter, only those are merged from a source object. */
+        private final List<PropertyReader> mergeableReaders;
+        /** Properties that have a setter. */
+        private final Map<String, PropertyWriter> writers;
+
+        private ClassAccessors(Class<?> clazz) {
+            List<PropertyReader> readers = Lists.newArrayList();
+            Map<String, PropertyWriter> writerMap = Maps.newHashMap();
+            for (PropertyDescriptor property : ReflectionUtil.getPropertyDescriptors(clazz)) {
+                Method readMethod = property.getReadMethod();
+                Method writeMethod = property.getWriteMethod();
+                if (writeMethod == null) {
+                    continue;
+                }
+                MethodHandle setter = unreflect(writeMethod);
+                if (setter != null) {
+                    writerMap.put(property.getName(), new PropertyWriter(setter.asType(SETTER_TYPE),
+                            ClassUtils.resolvePrimitiveIfNecessary(writeMethod.getParameterTypes()[0]), writeMethod.getParameterTypes()[0].isPrimitive()));
+                }
+                if (readMethod == null) {
+                    continue;
+                }
+                MethodHandle getter = unreflect(readMethod);
+                if (getter != null) {
+                    readers.add(new PropertyReader(property.getName(), getter.asType(GETTER_TYPE)));
+                }
+            }
+            this.mergeableReaders = Collections.unmodifiableList(readers);
+            this.writers = Collections.unmodifiableMap(writerMap);
+        }
+
+        private static MethodHandle unreflect(Method method) {
+            try {
+                if (!method.isAccessible()) {
+                    method.setAccessible(true);
+                }
+                return LOOKUP.unreflect(method);
+            } catch (IllegalAccessException | SecurityException e) {
+                log.debug("Unable to access method <{}>, it will be ignored by merge.", method, e);
+                return null;
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static class PropertyReader {
+        private final String name;
+        private final MethodHandle getter;
+
+        private Object read(Object instance) {
+            try {
+                return getter.invokeExact(instance);
+            } catch (Throwable t) {
+                throw new InvalidArgumentException("Cannot merge object", t);
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static class PropertyWriter {
+        private final MethodHandle setter;
+        /** Type of the property (wrapper type for primitives). */
+        private final Class<?> type;
+        private final boolean primitive;
+
+        private boolean accepts(Object value) {
+            // for primitives the wrapper must match exactly as method handles do not perform widening on unboxing.
+            return primitive ? type.equals(value.getClass()) : type.isInstance(value);
+        }
+
+        private void write(Object instance, Object value) {
+            try {
+                setter.invokeExact(instance, value);
+            } catch (Throwable t) {
+                throw new InvalidArgumentException("Cannot merge object", t);
+            }
+        }
+    }
+}
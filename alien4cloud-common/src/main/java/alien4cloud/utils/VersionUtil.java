@@ -3,8 +3,18 @@ package alien4cloud.utils;
 import alien4cloud.utils.version.InvalidVersionException;
 import alien4cloud.utils.version.Version;
 
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
 public final class VersionUtil {
 
     /**
@@ -22,6 +32,11 @@ public final class VersionUtil {
      */
     public static final Pattern VERSION_PATTERN = Pattern.compile("\\d+(?:\\.\\d+)*(?:[\\.-]\\p{Alnum}+)*");
     private static final String SNAPSHOT_IDENTIFIER = "SNAPSHOT";
+    /**
+     * Parsed versions by version text used for comparisons. As versions are mutable (they are indexed as nested objects) interned instances are never exposed
+     * outside of this class.
+     */
+    private static final Cache<String, Version> PARSED_VERSIONS = CacheBuilder.newBuilder().maximumSize(10000).build();
 
     /**
      * Check if a version is a SNAPSHOT (development) version.
@@ -66,6 +81,77 @@ public final class VersionUtil {
      * @return
      */
     public static int compare(String versionLeft, String versionRight) {
-        return parseVersion(versionLeft).compareTo(parseVersion(versionRight));
+        return getParsedVersion(versionLeft).compareTo(getParsedVersion(versionRight));
+    }
+
+    /**
+     * Get a comparator that compares objects based on their version. To sort or to get the highest version of a collection prefer
+     * {@link #sortByVersion(Collection, Function, boolean)} and {@link #getLatest(Iterable, Function)} that parse each version only once.
+     *
+     * @param versionExtractor Function that get the version text of an object.
+     * @param <T> The type of objects to compare.
+     * @return A comparator that orders objects from the lowest to the highest version.
+     * @throws alien4cloud.utils.version.InvalidVersionException when comparing objects with a version that is not following the defined version pattern
+     */
+    public static <T> Comparator<T> comparing(Function<? super T, String> versionExtractor) {
+        return (left, right) -> compare(versionExtractor.apply(left), versionExtractor.apply(right));
+    }
+
+    /**
+     * Sort objects based on their version. The version of each object is parsed once before sorting rather than on every comparison.
+     *
+     * @param elements The objects to sort.
+     * @param versionExtractor Function that get the version text of an object.
+     * @param descending True to sort from the highest to the lowest version, false to sort from the lowest to the highest version.
+     * @param <T> The type of objects to sort.
+     * @return A new list that contains the objects sorted by version (objects with the same version keep their order).
+     * @throws alien4cloud.utils.version.InvalidVersionException if the version of an object is not following the defined version pattern
+     */
+    public static <T> List<T> sortByVersion(Collection<? extends T> elements, Function<? super T, String> versionExtractor, boolean descending) {
+        List<Map.Entry<Version, T>> parsedElements = Lists.newArrayListWithCapacity(elements.size());
+        for (T element : elements) {
+            parsedElements.add(Maps.immutableEntry(getParsedVersion(versionExtractor.apply(element)), element));
+        }
+        Comparator<Map.Entry<Version, T>> comparator = (left, right) -> left.getKey().compareTo(right.getKey());
+        parsedElements.sort(descending ? comparator.reversed() : comparator);
+        List<T> sorted = Lists.newArrayListWithCapacity(parsedElements.size());
+        for (Map.Entry<Version, T> parsedElement : parsedElements) {
+            sorted.add(parsedElement.getValue());
+        }
+        return sorted;
+    }
+
+    /**
+     * Get the object with the highest version. The version of each object is parsed once.
+     *
+     * @param elements The objects from which to get the one with the highest version.
+     * @param versionExtractor Function that get the version text of an object.
+     * @param <T> The type of objects.
+     * @return The object with the highest version (the last one if several objects have the highest version), null if there is no object.
+     * @throws alien4cloud.utils.version.InvalidVersionException if the version of an object is not following the defined version pattern
+     */
+    public static <T> T getLatest(Iterable<? extends T> elements, Function<? super T, String> versionExtractor) {
+        T latest = null;
+        Version latestVersion = null;
+        for (T element : elements) {
+            Version version = getParsedVersion(versionExtractor.apply(element));
+            if (latestVersion == null || version.compareTo(latestVersion) >= 0) {
+                latest = element;
+                latestVersion = version;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Get the interned parsed version for the given version text.
+     */
+    private static Version getParsedVersion(String version) {
+        Version parsed = version == null ? null : PARSED_VERSIONS.getIfPresent(version);
+        if (parsed == null) {
+            parsed = parseVersion(version);
+            PARSED_VERSIONS.put(version, parsed);
+        }
+        return parsed;
     }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package alien4cloud.git;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+import alien4cloud.utils.FileUtil;
+
+public class RepositoryManagerTest {
+    private static final Path WORK_DIR = Paths.get("target/alien/repository-manager-test");
+
+    private Path bareRepository;
+
+    @Before
+    public void before() throws Exception {
+        if (Files.exists(WORK_DIR)) {
+            FileUtil.delete(WORK_DIR);
+        }
+        bareRepository = WORK_DIR.resolve("remote.git");
+        Git.init().setBare(true).setDirectory(bareRepository.toFile()).call().close();
+    }
+
+    private String commit(Git git, String message, String... files) throws Exception {
+        Path root = git.getRepository().getWorkTree().toPath();
+        for (String file : files) {
+            Path path = root.resolve(file);
+            Files.createDirectories(path.getParent());
+            Files.write(path, (message + " " + file).getBytes("UTF-8"));
+        }
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage(message).setAuthor("alien", "alien@alien4cloud.org").call();
+        git.push().call();
+        return RepositoryManager.getLastHash(git);
+    }
+
+    private Git checkout() {
+        return RepositoryManager.cloneOrCheckout(WORK_DIR, bareRepository.toUri().toString(), null, null, "master", "checkout");
+    }
+
+    @Test
+    public void changedFilesShouldOnlyContainsFilesChangedBetweenCommits() throws Exception {
+        Git git = Git.cloneRepository().setURI(bareRepository.toUri().toString()).setDirectory(WORK_DIR.resolve("work").toFile()).call();
+        try {
+            String first = commit(git, "first", "types/a/a.yml", "types/b/b.yml", "types/b/scripts/install.sh");
+            Git checkout = checkout();
+            try {
+                String second = commit(git, "second", "types/b/scripts/install.sh");
+                RepositoryManager.pull(checkout, null, null);
+                Assert.assertEquals(second, RepositoryManager.getLastHash(checkout));
+                Assert.assertEquals(Sets.newHashSet("types/b/scripts/install.sh"), RepositoryManager.getChangedFiles(checkout, first, second));
+                Assert.assertTrue(RepositoryManager.getChangedFiles(checkout, second, second).isEmpty());
+            } finally {
+                RepositoryManager.close(checkout);
+            }
+        } finally {
+            RepositoryManager.close(git);
+        }
+    }
+
+    @Test
+    public void changedFilesShouldContainsDeletedFiles() throws Exception {
+        Git git = Git.cloneRepository().setURI(bareRepository.toUri().toString()).setDirectory(WORK_DIR.resolve("work").toFile()).call();
+        try {
+            String first = commit(git, "first", "types/a/a.yml", "types/b/b.yml");
+            git.rm().addFilepattern("types/a/a.yml").call();
+            String second = commit(git, "second", "types/c/c.yml");
+            Set<String> changedFiles = RepositoryManager.getChangedFiles(git, first, second);
+            Assert.assertEquals(Sets.newHashSet("types/a/a.yml", "types/c/c.yml"), changedFiles);
+        } finally {
+            RepositoryManager.close(git);
+        }
+    }
+
+    @Test
+    public void changedFilesShouldBeNullWhenCommitIsUnknown() throws Exception {
+        Git git = Git.cloneRepository().setURI(bareRepository.toUri().toString()).setDirectory(WORK_DIR.resolve("work").toFile()).call();
+        try {
+            String first = commit(git, "first", "types/a/a.yml");
+            Assert.assertNull(RepositoryManager.getChangedFiles(git, "0123456789012345678901234567890123456789", first));
+        } finally {
+            RepositoryManager.close(git);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package alien4cloud.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+
+public class FileUtilTest {
+    private Path directory;
+
+    @Before
+    public void before() throws IOException {
+        directory = Files.createTempDirectory("file-util-test");
+    }
+
+    @After
+    public void after() throws IOException {
+        FileUtil.delete(directory);
+    }
+
+    @Test
+    public void gzipFilesShouldWriteCompressedVariantsOfMatchingFiles() throws IOException {
+        String script = Strings.repeat("console.log('alien4cloud');\n", 100);
+        Files.createDirectories(directory.resolve("scripts"));
+        Files.write(directory.resolve("scripts/main.js"), script.getBytes(Charsets.UTF_8));
+        // too small to be worth compressing
+        Files.write(directory.resolve("tiny.js"), "a".getBytes(Charsets.UTF_8));
+        Files.write(directory.resolve("image.png"), script.getBytes(Charsets.UTF_8));
+
+        Assert.assertEquals(1, FileUtil.gzipFiles(directory, ".*\\.js$"));
+
+        Path gzipped = directory.resolve("scripts/main.js.gz");
+        Assert.assertTrue(Files.exists(gzipped));
+        Assert.assertFalse(Files.exists(directory.resolve("tiny.js.gz")));
+        Assert.assertFalse(Files.exists(directory.resolve("image.png.gz")));
+        try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(gzipped))) {
+            Assert.assertEquals(script, new String(ByteStreams.toByteArray(inputStream), Charsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package alien4cloud.utils;
+
+import java.beans.PropertyDescriptor;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class ObjectMergerTest {
+
+    @Getter
+    @Setter
+    private static class Target {
+        private String id;
+        private String name;
+        private int count;
+        private long size;
+        private List<String> tags;
+        private String readOnly;
+
+        public String getComputed() {
+            return "computed";
+        }
+    }
+
+    @Getter
+    @Setter
+    private static class Request {
+        private String id;
+        private String name;
+        private Integer count;
+        private Integer size;
+        private List<String> tags;
+        private String unknown;
+    }
+
+    @Test
+    public void mergeShouldSkipNullAndIgnoredProperties() {
+        Target target = new Target();
+        target.setId("id");
+        target.setName("name");
+        Request request = new Request();
+        request.setId("other id");
+        request.setTags(Lists.newArrayList("a", "b"));
+        request.setUnknown("unknown");
+
+        ObjectMerger.merge(request, target, "id");
+
+        Assert.assertEquals("id", target.getId());
+        Assert.assertEquals("name", target.getName());
+        Assert.assertEquals(Lists.newArrayList("a", "b"), target.getTags());
+    }
+
+    @Test
+    public void mergeShouldHandlePrimitivesAndConversions() {
+        Target target = new Target();
+        Request request = new Request();
+        request.setCount(3);
+        // int value to long property requires a conversion
+        request.setSize(12);
+
+        ObjectMerger.merge(request, target);
+
+        Assert.assertEquals(3, target.getCount());
+        Assert.assertEquals(12L, target.getSize());
+    }
+
+    @Test
+    public void mergeSameInstanceShouldBeNoop() {
+        Target target = new Target();
+        target.setName("name");
+        target.setCount(2);
+        ObjectMerger.merge(target, target);
+        Assert.assertEquals("name", target.getName());
+        Assert.assertEquals(2, target.getCount());
+    }
+
+    /**
+     * Micro benchmark of the merge against the previous introspector and bean wrapper based implementation.
+     */
+    @Test
+    @Ignore("Benchmark, run manually.")
+    public void benchmarkMerge() {
+        int iterations = 200000;
+        // warm up
+        runMerges(iterations, false);
+        runMerges(iterations, true);
+
+        long start = System.nanoTime();
+        runMerges(iterations, false);
+        long legacyDuration = System.nanoTime() - start;
+        start = System.nanoTime();
+        runMerges(iterations, true);
+        long mergerDuration = System.nanoTime() - start;
+
+        log.info("Merge of {} objects: introspector/bean wrapper {} ms, object merger {} ms", iterations, legacyDuration / 1000000,
+                mergerDuration / 1000000);
+    }
+
+    private void runMerges(int iterations, boolean useMerger) {
+        Request request = new Request();
+        request.setName("name");
+        request.setCount(3);
+        request.setTags(Lists.newArrayList("a"));
+        for (int i = 0; i < iterations; i++) {
+            Target target = new Target();
+            if (useMerger) {
+                ObjectMerger.merge(request, target, "id");
+            } else {
+                legacyMerge(request, target, "id");
+            }
+        }
+    }
+
+    @SneakyThrows
+    private static void legacyMerge(Object from, Object to, String... ignores) {
+        Set<String> ignoredProps = Sets.newHashSet(ignores);
+        Map<String, Object> settablePropertiesMap = Maps.newHashMap();
+        PropertyDescriptor[] propertyDescriptors = ReflectionUtil.getPropertyDescriptors(from.getClass());
+        for (PropertyDescriptor property : propertyDescriptors) {
+            if (property.getReadMethod() == null || property.getWriteMethod() == null) {
+                continue;
+            }
+            property.getReadMethod().setAccessible(true);
+            Object value = property.getReadMethod().invoke(from);
+            if (value != null && !ignoredProps.contains(property.getName())) {
+                settablePropertiesMap.put(property.getName(), value);
+            }
+        }
+        for (Map.Entry<String, Object> settableProperty : settablePropertiesMap.entrySet()) {
+            ReflectionUtil.setPropertyValue(to, settableProperty.getKey(), settableProperty.getValue());
+        }
+    }
+}
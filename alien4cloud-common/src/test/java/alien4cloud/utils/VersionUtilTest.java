@@ -0,0 +1,109 @@
+package alien4cloud.utils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import alien4cloud.utils.version.InvalidVersionException;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class VersionUtilTest {
+
+    @Test
+    public void compareShouldOrderVersions() {
+        Assert.assertTrue(VersionUtil.compare("1.0.0", "1.0.1") < 0);
+        Assert.assertTrue(VersionUtil.compare("1.10.0", "1.9.0") > 0);
+        Assert.assertTrue(VersionUtil.compare("1.0.0-SNAPSHOT", "1.0.0") < 0);
+        Assert.assertEquals(0, VersionUtil.compare("1.0", "1.0.0"));
+        // second comparison uses the interned versions
+        Assert.assertTrue(VersionUtil.compare("1.10.0", "1.9.0") > 0);
+    }
+
+    @Test(expected = InvalidVersionException.class)
+    public void compareShouldFailOnInvalidVersion() {
+        VersionUtil.compare("1.0.0", "anything");
+    }
+
+    @Test(expected = InvalidVersionException.class)
+    public void compareShouldFailOnNullVersion() {
+        VersionUtil.compare(null, "1.0.0");
+    }
+
+    @Test
+    public void parsedVersionsShouldNotBeShared() {
+        Assert.assertNotSame(VersionUtil.parseVersion("1.0.0"), VersionUtil.parseVersion("1.0.0"));
+    }
+
+    @Test
+    public void comparingShouldSortByVersion() {
+        List<String[]> elements = Lists.newArrayList(new String[] { "b", "2.0.0" }, new String[] { "a", "1.0.0-SNAPSHOT" }, new String[] { "c", "1.0.0" });
+        Collections.sort(elements, VersionUtil.comparing(element -> element[1]));
+        Assert.assertEquals("a", elements.get(0)[0]);
+        Assert.assertEquals("c", elements.get(1)[0]);
+        Assert.assertEquals("b", elements.get(2)[0]);
+    }
+
+    @Test
+    public void sortByVersionShouldSortAndKeepOrderOfSameVersions() {
+        List<String[]> elements = Lists.newArrayList(new String[] { "b", "2.0.0" }, new String[] { "a", "1.0.0-SNAPSHOT" }, new String[] { "c", "1.0" },
+                new String[] { "d", "1.0.0" });
+        List<String[]> ascending = VersionUtil.sortByVersion(elements, element -> element[1], false);
+        Assert.assertEquals(Lists.newArrayList("a", "c", "d", "b"), Lists.transform(ascending, element -> element[0]));
+        List<String[]> descending = VersionUtil.sortByVersion(elements, element -> element[1], true);
+        Assert.assertEquals(Lists.newArrayList("b", "c", "d", "a"), Lists.transform(descending, element -> element[0]));
+        // the given collection is not sorted
+        Assert.assertEquals("b", elements.get(0)[0]);
+    }
+
+    @Test
+    public void getLatestShouldReturnLastElementWithHighestVersion() {
+        List<String[]> elements = Lists.newArrayList(new String[] { "a", "1.0.0" }, new String[] { "b", "2.0" }, new String[] { "c", "1.5.0" },
+                new String[] { "d", "2.0.0" });
+        Assert.assertEquals("d", VersionUtil.getLatest(elements, element -> element[1])[0]);
+        Assert.assertNull(VersionUtil.getLatest(Lists.<String[]> newArrayList(), element -> element[1]));
+    }
+
+    @Test
+    @Ignore("Benchmark, run manually.")
+    public void benchmarkSortVersions() {
+        int size = 100000;
+        int iterations = 20;
+        Random random = new Random(0);
+        List<String> versions = Lists.newArrayList();
+        for (int i = 0; i < size; i++) {
+            // a few thousand distinct versions as in a catalog
+            versions.add(random.nextInt(5) + "." + random.nextInt(20) + "." + random.nextInt(20) + (random.nextBoolean() ? "-SNAPSHOT" : ""));
+        }
+        // warm up
+        runSorts(versions, iterations, false);
+        runSorts(versions, iterations, true);
+
+        long start = System.nanoTime();
+        runSorts(versions, iterations, false);
+        long legacyDuration = System.nanoTime() - start;
+        start = System.nanoTime();
+        runSorts(versions, iterations, true);
+        long internedDuration = System.nanoTime() - start;
+
+        log.info("Sort of {} versions: parse on comparison {} ms, interned versions {} ms", size * iterations, legacyDuration / 1000000,
+                internedDuration / 1000000);
+    }
+
+    private void runSorts(List<String> versions, int iterations, boolean interned) {
+        for (int i = 0; i < iterations; i++) {
+            List<String> toSort = Lists.newArrayList(versions);
+            if (interned) {
+                Collections.sort(toSort, VersionUtil::compare);
+            } else {
+                Collections.sort(toSort, (left, right) -> VersionUtil.parseVersion(left).compareTo(VersionUtil.parseVersion(right)));
+            }
+        }
+    }
+}
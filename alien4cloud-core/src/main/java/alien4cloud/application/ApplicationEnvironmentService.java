@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -13,7 +14,11 @@ import org.springframework.stereotype.Service;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.FutureFallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 
 import alien4cloud.dao.IGenericSearchDAO;
@@ -245,11 +250,32 @@ public class ApplicationEnvironmentService {
      * @param environment to determine the status
      * @return {@link DeploymentStatus}
      * @throws alien4cloud.paas.exception.OrchestratorDisabledException
+     * @deprecated This blocks the current thread until the orchestrator answers (up to the orchestrator calls timeout), it is only kept for plugins, use
+     *             {@link #getStatusAsync(ApplicationEnvironment)} instead.
      */
+    @Deprecated
     public DeploymentStatus getStatus(ApplicationEnvironment environment) throws Exception {
+        try {
+            // the call to the orchestrator is bounded by the orchestrator calls timeout.
+            return getStatusAsync(environment).get();
+        } catch (ExecutionException e) {
+            Throwables.propagateIfInstanceOf(e.getCause(), Exception.class);
+            throw e;
+        }
+    }
+
+    /**
+     * Get the environment status regarding the linked topology and cloud without blocking the current thread.
+     *
+     * @param environment to determine the status
+     * @return A future of the {@link DeploymentStatus}, failed with an {@link alien4cloud.paas.exception.OrchestratorUnavailableException} if the orchestrator
+     *         cannot answer in time.
+     * @throws alien4cloud.paas.exception.OrchestratorDisabledException
+     */
+    public ListenableFuture<DeploymentStatus> getStatusAsync(ApplicationEnvironment environment) {
         final Deployment deployment = getActiveDeployment(environment.getId());
         if (deployment == null) {
-            return DeploymentStatus.UNDEPLOYED;
+            return Futures.immediateFuture(DeploymentStatus.UNDEPLOYED);
         }
         final SettableFuture<DeploymentStatus> statusSettableFuture = SettableFuture.create();
         // update the deployment status from PaaS if it cannot be found.
@@ -264,11 +290,31 @@ public class ApplicationEnvironmentService {
                 statusSettableFuture.setException(throwable);
             }
         });
-        DeploymentStatus currentStatus = statusSettableFuture.get();
-        if (DeploymentStatus.UNDEPLOYED.equals(currentStatus)) {
-            deploymentService.markUndeployed(deployment);
+        return statusSettableFuture;
+    }
+
+    /**
+     * Get the environment status without blocking the current thread, {@link DeploymentStatus#UNKNOWN} is returned if the orchestrator is disabled or cannot
+     * answer in time.
+     *
+     * @param environment to determine the status
+     * @return A future of the {@link DeploymentStatus} that never fails.
+     */
+    public ListenableFuture<DeploymentStatus> getStatusOrUnknownAsync(final ApplicationEnvironment environment) {
+        ListenableFuture<DeploymentStatus> statusFuture;
+        try {
+            statusFuture = getStatusAsync(environment);
+        } catch (RuntimeException e) {
+            statusFuture = Futures.immediateFailedFuture(e);
         }
-        return currentStatus;
+        return Futures.withFallback(statusFuture, new FutureFallback<DeploymentStatus>() {
+            @Override
+            public ListenableFuture<DeploymentStatus> create(Throwable t) {
+                log.debug("Getting status for the environment <" + environment.getId()
+                        + "> failed because the associated orchestrator cannot be reached. Returned status is UNKNOWN.", t);
+                return Futures.immediateFuture(DeploymentStatus.UNKNOWN);
+            }
+        });
     }
 
     /**
@@ -2,18 +2,27 @@ package alien4cloud.application;
 
 import static alien4cloud.paas.function.FunctionEvaluator.isGetInput;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
 
 import javax.annotation.Resource;
+import javax.inject.Inject;
 
+import org.alien4cloud.tosca.catalog.index.ArchiveIndexer;
 import org.alien4cloud.tosca.model.templates.*;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import alien4cloud.component.ICSARRepositorySearchService;
+import alien4cloud.dao.ElasticSearchMapper;
 import alien4cloud.exception.AlreadyExistException;
 import alien4cloud.exception.CyclicReferenceException;
 import org.alien4cloud.tosca.model.definitions.AbstractPropertyValue;
@@ -24,11 +33,15 @@ import alien4cloud.paas.wf.WorkflowsBuilderService;
 import alien4cloud.paas.wf.WorkflowsBuilderService.TopologyContext;
 import alien4cloud.topology.TopologyServiceCore;
 import alien4cloud.utils.MapUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Service
 public class TopologyCompositionService {
+    private static final int FLATTENED_CACHE_SIZE = 100;
+    private static final int WORKFLOWS_CACHE_SIZE = 500;
 
     @Resource
     private ICSARRepositorySearchService csarRepoSearchService;
@@ -39,27 +52,117 @@ public class TopologyCompositionService {
     @Resource
     private WorkflowsBuilderService workflowBuilderService;
 
+    @Inject
+    private ArchiveIndexer archiveIndexer;
+
+    private final ObjectMapper mapper = ElasticSearchMapper.getInstance();
+    /** Substitution topologies with their own substitutions already flattened (but nodes not yet prefixed), by topology id. */
+    private final Cache<String, CachedTopology> flattenedTopologies = CacheBuilder.newBuilder().maximumSize(FLATTENED_CACHE_SIZE).build();
+    /** Standard workflows of the last composition of a topology, by topology id. */
+    private final Cache<String, CachedWorkflows> composedWorkflows = CacheBuilder.newBuilder().maximumSize(WORKFLOWS_CACHE_SIZE).build();
+
     public void processTopologyComposition(Topology topology) {
-        Deque<CompositionCouple> stack = new ArrayDeque<CompositionCouple>();
-        recursivelyBuildSubstitutionStack(topology, stack, "");
-        // now this stack contains all the embedded topology templates
-        if (!stack.isEmpty()) {
-            // iterate over the stack in descending order (manage the deepest topologies at a first time).
-            Iterator<CompositionCouple> compositionIterator = stack.descendingIterator();
-            while (compositionIterator.hasNext()) {
-                processComposition(compositionIterator.next());
-            }
+        // read the generation first so a composition computed while the catalog changes is never considered as up to date.
+        long generation = archiveIndexer.getCatalogGeneration();
+        int substitutionCount = composeSubstitutions(topology, generation);
+        // now all the embedded topology templates are merged
+        if (substitutionCount > 0) {
             if (log.isDebugEnabled()) {
                 log.debug(String.format("Topology composition has been processed for topology <%s> substituting %d embeded topologies", topology.getId(),
-                        stack.size()));
+                        substitutionCount));
             }
-
             // std workflows are reinitialized when some composition is processed
             // TODO: find a better way to manage this
-            TopologyContext topologyContext = workflowBuilderService.buildTopologyContext(topology);
-            workflowBuilderService.reinitWorkflow(Workflow.INSTALL_WF, topologyContext);
-            workflowBuilderService.reinitWorkflow(Workflow.UNINSTALL_WF, topologyContext);
+            reinitWorkflows(topology, generation);
+        }
+    }
+
+    /**
+     * Substitute the nodes of the topology that are proxies for topology templates by the (flattened) content of the topology templates.
+     *
+     * @return The number of substituted nodes.
+     */
+    private int composeSubstitutions(Topology topology, long generation) {
+        if (topology == null || topology.getNodeTemplates() == null || topology.getNodeTemplates().isEmpty()) {
+            return 0;
+        }
+        List<CompositionCouple> couples = Lists.newArrayList();
+        for (Entry<String, NodeTemplate> nodeEntry : topology.getNodeTemplates().entrySet()) {
+            String nodeName = nodeEntry.getKey();
+            String type = nodeEntry.getValue().getType();
+            NodeType nodeType = csarRepoSearchService.getRequiredElementInDependencies(NodeType.class, type, topology.getDependencies());
+            if (nodeType.getSubstitutionTopologyId() != null) {
+                // this node type is a proxy for a topology template, nodes of the child (including the ones it embeds) are prefixed by the proxy name.
+                Topology child = getFlattenedTopology(nodeType.getSubstitutionTopologyId(), generation);
+                CompositionCouple couple = new CompositionCouple(topology, child, nodeName, nodeName + "_");
+                renameNodes(couple);
+                couples.add(couple);
+            }
+        }
+        for (CompositionCouple couple : couples) {
+            processComposition(couple);
+        }
+        return couples.size();
+    }
 
+    /**
+     * Get a copy of a topology template in which the embedded topology templates are already substituted. Flattened topologies are cached until the catalog
+     * (that contains the topology templates and their proxy types) changes.
+     */
+    private Topology getFlattenedTopology(String topologyId, long generation) {
+        if (!archiveIndexer.isCatalogCacheEnabled()) {
+            Topology child = topologyServiceCore.getOrFail(topologyId);
+            composeSubstitutions(child, generation);
+            return child;
+        }
+        CachedTopology cached = flattenedTopologies.getIfPresent(topologyId);
+        if (cached != null && cached.getGeneration() == generation) {
+            try {
+                // the composition updates the child, always work on a fresh copy.
+                return mapper.readValue(cached.getJson(), Topology.class);
+            } catch (IOException e) {
+                log.warn("Unable to read cached flattened topology <" + topologyId + ">, flattening it again.", e);
+            }
+        }
+        Topology child = topologyServiceCore.getOrFail(topologyId);
+        composeSubstitutions(child, generation);
+        try {
+            flattenedTopologies.put(topologyId, new CachedTopology(generation, mapper.writeValueAsString(child)));
+        } catch (JsonProcessingException e) {
+            log.warn("Unable to cache flattened topology <" + topologyId + ">.", e);
+        }
+        return child;
+    }
+
+    /**
+     * Reinitialize the standard workflows of a composed topology. As building workflows requires to browse the types of all nodes, workflows are reused
+     * when neither the topology (saved topologies get a new last update date on every save) nor the catalog (that contains the substituted topology templates)
+     * changed since the previous call for this topology.
+     */
+    private void reinitWorkflows(Topology topology, long generation) {
+        boolean cacheable = topology.getId() != null && topology.getLastUpdateDate() != null && archiveIndexer.isCatalogCacheEnabled();
+        if (cacheable) {
+            try {
+                CachedWorkflows cached = composedWorkflows.getIfPresent(topology.getId());
+                if (cached != null && cached.getGeneration() == generation && cached.getLastUpdateDate() == topology.getLastUpdateDate().getTime()) {
+                    topology.getWorkflows().put(Workflow.INSTALL_WF, mapper.readValue(cached.getInstallWorkflow(), Workflow.class));
+                    topology.getWorkflows().put(Workflow.UNINSTALL_WF, mapper.readValue(cached.getUninstallWorkflow(), Workflow.class));
+                    return;
+                }
+            } catch (IOException e) {
+                log.warn("Unable to reuse workflows of topology <" + topology.getId() + ">, workflows will be rebuilt.", e);
+            }
+        }
+        TopologyContext topologyContext = workflowBuilderService.buildTopologyContext(topology);
+        Workflow installWorkflow = workflowBuilderService.reinitWorkflow(Workflow.INSTALL_WF, topologyContext);
+        Workflow uninstallWorkflow = workflowBuilderService.reinitWorkflow(Workflow.UNINSTALL_WF, topologyContext);
+        if (cacheable) {
+            try {
+                composedWorkflows.put(topology.getId(), new CachedWorkflows(generation, topology.getLastUpdateDate().getTime(),
+                        mapper.writeValueAsString(installWorkflow), mapper.writeValueAsString(uninstallWorkflow)));
+            } catch (JsonProcessingException e) {
+                log.warn("Unable to cache workflows of topology <" + topology.getId() + ">.", e);
+            }
         }
     }
 
@@ -141,8 +244,8 @@ public class TopologyCompositionService {
                         .entrySet()) {
                     if (substitutionCapabilityEntry.getValue().getNodeTemplateName().equals(compositionCouple.nodeName)) {
                         String targetCapability = substitutionCapabilityEntry.getValue().getTargetId();
-                        // just substitute the substitution target
-                        substitutionCapabilityEntry.setValue(compositionCouple.child.getSubstitutionMapping().getCapabilities().get(targetCapability));
+                        // just substitute the substitution target (copied as the parent targets are renamed if the parent is itself composed)
+                        substitutionCapabilityEntry.setValue(copy(compositionCouple.child.getSubstitutionMapping().getCapabilities().get(targetCapability)));
                     }
                 }
             }
@@ -151,7 +254,7 @@ public class TopologyCompositionService {
                     if (e.getValue().getNodeTemplateName().equals(compositionCouple.nodeName)) {
                         String targetCapability = e.getValue().getTargetId();
                         // just substitute the substitution target
-                        e.setValue(compositionCouple.child.getSubstitutionMapping().getRequirements().get(targetCapability));
+                        e.setValue(copy(compositionCouple.child.getSubstitutionMapping().getRequirements().get(targetCapability)));
                     }
                 }
             }
@@ -160,6 +263,10 @@ public class TopologyCompositionService {
         compositionCouple.parent.getNodeTemplates().putAll(compositionCouple.child.getNodeTemplates());
     }
 
+    private SubstitutionTarget copy(SubstitutionTarget substitutionTarget) {
+        return substitutionTarget == null ? null : new SubstitutionTarget(substitutionTarget.getNodeTemplateName(), substitutionTarget.getTargetId());
+    }
+
     /**
      * Ugly code : since we don't name outputs in alien topology, we are not able to determine if an output is related to a property, to an attribute or to a
      * capability property. This is done in the same order than alien4cloud.topology.TopologyServiceCore.updateSubstitutionType(Topology) processes substitution
@@ -242,29 +349,6 @@ public class TopologyCompositionService {
         }
     }
 
-    /**
-     * Deeply explore this topology to detect if some type must be substituted by the corresponding topology template content and feed the {@link Deque}. <br>
-     * BTW, rename the nodes by prefixing all the node names.
-     */
-    private void recursivelyBuildSubstitutionStack(Topology topology, Deque<CompositionCouple> stack, String prefix) {
-        if (topology == null || topology.getNodeTemplates() == null || topology.getNodeTemplates().isEmpty()) {
-            return;
-        }
-        for (Entry<String, NodeTemplate> nodeEntry : topology.getNodeTemplates().entrySet()) {
-            String nodeName = nodeEntry.getKey();
-            String type = nodeEntry.getValue().getType();
-            NodeType nodeType = csarRepoSearchService.getRequiredElementInDependencies(NodeType.class, type, topology.getDependencies());
-            if (nodeType.getSubstitutionTopologyId() != null) {
-                // this node type is a proxy for a topology template
-                Topology child = topologyServiceCore.getOrFail(nodeType.getSubstitutionTopologyId());
-                CompositionCouple couple = new CompositionCouple(topology, child, nodeName, nodeName + "_");
-                renameNodes(couple);
-                stack.offer(couple);
-                recursivelyBuildSubstitutionStack(child, stack, nodeName + "_");
-            }
-        }
-    }
-
     private void renameNodes(CompositionCouple compositionCouple) {
         Topology topology = compositionCouple.child;
         String[] nodeNames = new String[topology.getNodeTemplates().size()];
@@ -376,4 +460,21 @@ public class TopologyCompositionService {
         }
     }
 
+    @Getter
+    @AllArgsConstructor
+    private static class CachedTopology {
+        private final long generation;
+        private final String json;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class CachedWorkflows {
+        /** Catalog generation and last update date of the topology for which the workflows have been built. */
+        private final long generation;
+        private final long lastUpdateDate;
+        private final String installWorkflow;
+        private final String uninstallWorkflow;
+    }
+
 }
@@ -2,8 +2,7 @@ package alien4cloud.common;
 
 import static alien4cloud.common.AlienConstants.APP_WORKSPACE_PREFIX;
 
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -243,13 +242,7 @@ public abstract class AbtractVersionService<V extends AbstractTopologyVersion> {
         if (data == null || data.length <= 1) {
             return data;
         }
-        List<V> sortedData = Lists.newArrayList(data);
-        Collections.sort(sortedData, new Comparator<V>() {
-            @Override
-            public int compare(V left, V right) {
-                return VersionUtil.compare(right.getVersion(), left.getVersion());
-            }
-        });
+        List<V> sortedData = VersionUtil.sortByVersion(Arrays.asList(data), V::getVersion, true);
         return sortedData.toArray(buildVersionImplemArray(data.length));
     }
 
@@ -1,37 +1,68 @@
 package alien4cloud.component;
 
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Function;
 
-import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
+import javax.inject.Inject;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.metrics.tophits.TopHits;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortOrder;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
 
 import alien4cloud.Constants;
+import alien4cloud.configuration.ApplicationBootstrap;
+import alien4cloud.dao.IAggregationQueryManager;
 import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.FacetedSearchResult;
 import alien4cloud.dao.model.GetMultipleDataResult;
+import org.alien4cloud.tosca.catalog.index.ArchiveIndexer;
 import org.alien4cloud.tosca.model.types.NodeType;
 import org.alien4cloud.tosca.model.templates.Topology;
-import alien4cloud.utils.MapUtil;
-import alien4cloud.utils.version.Version;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 /**
  * Updates the scoring of node types based on their usage, version and default capabilities.
+ *
+ * Usage of all types and latest versions are retrieved through aggregations (one request each) and scores are written using bulk requests. After the first
+ * run, scores are recomputed only for the types whose usage or latest version changed, or for all types if the catalog changed (archives have been imported or
+ * removed) since the last run.
  */
 @Slf4j
 @Component
-public class NodeTypeScoreService implements Runnable {
+public class NodeTypeScoreService implements Runnable, SmartLifecycle {
+    /** Lifecycle phase of the scoring, once the initial archives are loaded. */
+    public static final int PHASE = ApplicationBootstrap.PHASE + 1;
+    private static final String USAGE_AGGREGATION = "usage";
+    private static final String LATEST_AGGREGATION = "latest";
+    private static final String LATEST_HIT_AGGREGATION = "latest_version";
+
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienESDAO;
     @Resource(name = "node-type-score-scheduler")
     private TaskScheduler scheduler;
+    @Inject
+    private ArchiveIndexer archiveIndexer;
 
     @Value("${components.search.boost.frequency}")
     private long frequencyH = 1;
@@ -42,59 +73,189 @@ public class NodeTypeScoreService implements Runnable {
     @Value("${components.search.boost.default}")
     private long defaultBoost;
 
-    /** Refresh boost for all indexed node types in the system. */
-    @PostConstruct
-    public void refreshBoostCompute() {
+    /** State of the last run, used to recompute only the scores that changed. */
+    private Map<String, Long> lastUsages;
+    private Map<String, String> lastLatestVersions;
+    private long lastCatalogGeneration = -1;
+    /** Number of catalog changes notified by the current run (to not consider the scores updates as catalog changes on the next run). */
+    private int scoreChanges;
+
+    private ScheduledFuture<?> scheduledRefresh;
+
+    /** Refresh boost for all indexed node types in the system, scores are written only by the leader instance in case of HA. */
+    @Override
+    public synchronized void start() {
+        if (scheduledRefresh != null) {
+            return;
+        }
         long frequencyMs = frequencyH * 1000 * 60 * 60;
         Date date = new Date(System.currentTimeMillis() + frequencyMs);
         log.info("Type score is scheduled with {} ms frequency", frequencyMs);
-        scheduler.scheduleAtFixedRate(this, date, frequencyMs);
+        scheduledRefresh = scheduler.scheduleAtFixedRate(this, date, frequencyMs);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+            scheduledRefresh = null;
+        }
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        stop();
+        callback.run();
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return scheduledRefresh != null;
     }
 
     @Override
-    public void run() {
+    public boolean isAutoStartup() {
+        // started on leader election only.
+        return false;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    @Override
+    public synchronized void run() {
         log.info("Updating node type scores.");
-        // Go over all indexed node types.
-        GetMultipleDataResult<NodeType> getMultipleDataResult = alienESDAO.find(NodeType.class, null, 0, Constants.DEFAULT_ES_SEARCH_SIZE);
-        int from = getMultipleDataResult.getTo() + 1;
-        processNodeTypes(getMultipleDataResult.getData());
-        while (getMultipleDataResult.getData().length > 0 && from < getMultipleDataResult.getTotalResults()) {
-            getMultipleDataResult = alienESDAO.find(NodeType.class, null, from, from + Constants.DEFAULT_ES_SEARCH_SIZE);
-            from = getMultipleDataResult.getTo() + 1;
-            processNodeTypes(getMultipleDataResult.getData());
+        // re-imported archives (SNAPSHOT) replace their types without changing their number, scores have to be computed again.
+        long catalogGeneration = archiveIndexer.getCatalogGeneration();
+        scoreChanges = 0;
+        Map<String, Long> usages = getUsages();
+        Map<String, String> latestVersions = getLatestVersions();
+
+        if (lastUsages == null || catalogGeneration != lastCatalogGeneration) {
+            // Go over all indexed node types.
+            processNodeTypes(null, usages, latestVersions.keySet());
+        } else {
+            Set<String> changedElementIds = Sets.newHashSet();
+            for (String elementId : Sets.union(usages.keySet(), lastUsages.keySet())) {
+                if (!getUsage(usages, elementId).equals(getUsage(lastUsages, elementId))) {
+                    changedElementIds.add(elementId);
+                }
+            }
+            for (String typeId : Sets.symmetricDifference(latestVersions.keySet(), lastLatestVersions.keySet())) {
+                changedElementIds.add(latestVersions.containsKey(typeId) ? latestVersions.get(typeId) : lastLatestVersions.get(typeId));
+            }
+            log.debug("Updating scores of {} node types elements", changedElementIds.size());
+            for (List<String> elementIds : Iterables.partition(changedElementIds, Constants.DEFAULT_ES_SEARCH_SIZE)) {
+                Map<String, String[]> filters = Maps.newHashMap();
+                filters.put("elementId", elementIds.toArray(new String[elementIds.size()]));
+                processNodeTypes(filters, usages, latestVersions.keySet());
+            }
         }
+
+        lastUsages = usages;
+        lastLatestVersions = latestVersions;
+        // if the catalog changed during this run (other than because of the scores) the next run processes all the types.
+        long currentGeneration = archiveIndexer.getCatalogGeneration();
+        lastCatalogGeneration = currentGeneration == catalogGeneration + scoreChanges ? currentGeneration : catalogGeneration;
+    }
+
+    private void processNodeTypes(Map<String, String[]> filters, Map<String, Long> usages, Set<String> latestVersionIds) {
+        int from = 0;
+        GetMultipleDataResult<NodeType> getMultipleDataResult;
+        do {
+            getMultipleDataResult = alienESDAO.find(NodeType.class, filters, from, Constants.DEFAULT_ES_SEARCH_SIZE);
+            processNodeTypes(getMultipleDataResult.getData(), usages, latestVersionIds);
+            from += getMultipleDataResult.getData().length;
+        } while (getMultipleDataResult.getData().length > 0 && from < getMultipleDataResult.getTotalResults());
     }
 
-    private void processNodeTypes(NodeType[] indexedNodeTypes) {
+    private void processNodeTypes(NodeType[] indexedNodeTypes, Map<String, Long> usages, Set<String> latestVersionIds) {
+        List<NodeType> updatedNodeTypes = Lists.newArrayList();
         for (NodeType nodeType : indexedNodeTypes) {
             if (log.isDebugEnabled()) {
                 log.debug("Processing node score for type {}", nodeType.getId());
             }
-            Map<String, String[]> usedNodeFiler = Maps.newHashMap();
-            usedNodeFiler.put("nodeTemplates.value.type", new String[] { nodeType.getElementId() });
             // count the applications that uses the node-type
-            long usageFactor = usageBoost * alienESDAO.count(Topology.class, null, usedNodeFiler);
+            long usageFactor = usageBoost * getUsage(usages, nodeType.getElementId());
             // get the version factor (latest version of a node is better than previous version, snapshot versions do not get boost)
-            long versionFactor = isLatestVersion(nodeType) ? versionBoost : 0;
+            long versionFactor = latestVersionIds.contains(nodeType.getId()) ? versionBoost : 0;
             // default boost (boost node types that have a default capability)
             long defaultFactor = nodeType.getDefaultCapabilities() == null || nodeType.getDefaultCapabilities().isEmpty() ? 0 : defaultBoost;
-            // update the score for the node type.
-            nodeType.setAlienScore(usageFactor + defaultFactor + versionFactor);
-            alienESDAO.save(nodeType);
+            // update the score for the node type if it changed.
+            long score = usageFactor + defaultFactor + versionFactor;
+            if (score != nodeType.getAlienScore()) {
+                nodeType.setAlienScore(score);
+                updatedNodeTypes.add(nodeType);
+            }
+        }
+        if (!updatedNodeTypes.isEmpty()) {
+            alienESDAO.save(updatedNodeTypes.toArray(new NodeType[updatedNodeTypes.size()]));
+            // scores are part of the catalog search results
+            archiveIndexer.catalogChanged();
+            scoreChanges++;
         }
     }
 
-    private boolean isLatestVersion(NodeType nodeType) {
-        Map<String, String[]> filters = MapUtil.newHashMap(new String[] { "elementId" }, new String[][] { new String[] { nodeType.getElementId() } });
-        // TODO get a single element and order by version.
-        Version nodeVersion = new Version(((NodeType) nodeType).getArchiveVersion());
+    private Long getUsage(Map<String, Long> usages, String elementId) {
+        Long usage = usages.get(elementId);
+        return usage == null ? 0L : usage;
+    }
 
-        for (Object otherVersionNodeType : alienESDAO.find(NodeType.class, filters, Constants.DEFAULT_ES_SEARCH_SIZE).getData()) {
-            Version otherVersion = new Version(((NodeType) otherVersionNodeType).getArchiveVersion());
-            if (nodeVersion.compareTo(otherVersion) < 0) {
-                return false;
+    /**
+     * Count the topologies that uses every node type using a single terms aggregation.
+     *
+     * @return A map of number of topologies by node type element id.
+     */
+    private Map<String, Long> getUsages() {
+        final Map<String, Long> usages = Maps.newHashMap();
+        final AggregationBuilder aggregation = AggregationBuilders.terms(USAGE_AGGREGATION).field("nodeTemplates.value.type").size(0);
+        alienESDAO.buildQuery(Topology.class).prepareSearch().facetedSearch(new IAggregationQueryManager() {
+            @Override
+            public AggregationBuilder getQueryAggregation() {
+                return aggregation;
             }
-        }
-        return true;
+
+            @Override
+            public void setData(ObjectMapper objectMapper, Function getClassFromType, FacetedSearchResult result, Aggregation aggregation) {
+                for (Terms.Bucket bucket : ((Terms) aggregation).getBuckets()) {
+                    usages.put(bucket.getKey(), bucket.getDocCount());
+                }
+            }
+        });
+        return usages;
+    }
+
+    /**
+     * Get the latest version of every node type using a single terms aggregation.
+     *
+     * @return A map of node type element ids by id of the latest version of the node types.
+     */
+    private Map<String, String> getLatestVersions() {
+        final Map<String, String> latestVersions = Maps.newHashMap();
+        final AggregationBuilder aggregation = AggregationBuilders.terms(LATEST_AGGREGATION).field("elementId").size(0)
+                .subAggregation(AggregationBuilders.topHits(LATEST_HIT_AGGREGATION).setSize(1).setFetchSource(new String[] { "elementId" }, null)
+                        .addSort(new FieldSortBuilder("nestedVersion.majorVersion").order(SortOrder.DESC))
+                        .addSort(new FieldSortBuilder("nestedVersion.minorVersion").order(SortOrder.DESC))
+                        .addSort(new FieldSortBuilder("nestedVersion.incrementalVersion").order(SortOrder.DESC))
+                        .addSort(new FieldSortBuilder("nestedVersion.qualifier").order(SortOrder.DESC).missing("_first")));
+        alienESDAO.buildQuery(NodeType.class).prepareSearch().facetedSearch(new IAggregationQueryManager() {
+            @Override
+            public AggregationBuilder getQueryAggregation() {
+                return aggregation;
+            }
+
+            @Override
+            public void setData(ObjectMapper objectMapper, Function getClassFromType, FacetedSearchResult result, Aggregation aggregation) {
+                for (Terms.Bucket bucket : ((Terms) aggregation).getBuckets()) {
+                    TopHits topHits = bucket.getAggregations().get(LATEST_HIT_AGGREGATION);
+                    for (SearchHit hit : topHits.getHits()) {
+                        latestVersions.put(hit.getId(), (String) hit.getSource().get("elementId"));
+                    }
+                }
+            }
+        });
+        return latestVersions;
     }
 }
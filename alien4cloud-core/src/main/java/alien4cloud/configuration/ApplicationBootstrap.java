@@ -7,18 +7,28 @@ import javax.inject.Inject;
 import alien4cloud.repository.services.RepositoryService;
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.context.ApplicationListener;
-import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Component;
 
 import alien4cloud.orchestrators.services.OrchestratorStateService;
 import alien4cloud.plugin.PluginManager;
 
+import org.alien4cloud.tosca.catalog.index.ArchiveIndexer;
+
 import com.google.common.util.concurrent.ListenableFuture;
 
+/**
+ * Loads the initial archives, the plugins and the orchestrators when the application context is started.
+ *
+ * These operations require the leadership of the instance in case of HA, the context is started only once the instance is elected as leader. The bootstrap
+ * is started after the {@link ArchiveIndexer} so that the initial archives are indexed as catalog changes.
+ */
 @Slf4j
 @Component
-public class ApplicationBootstrap implements ApplicationListener<ContextRefreshedEvent> {
+public class ApplicationBootstrap implements SmartLifecycle {
+    /** Lifecycle phase of the bootstrap, after the archive indexer. */
+    public static final int PHASE = ArchiveIndexer.PHASE + 1;
+
     @Inject
     private PluginManager pluginManager;
     @Inject
@@ -28,7 +38,7 @@ public class ApplicationBootstrap implements ApplicationListener<ContextRefreshe
     @Inject
     private InitialLoader initialLoader;
 
-    private boolean initialized = false;
+    private volatile boolean running = false;
 
     /**
      * This operation initialize the JVM of Alien with configured plugins and context
@@ -57,11 +67,44 @@ public class ApplicationBootstrap implements ApplicationListener<ContextRefreshe
     }
 
     @Override
-    public void onApplicationEvent(ContextRefreshedEvent event) {
-        if (initialized) {
+    public synchronized void start() {
+        if (running) {
             return;
         }
-        initialized = true;
+        running = true;
+        try {
+            initialLoader.initialLoad();
+        } catch (IOException e) {
+            log.error("Error while loading initial archives.", e);
+        }
         bootstrap();
     }
+
+    @Override
+    public void stop() {
+        // plugins and orchestrators are unloaded explicitly using teardown.
+        running = false;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        stop();
+        callback.run();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        // started on leader election only.
+        return false;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
 }
\ No newline at end of file
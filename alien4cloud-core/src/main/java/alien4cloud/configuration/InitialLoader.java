@@ -8,7 +8,6 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
-import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 
 import org.alien4cloud.tosca.catalog.ArchiveUploadService;
@@ -52,7 +51,9 @@ public class InitialLoader {
     private String alienInitDirectory;
     private Path alienPluginsInitPath;
 
-    @PostConstruct
+    /**
+     * Load the initial archives, this is done once the instance is leader (see {@link ApplicationBootstrap}).
+     */
     public void initialLoad() throws IOException {
         // Ensure tosca context injector is loaded first.
         if (toscaContextInjector == null) {
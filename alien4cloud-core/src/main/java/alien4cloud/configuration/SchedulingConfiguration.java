@@ -7,7 +7,9 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+
+import alien4cloud.utils.services.ExecutorRegistry;
 
 @Configuration
 @EnableAsync
@@ -18,19 +20,13 @@ public class SchedulingConfiguration {
     private int paasMonitorThreadPoolSize;
 
     @Bean(name = "paas-monitor-scheduler")
-    public Executor getPaaSScheduler() {
-        ThreadPoolTaskScheduler threadPoolTaskScheduler = new ThreadPoolTaskScheduler();
-        threadPoolTaskScheduler.setPoolSize(paasMonitorThreadPoolSize);
-        threadPoolTaskScheduler.setThreadNamePrefix("paas-monitor-");
-        return threadPoolTaskScheduler;
+    public Executor getPaaSScheduler(ExecutorRegistry executorRegistry) {
+        return new ConcurrentTaskScheduler(executorRegistry.getScheduledExecutor("paas-monitor", paasMonitorThreadPoolSize));
     }
 
     @Bean(name = "node-type-score-scheduler")
-    public Executor getNodeTypeScoreScheduler() {
-        ThreadPoolTaskScheduler threadPoolTaskScheduler = new ThreadPoolTaskScheduler();
-        threadPoolTaskScheduler.setPoolSize(1);
-        threadPoolTaskScheduler.setThreadNamePrefix("node-type-score-");
-        return threadPoolTaskScheduler;
+    public Executor getNodeTypeScoreScheduler(ExecutorRegistry executorRegistry) {
+        return new ConcurrentTaskScheduler(executorRegistry.getScheduledExecutor("node-type-score", 1));
     }
 
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Set;
@@ -30,10 +31,27 @@ public class CsarFinderService {
      * @return a list of path that contains archives.
      */
     public Set<Path> prepare(Path searchPath, Path zipPath, String subpath) {
+        return prepare(searchPath, zipPath, subpath, null);
+    }
+
+    /**
+     * Search in the given path for folders that contains CloudServiceArchives and zip only the ones that contains some changed files.
+     *
+     * @param searchPath The path in which to search for archives.
+     * @param changedFiles The paths, relative to the search path, of the files that changed. If null all archives are zipped.
+     * @return a list of path that contains archives.
+     */
+    public Set<Path> prepare(Path searchPath, Path zipPath, String subpath, Set<String> changedFiles) {
         ToscaFinderWalker toscaFinderWalker = new ToscaFinderWalker();
         toscaFinderWalker.zipRootPath = zipPath;
         toscaFinderWalker.rootPath = searchPath;
         toscaFinderWalker.subpath = subpath;
+        if (changedFiles != null) {
+            toscaFinderWalker.changedFiles = Sets.newHashSet();
+            for (String changedFile : changedFiles) {
+                toscaFinderWalker.changedFiles.add(Paths.get(changedFile));
+            }
+        }
         try {
             Files.walkFileTree(searchPath, toscaFinderWalker);
         } catch (IOException e) {
@@ -46,6 +64,7 @@ public class CsarFinderService {
         private Path rootPath;
         private Path zipRootPath;
         private String subpath;
+        private Set<Path> changedFiles;
         private Set<Path> toscaArchives = Sets.newHashSet();
 
         @Override
@@ -74,6 +93,9 @@ public class CsarFinderService {
                 return;
             }
             Path relativePath = rootPath.relativize(path);
+            if (!isChanged(relativePath)) {
+                return;
+            }
             Path zipPath = zipRootPath.resolve(relativePath).resolve("archive.zip");
             try {
                 if (Files.exists(zipPath)) {
@@ -85,5 +107,21 @@ public class CsarFinderService {
                 throw new GitException("Failed to zip archives in order to import them.", e);
             }
         }
+
+        private boolean isChanged(Path relativeArchivePath) {
+            if (changedFiles == null) {
+                return true;
+            }
+            if (relativeArchivePath.toString().isEmpty()) {
+                // the archive is the whole repository
+                return !changedFiles.isEmpty();
+            }
+            for (Path changedFile : changedFiles) {
+                if (changedFile.startsWith(relativeArchivePath)) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 }
\ No newline at end of file
@@ -123,6 +123,7 @@ public class CsarGitRepositoryService {
             CsarGitCheckoutLocation existingLocation = findLocationIn(location, repositoryToUpdate.getImportLocations());
             if (existingLocation != null) {
                 location.setLastImportedHash(existingLocation.getLastImportedHash());
+                location.setImportedArchiveIds(existingLocation.getImportedArchiveIds());
             }
         }
         repositoryToUpdate.setImportLocations(importLocations);
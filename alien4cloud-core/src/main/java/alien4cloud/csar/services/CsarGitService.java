@@ -3,10 +3,12 @@ package alien4cloud.csar.services;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -18,10 +20,17 @@ import org.alien4cloud.tosca.model.Csar;
 import org.eclipse.jgit.api.Git;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.FileSystemUtils;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 import alien4cloud.common.AlienConstants;
 import alien4cloud.component.repository.exception.CSARUsedInActiveDeployment;
@@ -33,14 +42,18 @@ import alien4cloud.model.components.CSARSource;
 import alien4cloud.model.git.CsarDependenciesBean;
 import alien4cloud.model.git.CsarGitCheckoutLocation;
 import alien4cloud.model.git.CsarGitRepository;
+import alien4cloud.tosca.parser.ParsingErrorLevel;
 import alien4cloud.tosca.parser.ParsingException;
 import alien4cloud.tosca.parser.ParsingResult;
 import alien4cloud.utils.FileUtil;
+import alien4cloud.utils.services.ExecutorRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Service
 public class CsarGitService {
+    private static final String GIT_IMPORT_EXECUTOR = "git-import";
+
     @Inject
     private CsarGitRepositoryService csarGitRepositoryService;
     @Inject
@@ -51,6 +64,15 @@ public class CsarGitService {
     private IGenericSearchDAO alienDAO;
     @Resource
     private ICsarService csarService;
+    @Resource
+    private ExecutorRegistry executorRegistry;
+
+    /** If true, only the archives that contains changes since the last imported commit of a location are imported. */
+    @Value("${git_import.incremental:true}")
+    private boolean incrementalImport = true;
+    /** Number of threads used to parse independent archives concurrently. */
+    @Value("${git_import.threads:4}")
+    private int importThreads = 4;
     // TODO store archives that are not 'temp' in another location.
     private Path tempDirPath;
     private Path tempZipDirPath;
@@ -125,12 +147,33 @@ public class CsarGitService {
                 RepositoryManager.pull(git, csarGitRepository.getUsername(), csarGitRepository.getPassword());
             }
             String hash = RepositoryManager.getLastHash(git);
+            // when the location has been imported from another commit, only the archives that changed since have to be imported again.
+            Set<String> changedFiles = null;
+            String lastImportedHash = csarGitCheckoutLocation.getLastImportedHash();
+            if (incrementalImport && lastImportedHash != null && !lastImportedHash.equals(hash)) {
+                if (isImportedArchiveMissing(csarGitCheckoutLocation)) {
+                    log.info("Archives previously imported from location <{}> of repository <{}> have been deleted, importing the whole location",
+                            csarGitCheckoutLocation.getBranchId(), csarGitRepository.getRepositoryUrl());
+                } else {
+                    changedFiles = RepositoryManager.getChangedFiles(git, lastImportedHash, hash);
+                    if (changedFiles != null) {
+                        log.debug("{} files changed since last import of location <{}> of repository <{}>", changedFiles.size(),
+                                csarGitCheckoutLocation.getBranchId(), csarGitRepository.getRepositoryUrl());
+                    }
+                }
+            }
 
             // now that the repository is checked out and up to date process with the import
-            List<ParsingResult<Csar>> results = processImport(csarGitRepository, csarGitCheckoutLocation, hash);
+            Set<String> archiveIds = Sets.newHashSet();
+            List<ParsingResult<Csar>> results = processImport(csarGitRepository, csarGitCheckoutLocation, hash, changedFiles, archiveIds);
 
-            if (!Objects.equals(csarGitCheckoutLocation.getLastImportedHash(), hash)) {
+            // the hash is kept when some archives failed to be imported so that they are imported again next time even if they don't change.
+            if (!Objects.equals(csarGitCheckoutLocation.getLastImportedHash(), hash) && !hasErrors(results)) {
+                if (changedFiles != null && csarGitCheckoutLocation.getImportedArchiveIds() != null) {
+                    archiveIds.addAll(csarGitCheckoutLocation.getImportedArchiveIds());
+                }
                 csarGitCheckoutLocation.setLastImportedHash(hash);
+                csarGitCheckoutLocation.setImportedArchiveIds(archiveIds);
                 alienDAO.save(csarGitRepository); // update the hash for this location.
             }
             // TODO best would be to provide with a better result to show that we didn't retried import
@@ -140,28 +183,98 @@ public class CsarGitService {
         }
     }
 
-    private List<ParsingResult<Csar>> processImport(CsarGitRepository csarGitRepository, CsarGitCheckoutLocation csarGitCheckoutLocation, String gitHash) {
-        // find all the archives under the given hierarchy and zip them to create archives
+    private boolean isImportedArchiveMissing(CsarGitCheckoutLocation csarGitCheckoutLocation) {
+        if (csarGitCheckoutLocation.getImportedArchiveIds() == null) {
+            return false;
+        }
+        for (String archiveId : csarGitCheckoutLocation.getImportedArchiveIds()) {
+            if (csarService.get(archiveId) == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasErrors(List<ParsingResult<Csar>> results) {
+        for (ParsingResult<Csar> result : results) {
+            if (result.hasError(ParsingErrorLevel.ERROR)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<ParsingResult<Csar>> processImport(CsarGitRepository csarGitRepository, CsarGitCheckoutLocation csarGitCheckoutLocation, String gitHash,
+            Set<String> changedFiles, Set<String> archiveIds) {
+        // find all the archives (or only the changed ones) under the given hierarchy and zip them to create archives
         Path archiveZipRoot = tempZipDirPath.resolve(csarGitRepository.getId());
         Path archiveGitRoot = tempDirPath.resolve(csarGitRepository.getId());
-        Set<Path> archivePaths = csarFinderService.prepare(archiveGitRoot, archiveZipRoot, csarGitCheckoutLocation.getSubPath());
+        Set<Path> archivePaths = csarFinderService.prepare(archiveGitRoot, archiveZipRoot, csarGitCheckoutLocation.getSubPath(), changedFiles);
 
         // TODO code review has to be completed to further cleanup below processing.
-        List<ParsingResult<Csar>> parsingResult = Lists.newArrayList();
+        List<ParsingResult<Csar>> parsingResult = Collections.synchronizedList(Lists.<ParsingResult<Csar>> newArrayList());
+        ListeningExecutorService executorService = executorRegistry.getExecutor(GIT_IMPORT_EXECUTOR, importThreads);
+        // import tasks run with the security context of the caller as the archive indexer checks the authorizations of the current user.
+        SecurityContext securityContext = SecurityContextHolder.getContext();
         try {
-            Map<CSARDependency, CsarDependenciesBean> csarDependenciesBeans = uploadService.preParsing(archivePaths, parsingResult);
-            List<CsarDependenciesBean> sorted = sort(csarDependenciesBeans);
-            for (CsarDependenciesBean csarBean : sorted) {
-                if (csarGitCheckoutLocation.getLastImportedHash() != null && csarGitCheckoutLocation.getLastImportedHash().equals(gitHash)) {
-                    if (csarService.get(csarBean.getSelf().getName(), csarBean.getSelf().getVersion()) != null) {
-                        // no commit since last import and the archive still exist in the repo, so do not import
-                        // TODO notify the user that the archive has already been imported
-                        continue;
+            Map<CSARDependency, CsarDependenciesBean> csarDependenciesBeans = preParse(executorService, securityContext, archivePaths, parsingResult);
+            // archives that depends on a changed archive have to be validated again, this requires to pre-parse all the archives of the location.
+            Set<CSARDependency> changedArchives = null;
+            if (changedFiles != null && hasDependants(csarDependenciesBeans.keySet())) {
+                changedArchives = Sets.newHashSet(csarDependenciesBeans.keySet());
+                parsingResult.clear();
+                archivePaths = csarFinderService.prepare(archiveGitRoot, archiveZipRoot, csarGitCheckoutLocation.getSubPath());
+                csarDependenciesBeans = preParse(executorService, securityContext, archivePaths, parsingResult);
+            }
+            Map<CSARDependency, Set<CSARDependency>> dependencies = Maps.newHashMap();
+            for (CsarDependenciesBean csarBean : csarDependenciesBeans.values()) {
+                archiveIds.add(new Csar(csarBean.getSelf().getName(), csarBean.getSelf().getVersion()).getId());
+                dependencies.put(csarBean.getSelf(), csarBean.getDependencies() == null ? Sets.<CSARDependency> newHashSet()
+                        : Sets.newHashSet(csarBean.getDependencies()));
+            }
+            // archives of a level only depends on archives of the previous levels and are imported concurrently, the archive indexer only locks each
+            // archive and its dependencies while it is indexed.
+            Set<CSARDependency> imported = Sets.newHashSet();
+            for (List<CsarDependenciesBean> level : sort(csarDependenciesBeans)) {
+                List<CsarDependenciesBean> toImport = Lists.newArrayList();
+                for (CsarDependenciesBean csarBean : level) {
+                    if (changedArchives != null) {
+                        if (!changedArchives.contains(csarBean.getSelf()) && Collections.disjoint(dependencies.get(csarBean.getSelf()), imported)) {
+                            // neither the archive nor its dependencies changed.
+                            continue;
+                        }
+                    } else if (csarGitCheckoutLocation.getLastImportedHash() != null && csarGitCheckoutLocation.getLastImportedHash().equals(gitHash)) {
+                        if (csarService.get(csarBean.getSelf().getName(), csarBean.getSelf().getVersion()) != null) {
+                            // no commit since last import and the archive still exist in the repo, so do not import
+                            // TODO notify the user that the archive has already been imported
+                            continue;
+                        }
+                    }
+                    toImport.add(csarBean);
+                    imported.add(csarBean.getSelf());
+                }
+                List<ListenableFuture<List<ParsingResult<Csar>>>> futures = Lists.newArrayList();
+                List<List<ParsingResult<Csar>>> levelResults = Lists.newArrayList();
+                for (List<CsarDependenciesBean> batch : partition(toImport)) {
+                    // results are collected as archives are imported so they are not lost when another archive fails.
+                    List<ParsingResult<Csar>> batchResults = Collections.synchronizedList(Lists.<ParsingResult<Csar>> newArrayList());
+                    levelResults.add(batchResults);
+                    futures.add(executorService.submit(DelegatingSecurityContextCallable.create(() -> {
+                        for (CsarDependenciesBean csarBean : batch) {
+                            // FIXME Add possibility to choose an workspace
+                            batchResults.add(uploadService.upload(csarBean.getPath(), CSARSource.GIT, AlienConstants.GLOBAL_WORKSPACE_ID));
+                        }
+                        return batchResults;
+                    }, securityContext)));
+                }
+                try {
+                    getImportResults(futures);
+                } finally {
+                    // keep the results of the archives of the level imported before a failure (an archive that already exists for example).
+                    for (List<ParsingResult<Csar>> batchResults : levelResults) {
+                        parsingResult.addAll(batchResults);
                     }
                 }
-                // FIXME Add possibility to choose an workspace
-                ParsingResult<Csar> result = uploadService.upload(csarBean.getPath(), CSARSource.GIT, AlienConstants.GLOBAL_WORKSPACE_ID);
-                parsingResult.add(result);
             }
             return parsingResult;
         } catch (ParsingException e) {
@@ -175,8 +288,91 @@ public class CsarGitService {
         }
     }
 
-    private List<CsarDependenciesBean> sort(Map<CSARDependency, CsarDependenciesBean> elements) {
-        List<CsarDependenciesBean> sortedCsars = Lists.newArrayList();
+    /**
+     * Check if some archives of the catalog (other than the given ones) depends on the given archives.
+     */
+    private boolean hasDependants(Set<CSARDependency> archives) {
+        for (CSARDependency archive : archives) {
+            Csar[] dependants = csarService.getDependantCsars(archive.getName(), archive.getVersion());
+            if (dependants == null) {
+                continue;
+            }
+            for (Csar dependant : dependants) {
+                if (!archives.contains(new CSARDependency(dependant.getName(), dependant.getVersion()))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Pre-parse the archives concurrently to find their dependencies.
+     */
+    private Map<CSARDependency, CsarDependenciesBean> preParse(ListeningExecutorService executorService, SecurityContext securityContext,
+            Set<Path> archivePaths, List<ParsingResult<Csar>> parsingResult) throws ParsingException, CSARUsedInActiveDeployment {
+        List<ListenableFuture<Map<CSARDependency, CsarDependenciesBean>>> futures = Lists.newArrayList();
+        for (List<Path> batch : partition(Lists.newArrayList(archivePaths))) {
+            futures.add(executorService.submit(DelegatingSecurityContextCallable.create(() -> {
+                Map<CSARDependency, CsarDependenciesBean> batchBeans = Maps.newHashMap();
+                for (Path archivePath : batch) {
+                    // pre-parse archives one by one, each one in it's own tosca context.
+                    batchBeans.putAll(uploadService.preParsing(Sets.newHashSet(archivePath), parsingResult));
+                }
+                return batchBeans;
+            }, securityContext)));
+        }
+        Map<CSARDependency, CsarDependenciesBean> csarDependenciesBeans = Maps.newHashMap();
+        for (Map<CSARDependency, CsarDependenciesBean> preParsed : getImportResults(futures)) {
+            csarDependenciesBeans.putAll(preParsed);
+        }
+        return csarDependenciesBeans;
+    }
+
+    /**
+     * Split the elements to process concurrently in a few batches per import thread so a large repository doesn't saturate the executor queue.
+     */
+    private <T> List<List<T>> partition(List<T> elements) {
+        int batchCount = Math.max(1, importThreads) * 4;
+        int batchSize = Math.max(1, (elements.size() + batchCount - 1) / batchCount);
+        return Lists.partition(elements, batchSize);
+    }
+
+    /**
+     * Wait for the given import tasks, the first failure of a task is thrown once all tasks are completed.
+     */
+    private <T> List<T> getImportResults(List<ListenableFuture<T>> futures) throws ParsingException, CSARUsedInActiveDeployment {
+        List<T> results = Lists.newArrayList();
+        Throwable failure = null;
+        for (ListenableFuture<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GitException("Interrupted while importing archives from git", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure instanceof ParsingException) {
+            throw (ParsingException) failure;
+        } else if (failure instanceof CSARUsedInActiveDeployment) {
+            throw (CSARUsedInActiveDeployment) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            throw new GitException("Failed to import archives from git", failure);
+        }
+        return results;
+    }
+
+    /**
+     * Sort archives by dependency levels: archives of a level only depends on archives of the previous levels.
+     */
+    private List<List<CsarDependenciesBean>> sort(Map<CSARDependency, CsarDependenciesBean> elements) {
+        List<List<CsarDependenciesBean>> sortedCsars = Lists.newArrayList();
 
         List<CsarDependenciesBean> independents = Lists.newArrayList();
         for (Map.Entry<CSARDependency, CsarDependenciesBean> entry : elements.entrySet()) {
@@ -206,15 +402,18 @@ public class CsarGitService {
         }
 
         while (independents.size() > 0) {
-            CsarDependenciesBean independent = independents.remove(0);
-            elements.remove(independent.getSelf()); // remove from the elements
-            sortedCsars.add(independent); // element has no more dependencies
-            for (CsarDependenciesBean dependent : independent.getDependents()) {
-                dependent.getDependencies().remove(independent.getSelf());
-                if (dependent.getDependencies().isEmpty()) {
-                    independents.add(dependent);
+            List<CsarDependenciesBean> nextIndependents = Lists.newArrayList();
+            for (CsarDependenciesBean independent : independents) {
+                elements.remove(independent.getSelf()); // remove from the elements
+                for (CsarDependenciesBean dependent : independent.getDependents()) {
+                    dependent.getDependencies().remove(independent.getSelf());
+                    if (dependent.getDependencies().isEmpty()) {
+                        nextIndependents.add(dependent);
+                    }
                 }
             }
+            sortedCsars.add(independents); // elements of the level have no more dependencies
+            independents = nextIndependents;
         }
 
         if (elements.size() > 0) {
@@ -223,4 +422,4 @@ public class CsarGitService {
 
         return sortedCsars;
     }
-}
\ No newline at end of file
+}
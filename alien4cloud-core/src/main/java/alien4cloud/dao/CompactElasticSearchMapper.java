@@ -0,0 +1,145 @@
+package alien4cloud.dao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.common.collect.ImmutableSet;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Elastic search mapper that can store the documents of some types in a compact form: the fields used to search the documents (scalar fields and the given
+ * indexed object fields) are kept as json while the whole document is stored as a deflated Smile blob in the {@link #COMPACT_FIELD} binary field.
+ *
+ * Compact documents are always read transparently (as well as plain json documents), writing them is enabled by {@link #setCompactWrites(boolean)} so that
+ * the storage format can be switched back and forth.
+ */
+public class CompactElasticSearchMapper extends ElasticSearchMapper {
+    private static final long serialVersionUID = 1L;
+    /** Name of the binary field that contains the whole document. */
+    public static final String COMPACT_FIELD = "compactDocument";
+    private static final String COMPACT_FIELD_NAME = "\"" + COMPACT_FIELD + "\"";
+
+    private final Set<Class<?>> compactTypes;
+    private final Set<String> indexedObjectFields;
+    private final ElasticSearchMapper smileMapper = registerModules(new ElasticSearchMapper(new SmileFactory()));
+    /** True to write the documents of the compact types in the compact form, false to write them as plain json. */
+    @Getter
+    @Setter
+    private volatile boolean compactWrites;
+
+    private CompactElasticSearchMapper(Set<Class<?>> compactTypes, Set<String> indexedObjectFields) {
+        super(null);
+        this.compactTypes = compactTypes;
+        this.indexedObjectFields = indexedObjectFields;
+    }
+
+    /**
+     * Create a compact mapper.
+     *
+     * @param compactTypes The types of the documents that can be stored in the compact form.
+     * @param indexedObjectFields The object (or array) fields that must be kept in the json part of compact documents as they are used in searches.
+     * @return A new compact mapper.
+     */
+    public static CompactElasticSearchMapper getInstance(Set<Class<?>> compactTypes, Set<String> indexedObjectFields) {
+        return registerModules(new CompactElasticSearchMapper(ImmutableSet.copyOf(compactTypes), ImmutableSet.copyOf(indexedObjectFields)));
+    }
+
+    /**
+     * Check if a document is stored in the compact form.
+     *
+     * @param source The source of the document.
+     * @return True if the document is stored in the compact form.
+     */
+    public static boolean isCompact(Map<String, Object> source) {
+        return source.containsKey(COMPACT_FIELD);
+    }
+
+    @Override
+    public String writeValueAsString(Object value) throws JsonProcessingException {
+        if (compactWrites && value != null && compactTypes.contains(value.getClass())) {
+            return super.writeValueAsString(toCompactDocument(value));
+        }
+        return super.writeValueAsString(value);
+    }
+
+    @Override
+    public <T> T readValue(String content, Class<T> valueType) throws IOException {
+        if (!compactTypes.contains(valueType)) {
+            return super.readValue(content, valueType);
+        }
+        byte[] compactDocument = getCompactDocument(content);
+        if (compactDocument == null) {
+            // plain json document (compact writes disabled or document not migrated yet).
+            return super.readValue(content, valueType);
+        }
+        try (InputStream inputStream = new InflaterInputStream(new ByteArrayInputStream(compactDocument))) {
+            return smileMapper.readValue(inputStream, valueType);
+        }
+    }
+
+    /**
+     * Get the blob of a compact document without building the whole json tree of the document.
+     *
+     * @param content The source of the document.
+     * @return The deflated Smile blob of the document or null if the document is a plain json document.
+     */
+    private byte[] getCompactDocument(String content) throws IOException {
+        if (!content.contains(COMPACT_FIELD_NAME)) {
+            return null;
+        }
+        // the field name may also appear in a value, only the root fields are checked (containers are skipped without being parsed).
+        try (JsonParser parser = getFactory().createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                if (COMPACT_FIELD.equals(fieldName)) {
+                    return parser.getBinaryValue();
+                }
+                parser.skipChildren();
+            }
+        }
+        return null;
+    }
+
+    private ObjectNode toCompactDocument(Object value) throws JsonProcessingException {
+        ObjectNode document = valueToTree(value);
+        // large parts of the document are only kept in the blob.
+        Iterator<Map.Entry<String, JsonNode>> fields = document.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isContainerNode() && !indexedObjectFields.contains(field.getKey())) {
+                fields.remove();
+            }
+        }
+        ByteArrayOutputStream compactDocument = new ByteArrayOutputStream();
+        try (OutputStream outputStream = new DeflaterOutputStream(compactDocument)) {
+            smileMapper.writeValue(outputStream, value);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw JsonMappingException.fromUnexpectedIOE(e);
+        }
+        document.put(COMPACT_FIELD, compactDocument.toByteArray());
+        return document;
+    }
+}
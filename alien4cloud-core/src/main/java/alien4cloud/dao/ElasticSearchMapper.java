@@ -3,6 +3,7 @@ package alien4cloud.dao;
 import java.beans.IntrospectionException;
 import java.io.IOException;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.Version;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
@@ -18,7 +19,11 @@ public class ElasticSearchMapper extends ObjectMapper {
     private static final long serialVersionUID = 1L;
 
     private ElasticSearchMapper() {
-        super();
+        this(null);
+    }
+
+    protected ElasticSearchMapper(JsonFactory jsonFactory) {
+        super(jsonFactory);
         this._serializationConfig = this._serializationConfig.withAttribute(BoundSerializer.BOUND_SERIALIZER_AS_NUMBER, "true");
         this._serializationConfig = this._serializationConfig.withAttribute(ConditionalAttributes.ES, "true");
         this._serializationConfig = this._serializationConfig.withAttribute(ConditionalAttributes.ES_1_2, "true");
@@ -27,7 +32,16 @@ public class ElasticSearchMapper extends ObjectMapper {
     }
 
     public static ElasticSearchMapper getInstance() {
-        ElasticSearchMapper elasticSearchMapper = new ElasticSearchMapper();
+        return registerModules(new ElasticSearchMapper());
+    }
+
+    /**
+     * Register the modules required to serialize alien4cloud objects on an elastic search mapper.
+     *
+     * @param elasticSearchMapper The mapper to configure.
+     * @return The given mapper.
+     */
+    protected static <T extends ElasticSearchMapper> T registerModules(T elasticSearchMapper) {
         SimpleModule module = new SimpleModule("PropDeser", new Version(1, 0, 0, null, null, null));
         try {
             module.addDeserializer(PropertyConstraint.class, new PropertyConstraintDeserializer());
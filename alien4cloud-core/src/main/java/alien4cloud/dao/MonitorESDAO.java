@@ -5,22 +5,46 @@ import java.io.IOException;
 
 import javax.annotation.PostConstruct;
 
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.mapping.MappingBuilder;
+import org.elasticsearch.search.SearchHit;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.google.common.collect.Sets;
+
 import alien4cloud.exception.IndexingServiceException;
 import alien4cloud.model.deployment.DeploymentTopology;
 import alien4cloud.paas.model.*;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * Elastic Search DAO for Monitor events in Alien application.
  *
+ * Deployed topologies can be stored in a compact form (see {@link CompactElasticSearchMapper}) to reduce the size of the documents and the time to read them.
+ * Documents in both forms are read transparently, plain json documents are migrated to the compact form when it is enabled and the instance becomes the
+ * leader (see {@link alien4cloud.deployment.DeployedTopologiesMigration}, this dao belongs to the bootstrap context that is never started).
+ *
  * @author luc boutier
  */
+@Slf4j
 @Component("alien-monitor-es-dao")
 public class MonitorESDAO extends ESGenericSearchDAO {
+    private static final String DEPLOYED_TOPOLOGIES_INDEX = "deployedtopologies";
+    /** Object fields of the deployed topologies kept in the json part of compact documents as they are used in searches. */
+    private static final String[] DEPLOYED_TOPOLOGY_INDEXED_OBJECT_FIELDS = { "dependencies", "nestedVersion" };
+    private static final int MIGRATION_PAGE_SIZE = 100;
+    private static final TimeValue MIGRATION_SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
     @Value("${paas_monitor.events_lifetime}")
     private String eventMonitoringTtl;
+    /** Store deployed topologies as deflated Smile blobs with the searchable fields only indexed. */
+    @Value("${paas_monitor.compact_deployed_topologies:false}")
+    private boolean compactDeployedTopologies = false;
 
     /** Initialize the dao after being loaded by spring (Create the indexes). */
     @PostConstruct
@@ -32,14 +56,72 @@ public class MonitorESDAO extends ESGenericSearchDAO {
             throw new IndexingServiceException("Could not initialize elastic search mapping builder", e);
         }
         // init indices and mapped classes
-        setJsonMapper(ElasticSearchMapper.getInstance());
+        CompactElasticSearchMapper jsonMapper = CompactElasticSearchMapper.getInstance(Sets.<Class<?>> newHashSet(DeploymentTopology.class),
+                Sets.newHashSet(DEPLOYED_TOPOLOGY_INDEXED_OBJECT_FIELDS));
+        jsonMapper.setCompactWrites(compactDeployedTopologies);
+        setJsonMapper(jsonMapper);
 
         Class<?>[] classes = new Class<?>[] { AbstractMonitorEvent.class, PaaSDeploymentStatusMonitorEvent.class, PaaSInstanceStateMonitorEvent.class,
                 PaaSMessageMonitorEvent.class, PaaSInstancePersistentResourceMonitorEvent.class, PaaSWorkflowStepMonitorEvent.class,
                 PaaSWorkflowMonitorEvent.class };
-        initIndices("deployedtopologies", null, DeploymentTopology.class);
+        initIndices(DEPLOYED_TOPOLOGIES_INDEX, null, DeploymentTopology.class);
         initIndices("deploymentmonitorevents", eventMonitoringTtl, classes);
         initIndices(PaaSDeploymentLog.class.getSimpleName().toLowerCase(), eventMonitoringTtl, PaaSDeploymentLog.class);
         initCompleted();
+
+        // the blob must not be indexed, the mapping is added to existing indices too.
+        getClient().admin().indices().preparePutMapping(DEPLOYED_TOPOLOGIES_INDEX).setType(MappingBuilder.indexTypeFromClass(DeploymentTopology.class))
+                .setSource("{\"properties\":{\"" + CompactElasticSearchMapper.COMPACT_FIELD + "\":{\"type\":\"binary\"}}}").execute().actionGet();
+    }
+
+    /**
+     * Check if deployed topologies are stored in the compact form.
+     *
+     * @return True if deployed topologies are written as compact documents.
+     */
+    public boolean isCompactDeployedTopologies() {
+        return compactDeployedTopologies;
+    }
+
+    /**
+     * Rewrite the deployed topologies that are not stored in the configured form (compact or plain json).
+     *
+     * @return The number of migrated deployed topologies.
+     */
+    @SneakyThrows({ IOException.class })
+    public long migrateDeployedTopologies() {
+        String typeName = MappingBuilder.indexTypeFromClass(DeploymentTopology.class);
+        SearchResponse response = getClient().prepareSearch(DEPLOYED_TOPOLOGIES_INDEX).setTypes(typeName).setSearchType(SearchType.SCAN)
+                .setScroll(MIGRATION_SCROLL_KEEP_ALIVE).setSize(MIGRATION_PAGE_SIZE).execute().actionGet();
+        long migrated = 0;
+        try {
+            while (true) {
+                response = getClient().prepareSearchScroll(response.getScrollId()).setScroll(MIGRATION_SCROLL_KEEP_ALIVE).execute().actionGet();
+                SearchHit[] hits = response.getHits().hits();
+                if (hits.length == 0) {
+                    break;
+                }
+                BulkRequestBuilder bulkRequestBuilder = getClient().prepareBulk();
+                for (SearchHit hit : hits) {
+                    if (CompactElasticSearchMapper.isCompact(hit.getSource()) != compactDeployedTopologies) {
+                        // documents are rewritten as is (no update of the last update date).
+                        DeploymentTopology deploymentTopology = getJsonMapper().readValue(hit.getSourceAsString(), DeploymentTopology.class);
+                        bulkRequestBuilder.add(getClient().prepareIndex(DEPLOYED_TOPOLOGIES_INDEX, typeName, hit.getId())
+                                .setSource(getJsonMapper().writeValueAsString(deploymentTopology)));
+                    }
+                }
+                if (bulkRequestBuilder.numberOfActions() > 0) {
+                    migrated += bulkRequestBuilder.numberOfActions();
+                    bulkRequestBuilder.execute().actionGet();
+                }
+            }
+        } finally {
+            // release the search context rather than waiting for the keep alive.
+            getClient().prepareClearScroll().addScrollId(response.getScrollId()).execute().actionGet();
+        }
+        if (migrated > 0) {
+            getClient().admin().indices().prepareRefresh(DEPLOYED_TOPOLOGIES_INDEX).execute().actionGet();
+        }
+        return migrated;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,314 @@
+package alien4cloud.deployment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.xml.bind.DatatypeConverter;
+
+import org.alien4cloud.tosca.catalog.index.ArchiveIndexer;
+import org.alien4cloud.tosca.model.definitions.AbstractArtifact;
+import org.apache.commons.io.IOUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Maps;
+
+import alien4cloud.utils.FileUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local cache of the remote artifacts resolved for deployments.
+ *
+ * Entries are keyed by the artifact reference and its repository (url, type and credentials) and point to a content-addressed copy of the artifact: the
+ * file is stored in a directory named after the SHA-256 checksum of its content so that the same content resolved from different references is stored only
+ * once. The cache is bounded by the size of the stored files, least recently used entries are evicted first.
+ *
+ * Cached files are returned as {@link ArtifactLease}s: the files of a content are deleted only once no cache entry references it and all its leases are
+ * released, so that an eviction cannot remove a file still read by a deployment.
+ *
+ * Files of a previous run are removed when the instance becomes the leader (the cache directory may be shared between the instances in HA).
+ */
+@Slf4j
+@Component
+public class ArtifactCacheService implements SmartLifecycle {
+    private static final String METRIC_PREFIX = "alien4cloud.artifacts.cache";
+
+    @Autowired(required = false)
+    private MetricRegistry metricRegistry;
+    /** Maximum size of the files stored in the cache. */
+    @Value("${artifact_cache.max_size_mb:1024}")
+    private long maxSizeMb = 1024;
+    /** Duration after which a cached artifact is resolved again from its repository (as the content of a reference may change). */
+    @Value("${artifact_cache.expire_after_write_minutes:1440}")
+    private long expireAfterWriteMinutes = 1440;
+
+    private Path cacheDirectory;
+    private Cache<String, CachedArtifact> cache;
+    /** Number of cache entries and leases that reference each stored content (by checksum), contents are added and deleted under its lock. */
+    private final Map<String, Integer> references = Maps.newHashMap();
+    @Getter
+    private final AtomicLong hitCount = new AtomicLong();
+    @Getter
+    private final AtomicLong missCount = new AtomicLong();
+    private volatile boolean running = false;
+
+    @Value("${directories.alien}/work/artifacts")
+    public void setCacheDirectory(String cacheDirectory) throws IOException {
+        this.cacheDirectory = FileUtil.createDirectoryIfNotExists(cacheDirectory);
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder().concurrencyLevel(1).maximumWeight(maxSizeMb * 1024).weigher(new Weigher<String, CachedArtifact>() {
+            @Override
+            public int weigh(String key, CachedArtifact value) {
+                // weight is in KB
+                return (int) Math.min(Integer.MAX_VALUE, Math.max(1, value.getSize() / 1024));
+            }
+        }).expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES).removalListener(new RemovalListener<String, CachedArtifact>() {
+            @Override
+            public void onRemoval(RemovalNotification<String, CachedArtifact> notification) {
+                release(notification.getValue().getChecksum());
+            }
+        }).build();
+    }
+
+    @Override
+    @SneakyThrows(IOException.class)
+    public void start() {
+        // the index of the cache is not persisted, remove files from a previous run. This is done on leader election only as the directory may be shared with
+        // the leader when a backup instance prepares its context.
+        FileUtil.delete(cacheDirectory);
+        Files.createDirectories(cacheDirectory);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        stop();
+        callback.run();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        // started on leader election only.
+        return false;
+    }
+
+    @Override
+    public int getPhase() {
+        return ArchiveIndexer.PHASE;
+    }
+
+    /**
+     * Compute the key under which an artifact is cached. The same reference resolved with other credentials (that may grant access to another content) is
+     * cached under another key, credentials are only part of the key as a digest.
+     *
+     * @param artifact The artifact.
+     * @return The key of the artifact in the cache.
+     */
+    public String getKey(AbstractArtifact artifact) {
+        String credentials = "";
+        if (artifact.getRepositoryCredential() != null) {
+            credentials = DatatypeConverter
+                    .printHexBinary(newDigest().digest(new TreeMap<>(artifact.getRepositoryCredential()).toString().getBytes(StandardCharsets.UTF_8)));
+        }
+        return artifact.getArtifactRef() + "|" + artifact.getRepositoryURL() + "|" + artifact.getArtifactRepository() + "|" + credentials;
+    }
+
+    /**
+     * Get a lease on the cached copy of an artifact, the lease must be released once the file is not used anymore.
+     *
+     * @param artifact The artifact to look for.
+     * @return A lease on the cached copy of the artifact or null if the artifact is not in the cache.
+     */
+    public ArtifactLease get(AbstractArtifact artifact) {
+        String key = getKey(artifact);
+        CachedArtifact cached = cache.getIfPresent(key);
+        if (cached != null) {
+            ArtifactLease lease = lease(cached);
+            if (lease != null) {
+                record(true);
+                return lease;
+            }
+            cache.asMap().remove(key, cached);
+        }
+        record(false);
+        return null;
+    }
+
+    /**
+     * Add a resolved artifact to the cache. The file is copied in the cache, regular files only are cached.
+     *
+     * @param artifact The artifact that has been resolved.
+     * @param resolvedPath The path of the file resolved for the artifact.
+     * @return A lease on the cached copy of the artifact or on the resolved path if it cannot be cached.
+     */
+    public ArtifactLease put(AbstractArtifact artifact, Path resolvedPath) {
+        if (!Files.isRegularFile(resolvedPath)) {
+            return new ArtifactLease(resolvedPath, null);
+        }
+        try (InputStream resolvedStream = Files.newInputStream(resolvedPath)) {
+            return put(artifact, resolvedStream, resolvedPath.getFileName().toString());
+        } catch (IOException e) {
+            log.warn("Unable to cache artifact <{}>, resolved path will be used.", artifact.getArtifactRef(), e);
+            return new ArtifactLease(resolvedPath, null);
+        }
+    }
+
+    /**
+     * Add the content of an artifact to the cache.
+     *
+     * @param artifact The artifact to add.
+     * @param content The content of the artifact.
+     * @param fileName The name of the file to create in the cache.
+     * @return A lease on the cached copy of the artifact.
+     * @throws IOException In case the content cannot be read or written in the cache.
+     */
+    public ArtifactLease put(AbstractArtifact artifact, InputStream content, String fileName) throws IOException {
+        Path tempFile = Files.createTempFile(cacheDirectory, "artifact", ".tmp");
+        try {
+            MessageDigest digest = newDigest();
+            long size;
+            try (InputStream digestStream = new DigestInputStream(content, digest); OutputStream output = Files.newOutputStream(tempFile)) {
+                size = IOUtils.copyLarge(digestStream, output);
+            }
+            String checksum = DatatypeConverter.printHexBinary(digest.digest());
+            Path cachedPath = cacheDirectory.resolve(checksum).resolve(fileName);
+            synchronized (references) {
+                // the content directory cannot be deleted while the file is moved in it.
+                Files.createDirectories(cachedPath.getParent());
+                if (!Files.isRegularFile(cachedPath)) {
+                    Files.move(tempFile, cachedPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                // one reference for the cache entry and one for the returned lease.
+                Integer count = references.get(checksum);
+                references.put(checksum, (count == null ? 0 : count) + 2);
+            }
+            cache.put(getKey(artifact), new CachedArtifact(checksum, cachedPath, size));
+            log.debug("Artifact <{}> cached in <{}>", artifact.getArtifactRef(), cachedPath);
+            return new ArtifactLease(cachedPath, checksum);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Remove all artifacts from the cache.
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    private void record(boolean hit) {
+        (hit ? hitCount : missCount).incrementAndGet();
+        if (metricRegistry != null) {
+            metricRegistry.meter(MetricRegistry.name(METRIC_PREFIX, hit ? "hit" : "miss")).mark();
+        }
+    }
+
+    private ArtifactLease lease(CachedArtifact cached) {
+        synchronized (references) {
+            Integer count = references.get(cached.getChecksum());
+            if (count == null || !Files.isRegularFile(cached.getPath())) {
+                // content has been deleted (or is about to be) since the entry was read.
+                return null;
+            }
+            references.put(cached.getChecksum(), count + 1);
+        }
+        return new ArtifactLease(cached.getPath(), cached.getChecksum());
+    }
+
+    private void release(String checksum) {
+        synchronized (references) {
+            Integer count = references.get(checksum);
+            if (count == null) {
+                return;
+            }
+            if (count > 1) {
+                references.put(checksum, count - 1);
+                return;
+            }
+            references.remove(checksum);
+            Path contentDirectory = cacheDirectory.resolve(checksum);
+            try {
+                FileUtil.delete(contentDirectory);
+            } catch (IOException e) {
+                log.warn("Unable to delete evicted artifact <{}>", contentDirectory, e);
+            }
+        }
+    }
+
+    @SneakyThrows
+    private static MessageDigest newDigest() {
+        return MessageDigest.getInstance("SHA-256");
+    }
+
+    /**
+     * Lease on a resolved artifact file, the file is kept on disk until the lease is released.
+     */
+    public class ArtifactLease {
+        @Getter
+        private final Path path;
+        /** Checksum of the cached content, null when the file is not stored in the cache. */
+        private final String checksum;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ArtifactLease(Path path, String checksum) {
+            this.path = path;
+            this.checksum = checksum;
+        }
+
+        /**
+         * Release the lease, the file may be deleted as soon as it is released. Releasing a lease more than once has no effect.
+         */
+        public void release() {
+            if (checksum != null && released.compareAndSet(false, true)) {
+                ArtifactCacheService.this.release(checksum);
+            }
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class CachedArtifact {
+        /** SHA-256 checksum of the content of the artifact. */
+        private final String checksum;
+        private final Path path;
+        private final long size;
+    }
+}
@@ -8,8 +8,11 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Stream;
 
 import javax.annotation.Resource;
@@ -23,19 +26,30 @@ import org.apache.commons.io.FilenameUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
 import alien4cloud.component.repository.ArtifactRepositoryConstants;
 import alien4cloud.component.repository.IFileRepository;
+import alien4cloud.deployment.ArtifactCacheService.ArtifactLease;
 import alien4cloud.deployment.exceptions.UnresolvableArtifactException;
 import alien4cloud.exception.NotFoundException;
 import alien4cloud.paas.model.PaaSNodeTemplate;
 import alien4cloud.paas.model.PaaSRelationshipTemplate;
 import alien4cloud.paas.model.PaaSTopologyDeploymentContext;
 import alien4cloud.repository.services.RepositoryService;
-import alien4cloud.utils.FileUtil;
+import alien4cloud.utils.services.ExecutorRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Download all artifacts before deployment
+ * Download all artifacts before deployment. Remote artifacts are resolved concurrently and cached locally by the {@link ArtifactCacheService}.
+ *
+ * The cached files used by a deployment are leased, the leases returned by {@link #processArtifacts(PaaSTopologyDeploymentContext)} must be released with
+ * {@link #releaseArtifacts(List)} once the orchestrator does not need the files anymore.
  */
 @Slf4j
 @Component
@@ -53,7 +67,15 @@ public class ArtifactProcessorService {
     @Resource
     private IFileRepository artifactRepository;
 
-    private Path tempDir;
+    @Resource
+    private ArtifactCacheService artifactCacheService;
+
+    @Resource
+    private ExecutorRegistry executorRegistry;
+
+    /** Number of remote artifacts that can be resolved concurrently. */
+    @Value("${artifact_cache.resolving_threads:4}")
+    private int resolvingThreads = 4;
 
     private String resolveArtifact(AbstractArtifact artifact) {
         return repositoryService.resolveArtifact(artifact.getArtifactRef(), artifact.getRepositoryURL(), artifact.getArtifactRepository(),
@@ -73,17 +95,22 @@ public class ArtifactProcessorService {
         }
     }
 
-    private void processArtifact(AbstractArtifact artifact) {
+    /**
+     * Process an artifact, local artifacts are resolved directly while remote artifacts are added to the given map in order to be resolved later.
+     *
+     * @param artifact The artifact to process.
+     * @param remoteArtifacts Remote artifacts to resolve grouped by cache key.
+     */
+    private void processArtifact(AbstractArtifact artifact, Map<String, List<AbstractArtifact>> remoteArtifacts) {
         if (ArtifactRepositoryConstants.ALIEN_ARTIFACT_REPOSITORY.equals(artifact.getArtifactRepository())) {
             artifact.setArtifactPath(artifactRepository.resolveFile(artifact.getArtifactRef()).toString());
             return;
         }
-        URL artifactURL = null;
         if (artifact.getRepositoryName() == null) {
             // Short notation
             try {
                 // Test if it's an URL
-                artifactURL = new URL(artifact.getArtifactRef());
+                new URL(artifact.getArtifactRef());
             } catch (MalformedURLException e) {
                 if (log.isDebugEnabled()) {
                     log.debug("Processing local artifact {}", artifact);
@@ -93,45 +120,136 @@ public class ArtifactProcessorService {
                 return;
             }
         }
+        String key = artifactCacheService.getKey(artifact);
+        List<AbstractArtifact> sameArtifacts = remoteArtifacts.get(key);
+        if (sameArtifacts == null) {
+            sameArtifacts = Lists.newArrayList();
+            remoteArtifacts.put(key, sameArtifacts);
+        }
+        sameArtifacts.add(artifact);
+    }
+
+    private ArtifactLease processRemoteArtifact(AbstractArtifact artifact) {
         if (log.isDebugEnabled()) {
             log.debug("Processing remote artifact {}", artifact);
         }
+        ArtifactLease lease = artifactCacheService.get(artifact);
+        if (lease != null) {
+            return lease;
+        }
         String artifactPath = resolveArtifact(artifact);
-        if (artifactPath == null) {
-            if (artifactURL != null) {
-                try (InputStream artifactStream = artifactURL.openStream()) {
-                    // In a best effort try in a generic manner to obtain the artifact
-                    Path tempPath = Files.createTempFile(tempDir, "url-artifact", FilenameUtils.getExtension(artifact.getArtifactRef()));
-                    artifactPath = tempPath.toString();
-                    Files.copy(artifactStream, tempPath, StandardCopyOption.REPLACE_EXISTING);
-                } catch (IOException e) {
-                    throw new UnresolvableArtifactException("Artifact could not be found " + artifact, e);
-                }
-            } else {
-                throw new UnresolvableArtifactException("Artifact could not be found " + artifact);
+        if (artifactPath != null) {
+            lease = artifactCacheService.put(artifact, Paths.get(artifactPath));
+        } else if (artifact.getRepositoryName() == null) {
+            // In a best effort try in a generic manner to obtain the artifact
+            try (InputStream artifactStream = new URL(artifact.getArtifactRef()).openStream()) {
+                lease = artifactCacheService.put(artifact, artifactStream, "url-artifact." + FilenameUtils.getExtension(artifact.getArtifactRef()));
+            } catch (IOException e) {
+                throw new UnresolvableArtifactException("Artifact could not be found " + artifact, e);
             }
+        } else {
+            throw new UnresolvableArtifactException("Artifact could not be found " + artifact);
         }
         if (log.isDebugEnabled()) {
-            log.debug("Remote artifact from {} resolved to {}", artifact.getArtifactRef(), artifactPath);
+            log.debug("Remote artifact from {} resolved to {}", artifact.getArtifactRef(), lease.getPath());
+        }
+        return lease;
+    }
+
+    /**
+     * Resolve remote artifacts concurrently, each distinct artifact is resolved only once. Artifacts are resolved on the caller thread when the resolver
+     * executor is saturated.
+     *
+     * @param remoteArtifacts Remote artifacts to resolve grouped by cache key.
+     * @return The leases on the resolved files.
+     */
+    private List<ArtifactLease> processRemoteArtifacts(Map<String, List<AbstractArtifact>> remoteArtifacts) {
+        List<ArtifactLease> leases = Lists.newArrayList();
+        if (remoteArtifacts.isEmpty()) {
+            return leases;
+        }
+        ListeningExecutorService executorService = executorRegistry.getExecutor("artifact-resolver", resolvingThreads);
+        Map<List<AbstractArtifact>, ListenableFuture<ArtifactLease>> futures = Maps.newHashMap();
+        for (final List<AbstractArtifact> sameArtifacts : remoteArtifacts.values()) {
+            ListenableFuture<ArtifactLease> future;
+            try {
+                future = executorService.submit(() -> processRemoteArtifact(sameArtifacts.get(0)));
+            } catch (RejectedExecutionException e) {
+                log.debug("Artifact resolver is saturated, resolving artifact <{}> on the caller thread", sameArtifacts.get(0).getArtifactRef());
+                future = resolveOnCallerThread(sameArtifacts.get(0));
+            }
+            futures.put(sameArtifacts, future);
+        }
+        // wait for all the artifacts so that no lease is left behind in case of failure.
+        UnresolvableArtifactException failure = null;
+        for (Map.Entry<List<AbstractArtifact>, ListenableFuture<ArtifactLease>> futureEntry : futures.entrySet()) {
+            try {
+                ArtifactLease lease = getResolvedArtifact(futureEntry.getValue());
+                leases.add(lease);
+                for (AbstractArtifact artifact : futureEntry.getKey()) {
+                    artifact.setArtifactPath(lease.getPath().toString());
+                }
+            } catch (UnresolvableArtifactException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            releaseArtifacts(leases);
+            throw failure;
+        }
+        return leases;
+    }
+
+    private ListenableFuture<ArtifactLease> resolveOnCallerThread(AbstractArtifact artifact) {
+        try {
+            return Futures.immediateFuture(processRemoteArtifact(artifact));
+        } catch (RuntimeException e) {
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
+    private ArtifactLease getResolvedArtifact(ListenableFuture<ArtifactLease> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // the artifact is still resolved, release it when done.
+            Futures.addCallback(future, new FutureCallback<ArtifactLease>() {
+                @Override
+                public void onSuccess(ArtifactLease lease) {
+                    lease.release();
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                }
+            });
+            throw new UnresolvableArtifactException("Interrupted while resolving artifacts", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UnresolvableArtifactException) {
+                throw (UnresolvableArtifactException) e.getCause();
+            }
+            throw new UnresolvableArtifactException("Artifact could not be resolved", e.getCause());
         }
-        artifact.setArtifactPath(artifactPath);
     }
 
-    private void processInterfaces(Map<String, Interface> interfaceMap) {
+    private void processInterfaces(Map<String, Interface> interfaceMap, Map<String, List<AbstractArtifact>> remoteArtifacts) {
         if (interfaceMap != null) {
             interfaceMap.values().stream().filter(interfazz -> interfazz.getOperations() != null)
                     .forEach(interfazz -> interfazz.getOperations().values().stream().filter(operation -> operation.getImplementationArtifact() != null)
-                            .forEach(operation -> processArtifact(operation.getImplementationArtifact())));
+                            .forEach(operation -> processArtifact(operation.getImplementationArtifact(), remoteArtifacts)));
         }
     }
 
-    private void processImplementationArtifacts(PaaSTopologyDeploymentContext deploymentContext) {
+    private void processImplementationArtifacts(PaaSTopologyDeploymentContext deploymentContext, Map<String, List<AbstractArtifact>> remoteArtifacts) {
         if (deploymentContext.getPaaSTopology().getAllNodes() != null) {
             for (PaaSNodeTemplate paaSNodeTemplate : deploymentContext.getPaaSTopology().getAllNodes().values()) {
-                processInterfaces(paaSNodeTemplate.getInterfaces());
+                processInterfaces(paaSNodeTemplate.getInterfaces(), remoteArtifacts);
                 if (paaSNodeTemplate.getRelationshipTemplates() != null) {
                     for (PaaSRelationshipTemplate relationshipTemplate : paaSNodeTemplate.getRelationshipTemplates()) {
-                        processInterfaces(relationshipTemplate.getInterfaces());
+                        processInterfaces(relationshipTemplate.getInterfaces(), remoteArtifacts);
                     }
                 }
             }
@@ -151,11 +269,11 @@ public class ArtifactProcessorService {
         return ArtifactRepositoryConstants.ALIEN_TOPOLOGY_REPOSITORY.equals(artifact.getArtifactRepository());
     }
 
-    private void processDeploymentArtifacts(PaaSTopologyDeploymentContext deploymentContext) {
+    private void processDeploymentArtifacts(PaaSTopologyDeploymentContext deploymentContext, Map<String, List<AbstractArtifact>> remoteArtifacts) {
         if (deploymentContext.getDeploymentTopology().getNodeTemplates() != null) {
             // Artifact which comes from the archive or from internal repository
             getDeploymentArtifactStream(deploymentContext).filter(deploymentArtifact -> !isArtifactFromTopologyEditor(deploymentArtifact))
-                    .forEach(this::processArtifact);
+                    .forEach(deploymentArtifact -> processArtifact(deploymentArtifact, remoteArtifacts));
             // Artifact which does not come from the archive, which comes from topology's edition
             getDeploymentArtifactStream(deploymentContext).filter(this::isArtifactFromTopologyEditor).forEach(deploymentArtifact -> {
                 Path artifactPath = editorRepositoryService.resolveArtifact(deploymentContext.getDeploymentTopology().getInitialTopologyId(),
@@ -165,13 +283,27 @@ public class ArtifactProcessorService {
         }
     }
 
-    public void processArtifacts(PaaSTopologyDeploymentContext deploymentContext) {
-        processImplementationArtifacts(deploymentContext);
-        processDeploymentArtifacts(deploymentContext);
+    /**
+     * Resolve all the artifacts of a deployment and set their paths.
+     *
+     * @param deploymentContext The deployment context.
+     * @return The leases on the cached files used by the deployment, to release with {@link #releaseArtifacts(List)}.
+     */
+    public List<ArtifactLease> processArtifacts(PaaSTopologyDeploymentContext deploymentContext) {
+        Map<String, List<AbstractArtifact>> remoteArtifacts = Maps.newHashMap();
+        processImplementationArtifacts(deploymentContext, remoteArtifacts);
+        processDeploymentArtifacts(deploymentContext, remoteArtifacts);
+        return processRemoteArtifacts(remoteArtifacts);
     }
 
-    @Value("${directories.alien}/${directories.upload_temp}")
-    public void setTempDir(String tempDir) throws IOException {
-        this.tempDir = FileUtil.createDirectoryIfNotExists(tempDir);
+    /**
+     * Release the leases on the files of a deployment, cached files may be deleted after this call.
+     *
+     * @param leases The leases returned by {@link #processArtifacts(PaaSTopologyDeploymentContext)}.
+     */
+    public void releaseArtifacts(List<ArtifactLease> leases) {
+        for (ArtifactLease lease : leases) {
+            lease.release();
+        }
     }
 }
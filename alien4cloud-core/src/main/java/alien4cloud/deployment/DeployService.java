@@ -3,6 +3,7 @@ package alien4cloud.deployment;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -21,6 +22,7 @@ import alien4cloud.application.ApplicationEnvironmentService;
 import alien4cloud.application.ApplicationService;
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.FacetedSearchResult;
+import alien4cloud.deployment.ArtifactCacheService.ArtifactLease;
 import alien4cloud.deployment.matching.services.location.TopologyLocationUtils;
 import alien4cloud.model.application.Application;
 import alien4cloud.model.application.ApplicationEnvironment;
@@ -128,18 +130,33 @@ public class DeployService {
         // Process all input artifact, replace all artifact inside the topology with input artifact
         deploymentInputService.processInputArtifacts(deploymentTopology);
         PaaSTopologyDeploymentContext deploymentContext = deploymentContextService.buildTopologyDeploymentContext(deployment, locations, deploymentTopology);
-        // Download and process all remote artifacts before deployment
-        artifactProcessorService.processArtifacts(deploymentContext);
+        // Download and process all remote artifacts before deployment, cached artifacts are kept until the orchestrator answers.
+        final List<ArtifactLease> artifactLeases = artifactProcessorService.processArtifacts(deploymentContext);
         // Build the context for deployment and deploy
+        try {
+            deploy(orchestratorPlugin, deploymentContext, deploymentTopology, firstLocation, deployment, artifactLeases);
+        } catch (RuntimeException e) {
+            artifactProcessorService.releaseArtifacts(artifactLeases);
+            throw e;
+        }
+        log.debug("Triggered deployment of topology [{}] on location [{}], generated deployment with id [{}]", deploymentTopology.getInitialTopologyId(),
+                firstLocation.getId(), deployment.getId());
+        return deployment.getId();
+    }
+
+    private void deploy(IOrchestratorPlugin orchestratorPlugin, PaaSTopologyDeploymentContext deploymentContext, final DeploymentTopology deploymentTopology,
+            final Location firstLocation, final Deployment deployment, final List<ArtifactLease> artifactLeases) {
         orchestratorPlugin.deploy(deploymentContext, new IPaaSCallback<Object>() {
             @Override
             public void onSuccess(Object data) {
+                artifactProcessorService.releaseArtifacts(artifactLeases);
                 log.info("Deployed topology [{}] on location [{}], generated deployment with id [{}]", deploymentTopology.getInitialTopologyId(),
                         firstLocation.getId(), deployment.getId());
             }
 
             @Override
             public void onFailure(Throwable t) {
+                artifactProcessorService.releaseArtifacts(artifactLeases);
                 log.error("Deployment failed with cause", t);
                 PaaSDeploymentLog deploymentLog = new PaaSDeploymentLog();
                 deploymentLog.setDeploymentId(deployment.getId());
@@ -158,9 +175,6 @@ public class DeployService {
 
             }
         });
-        log.debug("Triggered deployment of topology [{}] on location [{}], generated deployment with id [{}]", deploymentTopology.getInitialTopologyId(),
-                firstLocation.getId(), deployment.getId());
-        return deployment.getId();
     }
 
     /**
@@ -0,0 +1,61 @@
+package alien4cloud.deployment;
+
+import javax.annotation.Resource;
+
+import org.alien4cloud.tosca.catalog.index.ArchiveIndexer;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import alien4cloud.dao.MonitorESDAO;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Migrate the deployed topologies stored as plain json documents to the compact storage format when it is enabled (see {@link MonitorESDAO}).
+ *
+ * The monitor dao is created in the bootstrap context that is never started, the migration is started with the full context on leader election so that
+ * backup instances never rewrite documents (they read documents in both forms transparently).
+ */
+@Slf4j
+@Component
+public class DeployedTopologiesMigration implements SmartLifecycle {
+    @Resource(name = "alien-monitor-es-dao")
+    private MonitorESDAO alienMonitorDao;
+
+    private volatile boolean running = false;
+
+    @Override
+    public void start() {
+        if (alienMonitorDao.isCompactDeployedTopologies()) {
+            long migrated = alienMonitorDao.migrateDeployedTopologies();
+            log.info("{} deployed topologies migrated to the compact storage format", migrated);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        stop();
+        callback.run();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        // started on leader election only.
+        return false;
+    }
+
+    @Override
+    public int getPhase() {
+        return ArchiveIndexer.PHASE;
+    }
+}
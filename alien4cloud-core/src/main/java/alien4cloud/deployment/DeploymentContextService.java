@@ -11,6 +11,7 @@ import alien4cloud.model.deployment.DeploymentTopology;
 import alien4cloud.model.orchestrators.locations.Location;
 import alien4cloud.paas.model.PaaSTopology;
 import alien4cloud.paas.model.PaaSTopologyDeploymentContext;
+import alien4cloud.paas.plan.PaaSTopologyCacheService;
 import alien4cloud.paas.plan.TopologyTreeBuilderService;
 import alien4cloud.utils.TypeMap;
 
@@ -21,13 +22,15 @@ import alien4cloud.utils.TypeMap;
 public class DeploymentContextService {
     @Inject
     private TopologyTreeBuilderService topologyTreeBuilderService;
+    @Inject
+    private PaaSTopologyCacheService paaSTopologyCacheService;
 
     /**
      * Build a topology deployment context from a given topology and deployment.
      *
      * @param deployment The deployment object.
      * @param topology The topology that will be processed.
-     * @return A PaaSTopologyDeploymentContext that contians
+     * @return A PaaSTopologyDeploymentContext that contains the deployment, its locations, the deployment topology and its PaaSTopology.
      */
     public PaaSTopologyDeploymentContext buildTopologyDeploymentContext(Deployment deployment, Map<String, Location> locations, DeploymentTopology topology) {
         return buildTopologyDeploymentContext(deployment, locations, topology, topologyTreeBuilderService.buildPaaSTopology(topology));
@@ -39,13 +42,26 @@ public class DeploymentContextService {
      * @param deployment The deployment object.
      * @param topology The topology that will be processed.
      * @param cache type cache
-     * @return A PaaSTopologyDeploymentContext that contians
+     * @return A PaaSTopologyDeploymentContext that contains the deployment, its locations, the deployment topology and its PaaSTopology.
      */
     public PaaSTopologyDeploymentContext buildTopologyDeploymentContext(Deployment deployment, Map<String, Location> locations, DeploymentTopology topology,
             TypeMap cache) {
         return buildTopologyDeploymentContext(deployment, locations, topology, topologyTreeBuilderService.buildPaaSTopology(topology, cache));
     }
 
+    /**
+     * Build a topology deployment context from a deployed (runtime) topology. The PaaSTopology is copied from the one cached for the deployment
+     * which is rebuilt only when the runtime topology changes.
+     *
+     * @param deployment The deployment object.
+     * @param topology The runtime topology of the deployment.
+     * @return A PaaSTopologyDeploymentContext that contains the deployment, its locations, the deployment topology and its PaaSTopology.
+     */
+    public PaaSTopologyDeploymentContext buildRuntimeTopologyDeploymentContext(Deployment deployment, Map<String, Location> locations,
+            DeploymentTopology topology) {
+        return buildTopologyDeploymentContext(deployment, locations, topology, paaSTopologyCacheService.get(deployment.getId(), topology));
+    }
+
     private PaaSTopologyDeploymentContext buildTopologyDeploymentContext(Deployment deployment, Map<String, Location> locations, DeploymentTopology topology,
             PaaSTopology paaSTopology) {
         PaaSTopologyDeploymentContext topologyDeploymentContext = new PaaSTopologyDeploymentContext();
@@ -53,7 +53,7 @@ public class DeploymentRuntimeService {
         Deployment deployment = deploymentService.getActiveDeploymentOrFail(request.getApplicationEnvironmentId());
         DeploymentTopology deploymentTopology = deploymentRuntimeStateService.getRuntimeTopologyFromEnvironment(deployment.getEnvironmentId());
         IOrchestratorPlugin orchestratorPlugin = orchestratorPluginService.getOrFail(deployment.getOrchestratorId());
-        orchestratorPlugin.executeOperation(deploymentContextService.buildTopologyDeploymentContext(deployment,
+        orchestratorPlugin.executeOperation(deploymentContextService.buildRuntimeTopologyDeploymentContext(deployment,
                 deploymentTopologyService.getLocations(deploymentTopology), deploymentTopology), request, callback);
     }
 
@@ -1,6 +1,7 @@
 package alien4cloud.deployment;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -12,10 +13,12 @@ import com.google.common.collect.Maps;
 
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.deployment.model.InstancesInformationChanges;
 import alien4cloud.model.deployment.Deployment;
 import alien4cloud.model.deployment.DeploymentTopology;
 import alien4cloud.orchestrators.plugin.IOrchestratorPlugin;
 import alien4cloud.paas.IPaaSCallback;
+import alien4cloud.paas.OrchestratorCallService;
 import alien4cloud.paas.OrchestratorPluginService;
 import alien4cloud.paas.exception.OrchestratorDisabledException;
 import alien4cloud.paas.model.*;
@@ -40,6 +43,10 @@ public class DeploymentRuntimeStateService {
     private DeploymentContextService deploymentContextService;
     @Inject
     private DeploymentTopologyService deploymentTopologyService;
+    @Inject
+    private InstanceInformationCacheService instanceInformationCacheService;
+    @Inject
+    private OrchestratorCallService orchestratorCallService;
 
     /**
      * Get the deployed (runtime) topology of an application from the environment id
@@ -77,6 +84,9 @@ public class DeploymentRuntimeStateService {
     /**
      * Get the current deployment status for a topology.
      *
+     * The call to the orchestrator is bounded (see {@link OrchestratorCallService}), the last status known for the deployment is returned if the orchestrator
+     * cannot answer in time.
+     *
      * @param deployment deployment for which we want the status
      * @param callback that will be called when status is available*
      * @return The status of the topology.
@@ -87,9 +97,9 @@ public class DeploymentRuntimeStateService {
             callback.onSuccess(DeploymentStatus.UNDEPLOYED);
             return;
         }
-        IOrchestratorPlugin orchestratorPlugin = orchestratorPluginService.getOrFail(deployment.getOrchestratorId());
+        final IOrchestratorPlugin orchestratorPlugin = orchestratorPluginService.getOrFail(deployment.getOrchestratorId());
 
-        PaaSDeploymentContext deploymentContext = new PaaSDeploymentContext(deployment, getRuntimeTopology(deployment.getId()));
+        final PaaSDeploymentContext deploymentContext = new PaaSDeploymentContext(deployment, getRuntimeTopology(deployment.getId()));
         IPaaSCallback<DeploymentStatus> esCallback = new IPaaSCallback<DeploymentStatus>() {
             @Override
             public void onSuccess(DeploymentStatus data) {
@@ -104,28 +114,89 @@ public class DeploymentRuntimeStateService {
                 callback.onFailure(throwable);
             }
         };
-        orchestratorPlugin.getStatus(deploymentContext, esCallback);
+        orchestratorCallService.call(deployment.getOrchestratorId(), "status", "status:" + deployment.getId(),
+                new OrchestratorCallService.IOrchestratorCall<DeploymentStatus>() {
+                    @Override
+                    public void execute(IPaaSCallback<DeploymentStatus> pluginCallback) {
+                        orchestratorPlugin.getStatus(deploymentContext, pluginCallback);
+                    }
+                }, esCallback);
     }
 
     /**
      * Get the detailed status for each instance of each node template.
      *
+     * The instances information are retrieved from the orchestrator only for the first request on a deployment, they are then kept up to date from the
+     * monitoring events (see {@link InstanceInformationCacheService}). The call to the orchestrator is bounded (see {@link OrchestratorCallService}).
+     *
      * @param deployment The deployment for witch to get the instance informations.
      * @param callback callback on witch to send the map of node template's id to map of instance's id to instance information.
      * @throws alien4cloud.paas.exception.OrchestratorDisabledException In case the cloud selected for the topology is disabled.
      */
-    public void getInstancesInformation(final Deployment deployment, IPaaSCallback<Map<String, Map<String, InstanceInformation>>> callback)
+    public void getInstancesInformation(final Deployment deployment, final IPaaSCallback<Map<String, Map<String, InstanceInformation>>> callback)
             throws OrchestratorDisabledException {
         Map<String, Map<String, InstanceInformation>> instancesInformation = Maps.newHashMap();
         if (deployment == null) {
             callback.onSuccess(instancesInformation);
             return;
         }
+        final IOrchestratorPlugin orchestratorPlugin = orchestratorPluginService.getOrFail(deployment.getOrchestratorId());
+        Map<String, Map<String, InstanceInformation>> cachedInstancesInformation = instanceInformationCacheService.getIfSeeded(deployment.getId());
+        if (cachedInstancesInformation != null) {
+            callback.onSuccess(cachedInstancesInformation);
+            return;
+        }
         DeploymentTopology runtimeTopology = alienMonitorDao.findById(DeploymentTopology.class, deployment.getId());
-        PaaSTopologyDeploymentContext deploymentContext = deploymentContextService.buildTopologyDeploymentContext(deployment,
+        final PaaSTopologyDeploymentContext deploymentContext = deploymentContextService.buildRuntimeTopologyDeploymentContext(deployment,
                 deploymentTopologyService.getLocations(runtimeTopology), runtimeTopology);
-        IOrchestratorPlugin orchestratorPlugin = orchestratorPluginService.getOrFail(deployment.getOrchestratorId());
-        orchestratorPlugin.getInstancesInformation(deploymentContext, callback);
+        // the call may wait for an executor thread, events notified before the orchestrator is actually queried are older than its answer.
+        final AtomicLong fetchStartDate = new AtomicLong();
+        IPaaSCallback<Map<String, Map<String, InstanceInformation>>> seedCallback = new IPaaSCallback<Map<String, Map<String, InstanceInformation>>>() {
+            @Override
+            public void onSuccess(Map<String, Map<String, InstanceInformation>> data) {
+                callback.onSuccess(instanceInformationCacheService.seed(deployment.getId(), fetchStartDate.get(), data));
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                // do not keep tracking events for a deployment that could not be seeded (unless a concurrent request seeded it).
+                instanceInformationCacheService.evictIfNotSeeded(deployment.getId());
+                callback.onFailure(throwable);
+            }
+        };
+        // no last known value fallback here as the result seeds the instances cache.
+        orchestratorCallService.call(deployment.getOrchestratorId(), "instances", null,
+                new OrchestratorCallService.IOrchestratorCall<Map<String, Map<String, InstanceInformation>>>() {
+                    @Override
+                    public void execute(IPaaSCallback<Map<String, Map<String, InstanceInformation>>> pluginCallback) {
+                        fetchStartDate.set(System.currentTimeMillis());
+                        orchestratorPlugin.getInstancesInformation(deploymentContext, pluginCallback);
+                    }
+                }, seedCallback);
+    }
+
+    /**
+     * Get the instances that changed since a given version.
+     *
+     * @param deployment The deployment for witch to get the instance changes.
+     * @param since The version returned with the last changes retrieved by the client, 0 to get all instances.
+     * @param callback callback on witch to send the changes.
+     * @throws alien4cloud.paas.exception.OrchestratorDisabledException In case the cloud selected for the topology is disabled.
+     */
+    public void getInstancesInformationChanges(final Deployment deployment, final long since, final IPaaSCallback<InstancesInformationChanges> callback)
+            throws OrchestratorDisabledException {
+        getInstancesInformation(deployment, new IPaaSCallback<Map<String, Map<String, InstanceInformation>>>() {
+            @Override
+            public void onSuccess(Map<String, Map<String, InstanceInformation>> data) {
+                InstancesInformationChanges changes = deployment == null ? null : instanceInformationCacheService.getChanges(deployment.getId(), since);
+                callback.onSuccess(changes == null ? new InstancesInformationChanges(0, true, data) : changes);
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                callback.onFailure(throwable);
+            }
+        });
     }
 
     /**
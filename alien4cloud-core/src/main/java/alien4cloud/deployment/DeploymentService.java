@@ -1,27 +1,51 @@
 package alien4cloud.deployment;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
 
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.mapper.internal.UidFieldMapper;
 import org.elasticsearch.index.query.FilterBuilder;
 import org.elasticsearch.index.query.FilterBuilders;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeFilterBuilder;
+import org.elasticsearch.mapping.MappingBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import alien4cloud.Constants;
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.deployment.model.DeploymentsPage;
+import alien4cloud.exception.InvalidArgumentException;
 import alien4cloud.exception.NotFoundException;
 import alien4cloud.model.deployment.Deployment;
 import alien4cloud.model.deployment.DeploymentTopology;
 import alien4cloud.paas.model.PaaSTopologyDeploymentContext;
+import alien4cloud.paas.plan.PaaSTopologyCacheService;
 import alien4cloud.utils.MapUtil;
+import alien4cloud.utils.services.ExecutorRegistry;
 
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.io.BaseEncoding;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 /**
  * Manage deployment operations on a cloud.
@@ -29,6 +53,12 @@ import com.google.common.collect.Maps;
 @Service
 @Slf4j
 public class DeploymentService {
+    private static final String RECOVERY_EXECUTOR = "deployment-recovery";
+    private static final String RECOVERY_METRIC = "alien4cloud.deployments.recovery";
+    /** Number of the slowest deployments recoveries to log. */
+    private static final int SLOWEST_RECOVERIES = 5;
+    private static final String DEPLOYMENT_TYPE = MappingBuilder.indexTypeFromClass(Deployment.class);
+
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDao;
     @Resource(name = "alien-monitor-es-dao")
@@ -39,6 +69,16 @@ public class DeploymentService {
     private DeploymentContextService deploymentContextService;
     @Inject
     private DeploymentTopologyService deploymentTopologyService;
+    @Inject
+    private PaaSTopologyCacheService paaSTopologyCacheService;
+    @Inject
+    private ExecutorRegistry executorRegistry;
+    @Autowired(required = false)
+    private MetricRegistry metricRegistry;
+
+    /** Number of threads used to build the contexts of the active deployments when an orchestrator is loaded. */
+    @Value("${orchestrators.recovery_threads:4}")
+    private int recoveryThreads = 4;
 
     /**
      * Get all deployments for a given orchestrator an application
@@ -61,6 +101,67 @@ public class DeploymentService {
         return alienDao.customFindAll(Deployment.class, query);
     }
 
+    /**
+     * Get a page of deployments, from the most recent to the oldest. Pages are browsed using cursors (the date and id of the last deployment of the
+     * previous page) rather than offsets, so getting a page doesn't require to go through the previous ones and is not affected by new deployments.
+     *
+     * @param orchestratorId Id of the orchestrator for which to get deployments (can be null to get deployments for all orchestrators).
+     * @param sourceId Id of the application for which to get deployments (can be null to get deployments for all applications).
+     * @param activeOnly True to get only the deployments that are not undeployed.
+     * @param fromDate Get only the deployments started at or after this date (can be null).
+     * @param toDate Get only the deployments started at or before this date (can be null).
+     * @param cursor The cursor returned with the previous page or null to get the first page.
+     * @param size The maximum number of deployments in the page.
+     * @return The page of deployments.
+     */
+    public DeploymentsPage getDeployments(String orchestratorId, String sourceId, boolean activeOnly, Date fromDate, Date toDate, String cursor, int size) {
+        Map<String, String[]> filters = Maps.newHashMap();
+        if (orchestratorId != null) {
+            filters.put("orchestratorId", new String[] { orchestratorId });
+        }
+        if (sourceId != null) {
+            filters.put("sourceId", new String[] { sourceId });
+        }
+        if (activeOnly) {
+            filters.put("endDate", new String[] { null });
+        }
+        List<FilterBuilder> customFilters = Lists.newArrayList();
+        if (fromDate != null || toDate != null) {
+            RangeFilterBuilder dateFilter = FilterBuilders.rangeFilter("startDate");
+            if (fromDate != null) {
+                dateFilter.gte(fromDate.getTime());
+            }
+            if (toDate != null) {
+                dateFilter.lte(toDate.getTime());
+            }
+            customFilters.add(dateFilter);
+        }
+        long totalResults = alienDao.buildQuery(Deployment.class).setFilters(filters, customFilters.toArray(new FilterBuilder[customFilters.size()])).count();
+
+        DeploymentsCursor previous = DeploymentsCursor.decode(cursor);
+        if (previous != null) {
+            // deployments after the last one of the previous page: older ones or the ones started at the same date with a lower id.
+            customFilters.add(FilterBuilders.orFilter(FilterBuilders.rangeFilter("startDate").lt(previous.startDate),
+                    FilterBuilders.boolFilter().must(FilterBuilders.termFilter("startDate", previous.startDate))
+                            .must(FilterBuilders.rangeFilter(UidFieldMapper.NAME).lt(Uid.createUid(DEPLOYMENT_TYPE, previous.id)))));
+        }
+        // get one more deployment than requested to know if there is a next page.
+        GetMultipleDataResult<Deployment> result = alienDao.buildQuery(Deployment.class)
+                .setFilters(filters, customFilters.toArray(new FilterBuilder[customFilters.size()])).prepareSearch()
+                .alterSearchRequestBuilder(searchRequestBuilder -> searchRequestBuilder.addSort(new FieldSortBuilder("startDate").order(SortOrder.DESC))
+                        .addSort(new FieldSortBuilder(UidFieldMapper.NAME).order(SortOrder.DESC)))
+                .search(0, size + 1);
+        List<Deployment> deployments = result.getData() == null ? Lists.<Deployment> newArrayList() : Lists.newArrayList(result.getData());
+
+        String nextCursor = null;
+        if (deployments.size() > size) {
+            deployments = deployments.subList(0, size);
+            Deployment last = deployments.get(size - 1);
+            nextCursor = new DeploymentsCursor(last.getStartDate().getTime(), last.getId()).encode();
+        }
+        return new DeploymentsPage(deployments, totalResults, nextCursor);
+    }
+
     /**
      * Get a deployment given its id
      *
@@ -187,22 +288,127 @@ public class DeploymentService {
         return false;
     }
 
+    /**
+     * Build the deployment contexts of all the active deployments of an orchestrator so that it can recover its state. Contexts are built concurrently and
+     * the recovery duration of every deployment is reported (debug logs and metrics), along with the slowest ones.
+     *
+     * @param orchestratorId The id of the orchestrator.
+     * @return A map of orchestrator deployment id to deployment context.
+     */
     public Map<String, PaaSTopologyDeploymentContext> getCloudActiveDeploymentContexts(String orchestratorId) {
-        Deployment[] deployments = getOrchestratorActiveDeployments(orchestratorId);
+        long start = System.nanoTime();
+        List<Deployment> deployments = getOrchestratorActiveDeployments(orchestratorId);
+        ListeningExecutorService executorService = executorRegistry.getExecutor(RECOVERY_EXECUTOR, recoveryThreads);
+        List<ListenableFuture<List<RecoveredDeployment>>> futures = Lists.newArrayList();
+        for (final List<Deployment> batch : partition(deployments)) {
+            futures.add(executorService.submit(new Callable<List<RecoveredDeployment>>() {
+                @Override
+                public List<RecoveredDeployment> call() {
+                    List<RecoveredDeployment> recoveredDeployments = Lists.newArrayList();
+                    for (Deployment deployment : batch) {
+                        recoveredDeployments.add(recover(deployment));
+                    }
+                    return recoveredDeployments;
+                }
+            }));
+        }
+
         Map<String, PaaSTopologyDeploymentContext> activeDeploymentContexts = Maps.newHashMap();
-        for (Deployment deployment : deployments) {
-            DeploymentTopology topology = deploymentRuntimeStateService.getRuntimeTopology(deployment.getId());
-            activeDeploymentContexts.put(deployment.getOrchestratorDeploymentId(),
-                    deploymentContextService.buildTopologyDeploymentContext(deployment, deploymentTopologyService.getLocations(topology), topology));
+        List<RecoveredDeployment> recoveredDeployments = Lists.newArrayList();
+        for (List<RecoveredDeployment> batchResults : getRecoveryResults(futures)) {
+            for (RecoveredDeployment recoveredDeployment : batchResults) {
+                activeDeploymentContexts.put(recoveredDeployment.deploymentContext.getDeployment().getOrchestratorDeploymentId(),
+                        recoveredDeployment.deploymentContext);
+                recoveredDeployments.add(recoveredDeployment);
+            }
         }
+        reportRecovery(orchestratorId, recoveredDeployments, start);
         return activeDeploymentContexts;
     }
 
-    private Deployment[] getOrchestratorActiveDeployments(String orchestratorId) {
+    private RecoveredDeployment recover(Deployment deployment) {
+        long start = System.nanoTime();
+        DeploymentTopology topology = deploymentRuntimeStateService.getRuntimeTopology(deployment.getId());
+        PaaSTopologyDeploymentContext deploymentContext = deploymentContextService.buildRuntimeTopologyDeploymentContext(deployment,
+                deploymentTopologyService.getLocations(topology), topology);
+        long durationNanos = System.nanoTime() - start;
+        if (metricRegistry != null) {
+            metricRegistry.timer(RECOVERY_METRIC).update(durationNanos, TimeUnit.NANOSECONDS);
+        }
+        log.debug("Deployment context of <{}> recovered in {} ms", deployment.getId(), TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        return new RecoveredDeployment(deploymentContext, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+    }
+
+    private void reportRecovery(String orchestratorId, List<RecoveredDeployment> recoveredDeployments, long start) {
+        if (recoveredDeployments.isEmpty()) {
+            return;
+        }
+        Collections.sort(recoveredDeployments, new Comparator<RecoveredDeployment>() {
+            @Override
+            public int compare(RecoveredDeployment left, RecoveredDeployment right) {
+                return Long.compare(right.durationMs, left.durationMs);
+            }
+        });
+        List<String> slowest = Lists.newArrayList();
+        for (RecoveredDeployment recoveredDeployment : recoveredDeployments.subList(0, Math.min(SLOWEST_RECOVERIES, recoveredDeployments.size()))) {
+            slowest.add(recoveredDeployment.deploymentContext.getDeployment().getId() + " (" + recoveredDeployment.durationMs + " ms)");
+        }
+        log.info("Recovered {} active deployments of orchestrator <{}> in {} ms, slowest: {}", recoveredDeployments.size(), orchestratorId,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), Joiner.on(", ").join(slowest));
+    }
+
+    /**
+     * Split the deployments to recover in a few batches per recovery thread so that a large number of deployments doesn't saturate the executor queue.
+     */
+    private List<List<Deployment>> partition(List<Deployment> deployments) {
+        int batchCount = Math.max(1, recoveryThreads) * 4;
+        int batchSize = Math.max(1, (deployments.size() + batchCount - 1) / batchCount);
+        return Lists.partition(deployments, batchSize);
+    }
+
+    /**
+     * Wait for the given recovery tasks, the first failure of a task is thrown once all tasks are completed.
+     */
+    private <T> List<T> getRecoveryResults(List<ListenableFuture<T>> futures) {
+        List<T> results = Lists.newArrayList();
+        Throwable failure = null;
+        for (ListenableFuture<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while recovering active deployments", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            throw new IllegalStateException("Failed to recover active deployments", failure);
+        }
+        return results;
+    }
+
+    private List<Deployment> getOrchestratorActiveDeployments(String orchestratorId) {
         Map<String, String[]> activeDeploymentFilters = MapUtil.newHashMap(new String[] { "orchestratorId", "endDate" },
                 new String[][] { new String[] { orchestratorId }, new String[] { null } });
-        GetMultipleDataResult<Deployment> dataResult = alienDao.search(Deployment.class, null, activeDeploymentFilters, 1);
-        return dataResult.getData();
+        List<Deployment> deployments = Lists.newArrayList();
+        GetMultipleDataResult<Deployment> dataResult;
+        do {
+            dataResult = alienDao.buildQuery(Deployment.class).setFilters(activeDeploymentFilters).prepareSearch().setFieldSort("_timestamp", false)
+                    .search(deployments.size(), Constants.DEFAULT_ES_SEARCH_SIZE);
+            deployments.addAll(Arrays.asList(dataResult.getData()));
+        } while (dataResult.getData().length > 0 && deployments.size() < dataResult.getTotalResults());
+        return deployments;
+    }
+
+    @AllArgsConstructor
+    private static class RecoveredDeployment {
+        private final PaaSTopologyDeploymentContext deploymentContext;
+        private final long durationMs;
     }
 
     public Map<String, Set<String>> getAllOrchestratorIdsAndOrchestratorDeploymentId(String applicationEnvironmentId) {
@@ -234,6 +440,7 @@ public class DeploymentService {
             DeploymentTopology deploymentTopology = alienMonitorDao.findById(DeploymentTopology.class, deployment.getId());
             deploymentTopology.setDeployed(false);
             alienMonitorDao.save(deploymentTopology);
+            paaSTopologyCacheService.evict(deployment.getId());
         } else {
             log.info("Deployment <" + deployment.getId() + "> is already marked as undeployed.");
         }
@@ -252,4 +459,36 @@ public class DeploymentService {
         GetMultipleDataResult<DeploymentTopology> result = alienMonitorDao.search(DeploymentTopology.class, null, null, filter, null, 0, 1);
         return result.getData() != null && result.getData().length > 0;
     }
-}
\ No newline at end of file
+
+    /**
+     * Position in the deployments list: start date and id of the last returned deployment (deployments are sorted by start date then id).
+     */
+    private static class DeploymentsCursor {
+        private final long startDate;
+        private final String id;
+
+        private DeploymentsCursor(long startDate, String id) {
+            this.startDate = startDate;
+            this.id = id;
+        }
+
+        private static DeploymentsCursor decode(String cursor) {
+            if (cursor == null || cursor.isEmpty()) {
+                return null;
+            }
+            try {
+                String[] parts = new String(BaseEncoding.base64Url().decode(cursor), Charsets.UTF_8).split(":", 2);
+                if (parts.length != 2 || parts[1].isEmpty()) {
+                    throw new InvalidArgumentException("Invalid deployments cursor <" + cursor + ">");
+                }
+                return new DeploymentsCursor(Long.parseLong(parts[0]), parts[1]);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidArgumentException("Invalid deployments cursor <" + cursor + ">", e);
+            }
+        }
+
+        private String encode() {
+            return BaseEncoding.base64Url().encode((startDate + ":" + id).getBytes(Charsets.UTF_8));
+        }
+    }
+}
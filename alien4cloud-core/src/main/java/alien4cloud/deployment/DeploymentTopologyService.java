@@ -1,12 +1,16 @@
 package alien4cloud.deployment;
 
 import java.beans.IntrospectionException;
+import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import javax.inject.Inject;
 
+import org.alien4cloud.tosca.catalog.index.ArchiveIndexer;
 import org.alien4cloud.tosca.model.definitions.AbstractPropertyValue;
 import org.alien4cloud.tosca.model.definitions.PropertyDefinition;
 import org.alien4cloud.tosca.model.definitions.ScalarPropertyValue;
@@ -15,9 +19,12 @@ import org.alien4cloud.tosca.model.templates.*;
 import org.alien4cloud.tosca.model.types.CapabilityType;
 import org.apache.commons.collections4.MapUtils;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -37,7 +44,9 @@ import alien4cloud.model.deployment.DeploymentTopology;
 import alien4cloud.model.orchestrators.locations.Location;
 import alien4cloud.model.orchestrators.locations.LocationResourceTemplate;
 import alien4cloud.orchestrators.locations.services.ILocationResourceService;
+import alien4cloud.orchestrators.locations.services.LocationResourceTypes;
 import alien4cloud.orchestrators.locations.services.LocationService;
+import alien4cloud.rest.utils.JsonUtil;
 import alien4cloud.security.AuthorizationUtil;
 import alien4cloud.security.model.DeployerRole;
 import alien4cloud.topology.TopologyServiceCore;
@@ -47,6 +56,9 @@ import alien4cloud.tosca.properties.constraints.exception.ConstraintValueDoNotMa
 import alien4cloud.tosca.properties.constraints.exception.ConstraintViolationException;
 import alien4cloud.utils.ReflectionUtil;
 import alien4cloud.utils.services.PropertyService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -83,6 +95,26 @@ public class DeploymentTopologyService {
     @Inject
     private PropertyService propertyService;
 
+    @Inject
+    private ArchiveIndexer archiveIndexer;
+
+    @Value("${deployment_configuration_cache.max_size:500}")
+    private int substitutionCacheMaxSize;
+    @Value("${deployment_configuration_cache.expire_after_access_minutes:60}")
+    private int substitutionCacheExpireAfterAccessMinutes = 60;
+    /** Memoized substitution configurations per deployment topology id. */
+    private Cache<String, VersionedSubstitutionConfiguration> substitutionConfigurationCache;
+    /** Version of the inputs of the last update of each deployment topology performed when getting its configuration. */
+    private Cache<String, String> updatedDeploymentTopologyVersions;
+
+    @PostConstruct
+    public void init() {
+        substitutionConfigurationCache = CacheBuilder.newBuilder().maximumSize(substitutionCacheMaxSize)
+                .expireAfterAccess(substitutionCacheExpireAfterAccessMinutes, TimeUnit.MINUTES).build();
+        updatedDeploymentTopologyVersions = CacheBuilder.newBuilder().maximumSize(substitutionCacheMaxSize)
+                .expireAfterAccess(substitutionCacheExpireAfterAccessMinutes, TimeUnit.MINUTES).build();
+    }
+
     public void save(DeploymentTopology deploymentTopology) {
         deploymentTopology.setLastDeploymentTopologyUpdateDate(new Date());
         alienDAO.save(deploymentTopology);
@@ -167,18 +199,104 @@ public class DeploymentTopologyService {
     }
 
     public DeploymentConfiguration getDeploymentConfiguration(DeploymentTopology deploymentTopology) {
-        DeploymentSubstitutionConfiguration substitutionConfiguration = getAvailableNodeSubstitutions(deploymentTopology);
+        String version = getConfigurationVersion(deploymentTopology);
+        DeploymentSubstitutionConfiguration substitutionConfiguration = getAvailableNodeSubstitutions(deploymentTopology, version);
         Map<String, Set<String>> availableSubstitutions = substitutionConfiguration.getAvailableSubstitutions();
         Map<String, String> existingSubstitutions = deploymentTopology.getSubstitutedNodes();
         // Handle the case when new resources added
         // TODO In the case when resource is updated / deleted on the location we should update everywhere where they are used
         if (availableSubstitutions.size() != existingSubstitutions.size()) {
-            updateDeploymentTopology(deploymentTopology);
+            if (version != null && version.equals(updatedDeploymentTopologyVersions.getIfPresent(deploymentTopology.getId()))) {
+                // the topology has already been updated with the same inputs, updating it again would not change the substitutions.
+                log.debug("Deployment topology <{}> is up to date with version <{}>", deploymentTopology.getId(), version);
+            } else {
+                updateDeploymentTopology(deploymentTopology);
+                String updatedVersion = getConfigurationVersion(deploymentTopology);
+                if (updatedVersion != null) {
+                    updatedDeploymentTopologyVersions.put(deploymentTopology.getId(), updatedVersion);
+                }
+            }
         }
         return new DeploymentConfiguration(deploymentTopology, substitutionConfiguration);
     }
 
-    private DeploymentSubstitutionConfiguration getAvailableNodeSubstitutions(DeploymentTopology deploymentTopology) {
+    /**
+     * Get the available substitutions for a deployment topology. The result of the matching is memoized and computed again only if the deployment topology,
+     * one of its locations (including the location resources, as any change on them updates the location) or the catalog has been modified since the last
+     * computation.
+     *
+     * @param deploymentTopology The deployment topology for which to get available substitutions.
+     * @param version The version of the configuration of the deployment topology, null if it cannot be cached.
+     * @return The substitution configuration of the deployment topology, the caller is free to modify it.
+     */
+    private DeploymentSubstitutionConfiguration getAvailableNodeSubstitutions(DeploymentTopology deploymentTopology, String version) {
+        VersionedSubstitutionConfiguration cached = version == null ? null : substitutionConfigurationCache.getIfPresent(deploymentTopology.getId());
+        if (cached != null && cached.getVersion().equals(version)) {
+            // matching updates the members of the group that targets all nodes, keep this behavior when we skip it
+            NodeGroup allNodesGroup = deploymentTopology.getLocationGroups().get(AlienConstants.GROUP_ALL);
+            if (allNodesGroup != null && MapUtils.isNotEmpty(deploymentTopology.getOriginalNodes())) {
+                allNodesGroup.setMembers(deploymentTopology.getOriginalNodes().keySet());
+            }
+            return copy(cached.getConfiguration());
+        }
+        DeploymentSubstitutionConfiguration configuration = computeAvailableNodeSubstitutions(deploymentTopology);
+        if (version != null) {
+            substitutionConfigurationCache.put(deploymentTopology.getId(), new VersionedSubstitutionConfiguration(version, copy(configuration)));
+        }
+        return configuration;
+    }
+
+    /**
+     * Copy a substitution configuration: the maps and the location resource templates are copied, the types are shared.
+     */
+    @SneakyThrows(IOException.class)
+    private DeploymentSubstitutionConfiguration copy(DeploymentSubstitutionConfiguration configuration) {
+        DeploymentSubstitutionConfiguration copy = new DeploymentSubstitutionConfiguration();
+        Map<String, Set<String>> availableSubstitutions = Maps.newHashMap();
+        for (Map.Entry<String, Set<String>> availableSubstitutionsEntry : configuration.getAvailableSubstitutions().entrySet()) {
+            availableSubstitutions.put(availableSubstitutionsEntry.getKey(), Sets.newHashSet(availableSubstitutionsEntry.getValue()));
+        }
+        copy.setAvailableSubstitutions(availableSubstitutions);
+        copy.setSubstitutionsTemplates(
+                JsonUtil.toMap(JsonUtil.toString(configuration.getSubstitutionsTemplates()), String.class, LocationResourceTemplate.class));
+        LocationResourceTypes types = configuration.getSubstitutionTypes();
+        LocationResourceTypes typesCopy = new LocationResourceTypes();
+        typesCopy.setConfigurationTypes(Maps.newHashMap(types.getConfigurationTypes()));
+        typesCopy.setNodeTypes(Maps.newHashMap(types.getNodeTypes()));
+        typesCopy.setCapabilityTypes(Maps.newHashMap(types.getCapabilityTypes()));
+        typesCopy.setAllNodeTypes(Maps.newHashMap(types.getAllNodeTypes()));
+        typesCopy.setOnDemandTypes(Maps.newHashMap(types.getOnDemandTypes()));
+        copy.setSubstitutionTypes(typesCopy);
+        return copy;
+    }
+
+    /**
+     * Compute the version of the inputs of the deployment configuration: the last updates of the deployment topology, the last update of its locations and
+     * the generation of the catalog.
+     *
+     * @param deploymentTopology The deployment topology.
+     * @return The version of the deployment configuration or null if it cannot be cached (unsaved deployment topology or catalog updates not tracked on this
+     *         instance).
+     */
+    private String getConfigurationVersion(DeploymentTopology deploymentTopology) {
+        if (deploymentTopology.getId() == null || !archiveIndexer.isCatalogCacheEnabled()) {
+            return null;
+        }
+        // some changes (substituted node properties) are saved without updating the deployment topology date.
+        StringBuilder version = new StringBuilder().append(archiveIndexer.getCatalogGeneration()).append(':');
+        version.append(deploymentTopology.getLastDeploymentTopologyUpdateDate().getTime()).append(':');
+        version.append(deploymentTopology.getLastUpdateDate() == null ? 0 : deploymentTopology.getLastUpdateDate().getTime());
+        Map<String, String> locationIds = TopologyLocationUtils.getLocationIds(deploymentTopology);
+        if (MapUtils.isNotEmpty(locationIds)) {
+            for (Location location : locationService.getMultiple(locationIds.values()).values()) {
+                version.append(':').append(location.getId()).append('@');
+                version.append(location.getLastUpdateDate() == null ? 0 : location.getLastUpdateDate().getTime());
+            }
+        }
+        return version.toString();
+    }
+
+    private DeploymentSubstitutionConfiguration computeAvailableNodeSubstitutions(DeploymentTopology deploymentTopology) {
         Map<String, List<LocationResourceTemplate>> availableSubstitutions = deploymentNodeSubstitutionService.getAvailableSubstitutions(deploymentTopology);
         DeploymentSubstitutionConfiguration dsc = new DeploymentSubstitutionConfiguration();
         Map<String, Set<String>> availableSubstitutionsIds = Maps.newHashMap();
@@ -357,6 +475,16 @@ public class DeploymentTopologyService {
     }
 
     public void deleteByEnvironmentId(String environmentId) {
+        for (String id : substitutionConfigurationCache.asMap().keySet()) {
+            if (id.endsWith("::" + environmentId)) {
+                substitutionConfigurationCache.invalidate(id);
+            }
+        }
+        for (String id : updatedDeploymentTopologyVersions.asMap().keySet()) {
+            if (id.endsWith("::" + environmentId)) {
+                updatedDeploymentTopologyVersions.invalidate(id);
+            }
+        }
         alienDAO.delete(DeploymentTopology.class, QueryBuilders.termQuery("environmentId", environmentId));
     }
 
@@ -520,4 +648,11 @@ public class DeploymentTopologyService {
         updateDeploymentTopology(deploymentTopology);
         return deploymentConfiguration;
     }
+
+    @Getter
+    @AllArgsConstructor
+    private static class VersionedSubstitutionConfiguration {
+        private final String version;
+        private final DeploymentSubstitutionConfiguration configuration;
+    }
 }
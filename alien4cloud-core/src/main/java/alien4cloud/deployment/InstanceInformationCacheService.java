@@ -0,0 +1,349 @@
+package alien4cloud.deployment;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import alien4cloud.deployment.model.InstancesInformationChanges;
+import alien4cloud.paas.IPaasEventListener;
+import alien4cloud.paas.IPaasEventService;
+import alien4cloud.paas.model.AbstractMonitorEvent;
+import alien4cloud.paas.model.DeploymentStatus;
+import alien4cloud.paas.model.InstanceInformation;
+import alien4cloud.paas.model.PaaSDeploymentStatusMonitorEvent;
+import alien4cloud.paas.model.PaaSInstancePersistentResourceMonitorEvent;
+import alien4cloud.paas.model.PaaSInstanceStateMonitorEvent;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps in memory the instances information of the deployments so that runtime views do not have to query the orchestrator on every request.
+ *
+ * The instances information of a deployment are seeded from the orchestrator plugin and then kept up to date from the instance state and persistent
+ * resource monitoring events. Every change is tagged with a version so that clients can retrieve only the instances that changed since their last request.
+ * As an event may be missed (and as operations outputs are not notified), the instances are seeded again from the orchestrator once they are older than the
+ * configured expiration, whether they are viewed or not.
+ */
+@Slf4j
+@Service
+public class InstanceInformationCacheService implements IPaasEventListener<AbstractMonitorEvent> {
+    /** Number of removed instances to remember for a deployment before forcing clients to reload all instances. */
+    private static final int MAX_REMOVED_INSTANCES = 1000;
+
+    @Inject
+    private IPaasEventService paasEventService;
+
+    @Value("${instance_information_cache.max_size:1000}")
+    private int maxSize = 1000;
+    @Value("${instance_information_cache.expire_after_write_minutes:10}")
+    private int expireAfterWriteMinutes = 10;
+
+    /** Versions are global so that they keep increasing when the instances of a deployment are evicted and seeded again. */
+    private final AtomicLong versions = new AtomicLong();
+    private Cache<String, DeploymentInstances> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES).build();
+        paasEventService.addListener(this);
+    }
+
+    /**
+     * Get the instances information of a deployment if they have already been seeded. If not, the deployment starts to be tracked so that events received
+     * while the caller fetches the instances from the orchestrator are not lost, the caller is then expected to call {@link #seed(String, long, Map)}.
+     *
+     * @param deploymentId The id of the deployment.
+     * @return A copy of the instances information of the deployment or null if they have not been seeded yet.
+     */
+    public Map<String, Map<String, InstanceInformation>> getIfSeeded(String deploymentId) {
+        return getOrTrack(deploymentId).snapshot();
+    }
+
+    /**
+     * Seed the instances information of a deployment with the ones retrieved from the orchestrator. If the deployment has already been seeded in the meantime
+     * the given information is ignored.
+     *
+     * Events received while the instances were fetched are applied on the given information, except the ones dated before the fetch started: the orchestrator
+     * had already notified them when it was queried so they are older than the retrieved information and could revert an instance to a previous state (or
+     * restore a removed instance).
+     *
+     * @param deploymentId The id of the deployment.
+     * @param fetchStartDate The date (in milliseconds) at which the instances information started to be retrieved from the orchestrator.
+     * @param instancesInformation The instances information retrieved from the orchestrator.
+     * @return A copy of the instances information of the deployment.
+     */
+    public Map<String, Map<String, InstanceInformation>> seed(String deploymentId, long fetchStartDate,
+            Map<String, Map<String, InstanceInformation>> instancesInformation) {
+        DeploymentInstances deploymentInstances = getOrTrack(deploymentId);
+        deploymentInstances.seed(fetchStartDate, instancesInformation);
+        return deploymentInstances.snapshot();
+    }
+
+    /**
+     * Get the changes of the instances of a deployment since a given version.
+     *
+     * @param deploymentId The id of the deployment.
+     * @param since The version of the last changes retrieved by the client, 0 to get all instances.
+     * @return The changes since the given version (or all instances if the version is too old) or null if the deployment has not been seeded yet.
+     */
+    public InstancesInformationChanges getChanges(String deploymentId, long since) {
+        DeploymentInstances deploymentInstances = cache.getIfPresent(deploymentId);
+        return deploymentInstances == null ? null : deploymentInstances.changes(since);
+    }
+
+    /**
+     * Remove the instances information of a deployment.
+     *
+     * @param deploymentId The id of the deployment.
+     */
+    public void evict(String deploymentId) {
+        cache.invalidate(deploymentId);
+    }
+
+    /**
+     * Stop tracking a deployment that could not be seeded. Instances that have been seeded in the meantime (by a concurrent request) are kept.
+     *
+     * @param deploymentId The id of the deployment.
+     */
+    public void evictIfNotSeeded(String deploymentId) {
+        DeploymentInstances deploymentInstances = cache.getIfPresent(deploymentId);
+        if (deploymentInstances != null) {
+            deploymentInstances.evictIfNotSeeded();
+        }
+    }
+
+    private DeploymentInstances getOrTrack(final String deploymentId) {
+        try {
+            return cache.get(deploymentId, new Callable<DeploymentInstances>() {
+                @Override
+                public DeploymentInstances call() {
+                    return new DeploymentInstances(deploymentId);
+                }
+            });
+        } catch (ExecutionException e) {
+            // creating the instances cannot fail.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void eventHappened(AbstractMonitorEvent event) {
+        if (event instanceof PaaSDeploymentStatusMonitorEvent) {
+            if (DeploymentStatus.UNDEPLOYED.equals(((PaaSDeploymentStatusMonitorEvent) event).getDeploymentStatus())) {
+                evict(event.getDeploymentId());
+            }
+            return;
+        }
+        if (event.getDeploymentId() == null) {
+            return;
+        }
+        // only deployments viewed by a client are tracked, other ones will be seeded from the orchestrator when requested.
+        DeploymentInstances deploymentInstances = cache.getIfPresent(event.getDeploymentId());
+        if (deploymentInstances != null) {
+            deploymentInstances.apply(event);
+        }
+    }
+
+    @Override
+    public boolean canHandle(AbstractMonitorEvent event) {
+        return event instanceof PaaSInstanceStateMonitorEvent || event instanceof PaaSInstancePersistentResourceMonitorEvent
+                || event instanceof PaaSDeploymentStatusMonitorEvent;
+    }
+
+    private static InstanceInformation copy(InstanceInformation information) {
+        return new InstanceInformation(information.getState(), information.getInstanceStatus(), copy(information.getAttributes()),
+                copy(information.getRuntimeProperties()), copy(information.getOperationsOutputs()));
+    }
+
+    private static Map<String, String> copy(Map<String, String> map) {
+        return map == null ? null : Maps.newHashMap(map);
+    }
+
+    /**
+     * Version of an instance, the information is null if the instance has been removed.
+     */
+    @AllArgsConstructor
+    private static class VersionedInstance {
+        private final long version;
+        private final InstanceInformation information;
+    }
+
+    /**
+     * Instances of a deployment, events received before the instances are seeded are kept to be applied on the seeded instances.
+     */
+    @RequiredArgsConstructor
+    private class DeploymentInstances {
+        private final String deploymentId;
+        private final Map<String, Map<String, VersionedInstance>> nodes = Maps.newHashMap();
+        private List<AbstractMonitorEvent> pendingEvents = Lists.newArrayList();
+        /** Changes before this version may have been forgotten, clients that requested an older version must reload all instances. */
+        private long minVersion;
+        private long version;
+        private int removedInstances;
+
+        private synchronized void seed(long fetchStartDate, Map<String, Map<String, InstanceInformation>> instancesInformation) {
+            if (pendingEvents == null) {
+                return;
+            }
+            version = versions.incrementAndGet();
+            minVersion = version;
+            if (instancesInformation != null) {
+                for (Map.Entry<String, Map<String, InstanceInformation>> nodeEntry : instancesInformation.entrySet()) {
+                    for (Map.Entry<String, InstanceInformation> instanceEntry : nodeEntry.getValue().entrySet()) {
+                        if (instanceEntry.getValue() != null) {
+                            put(nodeEntry.getKey(), instanceEntry.getKey(), copy(instanceEntry.getValue()));
+                        }
+                    }
+                }
+            }
+            List<AbstractMonitorEvent> events = pendingEvents;
+            pendingEvents = null;
+            int appliedEvents = 0;
+            for (AbstractMonitorEvent event : events) {
+                if (event.getDate() >= fetchStartDate) {
+                    apply(event);
+                    appliedEvents++;
+                }
+            }
+            log.debug("Instances information of deployment <{}> seeded with version <{}> and <{}> of <{}> pending events", deploymentId, version, appliedEvents,
+                    events.size());
+        }
+
+        private synchronized void evictIfNotSeeded() {
+            // seeding is synchronized on the instances so they cannot be seeded before the removal.
+            if (pendingEvents != null) {
+                cache.asMap().remove(deploymentId, this);
+            }
+        }
+
+        private synchronized void apply(AbstractMonitorEvent event) {
+            if (pendingEvents != null) {
+                pendingEvents.add(event);
+                return;
+            }
+            if (event instanceof PaaSInstanceStateMonitorEvent) {
+                apply((PaaSInstanceStateMonitorEvent) event);
+            } else {
+                apply((PaaSInstancePersistentResourceMonitorEvent) event);
+            }
+        }
+
+        private void apply(PaaSInstanceStateMonitorEvent event) {
+            InstanceInformation current = get(event.getNodeTemplateId(), event.getInstanceId());
+            if (event.getInstanceState() == null) {
+                // an instance state event without state notifies the removal of the instance.
+                if (current != null) {
+                    version = versions.incrementAndGet();
+                    put(event.getNodeTemplateId(), event.getInstanceId(), null);
+                    removedInstances++;
+                    if (removedInstances > MAX_REMOVED_INSTANCES) {
+                        forgetRemovedInstances();
+                    }
+                }
+                return;
+            }
+            InstanceInformation information = current == null ? new InstanceInformation() : copy(current);
+            information.setState(event.getInstanceState());
+            information.setInstanceStatus(event.getInstanceStatus());
+            if (event.getAttributes() != null) {
+                information.setAttributes(copy(event.getAttributes()));
+            }
+            if (event.getRuntimeProperties() != null) {
+                information.setRuntimeProperties(copy(event.getRuntimeProperties()));
+            }
+            version = versions.incrementAndGet();
+            put(event.getNodeTemplateId(), event.getInstanceId(), information);
+        }
+
+        private void apply(PaaSInstancePersistentResourceMonitorEvent event) {
+            InstanceInformation current = get(event.getNodeTemplateId(), event.getInstanceId());
+            Object propertyValue = event.getPropertyValue();
+            if (current == null || propertyValue == null || (propertyValue instanceof String && StringUtils.isBlank((String) propertyValue))) {
+                return;
+            }
+            InstanceInformation information = copy(current);
+            if (information.getAttributes() == null) {
+                information.setAttributes(Maps.<String, String> newHashMap());
+            }
+            information.getAttributes().put(event.getPropertyName(), propertyValue.toString());
+            version = versions.incrementAndGet();
+            put(event.getNodeTemplateId(), event.getInstanceId(), information);
+        }
+
+        private InstanceInformation get(String nodeTemplateId, String instanceId) {
+            Map<String, VersionedInstance> instances = nodes.get(nodeTemplateId);
+            VersionedInstance instance = instances == null ? null : instances.get(instanceId);
+            return instance == null ? null : instance.information;
+        }
+
+        private void put(String nodeTemplateId, String instanceId, InstanceInformation information) {
+            Map<String, VersionedInstance> instances = nodes.get(nodeTemplateId);
+            if (instances == null) {
+                instances = Maps.newHashMap();
+                nodes.put(nodeTemplateId, instances);
+            }
+            instances.put(instanceId, new VersionedInstance(version, information));
+        }
+
+        private void forgetRemovedInstances() {
+            for (Map<String, VersionedInstance> instances : nodes.values()) {
+                instances.values().removeIf(instance -> instance.information == null);
+            }
+            nodes.values().removeIf(Map::isEmpty);
+            removedInstances = 0;
+            minVersion = version;
+        }
+
+        private synchronized Map<String, Map<String, InstanceInformation>> snapshot() {
+            if (pendingEvents != null) {
+                return null;
+            }
+            return changedSince(0);
+        }
+
+        private synchronized InstancesInformationChanges changes(long since) {
+            if (pendingEvents != null) {
+                return null;
+            }
+            if (since < minVersion) {
+                return new InstancesInformationChanges(version, true, changedSince(0));
+            }
+            return new InstancesInformationChanges(version, false, changedSince(since));
+        }
+
+        private Map<String, Map<String, InstanceInformation>> changedSince(long since) {
+            // removed instances are part of the changes but not of the full instances information.
+            boolean includeRemoved = since > 0;
+            Map<String, Map<String, InstanceInformation>> result = Maps.newHashMap();
+            for (Map.Entry<String, Map<String, VersionedInstance>> nodeEntry : nodes.entrySet()) {
+                Map<String, InstanceInformation> instances = Maps.newHashMap();
+                for (Map.Entry<String, VersionedInstance> instanceEntry : nodeEntry.getValue().entrySet()) {
+                    VersionedInstance instance = instanceEntry.getValue();
+                    if (instance.version > since && (includeRemoved || instance.information != null)) {
+                        instances.put(instanceEntry.getKey(), instance.information == null ? null : copy(instance.information));
+                    }
+                }
+                if (!instances.isEmpty()) {
+                    result.put(nodeEntry.getKey(), instances);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package alien4cloud.deployment.model;
+
+import java.util.List;
+
+import alien4cloud.model.deployment.Deployment;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A page of deployments, sorted from the most recent to the oldest.
+ */
+@Getter
+@Setter
+@AllArgsConstructor(suppressConstructorProperties = true)
+@NoArgsConstructor
+public class DeploymentsPage {
+    /** The deployments of the page. */
+    private List<Deployment> deployments;
+    /** Total number of deployments matching the filters (in all pages). */
+    private long totalResults;
+    /** Cursor to get the next page or null if this is the last page. */
+    private String nextCursor;
+}
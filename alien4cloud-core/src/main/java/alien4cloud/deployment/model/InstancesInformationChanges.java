@@ -0,0 +1,25 @@
+package alien4cloud.deployment.model;
+
+import java.util.Map;
+
+import alien4cloud.paas.model.InstanceInformation;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Changes of the instances of a deployment since a given version.
+ */
+@Getter
+@Setter
+@AllArgsConstructor(suppressConstructorProperties = true)
+@NoArgsConstructor
+public class InstancesInformationChanges {
+    /** Version of the instances information, to be used to request the next changes. */
+    private long version;
+    /** True if the instances map contains all the instances of the deployment and not only the changed ones. */
+    private boolean full;
+    /** Map of node template's id to map of instance's id to instance information, a null information means that the instance has been removed. */
+    private Map<String, Map<String, InstanceInformation>> instances;
+}
@@ -1,5 +1,7 @@
 package alien4cloud.model.git;
 
+import java.util.Set;
+
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.Getter;
@@ -20,4 +22,6 @@ public class CsarGitCheckoutLocation {
     private String subPath;
     @ApiModelProperty(value = "unused field.", hidden = true)
     private String lastImportedHash;
+    @ApiModelProperty(value = "Ids of the archives imported from this location.", hidden = true)
+    private Set<String> importedArchiveIds;
 }
\ No newline at end of file
@@ -3,20 +3,23 @@ package alien4cloud.orchestrators.services;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
 
 import org.elasticsearch.mapping.QueryHelper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
 import com.google.common.util.concurrent.ListeningExecutorService;
-import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.GetMultipleDataResult;
@@ -34,7 +37,10 @@ import alien4cloud.orchestrators.plugin.IOrchestratorPlugin;
 import alien4cloud.orchestrators.plugin.IOrchestratorPluginFactory;
 import alien4cloud.paas.OrchestratorPluginService;
 import alien4cloud.paas.exception.PluginConfigurationException;
+import alien4cloud.paas.model.PaaSTopologyDeploymentContext;
+import alien4cloud.plugin.PluginStartupProfiler;
 import alien4cloud.utils.MapUtil;
+import alien4cloud.utils.services.ExecutorRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -59,6 +65,16 @@ public class OrchestratorStateService {
     private LocationService locationService;
     @Inject
     private PluginArchiveIndexer archiveIndexer;
+    @Inject
+    private PluginStartupProfiler startupProfiler;
+    @Inject
+    private ExecutorRegistry executorRegistry;
+    /** Number of orchestrators that can be loaded concurrently. */
+    @Value("${orchestrators.loading_threads:4}")
+    private int loadingThreads = 4;
+    /** Maximum duration in milliseconds of the loading of an orchestrator before it is considered as failed. */
+    @Value("${orchestrators.loading_timeout_ms:600000}")
+    private long loadingTimeoutMs = 1000 * 60 * 10;
 
     /**
      * Unload all orchestrators from JVM memory, it's typically to refresh/reload code
@@ -88,60 +104,95 @@ public class OrchestratorStateService {
 
     /**
      * Initialize all orchestrator that have a non-disabled state.
-     * Note: Each orchestrator initialization is down in it's own thread so it doesn't impact application startup or other orchestrator connection.
+     * Note: Each orchestrator initialization is done in the orchestrator-loader executor with a timeout so it doesn't impact application startup or other
+     * orchestrator connection.
      *
      * @param callback the callback to be executed when initialize finish
      */
     public ListenableFuture<?> initialize(FutureCallback callback) {
-        ListeningExecutorService executorService = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
-        try {
-            List<ListenableFuture<?>> futures = new ArrayList<>();
-            // get all the orchestrator that are not disabled
-            final List<Orchestrator> enabledOrchestratorList = orchestratorService.getAllEnabledOrchestrators();
+        ListeningExecutorService executorService = executorRegistry.getExecutor("orchestrator-loader", loadingThreads);
+        List<ListenableFuture<?>> futures = new ArrayList<>();
+        // get all the orchestrator that are not disabled
+        final List<Orchestrator> enabledOrchestratorList = orchestratorService.getAllEnabledOrchestrators();
 
-            if (enabledOrchestratorList == null || enabledOrchestratorList.isEmpty()) {
-                return Futures.immediateFuture(null);
-            }
-            log.info("Initializing orchestrators");
-            for (final Orchestrator orchestrator : enabledOrchestratorList) {
-                // error in initialization and timeouts should not impact startup time of Alien 4 cloud and other PaaS Providers.
-                ListenableFuture<?> future = executorService.submit(new Runnable() {
-                    @Override
-                    public void run() {
-                        try {
-                            load(orchestrator);
-                        } catch (AlreadyExistException e) {
-                            log.info("Orchestrator was already loaded at initialization for {}.", orchestrator.getId());
-                        } catch (Exception e) {
-                            // we have to catch everything as we don't know what a plugin can do here and cannot interrupt startup.
-                            // Any orchestrator that failed to load will be considered as DISABLED as the registration didn't occurred
-                            log.error("Unexpected error in plugin", e);
-                            orchestrator.setState(OrchestratorState.DISABLED);
-                            alienDAO.save(orchestrator);
-                        }
+        if (enabledOrchestratorList == null || enabledOrchestratorList.isEmpty()) {
+            return Futures.immediateFuture(null);
+        }
+        log.info("Initializing orchestrators");
+        for (final Orchestrator orchestrator : enabledOrchestratorList) {
+            // error in initialization and timeouts should not impact startup time of Alien 4 cloud and other PaaS Providers.
+            final SettableFuture<Object> loaded = SettableFuture.create();
+            final ListenableFutureTask<Object> future = ListenableFutureTask.create(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        load(orchestrator);
+                    } catch (AlreadyExistException e) {
+                        log.info("Orchestrator was already loaded at initialization for {}.", orchestrator.getId());
+                    } catch (Exception e) {
+                        // we have to catch everything as we don't know what a plugin can do here and cannot interrupt startup.
+                        // Any orchestrator that failed to load will be considered as DISABLED as the registration didn't occurred
+                        log.error("Unexpected error in plugin", e);
+                        orchestrator.setState(OrchestratorState.DISABLED);
+                        alienDAO.save(orchestrator);
                     }
-                });
-                futures.add(future);
-            }
-            ListenableFuture<?> combinedFuture = Futures.allAsList(futures);
-            if (callback != null) {
-                Futures.addCallback(combinedFuture, callback);
-            }
-            Futures.addCallback(combinedFuture, new FutureCallback<Object>() {
+                }
+            }, null);
+            // a cancelled (timed out) loading must not fail the loading of the other orchestrators.
+            Futures.addCallback(future, new FutureCallback<Object>() {
                 @Override
                 public void onSuccess(Object result) {
-                    log.info("{} Orchestrators loaded", enabledOrchestratorList.size());
+                    loaded.set(null);
                 }
 
                 @Override
                 public void onFailure(Throwable t) {
-                    log.error("Unable to load orchestrators", t);
+                    loaded.set(null);
                 }
             });
-            return combinedFuture;
-        } finally {
-            executorService.shutdown();
+            final Runnable onTimeout = new Runnable() {
+                @Override
+                public void run() {
+                    // the loading may complete concurrently, a connected orchestrator must not be saved as disabled.
+                    synchronized (orchestrator) {
+                        if (!OrchestratorState.CONNECTING.equals(orchestrator.getState())) {
+                            log.warn("Orchestrator {} (id: {}) loading timed out after the orchestrator switched to {}, state is kept.", orchestrator.getName(),
+                                    orchestrator.getId(), orchestrator.getState());
+                            return;
+                        }
+                        log.error("Orchestrator {} (id: {}) did not load within {} ms, it is disabled.", orchestrator.getName(), orchestrator.getId(),
+                                loadingTimeoutMs);
+                        orchestrator.setState(OrchestratorState.DISABLED);
+                        alienDAO.save(orchestrator);
+                    }
+                }
+            };
+            // the timeout starts when a loading thread runs the task so that orchestrators waiting for a thread are not timed out.
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    executorRegistry.cancelOnTimeout(future, loadingTimeoutMs, TimeUnit.MILLISECONDS, onTimeout);
+                    future.run();
+                }
+            });
+            futures.add(loaded);
+        }
+        ListenableFuture<?> combinedFuture = Futures.allAsList(futures);
+        if (callback != null) {
+            Futures.addCallback(combinedFuture, callback);
         }
+        Futures.addCallback(combinedFuture, new FutureCallback<Object>() {
+            @Override
+            public void onSuccess(Object result) {
+                log.info("{} Orchestrators loaded", enabledOrchestratorList.size());
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                log.error("Unable to load orchestrators", t);
+            }
+        });
+        return combinedFuture;
     }
 
     /**
@@ -174,10 +225,13 @@ public class OrchestratorStateService {
         alienDAO.save(orchestrator);
 
         // TODO move below in a thread to perform plugin loading and connection asynchronously
+        long loadStart = System.nanoTime();
         IOrchestratorPluginFactory orchestratorFactory = orchestratorService.getPluginFactory(orchestrator);
         IOrchestratorPlugin<Object> orchestratorInstance = orchestratorFactory.newInstance();
         // index the archive in alien catalog
+        long indexingStart = System.nanoTime();
         archiveIndexer.indexOrchestratorArchives(orchestratorFactory, orchestratorInstance);
+        startupProfiler.recordOrchestrator(orchestrator.getId(), PluginStartupProfiler.PHASE_ARCHIVE_INDEXING, indexingStart);
         // Set the configuration for the provider
         OrchestratorConfiguration orchestratorConfiguration = orchestratorConfigurationService.getConfigurationOrFail(orchestrator.getId());
         try {
@@ -189,12 +243,25 @@ public class OrchestratorStateService {
         }
 
         // connect the orchestrator
-        orchestratorInstance.init(deploymentService.getCloudActiveDeploymentContexts(orchestrator.getId()));
+        long recoveryStart = System.nanoTime();
+        Map<String, PaaSTopologyDeploymentContext> activeDeploymentContexts = deploymentService.getCloudActiveDeploymentContexts(orchestrator.getId());
+        startupProfiler.recordOrchestrator(orchestrator.getId(), PluginStartupProfiler.PHASE_DEPLOYMENTS_RECOVERY, recoveryStart);
+        orchestratorInstance.init(activeDeploymentContexts);
 
-        // register the orchestrator instance to be polled for updates
-        orchestratorPluginService.register(orchestrator.getId(), orchestratorInstance);
-        orchestrator.setState(OrchestratorState.CONNECTED);
-        alienDAO.save(orchestrator);
+        synchronized (orchestrator) {
+            if (!OrchestratorState.CONNECTING.equals(orchestrator.getState())) {
+                // the loading timed out and the orchestrator has been disabled meanwhile.
+                log.warn("Orchestrator {} (id: {}) has been {} while loading, it is not registered.", orchestrator.getName(), orchestrator.getId(),
+                        orchestrator.getState());
+                orchestratorFactory.destroy(orchestratorInstance);
+                return;
+            }
+            // register the orchestrator instance to be polled for updates
+            orchestratorPluginService.register(orchestrator.getId(), orchestratorInstance);
+            orchestrator.setState(OrchestratorState.CONNECTED);
+            alienDAO.save(orchestrator);
+        }
+        startupProfiler.recordOrchestrator(orchestrator.getId(), PluginStartupProfiler.PHASE_ORCHESTRATOR_LOAD, loadStart);
         if (orchestratorInstance instanceof ILocationAutoConfigurer) {
             // trigger locations auto-configurations
             locationService.autoConfigure(orchestrator, (ILocationAutoConfigurer) orchestratorInstance);
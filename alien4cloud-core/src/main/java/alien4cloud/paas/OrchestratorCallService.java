@@ -0,0 +1,258 @@
+package alien4cloud.paas;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+
+import alien4cloud.paas.exception.OrchestratorUnavailableException;
+import alien4cloud.utils.services.ExecutorRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Execute the read calls to the orchestrators (status, instances information) so that a slow or unresponsive orchestrator cannot hold the request threads.
+ *
+ * Each orchestrator gets its own bounded executor (<code>orchestrator-calls-[orchestratorId]</code> in the {@link ExecutorRegistry}) and a limited number of
+ * pending calls: a call is pending from its submission until its callback is notified, even when the plugin answers from its own threads. Calls submitted when
+ * too many calls are pending or that are not completed before the timeout fail with an {@link OrchestratorUnavailableException}.
+ *
+ * When a call fails the last value returned by the orchestrator for the same key is returned instead, as long as it is not older than
+ * <code>orchestrators.calls.last_known_values_ttl_ms</code>. Callers are not told that the value comes from the fallback, so the bound must be kept short;
+ * after it the failure is reported to the caller (statuses are then reported as UNKNOWN). Durations, rejections, timeouts and fallbacks are published under
+ * <code>alien4cloud.orchestrators.calls.[orchestratorId]</code>.
+ */
+@Slf4j
+@Service
+public class OrchestratorCallService {
+    private static final String METRIC_PREFIX = "alien4cloud.orchestrators.calls";
+    private static final String EXECUTOR_PREFIX = "orchestrator-calls-";
+    private static final String TIMEOUT_EXECUTOR = "orchestrator-calls-timeout";
+    private static final long REQUEST_TIMEOUT_MARGIN_MS = 5000;
+
+    @Inject
+    private ExecutorRegistry executorRegistry;
+    @Autowired(required = false)
+    private MetricRegistry metricRegistry;
+
+    /** Maximum number of threads used to submit calls to a single orchestrator. */
+    @Value("${orchestrators.calls.threads:10}")
+    private int threads = 10;
+    /** Maximum number of pending calls to a single orchestrator in addition to the threads, further calls are rejected. */
+    @Value("${orchestrators.calls.queue_capacity:50}")
+    private int queueCapacity = 50;
+    /** Maximum duration of a call (in milliseconds), 0 to wait forever. */
+    @Value("${orchestrators.calls.timeout_ms:30000}")
+    private long timeoutMs = 30000;
+    /** Maximum number of last known values kept to answer when an orchestrator cannot be reached. */
+    @Value("${orchestrators.calls.last_known_values:10000}")
+    private long lastKnownValuesSize = 10000;
+    /** Maximum age (in milliseconds) of a last known value returned when an orchestrator cannot be reached. */
+    @Value("${orchestrators.calls.last_known_values_ttl_ms:300000}")
+    private long lastKnownValuesTtlMs = 300000;
+
+    private Cache<String, Object> lastKnownValues;
+    /** Permits of the pending calls of each orchestrator. */
+    private final ConcurrentMap<String, Semaphore> pendingCalls = Maps.newConcurrentMap();
+
+    @PostConstruct
+    public void init() {
+        lastKnownValues = CacheBuilder.newBuilder().maximumSize(lastKnownValuesSize).expireAfterWrite(lastKnownValuesTtlMs, TimeUnit.MILLISECONDS).build();
+    }
+
+    /**
+     * Get the timeout of the asynchronous requests that wait for orchestrator calls, it is a bit longer than the calls timeout so that the calls fail (or fall
+     * back to the last known values) first.
+     *
+     * @return The timeout in milliseconds, null to use the default timeout of the container when the calls never time out.
+     */
+    public Long getRequestTimeoutMs() {
+        return timeoutMs > 0 ? timeoutMs + REQUEST_TIMEOUT_MARGIN_MS : null;
+    }
+
+    /**
+     * A call to an orchestrator that reports its result through a callback.
+     *
+     * @param <T> The type of the result of the call.
+     */
+    public interface IOrchestratorCall<T> {
+        void execute(IPaaSCallback<T> callback);
+    }
+
+    /**
+     * Execute a call on the executor of the given orchestrator.
+     *
+     * @param orchestratorId The id of the orchestrator targeted by the call.
+     * @param operation The name of the operation (used for metrics and logs).
+     * @param lastKnownValueKey The key under which to keep the result of the call to answer in case of failure, null to disable the fallback.
+     * @param call The call to execute.
+     * @param callback The callback to notify (exactly once) with the result of the call.
+     */
+    public <T> void call(final String orchestratorId, final String operation, String lastKnownValueKey, final IOrchestratorCall<T> call,
+            IPaaSCallback<T> callback) {
+        final CallCompletion<T> completion = new CallCompletion<>(orchestratorId, operation, lastKnownValueKey, callback);
+        Semaphore permits = getPendingCalls(orchestratorId);
+        if (!permits.tryAcquire()) {
+            mark(orchestratorId, "rejected");
+            completion.onFailure(new OrchestratorUnavailableException("Too many calls are pending on orchestrator <" + orchestratorId + ">."));
+            return;
+        }
+        // the permit is released when the callback is notified.
+        completion.permits = permits;
+        final Future<?> task;
+        try {
+            task = executorRegistry.getExecutor(EXECUTOR_PREFIX + orchestratorId, threads, queueCapacity).submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        call.execute(completion);
+                    } catch (RuntimeException e) {
+                        completion.onFailure(e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            mark(orchestratorId, "rejected");
+            completion.onFailure(new OrchestratorUnavailableException("Too many calls are pending on orchestrator <" + orchestratorId + ">.", e));
+            return;
+        }
+        if (timeoutMs > 0) {
+            try {
+                completion.timeout = executorRegistry.getScheduledExecutor(TIMEOUT_EXECUTOR, 1).schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (completion.isDone()) {
+                            return;
+                        }
+                        mark(orchestratorId, "timeouts");
+                        completion.onFailure(new OrchestratorUnavailableException(
+                                "Orchestrator <" + orchestratorId + "> did not answer to <" + operation + "> in " + timeoutMs + " ms."));
+                        task.cancel(true);
+                    }
+                }, timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // a call that cannot be timed out could hold its permit forever.
+                mark(orchestratorId, "rejected");
+                completion.onFailure(new OrchestratorUnavailableException("Too many calls are pending on the orchestrators.", e));
+                task.cancel(true);
+                return;
+            }
+            if (completion.isDone()) {
+                // the call completed before the timeout was registered.
+                completion.timeout.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Release the resources used for the calls to an orchestrator (when it is disabled).
+     *
+     * @param orchestratorId The id of the orchestrator.
+     */
+    public void release(String orchestratorId) {
+        executorRegistry.shutdown(EXECUTOR_PREFIX + orchestratorId);
+        pendingCalls.remove(orchestratorId);
+    }
+
+    private Semaphore getPendingCalls(String orchestratorId) {
+        Semaphore permits = pendingCalls.get(orchestratorId);
+        if (permits == null) {
+            Semaphore newPermits = new Semaphore(Math.max(1, threads) + Math.max(0, queueCapacity));
+            permits = pendingCalls.putIfAbsent(orchestratorId, newPermits);
+            if (permits == null) {
+                permits = newPermits;
+            }
+        }
+        return permits;
+    }
+
+    private void mark(String orchestratorId, String type) {
+        if (metricRegistry != null) {
+            metricRegistry.meter(MetricRegistry.name(METRIC_PREFIX, orchestratorId, type)).mark();
+        }
+    }
+
+    /**
+     * Ensure that the callback of a call is notified only once (by the orchestrator, the timeout or the rejection) and keep the last known values.
+     */
+    private class CallCompletion<T> implements IPaaSCallback<T> {
+        private final String orchestratorId;
+        private final String operation;
+        private final String lastKnownValueKey;
+        private final IPaaSCallback<T> callback;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private final long start = System.nanoTime();
+        private volatile Future<?> timeout;
+        private volatile Semaphore permits;
+
+        private CallCompletion(String orchestratorId, String operation, String lastKnownValueKey, IPaaSCallback<T> callback) {
+            this.orchestratorId = orchestratorId;
+            this.operation = operation;
+            this.lastKnownValueKey = lastKnownValueKey;
+            this.callback = callback;
+        }
+
+        private boolean isDone() {
+            return done.get();
+        }
+
+        private boolean complete() {
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+            Future<?> currentTimeout = timeout;
+            if (currentTimeout != null) {
+                currentTimeout.cancel(false);
+            }
+            if (permits != null) {
+                permits.release();
+            }
+            if (metricRegistry != null) {
+                metricRegistry.timer(MetricRegistry.name(METRIC_PREFIX, orchestratorId, operation)).update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            return true;
+        }
+
+        @Override
+        public void onSuccess(T data) {
+            if (!complete()) {
+                log.debug("Ignoring result of <{}> on orchestrator <{}> received after completion", operation, orchestratorId);
+                return;
+            }
+            if (lastKnownValueKey != null && data != null) {
+                lastKnownValues.put(lastKnownValueKey, data);
+            }
+            callback.onSuccess(data);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onFailure(Throwable throwable) {
+            if (!complete()) {
+                log.debug("Ignoring failure of <{}> on orchestrator <{}> received after completion", operation, orchestratorId);
+                return;
+            }
+            T lastKnownValue = lastKnownValueKey == null ? null : (T) lastKnownValues.getIfPresent(lastKnownValueKey);
+            if (lastKnownValue != null) {
+                log.warn("Call <{}> on orchestrator <{}> failed, returning the last known value. Cause: {}", operation, orchestratorId, throwable.getMessage());
+                mark(orchestratorId, "fallbacks");
+                callback.onSuccess(lastKnownValue);
+                return;
+            }
+            callback.onFailure(throwable);
+        }
+    }
+}
@@ -38,8 +38,13 @@ public class OrchestratorPluginService implements IPaasEventService {
     /** Interval in milliseconds on which to retrieve monitoring events from a PaaS provider. */
     @Value("${paas_monitor.monitor_interval_ms}")
     private long monitorIntervalMs = 1000 * 30;
+    /** Maximum duration in milliseconds of a request to retrieve monitoring events from a PaaS provider (0 to wait forever). */
+    @Value("${paas_monitor.poll_timeout_ms:300000}")
+    private long pollTimeoutMs = 1000 * 60 * 5;
     @Inject
     private DeploymentStatusEventHandler deploymentStatusEventHandler;
+    @Inject
+    private OrchestratorCallService orchestratorCallService;
 
     private Map<String, Registration> monitorRegistrations = Maps.newHashMap();
 
@@ -73,7 +78,7 @@ public class OrchestratorPluginService implements IPaasEventService {
             throw new AlreadyExistException("Cloud [" + orchestratorId + "] has already been registered");
         }
         // create the polling monitor responsible to monitor this instance.
-        PaaSProviderPollingMonitor monitor = new PaaSProviderPollingMonitor(alienDao, alienMonitorDao, instance, listeners, orchestratorId);
+        PaaSProviderPollingMonitor monitor = new PaaSProviderPollingMonitor(alienDao, alienMonitorDao, instance, listeners, orchestratorId, pollTimeoutMs);
         ScheduledFuture<?> monitorFuture = scheduler.scheduleAtFixedRate(monitor, monitorIntervalMs);
         Registration registration = new Registration(instance, monitorFuture);
         monitorRegistrations.put(orchestratorId, registration);
@@ -89,6 +94,7 @@ public class OrchestratorPluginService implements IPaasEventService {
         Registration registration = monitorRegistrations.remove(orchestratorId);
         if (registration != null) {
             registration.registration.cancel(false);
+            orchestratorCallService.release(orchestratorId);
             return registration.instance;
         } else {
             return null;
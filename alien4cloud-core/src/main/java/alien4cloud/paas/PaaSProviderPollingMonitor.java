@@ -36,10 +36,15 @@ public class PaaSProviderPollingMonitor implements Runnable {
     private Date lastPollingDate;
     @SuppressWarnings("rawtypes")
     private List<IPaasEventListener> listeners;
-    private PaaSEventsCallback paaSEventsCallback;
     private String orchestratorId;
     private boolean hasDeployments = false;
     private boolean getEventsInProgress = false;
+    /** Maximum duration of a call to get events from the orchestrator before considering that it will never complete (0 to wait forever). */
+    private final long pollTimeoutMs;
+    /** Date (in ms) at which the current get events call started. */
+    private long pollStartDate;
+    /** Identifier of the current get events call, callbacks of previous calls are ignored. */
+    private long pollId = 0;
 
     /**
      * Create a new instance of the {@link PaaSProviderPollingMonitor} to monitor the given paas provider.
@@ -49,7 +54,20 @@ public class PaaSProviderPollingMonitor implements Runnable {
     @SuppressWarnings("rawtypes")
     public PaaSProviderPollingMonitor(IGenericSearchDAO dao, IGenericSearchDAO monitorDAO, IPaaSProvider paaSProvider, List<IPaasEventListener> listeners,
             String orchestratorId) {
+        this(dao, monitorDAO, paaSProvider, listeners, orchestratorId, 0);
+    }
+
+    /**
+     * Create a new instance of the {@link PaaSProviderPollingMonitor} to monitor the given paas provider.
+     *
+     * @param paaSProvider The paas provider to monitor.
+     * @param pollTimeoutMs Maximum duration of a call to get events from the orchestrator, when reached the call is abandoned and polling starts again.
+     */
+    @SuppressWarnings("rawtypes")
+    public PaaSProviderPollingMonitor(IGenericSearchDAO dao, IGenericSearchDAO monitorDAO, IPaaSProvider paaSProvider, List<IPaasEventListener> listeners,
+            String orchestratorId, long pollTimeoutMs) {
         this.orchestratorId = orchestratorId;
+        this.pollTimeoutMs = pollTimeoutMs;
         this.dao = dao;
         this.monitorDAO = monitorDAO;
         this.paaSProvider = paaSProvider;
@@ -85,13 +103,23 @@ public class PaaSProviderPollingMonitor implements Runnable {
             this.lastPollingDate = new Date();
             log.debug("No monitor events found, the last polling date will be current date {}", this.lastPollingDate);
         }
-        paaSEventsCallback = new PaaSEventsCallback();
     }
 
     private class PaaSEventsCallback implements IPaaSCallback<AbstractMonitorEvent[]> {
+        private final long callbackPollId;
+
+        private PaaSEventsCallback(long callbackPollId) {
+            this.callbackPollId = callbackPollId;
+        }
+
         @Override
         public void onSuccess(AbstractMonitorEvent[] auditEvents) {
             synchronized (PaaSProviderPollingMonitor.this) {
+                if (callbackPollId != pollId) {
+                    // events will be retrieved again by the next poll as the last polling date has not been updated.
+                    log.warn("Ignoring events of orchestrator {} received after polling timeout", orchestratorId);
+                    return;
+                }
                 if (log.isTraceEnabled()) {
                     log.trace("Polled from date {}", lastPollingDate);
                 }
@@ -131,6 +159,9 @@ public class PaaSProviderPollingMonitor implements Runnable {
         @Override
         public void onFailure(Throwable throwable) {
             synchronized (PaaSProviderPollingMonitor.this) {
+                if (callbackPollId != pollId) {
+                    return;
+                }
                 getEventsInProgress = false;
                 // Make it re-verify if has deployment returns something in order to no loop infinitely
                 // If the PaaS is down, there might be a chance that the deployment has been marked as failed
@@ -179,12 +210,19 @@ public class PaaSProviderPollingMonitor implements Runnable {
             log.trace("Poll scheduled");
         }
         if (getEventsInProgress) {
-            // Get events since is running
-            return;
+            if (pollTimeoutMs <= 0 || System.currentTimeMillis() - pollStartDate < pollTimeoutMs) {
+                // Get events since is running
+                return;
+            }
+            // the orchestrator did not answer in time, abandon the call so the monitoring of this orchestrator does not stay blocked forever.
+            log.warn("Orchestrator {} did not return events within {} ms, polling will be performed again.", orchestratorId, pollTimeoutMs);
+            hasDeployments = false;
         }
         getEventsInProgress = true;
+        pollId++;
         if (hasDeployments) {
-            paaSProvider.getEventsSince(lastPollingDate, MAX_POLLED_EVENTS, paaSEventsCallback);
+            pollStartDate = System.currentTimeMillis();
+            paaSProvider.getEventsSince(lastPollingDate, MAX_POLLED_EVENTS, new PaaSEventsCallback(pollId));
         } else {
             getEventsInProgress = false;
             hasDeployments = getActiveDeployment() != null;
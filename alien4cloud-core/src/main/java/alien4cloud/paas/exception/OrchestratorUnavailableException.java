@@ -0,0 +1,19 @@
+package alien4cloud.paas.exception;
+
+import alien4cloud.exception.TechnicalException;
+
+/**
+ * Exception to be thrown when a call to an orchestrator cannot be processed in time: too many calls are pending on the orchestrator or it didn't answer
+ * before the timeout.
+ */
+public class OrchestratorUnavailableException extends TechnicalException {
+    private static final long serialVersionUID = 1L;
+
+    public OrchestratorUnavailableException(String message) {
+        super(message);
+    }
+
+    public OrchestratorUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
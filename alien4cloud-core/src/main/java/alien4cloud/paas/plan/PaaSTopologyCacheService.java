@@ -0,0 +1,172 @@
+package alien4cloud.paas.plan;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import org.alien4cloud.tosca.model.definitions.Interface;
+import org.alien4cloud.tosca.model.templates.NodeTemplate;
+import org.alien4cloud.tosca.model.templates.ScalingPolicy;
+import org.alien4cloud.tosca.model.templates.Topology;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import alien4cloud.paas.model.AbstractPaaSTemplate;
+import alien4cloud.paas.model.PaaSNodeTemplate;
+import alien4cloud.paas.model.PaaSRelationshipTemplate;
+import alien4cloud.paas.model.PaaSTopology;
+import alien4cloud.rest.utils.JsonUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the {@link PaaSTopology} built for deployed topologies so that runtime operations do not have to resolve all the types of a topology again when the
+ * deployed topology did not change.
+ *
+ * Entries are keyed by the id of the deployment and versioned with the last update date of the deployed topology (set by the DAO on every save) so that any
+ * modification of the topology (scaling, update etc.) triggers a rebuild of the tree. The cached tree is never returned: each caller gets its own copy of the
+ * tree bound to the node templates of the topology it gave, only the tosca types are shared and must not be modified.
+ */
+@Slf4j
+@Service
+public class PaaSTopologyCacheService {
+    @Inject
+    private TopologyTreeBuilderService topologyTreeBuilderService;
+
+    @Value("${paas_topology_cache.max_size:200}")
+    private int maxSize;
+    @Value("${paas_topology_cache.expire_after_access_minutes:60}")
+    private int expireAfterAccessMinutes;
+
+    private Cache<String, VersionedPaaSTopology> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterAccess(expireAfterAccessMinutes, TimeUnit.MINUTES).build();
+    }
+
+    /**
+     * Get the PaaSTopology of a deployed topology, building it only if the topology changed since the last build.
+     *
+     * @param deploymentId The id of the deployment under which to cache the PaaSTopology.
+     * @param topology The deployed topology.
+     * @return A PaaSTopology built from the given topology that the caller is free to modify.
+     */
+    public PaaSTopology get(String deploymentId, Topology topology) {
+        if (deploymentId == null || topology.getLastUpdateDate() == null) {
+            return topologyTreeBuilderService.buildPaaSTopology(topology);
+        }
+        long version = topology.getLastUpdateDate().getTime();
+        VersionedPaaSTopology cached = cache.getIfPresent(deploymentId);
+        if (cached == null || cached.getVersion() != version) {
+            log.debug("Building PaaSTopology for deployment <{}> with version <{}>", deploymentId, version);
+            cached = new VersionedPaaSTopology(version, topologyTreeBuilderService.buildPaaSTopology(topology));
+            cache.put(deploymentId, cached);
+        }
+        return copy(cached.getPaaSTopology(), topology);
+    }
+
+    /**
+     * Remove the PaaSTopology cached for a given deployment.
+     *
+     * @param deploymentId The id of the deployment.
+     */
+    public void evict(String deploymentId) {
+        cache.invalidate(deploymentId);
+    }
+
+    /**
+     * Copy a cached PaaSTopology, the copied node and relationship templates wrap the templates of the given topology.
+     *
+     * @param paaSTopology The cached PaaSTopology.
+     * @param topology The topology (in the same version as the cached PaaSTopology) to which to bind the copy.
+     * @return A copy of the PaaSTopology that does not share any node, relationship or interface with the cached one.
+     */
+    private PaaSTopology copy(PaaSTopology paaSTopology, Topology topology) {
+        Map<String, PaaSNodeTemplate> nodes = Maps.newHashMap();
+        for (PaaSNodeTemplate node : paaSTopology.getAllNodes().values()) {
+            PaaSNodeTemplate copy = new PaaSNodeTemplate(node.getId(), topology.getNodeTemplates().get(node.getId()));
+            copyType(node, copy);
+            copy.setCsarPath(node.getCsarPath());
+            copy.setCreateChildrenSequence(node.isCreateChildrenSequence());
+            ScalingPolicy scalingPolicy = node.getScalingPolicy();
+            if (scalingPolicy != null) {
+                copy.setScalingPolicy(new ScalingPolicy(scalingPolicy.getMinInstances(), scalingPolicy.getMaxInstances(), scalingPolicy.getInitialInstances()));
+            }
+            if (node.getGroups() != null) {
+                copy.setGroups(Sets.newHashSet(node.getGroups()));
+            }
+            nodes.put(copy.getId(), copy);
+        }
+        // relationships are referenced by both their source and target nodes.
+        Map<PaaSRelationshipTemplate, PaaSRelationshipTemplate> relationships = new IdentityHashMap<>();
+        for (PaaSNodeTemplate node : paaSTopology.getAllNodes().values()) {
+            PaaSNodeTemplate copy = nodes.get(node.getId());
+            if (node.getParent() != null) {
+                copy.setParent(nodes.get(node.getParent().getId()));
+            }
+            copy.setChildren(copy(node.getChildren(), nodes));
+            copy.setStorageNodes(copy(node.getStorageNodes(), nodes));
+            copy.setNetworkNodes(copy(node.getNetworkNodes(), nodes));
+            for (PaaSRelationshipTemplate relationship : node.getRelationshipTemplates()) {
+                PaaSRelationshipTemplate relationshipCopy = relationships.get(relationship);
+                if (relationshipCopy == null) {
+                    NodeTemplate source = topology.getNodeTemplates().get(relationship.getSource());
+                    relationshipCopy = new PaaSRelationshipTemplate(relationship.getId(), source.getRelationships().get(relationship.getId()),
+                            relationship.getSource());
+                    copyType(relationship, relationshipCopy);
+                    relationshipCopy.setCsarPath(relationship.getCsarPath());
+                    relationships.put(relationship, relationshipCopy);
+                }
+                copy.getRelationshipTemplates().add(relationshipCopy);
+            }
+        }
+        Map<String, List<PaaSNodeTemplate>> groups = Maps.newHashMap();
+        for (Map.Entry<String, List<PaaSNodeTemplate>> groupEntry : paaSTopology.getGroups().entrySet()) {
+            groups.put(groupEntry.getKey(), copy(groupEntry.getValue(), nodes));
+        }
+        return new PaaSTopology(copy(paaSTopology.getComputes(), nodes), copy(paaSTopology.getNetworks(), nodes), copy(paaSTopology.getVolumes(), nodes),
+                copy(paaSTopology.getNonNatives(), nodes), nodes, groups);
+    }
+
+    private List<PaaSNodeTemplate> copy(List<PaaSNodeTemplate> paaSNodeTemplates, Map<String, PaaSNodeTemplate> nodes) {
+        if (paaSNodeTemplates == null) {
+            return null;
+        }
+        List<PaaSNodeTemplate> copies = Lists.newArrayListWithCapacity(paaSNodeTemplates.size());
+        for (PaaSNodeTemplate paaSNodeTemplate : paaSNodeTemplates) {
+            copies.add(nodes.get(paaSNodeTemplate.getId()));
+        }
+        return copies;
+    }
+
+    @SneakyThrows
+    @SuppressWarnings("unchecked")
+    private void copyType(AbstractPaaSTemplate from, AbstractPaaSTemplate to) {
+        to.setIndexedToscaElement(from.getIndexedToscaElement());
+        to.setDerivedFroms(from.getDerivedFroms() == null ? null : Lists.newArrayList(from.getDerivedFroms()));
+        // merged interfaces are copied the same way the tree builder copies the interfaces of the types.
+        if (from.getInterfaces() != null) {
+            to.setInterfaces(JsonUtil.toMap(JsonUtil.toString(from.getInterfaces()), String.class, Interface.class));
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class VersionedPaaSTopology {
+        private final long version;
+        private final PaaSTopology paaSTopology;
+    }
+}
@@ -11,11 +11,15 @@ import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.annotation.Resource;
 
@@ -32,6 +36,7 @@ import org.springframework.stereotype.Component;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.GetMultipleDataResult;
@@ -51,6 +56,7 @@ import alien4cloud.utils.MapUtil;
 import alien4cloud.utils.ReflectionUtil;
 import alien4cloud.utils.SpringUtils;
 import alien4cloud.utils.YamlParserUtil;
+import alien4cloud.utils.services.ExecutorRegistry;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -65,7 +71,10 @@ public class PluginManager {
     private static final String UNKNOWN_PLUGIN_COMPONENT_TYPE = "Unknown component type";
     private static final String LIB_DIRECTORY = "lib";
     private static final String UI_DIRECTORY = "ui";
+    /** Ui files that are served precompressed (gzip) to the clients. */
+    private static final String UI_COMPRESSIBLE_FILES = ".*\\.(js|css|html|json|svg|map)$";
     private static final String PLUGIN_DESCRIPTOR_FILE = "META-INF/plugin.yml";
+    private static final String PLUGIN_LOADER_EXECUTOR = "plugin-loader";
 
     @Value("${directories.alien}/plugins")
     private String pluginsDirectory; // directory in which plugins are placed so they are loaded when alien is starting - for initialization.
@@ -76,9 +85,16 @@ public class PluginManager {
 
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDAO;
+    @Value("${plugins.loading_threads:4}")
+    private int loadingThreads;
+
     @Resource
     private ApplicationContext alienContext;
-    private Map<String, ManagedPlugin> pluginContexts = Maps.newHashMap();
+    @Resource
+    private PluginStartupProfiler startupProfiler;
+    @Resource
+    private ExecutorRegistry executorRegistry;
+    private Map<String, ManagedPlugin> pluginContexts = Maps.newConcurrentMap();
     @Getter
     private List<PluginLinker> linkers = null;
 
@@ -114,44 +130,130 @@ public class PluginManager {
         }
 
         log.info("Initializing plugins");
+        long start = System.nanoTime();
         // Load enabled plugins in alien, query using max value as anyway we must be able to load all plugins in memory.
         GetMultipleDataResult<Plugin> results = alienDAO.find(Plugin.class, MapUtil.newHashMap(new String[] { "enabled" }, new String[][] { { "true" } }),
                 Integer.MAX_VALUE);
-        loadPlugins(results.getData());
+        ExecutorService executorService = executorRegistry.getExecutor(PLUGIN_LOADER_EXECUTOR, loadingThreads);
+        try {
+            loadPlugins(Lists.newArrayList(results.getData()), executorService);
+        } finally {
+            executorRegistry.shutdown(PLUGIN_LOADER_EXECUTOR);
+        }
+        startupProfiler.recordInitialization(start);
         log.info("{} Plugins initialized.", results.getData().length);
     }
 
     /**
-     * Load all the plugins that have their dependencies fullfilled by loaded plugin.
+     * Load the plugins following their dependency graph. Plugins that have all their dependencies loaded are loaded concurrently (creation of the class
+     * loader and of the spring context), then linked to alien one after the other. The operation is repeated until all plugins are loaded or until remaining
+     * plugins cannot be loaded because some of their dependencies are missing.
      *
      * @param plugins the plugins to load.
+     * @param executorService the executor to use to load plugins concurrently.
      */
-    private void loadPlugins(Plugin[] plugins) {
-        List<Plugin> missingDependencyPlugins = Lists.newArrayList();
-        for (Plugin plugin : plugins) {
-            // if the plugin has no unresolved dependency, load it
-            if (getMissingDependencies(plugin).size() == 0) {
+    private void loadPlugins(List<Plugin> plugins, ExecutorService executorService) {
+        ClassLoader parentClassLoader = Thread.currentThread().getContextClassLoader();
+        List<Plugin> remainingPlugins = plugins;
+        while (!remainingPlugins.isEmpty()) {
+            List<Plugin> loadablePlugins = Lists.newArrayList();
+            List<Plugin> missingDependencyPlugins = Lists.newArrayList();
+            for (Plugin plugin : remainingPlugins) {
+                // if the plugin has no unresolved dependency, load it
+                if (getMissingDependencies(plugin).isEmpty()) {
+                    loadablePlugins.add(plugin);
+                } else {
+                    missingDependencyPlugins.add(plugin);
+                }
+            }
+            if (loadablePlugins.isEmpty()) {
+                // No plugins can be loaded meaning that remaining plugins are not loadable because some dependencies are missing
+                for (Plugin plugin : remainingPlugins) {
+                    log.error("Failed to load plugin <" + plugin.getId() + "> as some dependencies are missing <" + getMissingDependencies(plugin) + ">");
+                    disablePlugin(plugin.getId());
+                }
+                return;
+            }
+
+            // independent plugins contexts are created in parallel
+            Map<Plugin, Future<ManagedPlugin>> pluginFutures = Maps.newLinkedHashMap();
+            for (final Plugin plugin : loadablePlugins) {
+                pluginFutures.put(plugin, executorService.submit(() -> createPluginContext(plugin, parentClassLoader)));
+            }
+            // linking to alien is done sequentially as linkers and loading callbacks are not expected to be thread safe
+            Iterator<Map.Entry<Plugin, Future<ManagedPlugin>>> pluginFutureIterator = pluginFutures.entrySet().iterator();
+            while (pluginFutureIterator.hasNext()) {
+                Map.Entry<Plugin, Future<ManagedPlugin>> pluginFuture = pluginFutureIterator.next();
+                Plugin plugin = pluginFuture.getKey();
+                ManagedPlugin managedPlugin;
                 try {
-                    loadPlugin(plugin);
-                } catch (PluginLoadingException e) {
-                    log.error("Alien server Initialization: failed to load plugin <" + plugin.getId() + ">");
+                    managedPlugin = pluginFuture.getValue().get();
+                } catch (InterruptedException e) {
+                    log.error("Alien server Initialization: interrupted while loading plugin <" + plugin.getId() + ">");
+                    // contexts being created are not registered, close them once created.
+                    destroyPluginContext(plugin, pluginFuture.getValue());
+                    while (pluginFutureIterator.hasNext()) {
+                        Map.Entry<Plugin, Future<ManagedPlugin>> remainingPluginFuture = pluginFutureIterator.next();
+                        destroyPluginContext(remainingPluginFuture.getKey(), remainingPluginFuture.getValue());
+                    }
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    log.error("Alien server Initialization: failed to load plugin <" + plugin.getId() + ">", e.getCause());
+                    disablePlugin(plugin.getId());
+                    continue;
+                }
+                try {
+                    registerPlugin(plugin, managedPlugin);
+                } catch (RuntimeException e) {
+                    log.error("Alien server Initialization: failed to load plugin <" + plugin.getId() + ">", e);
+                    destroyPluginContext(plugin.getId(), managedPlugin);
                     disablePlugin(plugin.getId());
                 }
-            } else {
-                missingDependencyPlugins.add(plugin);
             }
+            remainingPlugins = missingDependencyPlugins;
         }
-        if (missingDependencyPlugins.size() == plugins.length) {
-            // No plugins have been loaded meaning that remaining plugins are not loadable because some dependencies are missing
-            for (Plugin plugin : plugins) {
-                log.error("Failed to load plugin <" + plugin.getId() + "> as some dependencies are missing <" + getMissingDependencies(plugin) + ">");
-                disablePlugin(plugin.getId());
-            }
-        } else {
-            if (missingDependencyPlugins.size() > 0) {
-                loadPlugins(missingDependencyPlugins.toArray(new Plugin[missingDependencyPlugins.size()]));
+    }
+
+    /**
+     * Wait (uninterruptibly) for the creation of a plugin context that will not be registered and close it.
+     *
+     * @param plugin The plugin.
+     * @param pluginFuture The future of the plugin context creation.
+     */
+    private void destroyPluginContext(Plugin plugin, Future<ManagedPlugin> pluginFuture) {
+        try {
+            destroyPluginContext(plugin.getId(), Uninterruptibles.getUninterruptibly(pluginFuture));
+        } catch (ExecutionException e) {
+            log.debug("Context of plugin <{}> has not been created", plugin.getId());
+        }
+    }
+
+    /**
+     * Close the context of a plugin that failed to be registered, the plugin may have been partially linked.
+     *
+     * @param pluginId The id of the plugin.
+     * @param managedPlugin The managed plugin with its started context.
+     */
+    private void destroyPluginContext(String pluginId, ManagedPlugin managedPlugin) {
+        pluginContexts.remove(pluginId);
+        for (IPluginLoadingCallback callback : SpringUtils.getBeansOfType(alienContext, IPluginLoadingCallback.class)) {
+            try {
+                callback.onPluginClosed(managedPlugin);
+            } catch (RuntimeException e) {
+                // the plugin may not have reached this callback.
+                log.debug("Callback failed to close plugin <" + pluginId + ">", e);
             }
         }
+        for (PluginLinker linker : linkers) {
+            linker.linker.unlink(pluginId);
+        }
+        try {
+            managedPlugin.getPluginContext().stop();
+            managedPlugin.getPluginContext().destroy();
+        } catch (RuntimeException e) {
+            log.warn("Failed to close the context of plugin <" + pluginId + ">", e);
+        }
     }
 
     private Set<String> getMissingDependencies(Plugin plugin) {
@@ -207,6 +309,7 @@ public class PluginManager {
             }
 
             Path pluginPath = getPluginPath(pluginPathId);
+            long unzipStart = System.nanoTime();
             FileUtil.unzip(uploadedPluginPath, pluginPath);
 
             // copy ui directory in case it exists
@@ -214,7 +317,11 @@ public class PluginManager {
             Path pluginUiPath = getPluginUiPath(pluginPathId);
             if (Files.exists(pluginUiSourcePath)) {
                 FileUtil.copy(pluginUiSourcePath, pluginUiPath);
+                // write gzip variants of the ui files so they are not compressed on every request.
+                int compressed = FileUtil.gzipFiles(pluginUiPath, UI_COMPRESSIBLE_FILES);
+                log.debug("{} ui files of plugin <{}> have been precompressed", compressed, plugin.getId());
             }
+            startupProfiler.record(plugin.getId(), PluginStartupProfiler.PHASE_UNZIP, unzipStart);
 
             loadPlugin(plugin);
             plugin.setConfigurable(isPluginConfigurable(plugin.getId()));
@@ -257,6 +364,7 @@ public class PluginManager {
             alienDAO.delete(Plugin.class, pluginId);
             // remove also the configuration
             alienDAO.delete(PluginConfiguration.class, pluginId);
+            startupProfiler.clear(pluginId);
             // try to delete the plugin dir in the repo
             try {
                 FileUtil.delete(pluginPath);
@@ -325,10 +433,21 @@ public class PluginManager {
     }
 
     private void loadPlugin(Plugin plugin) throws PluginLoadingException {
+        ManagedPlugin managedPlugin = createPluginContext(plugin, Thread.currentThread().getContextClassLoader());
+        try {
+            registerPlugin(plugin, managedPlugin);
+        } catch (Exception e) {
+            log.error("Failed to load plugin <" + plugin.getId() + "> alien will ignore this plugin.", e);
+            destroyPluginContext(plugin.getId(), managedPlugin);
+            throw new PluginLoadingException("Failed to load plugin <" + plugin.getId() + ">", e);
+        }
+    }
+
+    private ManagedPlugin createPluginContext(Plugin plugin, ClassLoader parentClassLoader) throws PluginLoadingException {
         try {
             Path pluginPath = getPluginPath(plugin.getPluginPathId());
             Path pluginUiPath = getPluginUiPath(plugin.getPluginPathId());
-            loadPlugin(plugin, pluginPath, pluginUiPath);
+            return createPluginContext(plugin, pluginPath, pluginUiPath, parentClassLoader);
         } catch (Exception e) {
             log.error("Failed to load plugin <" + plugin.getId() + "> alien will ignore this plugin.", e);
             throw new PluginLoadingException("Failed to load plugin <" + plugin.getId() + ">", e);
@@ -361,16 +480,20 @@ public class PluginManager {
     }
 
     /**
-     * Actually load and link a plugin in Alien 4 Cloud.
+     * Actually load a plugin: create its class loader and its spring context.
      *
-     * @param plugin The plugin the load and link.
+     * @param plugin The plugin the load.
      * @param pluginPath The path to the directory that contains the un-zipped plugin.
      * @param pluginUiPath The path in which the ui files are located.
+     * @param parentClassLoader The class loader to use as parent of the plugin class loader.
+     * @return The managed plugin with a started context.
      * @throws IOException In case there is an IO issue with the file.
      * @throws ClassNotFoundException If we cannot load the class
      */
-    private void loadPlugin(Plugin plugin, Path pluginPath, Path pluginUiPath) throws IOException, ClassNotFoundException {
+    private ManagedPlugin createPluginContext(Plugin plugin, Path pluginPath, Path pluginUiPath, ClassLoader parentClassLoader)
+            throws IOException, ClassNotFoundException {
         // create a class loader to manage this plugin.
+        long phaseStart = System.nanoTime();
         final List<URL> classPathUrls = Lists.newArrayList();
         pluginPath = pluginPath.toRealPath();
         classPathUrls.add(pluginPath.toUri().toURL());
@@ -385,8 +508,9 @@ public class PluginManager {
                 }
             });
         }
-        ClassLoader pluginClassLoader = new PluginClassloader(classPathUrls.toArray(new URL[classPathUrls.size()]),
-                Thread.currentThread().getContextClassLoader());
+        ClassLoader pluginClassLoader = new PluginClassloader(classPathUrls.toArray(new URL[classPathUrls.size()]), parentClassLoader);
+        startupProfiler.record(plugin.getId(), PluginStartupProfiler.PHASE_CLASSLOADER, phaseStart);
+        phaseStart = System.nanoTime();
 
         // load a spring context for the plugin that will be a child of the current spring context
         AnnotationConfigApplicationContext pluginContext = new AnnotationConfigApplicationContext();
@@ -417,8 +541,18 @@ public class PluginManager {
             pluginContext.refresh();
             pluginContext.start();
         });
-        ManagedPlugin managedPlugin = (ManagedPlugin) pluginContext.getBean("alien-plugin-context");
+        startupProfiler.record(plugin.getId(), PluginStartupProfiler.PHASE_CONTEXT_REFRESH, phaseStart);
+        return (ManagedPlugin) pluginContext.getBean("alien-plugin-context");
+    }
 
+    /**
+     * Expose the plugin beans and link the plugin in Alien 4 Cloud.
+     *
+     * @param plugin The plugin to link.
+     * @param managedPlugin The managed plugin with its started context.
+     */
+    private void registerPlugin(Plugin plugin, ManagedPlugin managedPlugin) {
+        long phaseStart = System.nanoTime();
         Map<String, PluginComponentDescriptor> componentDescriptors = getPluginComponentDescriptorAsMap(plugin);
 
         // expose plugin elements so they are available to plugins that depends from them.
@@ -428,6 +562,7 @@ public class PluginManager {
 
         // install static resources to be available for the application.
         pluginContexts.put(plugin.getId(), managedPlugin);
+        startupProfiler.record(plugin.getId(), PluginStartupProfiler.PHASE_LINK, phaseStart);
     }
 
     private void registerDependencies(Plugin plugin, AnnotationConfigApplicationContext pluginContext) {
@@ -0,0 +1,129 @@
+package alien4cloud.plugin;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import alien4cloud.plugin.model.PluginStartupReport;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Records the duration of the different phases of plugins loading so we can know what impacts alien startup time. Phases of the orchestrators loading are
+ * recorded by orchestrator as several orchestrators can be created from the same plugin.
+ */
+@Slf4j
+@Component
+public class PluginStartupProfiler {
+    public static final String PHASE_UNZIP = "unzip";
+    public static final String PHASE_CLASSLOADER = "classloader";
+    public static final String PHASE_CONTEXT_REFRESH = "context-refresh";
+    public static final String PHASE_LINK = "link";
+    public static final String PHASE_ARCHIVE_INDEXING = "archive-indexing";
+    public static final String PHASE_ORCHESTRATOR_LOAD = "orchestrator-load";
+    public static final String PHASE_DEPLOYMENTS_RECOVERY = "deployments-recovery";
+
+    private static final String METRIC_PREFIX = "alien4cloud.plugins.startup";
+
+    @Autowired(required = false)
+    private MetricRegistry metricRegistry;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, Long>> timingsByPlugin = Maps.newConcurrentMap();
+    private final ConcurrentMap<String, ConcurrentMap<String, Long>> timingsByOrchestrator = Maps.newConcurrentMap();
+    private volatile long initializationDuration;
+
+    /**
+     * Record the duration of a loading phase of a plugin.
+     *
+     * @param pluginId The id of the plugin.
+     * @param phase The name of the phase.
+     * @param startNanos The value of {@link System#nanoTime()} when the phase started.
+     */
+    public void record(String pluginId, String phase, long startNanos) {
+        long durationNanos = record(timingsByPlugin, pluginId, phase, startNanos);
+        log.debug("Plugin <{}> phase <{}> took {} ms", pluginId, phase, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+    }
+
+    /**
+     * Record the duration of a loading phase of an orchestrator.
+     *
+     * @param orchestratorId The id of the orchestrator.
+     * @param phase The name of the phase.
+     * @param startNanos The value of {@link System#nanoTime()} when the phase started.
+     */
+    public void recordOrchestrator(String orchestratorId, String phase, long startNanos) {
+        long durationNanos = record(timingsByOrchestrator, orchestratorId, phase, startNanos);
+        log.debug("Orchestrator <{}> phase <{}> took {} ms", orchestratorId, phase, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+    }
+
+    private long record(ConcurrentMap<String, ConcurrentMap<String, Long>> timings, String id, String phase, long startNanos) {
+        long durationNanos = System.nanoTime() - startNanos;
+        ConcurrentMap<String, Long> phases = timings.get(id);
+        if (phases == null) {
+            timings.putIfAbsent(id, Maps.<String, Long> newConcurrentMap());
+            phases = timings.get(id);
+        }
+        phases.put(phase, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        if (metricRegistry != null) {
+            metricRegistry.timer(MetricRegistry.name(METRIC_PREFIX, phase)).update(durationNanos, TimeUnit.NANOSECONDS);
+        }
+        return durationNanos;
+    }
+
+    /**
+     * Record the overall duration of plugins initialization.
+     *
+     * @param startNanos The value of {@link System#nanoTime()} when initialization started.
+     */
+    public void recordInitialization(long startNanos) {
+        long durationNanos = System.nanoTime() - startNanos;
+        initializationDuration = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        if (metricRegistry != null) {
+            metricRegistry.timer(MetricRegistry.name(METRIC_PREFIX, "initialization")).update(durationNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Remove the timings recorded for a plugin (when it is removed from alien).
+     *
+     * @param pluginId The id of the plugin.
+     */
+    public void clear(String pluginId) {
+        timingsByPlugin.remove(pluginId);
+    }
+
+    /**
+     * Get the report of plugins loading timings.
+     *
+     * @return The startup report.
+     */
+    public PluginStartupReport getReport() {
+        Map<String, Long> totalByPhase = Maps.newHashMap();
+        List<PluginStartupReport.PluginTimings> pluginTimings = Lists.newArrayList();
+        for (Map.Entry<String, ConcurrentMap<String, Long>> pluginEntry : timingsByPlugin.entrySet()) {
+            pluginTimings.add(new PluginStartupReport.PluginTimings(pluginEntry.getKey(), addToTotal(totalByPhase, pluginEntry.getValue())));
+        }
+        List<PluginStartupReport.OrchestratorTimings> orchestratorTimings = Lists.newArrayList();
+        for (Map.Entry<String, ConcurrentMap<String, Long>> orchestratorEntry : timingsByOrchestrator.entrySet()) {
+            orchestratorTimings
+                    .add(new PluginStartupReport.OrchestratorTimings(orchestratorEntry.getKey(), addToTotal(totalByPhase, orchestratorEntry.getValue())));
+        }
+        return new PluginStartupReport(initializationDuration, totalByPhase, pluginTimings, orchestratorTimings);
+    }
+
+    private Map<String, Long> addToTotal(Map<String, Long> totalByPhase, Map<String, Long> timings) {
+        Map<String, Long> phases = Maps.newHashMap(timings);
+        for (Map.Entry<String, Long> phaseEntry : phases.entrySet()) {
+            Long total = totalByPhase.get(phaseEntry.getKey());
+            totalByPhase.put(phaseEntry.getKey(), total == null ? phaseEntry.getValue() : total + phaseEntry.getValue());
+        }
+        return phases;
+    }
+}
@@ -0,0 +1,49 @@
+package alien4cloud.plugin.model;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Timings of the plugins loading phases recorded since alien startup.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor(suppressConstructorProperties = true)
+public class PluginStartupReport {
+    /** Wall clock duration of the plugins initialization in milliseconds. */
+    private long initializationDuration;
+    /** Sum of the durations of every phase for all plugins, by phase name. */
+    private Map<String, Long> totalDurationByPhase;
+    /** Detailed timings for every plugin. */
+    private List<PluginTimings> plugins;
+    /** Detailed timings for every orchestrator. */
+    private List<OrchestratorTimings> orchestrators;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor(suppressConstructorProperties = true)
+    public static class PluginTimings {
+        /** Id of the plugin. */
+        private String pluginId;
+        /** Duration of the loading phases of the plugin in milliseconds by phase name. */
+        private Map<String, Long> phases;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor(suppressConstructorProperties = true)
+    public static class OrchestratorTimings {
+        /** Id of the orchestrator. */
+        private String orchestratorId;
+        /** Duration of the loading phases of the orchestrator in milliseconds by phase name. */
+        private Map<String, Long> phases;
+    }
+}
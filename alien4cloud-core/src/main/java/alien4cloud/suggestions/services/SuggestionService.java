@@ -5,10 +5,10 @@ import java.io.InputStream;
 import java.lang.reflect.Array;
 import java.util.*;
 
-import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import javax.inject.Inject;
 
+import org.alien4cloud.tosca.catalog.index.ArchiveIndexer;
 import org.alien4cloud.tosca.catalog.index.IToscaTypeSearchService;
 import org.alien4cloud.tosca.model.definitions.*;
 import org.alien4cloud.tosca.model.definitions.constraints.EqualConstraint;
@@ -20,6 +20,7 @@ import org.alien4cloud.tosca.model.templates.Topology;
 import org.alien4cloud.tosca.model.types.*;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Component;
 
 import com.google.common.collect.Sets;
@@ -28,6 +29,7 @@ import alien4cloud.dao.ElasticSearchDAO;
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.FetchContext;
 import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.exception.InitializationException;
 import alien4cloud.exception.InvalidArgumentException;
 import alien4cloud.exception.NotFoundException;
 import alien4cloud.model.common.AbstractSuggestionEntry;
@@ -45,7 +47,7 @@ import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Component
-public class SuggestionService {
+public class SuggestionService implements SmartLifecycle {
 
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDAO;
@@ -55,12 +57,56 @@ public class SuggestionService {
     /* The Levenshtein distance is a string metric for measuring the difference between two sequences. */
     private static final double MIN_JAROWINKLER = 0.0;
 
+    private volatile boolean running = false;
+
+    /**
+     * Default suggestions are written when the context is started (so only by the leader instance in case of HA), before the initial archives are loaded.
+     */
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        try {
+            loadDefaultSuggestions();
+        } catch (IOException e) {
+            throw new InitializationException("Unable to load the default suggestions.", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        stop();
+        callback.run();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        // started on leader election only.
+        return false;
+    }
+
+    @Override
+    public int getPhase() {
+        return ArchiveIndexer.PHASE;
+    }
+
     /**
      * This method load the defaults suggestions to ES.
      * 
      * @throws IOException
      */
-    @PostConstruct
     public void loadDefaultSuggestions() throws IOException {
         try (InputStream input = Thread.currentThread().getContextClassLoader().getResourceAsStream("suggestion-configuration.yml")) {
             SuggestionEntry[] suggestions = YamlParserUtil.parse(input, SuggestionEntry[].class);
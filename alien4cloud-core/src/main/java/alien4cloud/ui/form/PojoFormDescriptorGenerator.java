@@ -34,10 +34,14 @@ import javax.validation.constraints.NotNull;
 
 import org.springframework.stereotype.Component;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import org.alien4cloud.tosca.model.definitions.PropertyDefinition;
+import alien4cloud.plugin.IPluginLoadingCallback;
+import alien4cloud.plugin.model.ManagedPlugin;
 import alien4cloud.ui.form.annotation.FormContentTypes;
 import alien4cloud.ui.form.annotation.FormCustomType;
 import alien4cloud.ui.form.annotation.FormLabel;
@@ -55,7 +59,9 @@ import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Component
-public class PojoFormDescriptorGenerator {
+public class PojoFormDescriptorGenerator implements IPluginLoadingCallback {
+    /** Descriptors by class. Keys are weak so plugin classes can be garbage collected once the plugin is unloaded. */
+    private final Cache<Class<?>, Map<String, Object>> descriptorCache = CacheBuilder.newBuilder().weakKeys().build();
 
     @Resource
     @Setter
@@ -65,8 +71,30 @@ public class PojoFormDescriptorGenerator {
     @Setter
     private PropertyDefinitionConverter propertyDefinitionConverter;
 
+    /**
+     * Get the form descriptor of a class. Descriptors are computed once per class as they depend only on the class definition (and its annotations).
+     *
+     * @param clazz The class for which to get a form descriptor.
+     * @return The form descriptor of the class, the descriptor is shared and must not be modified.
+     */
     public Map<String, Object> generateDescriptor(Class<?> clazz) {
-        return buildComplexTypeDescriptor(clazz);
+        Map<String, Object> descriptor = descriptorCache.getIfPresent(clazz);
+        if (descriptor == null) {
+            descriptor = buildComplexTypeDescriptor(clazz);
+            descriptorCache.put(clazz, descriptor);
+        }
+        return descriptor;
+    }
+
+    @Override
+    public void onPluginLoaded(ManagedPlugin managedPlugin) {
+        // a plugin may provide new versions of classes.
+        descriptorCache.invalidateAll();
+    }
+
+    @Override
+    public void onPluginClosed(ManagedPlugin managedPlugin) {
+        descriptorCache.invalidateAll();
     }
 
     private Map<String, Object> buildComplexTypeDescriptor(Class<?> clazz) {
@@ -14,7 +14,9 @@ import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.Resource;
+import javax.inject.Inject;
 
+import org.alien4cloud.tosca.catalog.index.ArchiveIndexer;
 import org.springframework.stereotype.Component;
 
 import alien4cloud.component.ICSARRepositorySearchService;
@@ -25,14 +27,25 @@ import org.alien4cloud.tosca.model.types.PrimitiveDataType;
 import org.alien4cloud.tosca.model.definitions.PropertyDefinition;
 import alien4cloud.tosca.normative.ToscaType;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
 @Component
 public class ToscaPropertyFormDescriptorGenerator {
 
     @Resource
     private ICSARRepositorySearchService searchService;
+    @Inject
+    private ArchiveIndexer archiveIndexer;
+
+    /** Descriptors of data types by type and dependencies, a descriptor is valid only for the catalog generation in which it has been computed. */
+    private final Cache<DataTypeKey, CachedDescriptor> dataTypeDescriptorCache = CacheBuilder.newBuilder().maximumSize(1000).build();
 
     public Map<String, Object> generateDescriptor(PropertyDefinition propertyDefinition, Set<CSARDependency> dependencies) {
         return doGenerateDescriptor(Sets.<String> newHashSet(), propertyDefinition, dependencies);
@@ -53,16 +66,41 @@ public class ToscaPropertyFormDescriptorGenerator {
                 throw new InvalidArgumentException("Map type without entry schema");
             }
             return generateDescriptorForMapType(processedDataTypes, entryDefinition, dependencies);
+        } else if (processedDataTypes.isEmpty()) {
+            // the descriptor of a data type that is not nested in another data type depends only on the catalog content.
+            return getDataTypeDescriptor(processedDataTypes, propertyDefinition, dependencies);
         } else {
-            DataType dataType = searchService.getElementInDependencies(DataType.class, propertyDefinition.getType(), dependencies);
-            if (dataType == null) {
-                throw new InvalidArgumentException("Data type <" + propertyDefinition.getType() + "> do not exist in dependencies " + dependencies);
-            }
-            if (processedDataTypes.add(dataType.getElementId())) {
-                return generateDescriptorForDataType(processedDataTypes, dataType, dependencies);
-            } else {
-                return generateDescriptorForSimpleType(propertyDefinition);
-            }
+            return resolveDataTypeDescriptor(processedDataTypes, propertyDefinition, dependencies);
+        }
+    }
+
+    private Map<String, Object> getDataTypeDescriptor(Set<String> processedDataTypes, PropertyDefinition propertyDefinition,
+            Set<CSARDependency> dependencies) {
+        // read the generation before resolving types so a descriptor computed while the catalog changes is never considered as up to date.
+        long generation = archiveIndexer.getCatalogGeneration();
+        if (!archiveIndexer.isCatalogCacheEnabled()) {
+            return resolveDataTypeDescriptor(processedDataTypes, propertyDefinition, dependencies);
+        }
+        DataTypeKey key = new DataTypeKey(propertyDefinition.getType(), dependencies == null ? null : Sets.newHashSet(dependencies));
+        CachedDescriptor cached = dataTypeDescriptorCache.getIfPresent(key);
+        if (cached != null && cached.getGeneration() == generation) {
+            return cached.getDescriptor();
+        }
+        Map<String, Object> descriptor = resolveDataTypeDescriptor(processedDataTypes, propertyDefinition, dependencies);
+        dataTypeDescriptorCache.put(key, new CachedDescriptor(generation, descriptor));
+        return descriptor;
+    }
+
+    private Map<String, Object> resolveDataTypeDescriptor(Set<String> processedDataTypes, PropertyDefinition propertyDefinition,
+            Set<CSARDependency> dependencies) {
+        DataType dataType = searchService.getElementInDependencies(DataType.class, propertyDefinition.getType(), dependencies);
+        if (dataType == null) {
+            throw new InvalidArgumentException("Data type <" + propertyDefinition.getType() + "> do not exist in dependencies " + dependencies);
+        }
+        if (processedDataTypes.add(dataType.getElementId())) {
+            return generateDescriptorForDataType(processedDataTypes, dataType, dependencies);
+        } else {
+            return generateDescriptorForSimpleType(propertyDefinition);
         }
     }
 
@@ -111,4 +149,18 @@ public class ToscaPropertyFormDescriptorGenerator {
         mapDescriptors.put(CONTENT_TYPE_KEY, doGenerateDescriptor(processedDataTypes, entryDefinition, dependencies));
         return mapDescriptors;
     }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class DataTypeKey {
+        private final String type;
+        private final Set<CSARDependency> dependencies;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class CachedDescriptor {
+        private final long generation;
+        private final Map<String, Object> descriptor;
+    }
 }
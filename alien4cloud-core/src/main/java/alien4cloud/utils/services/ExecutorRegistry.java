@@ -0,0 +1,379 @@
+package alien4cloud.utils.services;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registry of the named executors used by alien4cloud and its plugins to perform background work.
+ *
+ * Executors are bounded (number of threads and size of the queue, including scheduled executors) so that a single component cannot exhaust the resources of
+ * the others. An executor is created on its first use and must then always be requested with the same size. Queue depth, active threads, rejected tasks and
+ * tasks latencies are published in the metric registry (when available) under <code>alien4cloud.executors.[name]</code>.
+ *
+ * Plugins can inject this registry to get pools rather than creating their own threads.
+ */
+@Slf4j
+@Service
+public class ExecutorRegistry {
+    private static final String METRIC_PREFIX = "alien4cloud.executors";
+    private static final String WATCHDOG_NAME = "executor-watchdog";
+
+    @Autowired(required = false)
+    private MetricRegistry metricRegistry;
+    /** Default capacity of the queue of executors when not specified. */
+    @Value("${executors.default_queue_capacity:1000}")
+    private int defaultQueueCapacity = 1000;
+
+    private final Map<String, ManagedExecutor> executors = Maps.newHashMap();
+
+    /**
+     * Get the executor registered under the given name, create it if it doesn't exist yet with the default queue capacity.
+     *
+     * @param name The name of the executor (used to name the threads and the metrics).
+     * @param maxThreads The maximum number of threads of the executor.
+     * @return The executor registered under the given name.
+     */
+    public ListeningExecutorService getExecutor(String name, int maxThreads) {
+        return getExecutor(name, maxThreads, defaultQueueCapacity);
+    }
+
+    /**
+     * Get the executor registered under the given name, create it if it doesn't exist yet.
+     *
+     * @param name The name of the executor (used to name the threads and the metrics).
+     * @param maxThreads The maximum number of threads of the executor.
+     * @param queueCapacity The maximum number of tasks waiting for a thread, when reached new tasks are rejected with a {@link RejectedExecutionException}.
+     * @return The executor registered under the given name.
+     */
+    public synchronized ListeningExecutorService getExecutor(String name, int maxThreads, int queueCapacity) {
+        int threads = Math.max(1, maxThreads);
+        int capacity = Math.max(1, queueCapacity);
+        ManagedExecutor managed = executors.get(name);
+        if (managed == null) {
+            InstrumentedThreadPoolExecutor executor = new InstrumentedThreadPoolExecutor(name, threads, capacity);
+            managed = new ManagedExecutor(executor, MoreExecutors.listeningDecorator(executor), threads, capacity);
+            register(name, managed);
+            log.info("Created executor <{}> with {} threads and a queue of {} tasks", name, threads, capacity);
+        } else if (!(managed.exposed instanceof ListeningExecutorService)) {
+            throw new IllegalStateException("Executor <" + name + "> is registered as a scheduled executor.");
+        }
+        checkSize(name, managed, threads, capacity);
+        return (ListeningExecutorService) managed.exposed;
+    }
+
+    /**
+     * Get the scheduled executor registered under the given name, create it if it doesn't exist yet with the default queue capacity.
+     *
+     * @param name The name of the executor (used to name the threads and the metrics).
+     * @param poolSize The number of threads of the executor.
+     * @return The scheduled executor registered under the given name.
+     */
+    public ScheduledExecutorService getScheduledExecutor(String name, int poolSize) {
+        return getScheduledExecutor(name, poolSize, defaultQueueCapacity);
+    }
+
+    /**
+     * Get the scheduled executor registered under the given name, create it if it doesn't exist yet.
+     *
+     * @param name The name of the executor (used to name the threads and the metrics).
+     * @param poolSize The number of threads of the executor.
+     * @param queueCapacity The maximum number of scheduled tasks (periodic tasks count once), when reached new tasks are rejected with a
+     *            {@link RejectedExecutionException}.
+     * @return The scheduled executor registered under the given name.
+     */
+    public synchronized ScheduledExecutorService getScheduledExecutor(String name, int poolSize, int queueCapacity) {
+        int threads = Math.max(1, poolSize);
+        int capacity = Math.max(1, queueCapacity);
+        ManagedExecutor managed = executors.get(name);
+        if (managed == null) {
+            InstrumentedScheduledThreadPoolExecutor executor = new InstrumentedScheduledThreadPoolExecutor(name, threads, capacity);
+            managed = new ManagedExecutor(executor, executor, threads, capacity);
+            register(name, managed);
+            log.info("Created scheduled executor <{}> with {} threads and a queue of {} tasks", name, threads, capacity);
+        } else if (!(managed.exposed instanceof ScheduledExecutorService)) {
+            throw new IllegalStateException("Executor <" + name + "> is not registered as a scheduled executor.");
+        }
+        checkSize(name, managed, threads, capacity);
+        return (ScheduledExecutorService) managed.exposed;
+    }
+
+    /**
+     * Executors are shared by name, a component that asks for an existing executor with another size would silently get less (or more) resources than
+     * configured.
+     */
+    private void checkSize(String name, ManagedExecutor managed, int threads, int queueCapacity) {
+        if (managed.threads != threads || managed.queueCapacity != queueCapacity) {
+            throw new IllegalStateException("Executor <" + name + "> is registered with " + managed.threads + " threads and a queue of " + managed.queueCapacity
+                    + " tasks, it cannot be used with " + threads + " threads and a queue of " + queueCapacity + " tasks.");
+        }
+    }
+
+    /**
+     * Cancel (and interrupt) a task if it is not completed after the given timeout.
+     *
+     * @param future The future of the task to watch.
+     * @param timeout The maximum duration of the task.
+     * @param unit The unit of the timeout.
+     * @param onTimeout Optional callback to execute after the task has been cancelled because of the timeout.
+     */
+    public void cancelOnTimeout(final Future<?> future, long timeout, TimeUnit unit, final Runnable onTimeout) {
+        getScheduledExecutor(WATCHDOG_NAME, 1).schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (!future.isDone() && future.cancel(true) && onTimeout != null) {
+                    onTimeout.run();
+                }
+            }
+        }, timeout, unit);
+    }
+
+    /**
+     * Shutdown the executor registered under the given name and remove it from the registry. Tasks already submitted are still executed.
+     *
+     * @param name The name of the executor to shutdown.
+     */
+    public synchronized void shutdown(String name) {
+        ManagedExecutor managed = executors.remove(name);
+        if (managed != null) {
+            managed.executor.shutdown();
+            unregisterMetrics(name);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        for (Map.Entry<String, ManagedExecutor> executorEntry : executors.entrySet()) {
+            executorEntry.getValue().executor.shutdownNow();
+            unregisterMetrics(executorEntry.getKey());
+        }
+        executors.clear();
+    }
+
+    private void register(String name, ManagedExecutor managed) {
+        executors.put(name, managed);
+        if (metricRegistry == null) {
+            return;
+        }
+        final ThreadPoolExecutor executor = managed.executor;
+        unregisterMetrics(name);
+        metricRegistry.register(MetricRegistry.name(METRIC_PREFIX, name, "queue"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return executor.getQueue().size();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(METRIC_PREFIX, name, "active"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return executor.getActiveCount();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(METRIC_PREFIX, name, "pool"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return executor.getPoolSize();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(METRIC_PREFIX, name, "saturation"), new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                return (double) executor.getActiveCount() / executor.getMaximumPoolSize();
+            }
+        });
+    }
+
+    private void unregisterMetrics(String name) {
+        if (metricRegistry == null) {
+            return;
+        }
+        final String prefix = MetricRegistry.name(METRIC_PREFIX, name) + ".";
+        metricRegistry.removeMatching(new MetricFilter() {
+            @Override
+            public boolean matches(String metricName, Metric metric) {
+                return metricName.startsWith(prefix);
+            }
+        });
+    }
+
+    private void recordLatency(String name, String type, long durationNanos) {
+        if (metricRegistry != null) {
+            metricRegistry.timer(MetricRegistry.name(METRIC_PREFIX, name, type)).update(durationNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void recordRejection(String name) {
+        log.warn("Executor <{}> is saturated, task has been rejected.", name);
+        if (metricRegistry != null) {
+            metricRegistry.meter(MetricRegistry.name(METRIC_PREFIX, name, "rejected")).mark();
+        }
+    }
+
+    private ThreadFactory threadFactory(String name) {
+        return new ThreadFactoryBuilder().setNameFormat(name + "-%d").setDaemon(true).build();
+    }
+
+    private RejectedExecutionHandler rejectionHandler(final String name) {
+        return new RejectedExecutionHandler() {
+            @Override
+            public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+                if (!executor.isShutdown()) {
+                    recordRejection(name);
+                }
+                throw new RejectedExecutionException("Executor <" + name + "> cannot accept more tasks.");
+            }
+        };
+    }
+
+    /**
+     * Bounded thread pool that records the time tasks spend in the queue and their execution time.
+     */
+    private class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor {
+        private final String name;
+        private final ThreadLocal<Long> executionStart = new ThreadLocal<>();
+
+        private InstrumentedThreadPoolExecutor(String name, int maxThreads, int queueCapacity) {
+            super(maxThreads, maxThreads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(queueCapacity), threadFactory(name), rejectionHandler(name));
+            this.name = name;
+            allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            super.execute(new QueuedTask(command));
+        }
+
+        @Override
+        protected void beforeExecute(Thread thread, Runnable task) {
+            super.beforeExecute(thread, task);
+            if (task instanceof QueuedTask) {
+                recordLatency(name, "wait", System.nanoTime() - ((QueuedTask) task).submittedAt);
+            }
+            executionStart.set(System.nanoTime());
+        }
+
+        @Override
+        protected void afterExecute(Runnable task, Throwable throwable) {
+            super.afterExecute(task, throwable);
+            recordLatency(name, "execution", System.nanoTime() - executionStart.get());
+            executionStart.remove();
+        }
+    }
+
+    /**
+     * Scheduled thread pool that records the execution time of tasks. The queue of a scheduled thread pool cannot be bounded, the number of scheduled tasks is
+     * checked before scheduling instead (so the limit may be exceeded by the number of concurrent submissions).
+     */
+    private class InstrumentedScheduledThreadPoolExecutor extends ScheduledThreadPoolExecutor {
+        private final String name;
+        private final int queueCapacity;
+        private final ThreadLocal<Long> executionStart = new ThreadLocal<>();
+
+        private InstrumentedScheduledThreadPoolExecutor(String name, int poolSize, int queueCapacity) {
+            super(poolSize, threadFactory(name), rejectionHandler(name));
+            this.name = name;
+            this.queueCapacity = queueCapacity;
+            setRemoveOnCancelPolicy(true);
+        }
+
+        private void checkCapacity() {
+            if (getQueue().size() >= queueCapacity) {
+                getRejectedExecutionHandler().rejectedExecution(null, this);
+            }
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            checkCapacity();
+            return super.schedule(command, delay, unit);
+        }
+
+        @Override
+        public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+            checkCapacity();
+            return super.schedule(callable, delay, unit);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+            checkCapacity();
+            return super.scheduleAtFixedRate(command, initialDelay, period, unit);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+            checkCapacity();
+            return super.scheduleWithFixedDelay(command, initialDelay, delay, unit);
+        }
+
+        @Override
+        protected void beforeExecute(Thread thread, Runnable task) {
+            super.beforeExecute(thread, task);
+            executionStart.set(System.nanoTime());
+        }
+
+        @Override
+        protected void afterExecute(Runnable task, Throwable throwable) {
+            super.afterExecute(task, throwable);
+            recordLatency(name, "execution", System.nanoTime() - executionStart.get());
+            executionStart.remove();
+        }
+    }
+
+    /**
+     * Wrap a task to keep track of the date it was submitted to the executor.
+     */
+    private static class QueuedTask implements Runnable {
+        private final Runnable task;
+        private final long submittedAt = System.nanoTime();
+
+        private QueuedTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+
+    @AllArgsConstructor
+    private static class ManagedExecutor {
+        /** The underlying executor. */
+        private final ThreadPoolExecutor executor;
+        /** The executor as exposed to the users of the registry. */
+        private final ExecutorService exposed;
+        /** The number of threads the executor has been created with. */
+        private final int threads;
+        /** The queue capacity the executor has been created with. */
+        private final int queueCapacity;
+    }
+}
@@ -1,11 +1,14 @@
 package org.alien4cloud.tosca.catalog.index;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
+import javax.inject.Inject;
 
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.aggregations.Aggregation;
@@ -16,9 +19,13 @@ import org.elasticsearch.search.aggregations.metrics.tophits.TopHits;
 import org.elasticsearch.search.aggregations.metrics.tophits.TopHitsBuilder;
 import org.elasticsearch.search.sort.FieldSortBuilder;
 import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.beans.factory.annotation.Value;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import alien4cloud.common.AlienConstants;
 import alien4cloud.dao.FilterUtil;
@@ -26,6 +33,9 @@ import alien4cloud.dao.IAggregationQueryManager;
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.FacetedSearchResult;
 import alien4cloud.dao.model.FetchContext;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.SneakyThrows;
 
 /**
@@ -34,8 +44,41 @@ import lombok.SneakyThrows;
 public abstract class AbstractToscaIndexSearchService<T> {
     @Resource(name = "alien-es-dao")
     protected IGenericSearchDAO alienDAO;
+    @Inject
+    private ArchiveIndexer archiveIndexer;
+    /** Maximum number of search results kept in cache. */
+    @Value("${components.search.cache_size:500}")
+    private int cacheSize = 500;
 
+    /** Search results by search request, a result is valid only for the catalog generation in which it has been computed. */
+    private Cache<SearchKey, CachedSearchResult> searchCache;
+
+    @PostConstruct
+    public void initSearchCache() {
+        searchCache = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    /**
+     * Search for the latest version of tosca elements. As the catalog is updated only when archives are indexed or removed, results are cached until the
+     * catalog generation changes.
+     */
     public FacetedSearchResult search(Class<? extends T> clazz, String query, Integer size, Map<String, String[]> filters) {
+        // read the generation before searching so a result computed while the catalog changes is never considered as up to date.
+        long generation = archiveIndexer.getCatalogGeneration();
+        if (!archiveIndexer.isCatalogCacheEnabled()) {
+            return doSearch(clazz, query, size, filters);
+        }
+        SearchKey searchKey = new SearchKey(clazz, query, size, filters);
+        CachedSearchResult cached = searchCache.getIfPresent(searchKey);
+        if (cached != null && cached.getGeneration() == generation) {
+            return cached.getResult();
+        }
+        FacetedSearchResult result = doSearch(clazz, query, size, filters);
+        searchCache.put(searchKey, new CachedSearchResult(generation, result));
+        return result;
+    }
+
+    private FacetedSearchResult doSearch(Class<? extends T> clazz, String query, Integer size, Map<String, String[]> filters) {
         TopHitsBuilder topHitAggregation = AggregationBuilders.topHits("highest_version").setSize(1)
                 .addSort(new FieldSortBuilder("nestedVersion.majorVersion").order(SortOrder.DESC))
                 .addSort(new FieldSortBuilder("nestedVersion.minorVersion").order(SortOrder.DESC))
@@ -89,5 +132,35 @@ public abstract class AbstractToscaIndexSearchService<T> {
 
     protected abstract String getAggregationField();
 
+    @EqualsAndHashCode
+    private static class SearchKey {
+        private final Class<?> clazz;
+        private final String query;
+        private final Integer size;
+        private final Map<String, List<String>> filters;
+
+        private SearchKey(Class<?> clazz, String query, Integer size, Map<String, String[]> filters) {
+            this.clazz = clazz;
+            this.query = query;
+            this.size = size;
+            if (filters == null) {
+                this.filters = null;
+            } else {
+                // arrays doesn't implement equals, use lists so keys can be compared.
+                this.filters = Maps.newHashMap();
+                for (Map.Entry<String, String[]> filter : filters.entrySet()) {
+                    this.filters.put(filter.getKey(), filter.getValue() == null ? null : Arrays.asList(filter.getValue()));
+                }
+            }
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class CachedSearchResult {
+        private final long generation;
+        private final FacetedSearchResult result;
+    }
+
     protected abstract T[] getArray(int size);
 }
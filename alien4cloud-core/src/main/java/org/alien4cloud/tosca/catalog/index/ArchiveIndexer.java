@@ -6,9 +6,14 @@ import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.inject.Inject;
 
+import org.alien4cloud.tosca.catalog.events.AfterArchiveDeleted;
 import org.alien4cloud.tosca.catalog.events.AfterArchiveIndexed;
 import org.alien4cloud.tosca.catalog.events.BeforeArchiveIndexed;
 import org.alien4cloud.tosca.catalog.repository.ICsarRepositry;
@@ -20,8 +25,16 @@ import org.alien4cloud.tosca.model.templates.Topology;
 import org.alien4cloud.tosca.model.types.AbstractInheritableToscaType;
 import org.alien4cloud.tosca.model.types.AbstractToscaType;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
 import alien4cloud.component.repository.exception.CSARUsedInActiveDeployment;
 import alien4cloud.deployment.DeploymentService;
 import alien4cloud.exception.AlreadyExistException;
@@ -47,10 +60,17 @@ import lombok.extern.slf4j.Slf4j;
  * The archive indexer is also responsible for storing or initializing the file repository for the archive and eventually (if the archive is a SNAPSHOT) the
  * local git for editor purpose.
  * </p>
+ * <p>
+ * The indexer is started only on the leader instance: backup instances serving read only requests don't see the catalog updates performed by the leader and
+ * must not rely on the catalog generation.
+ * </p>
  */
 @Slf4j
 @Component
-public class ArchiveIndexer {
+public class ArchiveIndexer implements SmartLifecycle {
+    /** Lifecycle phase of the indexer, components that update the catalog when the context is started must use a later phase. */
+    public static final int PHASE = 0;
+
     @Inject
     private ApplicationEventPublisher publisher;
     @Inject
@@ -74,6 +94,115 @@ public class ArchiveIndexer {
     @Inject
     private IArchiveIndexerAuthorizationFilter archiveIndexerAuthorizationFilter;
 
+    /** Generation of the catalog content, incremented every time archives are indexed or removed. */
+    private final AtomicLong catalogGeneration = new AtomicLong();
+    /** True when this instance is the leader and so performs all the catalog updates. */
+    private volatile boolean running;
+    /** Locks of the archives by archive id, kept as long as an import holds them. */
+    private final LoadingCache<String, ReadWriteLock> archiveLocks = CacheBuilder.newBuilder().weakValues()
+            .build(new CacheLoader<String, ReadWriteLock>() {
+                @Override
+                public ReadWriteLock load(String archiveId) {
+                    return new ReentrantReadWriteLock();
+                }
+            });
+
+    @Override
+    public void start() {
+        running = true;
+        // updates may have been performed by another leader in the meantime.
+        catalogChanged();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        stop();
+        callback.run();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        // started on leader election only.
+        return false;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Get the current generation of the catalog. Data read from the catalog at a given generation is still valid as long as the generation doesn't change
+     * and {@link #isCatalogCacheEnabled()} is true.
+     *
+     * @return The current generation of the catalog.
+     */
+    public long getCatalogGeneration() {
+        return catalogGeneration.get();
+    }
+
+    /**
+     * Check if data read from the catalog can be cached by generation. When the indexer is not started (backup instance in read only serving mode or before
+     * the startup is completed) the catalog is updated by the leader without changing the generation on this instance, so nothing must be cached.
+     *
+     * @return True if data read from the catalog can be cached until the catalog generation changes.
+     */
+    public boolean isCatalogCacheEnabled() {
+        return running;
+    }
+
+    /**
+     * Increment the catalog generation so that data read from previous generations is considered as outdated. This must be called after any update of the
+     * catalog that doesn't go through the archive indexer (editor saves for example).
+     */
+    public void catalogChanged() {
+        catalogGeneration.incrementAndGet();
+    }
+
+    @EventListener
+    public void handleArchiveDeleted(AfterArchiveDeleted event) {
+        catalogChanged();
+    }
+
+    /**
+     * Lock an archive before it is indexed. Imports of the same archive are performed one after the other while imports of unrelated archives can run
+     * concurrently. As an archive is indexed using the types of its dependencies, dependencies cannot be re-indexed while the archive is imported.
+     *
+     * @param csar The archive to lock.
+     * @return The locks to release once the archive is indexed.
+     */
+    private ArchiveLocks lockArchive(Csar csar) {
+        // locks are acquired in the order of the archive ids so that concurrent imports cannot dead-lock.
+        Map<String, Boolean> writeLocksById = Maps.newTreeMap();
+        if (csar.getDependencies() != null) {
+            for (CSARDependency dependency : csar.getDependencies()) {
+                writeLocksById.put(new Csar(dependency.getName(), dependency.getVersion()).getId(), false);
+            }
+        }
+        writeLocksById.put(csar.getId(), true);
+        ArchiveLocks archiveLocks = new ArchiveLocks();
+        try {
+            for (Map.Entry<String, Boolean> lockEntry : writeLocksById.entrySet()) {
+                ReadWriteLock readWriteLock = this.archiveLocks.getUnchecked(lockEntry.getKey());
+                archiveLocks.lock(readWriteLock, lockEntry.getValue() ? readWriteLock.writeLock() : readWriteLock.readLock());
+            }
+        } catch (RuntimeException e) {
+            archiveLocks.unlock();
+            throw e;
+        }
+        return archiveLocks;
+    }
+
     /**
      * Check that a CSAR name/version does not already exists in the repository and eventually throw an AlreadyExistException.
      *
@@ -102,7 +231,16 @@ public class ArchiveIndexer {
      * @param csar The archive to be imported.
      * @param topology The topology to be part of the topology.
      */
-    public synchronized void importNewArchive(Csar csar, Topology topology) {
+    public void importNewArchive(Csar csar, Topology topology) {
+        ArchiveLocks archiveLocks = lockArchive(csar);
+        try {
+            doImportNewArchive(csar, topology);
+        } finally {
+            archiveLocks.unlock();
+        }
+    }
+
+    private void doImportNewArchive(Csar csar, Topology topology) {
         ArchiveRoot archiveRoot = new ArchiveRoot();
         archiveRoot.setArchive(csar);
         archiveRoot.setTopology(topology);
@@ -121,8 +259,12 @@ public class ArchiveIndexer {
         String yaml = exportService.getYaml(csar, topology);
 
         // index the archive and topology
-        csarService.save(csar);
-        topologyServiceCore.save(topology);
+        try {
+            csarService.save(csar);
+            topologyServiceCore.save(topology);
+        } finally {
+            catalogChanged();
+        }
         // Initialize the file repository for the archive
         archiveRepositry.storeCSAR(csar, yaml);
 
@@ -139,7 +281,17 @@ public class ArchiveIndexer {
      * @param parsingErrors The non-null list of parsing errors in which to add errors.
      * @throws CSARUsedInActiveDeployment
      */
-    public synchronized void importArchive(final ArchiveRoot archiveRoot, CSARSource source, Path archivePath, List<ParsingError> parsingErrors)
+    public void importArchive(final ArchiveRoot archiveRoot, CSARSource source, Path archivePath, List<ParsingError> parsingErrors)
+            throws CSARUsedInActiveDeployment {
+        ArchiveLocks archiveLocks = lockArchive(archiveRoot.getArchive());
+        try {
+            doImportArchive(archiveRoot, source, archivePath, parsingErrors);
+        } finally {
+            archiveLocks.unlock();
+        }
+    }
+
+    private void doImportArchive(final ArchiveRoot archiveRoot, CSARSource source, Path archivePath, List<ParsingError> parsingErrors)
             throws CSARUsedInActiveDeployment {
         archiveIndexerAuthorizationFilter.checkAuthorization(archiveRoot);
         // dispatch event before indexing
@@ -178,18 +330,23 @@ public class ArchiveIndexer {
             source = CSARSource.OTHER;
         }
         archiveRoot.getArchive().setImportSource(source.name());
-        // TODO load transitives dependencies here before saving, as it is not done when parsing
-        csarService.save(archiveRoot.getArchive());
-        log.debug("Imported archive {}", archiveRoot.getArchive().getId());
-
-        // save the archive in the repository
-        archiveRepositry.storeCSAR(archiveRoot.getArchive(), archivePath);
-        // manage images before archive storage in the repository
-        imageLoader.importImages(archivePath, archiveRoot, parsingErrors);
-
-        // index the archive content in elastic-search
-        indexArchiveTypes(archiveName, archiveVersion, archiveRoot.getArchive().getWorkspace(), archiveRoot, currentIndexedArchive);
-        indexTopology(archiveRoot, parsingErrors, archiveName, archiveVersion);
+        try {
+            // TODO load transitives dependencies here before saving, as it is not done when parsing
+            csarService.save(archiveRoot.getArchive());
+            log.debug("Imported archive {}", archiveRoot.getArchive().getId());
+
+            // save the archive in the repository
+            archiveRepositry.storeCSAR(archiveRoot.getArchive(), archivePath);
+            // manage images before archive storage in the repository
+            imageLoader.importImages(archivePath, archiveRoot, parsingErrors);
+
+            // index the archive content in elastic-search
+            indexArchiveTypes(archiveName, archiveVersion, archiveRoot.getArchive().getWorkspace(), archiveRoot, currentIndexedArchive);
+            indexTopology(archiveRoot, parsingErrors, archiveName, archiveVersion);
+        } finally {
+            // even partially indexed content must be visible to catalog searches
+            catalogChanged();
+        }
 
         publisher.publishEvent(new AfterArchiveIndexed(this, archiveRoot));
     }
@@ -305,4 +462,26 @@ public class ArchiveIndexer {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Locks held by an import. Read write locks are referenced as long as the import holds them so they are not collected from the locks cache.
+     */
+    private static class ArchiveLocks {
+        private final List<ReadWriteLock> readWriteLocks = Lists.newArrayList();
+        private final List<Lock> locks = Lists.newArrayList();
+
+        private void lock(ReadWriteLock readWriteLock, Lock lock) {
+            lock.lock();
+            readWriteLocks.add(readWriteLock);
+            locks.add(lock);
+        }
+
+        private void unlock() {
+            for (Lock lock : Lists.reverse(locks)) {
+                lock.unlock();
+            }
+            locks.clear();
+            readWriteLocks.clear();
+        }
+    }
+}
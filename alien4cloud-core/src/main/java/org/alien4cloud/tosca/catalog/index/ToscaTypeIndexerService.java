@@ -14,6 +14,8 @@ import org.alien4cloud.tosca.model.CSARDependency;
 import org.alien4cloud.tosca.model.types.AbstractInheritableToscaType;
 import org.alien4cloud.tosca.model.types.AbstractToscaType;
 import org.apache.commons.collections4.CollectionUtils;
+import org.elasticsearch.index.query.FilterBuilders;
+import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.mapping.ElasticSearchClient;
 import org.springframework.stereotype.Service;
 
@@ -29,10 +31,12 @@ import alien4cloud.model.components.IndexedModelUtils;
 import alien4cloud.tosca.context.ToscaContext;
 import alien4cloud.tosca.context.ToscaContextual;
 import alien4cloud.tosca.normative.ToscaType;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * This service is responsible for indexing and searching tosca types.
  */
+@Slf4j
 @Service
 public class ToscaTypeIndexerService implements IToscaTypeIndexerService {
     @Resource(name = "alien-es-dao")
@@ -75,12 +79,14 @@ public class ToscaTypeIndexerService implements IToscaTypeIndexerService {
                 .setFilters(fromKeyValueCouples("archiveName", name, "archiveVersion", version)).prepareSearch().setFetchContext(FetchContext.SUMMARY)
                 .search(0, Integer.MAX_VALUE);
 
-        AbstractToscaType[] elements = result.getData();
-
-        // we need to delete each element
-        for (AbstractToscaType element : elements) {
-            deleteElement(element);
+        // icons are stored apart from the elements
+        for (AbstractToscaType element : result.getData()) {
+            deleteIcon(element);
         }
+        // then delete all elements of the archive at once
+        long deleted = alienDAO.bulkDelete(AbstractToscaType.class, QueryBuilders.filteredQuery(QueryBuilders.matchAllQuery(),
+                FilterBuilders.boolFilter().must(FilterBuilders.termFilter("archiveName", name)).must(FilterBuilders.termFilter("archiveVersion", version))));
+        log.debug("Deleted {} elements of archive {}:{}", deleted, name, version);
     }
 
     @Override
@@ -112,12 +118,11 @@ public class ToscaTypeIndexerService implements IToscaTypeIndexerService {
         refreshIndexForSearching();
     }
 
-    private void deleteElement(AbstractToscaType element) {
+    private void deleteIcon(AbstractToscaType element) {
         Tag iconTag = ArchiveImageLoader.getIconTag(element.getTags());
         if (iconTag != null) {
             imageDAO.delete(iconTag.getValue());
         }
-        alienDAO.delete(element.getClass(), element.getId());
     }
 
     @Override
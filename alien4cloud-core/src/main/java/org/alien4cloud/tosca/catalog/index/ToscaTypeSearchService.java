@@ -3,7 +3,6 @@ package org.alien4cloud.tosca.catalog.index;
 import static alien4cloud.dao.FilterUtil.fromKeyValueCouples;
 import static alien4cloud.dao.FilterUtil.singleKeyFilter;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -107,13 +106,11 @@ public class ToscaTypeSearchService extends AbstractToscaIndexSearchService<Abst
 
     private <T extends AbstractToscaType> T getLatestVersionOfElement(Class<T> elementClass, QueryBuilder queryBuilder) {
         List<T> elements = searchDAO.customFindAll(elementClass, queryBuilder);
-        if (elements != null && !elements.isEmpty()) {
-            Collections.sort(elements,
-                    (left, right) -> VersionUtil.parseVersion(left.getArchiveVersion()).compareTo(VersionUtil.parseVersion(right.getArchiveVersion())));
-            return elements.get(elements.size() - 1);
-        } else {
+        if (elements == null) {
             return null;
         }
+        // no need to sort all elements, keep the last element with the highest version.
+        return VersionUtil.getLatest(elements, AbstractToscaType::getArchiveVersion);
     }
 
     @Override
@@ -17,6 +17,7 @@ import javax.annotation.Resource;
 import javax.inject.Inject;
 
 import alien4cloud.topology.*;
+import org.alien4cloud.tosca.catalog.index.ArchiveIndexer;
 import org.alien4cloud.tosca.editor.exception.EditionConcurrencyException;
 import org.alien4cloud.tosca.editor.exception.EditorIOException;
 import org.alien4cloud.tosca.editor.exception.RecoverTopologyException;
@@ -74,6 +75,8 @@ public class EditorService {
     private TopologySubstitutionService topologySubstitutionServive;
     @Inject
     private TopologyValidationService topologyValidationService;
+    @Inject
+    private ArchiveIndexer archiveIndexer;
 
     @Value("${directories.alien}/${directories.upload_temp}")
     private String tempUploadDir;
@@ -301,8 +304,12 @@ public class EditorService {
 
         Topology topology = EditionContextManager.getTopology();
         // Save the topology in elastic search
-        topologyServiceCore.save(topology);
-        topologySubstitutionServive.updateSubstitutionType(topology, EditionContextManager.getCsar());
+        try {
+            topologyServiceCore.save(topology);
+            topologySubstitutionServive.updateSubstitutionType(topology, EditionContextManager.getCsar());
+        } finally {
+            archiveIndexer.catalogChanged();
+        }
 
         // Local git commit
         repositoryService.commit(EditionContextManager.get().getCsar(), commitMessage.toString());
@@ -433,8 +440,12 @@ public class EditorService {
             // and finally save and commit
             Topology topology = EditionContextManager.getTopology();
             String commitMessage = AuthorizationUtil.getCurrentUser().getUserId() + ": Override all content of the topology archive from REST API.";
-            topologyServiceCore.save(topology);
-            topologySubstitutionServive.updateSubstitutionType(topology, EditionContextManager.getCsar());
+            try {
+                topologyServiceCore.save(topology);
+                topologySubstitutionServive.updateSubstitutionType(topology, EditionContextManager.getCsar());
+            } finally {
+                archiveIndexer.catalogChanged();
+            }
 
             // Local git commit
             repositoryService.commit(EditionContextManager.get().getCsar(), commitMessage);
@@ -0,0 +1,189 @@
+package alien4cloud.application;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+import org.alien4cloud.tosca.catalog.index.ArchiveIndexer;
+import org.alien4cloud.tosca.model.CSARDependency;
+import org.alien4cloud.tosca.model.definitions.AbstractPropertyValue;
+import org.alien4cloud.tosca.model.templates.Capability;
+import org.alien4cloud.tosca.model.templates.NodeTemplate;
+import org.alien4cloud.tosca.model.templates.RelationshipTemplate;
+import org.alien4cloud.tosca.model.templates.SubstitutionMapping;
+import org.alien4cloud.tosca.model.templates.SubstitutionTarget;
+import org.alien4cloud.tosca.model.templates.Topology;
+import org.alien4cloud.tosca.model.types.NodeType;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import alien4cloud.component.ICSARRepositorySearchService;
+import alien4cloud.paas.wf.Workflow;
+import alien4cloud.paas.wf.WorkflowsBuilderService;
+import alien4cloud.topology.TopologyServiceCore;
+
+public class TopologyCompositionServiceTest {
+    private static final Date LAST_UPDATE_DATE = new Date();
+
+    private ICSARRepositorySearchService csarRepoSearchService;
+    private TopologyServiceCore topologyServiceCore;
+    private WorkflowsBuilderService workflowBuilderService;
+    private ArchiveIndexer archiveIndexer;
+    private TopologyCompositionService compositionService;
+
+    @Before
+    public void before() {
+        csarRepoSearchService = Mockito.mock(ICSARRepositorySearchService.class);
+        topologyServiceCore = Mockito.mock(TopologyServiceCore.class);
+        workflowBuilderService = Mockito.mock(WorkflowsBuilderService.class);
+        archiveIndexer = Mockito.mock(ArchiveIndexer.class);
+        Mockito.when(archiveIndexer.isCatalogCacheEnabled()).thenReturn(true);
+        Mockito.when(archiveIndexer.getCatalogGeneration()).thenReturn(1L);
+        Mockito.when(workflowBuilderService.reinitWorkflow(Mockito.anyString(), Mockito.any(WorkflowsBuilderService.TopologyContext.class)))
+                .thenReturn(new Workflow());
+
+        mockType("tosca.nodes.Compute", null);
+        mockType("tosca.nodes.Database", null);
+        // the database topology template is embedded in the application topology template, itself embedded in the parent.
+        mockType("DatabaseProxy", "database-topology");
+        mockType("ApplicationProxy", "application-topology");
+        Mockito.when(topologyServiceCore.getOrFail("database-topology")).thenAnswer(new Answer<Topology>() {
+            @Override
+            public Topology answer(InvocationOnMock invocation) {
+                Topology topology = topology("database-topology");
+                topology.getNodeTemplates().put("Database", nodeTemplate("tosca.nodes.Database"));
+                topology.getNodeTemplates().put("DbHost", nodeTemplate("tosca.nodes.Compute"));
+                topology.setSubstitutionMapping(substitutionMapping("database_endpoint", new SubstitutionTarget("Database", "database_endpoint")));
+                return topology;
+            }
+        });
+        Mockito.when(topologyServiceCore.getOrFail("application-topology")).thenAnswer(new Answer<Topology>() {
+            @Override
+            public Topology answer(InvocationOnMock invocation) {
+                Topology topology = topology("application-topology");
+                topology.getNodeTemplates().put("Db", nodeTemplate("DatabaseProxy"));
+                topology.getNodeTemplates().put("Server", nodeTemplate("tosca.nodes.Compute", relationship("Db", "database_endpoint")));
+                topology.setSubstitutionMapping(substitutionMapping("db", new SubstitutionTarget("Db", "database_endpoint")));
+                return topology;
+            }
+        });
+
+        compositionService = new TopologyCompositionService();
+        ReflectionTestUtils.setField(compositionService, "csarRepoSearchService", csarRepoSearchService);
+        ReflectionTestUtils.setField(compositionService, "topologyServiceCore", topologyServiceCore);
+        ReflectionTestUtils.setField(compositionService, "workflowBuilderService", workflowBuilderService);
+        ReflectionTestUtils.setField(compositionService, "archiveIndexer", archiveIndexer);
+    }
+
+    private void mockType(String type, String substitutionTopologyId) {
+        NodeType nodeType = new NodeType();
+        nodeType.setElementId(type);
+        nodeType.setSubstitutionTopologyId(substitutionTopologyId);
+        Mockito.when(csarRepoSearchService.getRequiredElementInDependencies(Mockito.eq(NodeType.class), Mockito.eq(type),
+                Mockito.<Set<CSARDependency>> any())).thenReturn(nodeType);
+    }
+
+    private Topology topology(String id) {
+        Topology topology = new Topology();
+        topology.setId(id);
+        topology.setLastUpdateDate(LAST_UPDATE_DATE);
+        topology.setNodeTemplates(Maps.<String, NodeTemplate> newLinkedHashMap());
+        topology.setWorkflows(Maps.<String, Workflow> newHashMap());
+        return topology;
+    }
+
+    private NodeTemplate nodeTemplate(String type, RelationshipTemplate... relationships) {
+        NodeTemplate nodeTemplate = new NodeTemplate();
+        nodeTemplate.setType(type);
+        nodeTemplate.setProperties(Maps.<String, AbstractPropertyValue> newHashMap());
+        nodeTemplate.setCapabilities(Maps.<String, Capability> newHashMap());
+        if (relationships.length > 0) {
+            Map<String, RelationshipTemplate> relationshipMap = Maps.newHashMap();
+            for (RelationshipTemplate relationship : relationships) {
+                relationshipMap.put("connectsTo" + relationship.getTarget(), relationship);
+            }
+            nodeTemplate.setRelationships(relationshipMap);
+        }
+        return nodeTemplate;
+    }
+
+    private RelationshipTemplate relationship(String target, String capabilityName) {
+        RelationshipTemplate relationship = new RelationshipTemplate();
+        relationship.setTarget(target);
+        relationship.setTargetedCapabilityName(capabilityName);
+        relationship.setRequirementName("database");
+        return relationship;
+    }
+
+    private SubstitutionMapping substitutionMapping(String capabilityName, SubstitutionTarget target) {
+        SubstitutionMapping substitutionMapping = new SubstitutionMapping();
+        Map<String, SubstitutionTarget> capabilities = Maps.newHashMap();
+        capabilities.put(capabilityName, target);
+        substitutionMapping.setCapabilities(capabilities);
+        return substitutionMapping;
+    }
+
+    /** Parent topology that embeds the application topology template and exposes its database. */
+    private Topology parentTopology() {
+        Topology parent = topology("parent");
+        parent.getNodeTemplates().put("App", nodeTemplate("ApplicationProxy"));
+        parent.getNodeTemplates().put("Client", nodeTemplate("tosca.nodes.Compute", relationship("App", "db")));
+        parent.setSubstitutionMapping(substitutionMapping("app_db", new SubstitutionTarget("App", "db")));
+        return parent;
+    }
+
+    private void assertComposed(Topology parent) {
+        Assert.assertEquals(Sets.newHashSet("Client", "App_Server", "App_Db_Database", "App_Db_DbHost"), parent.getNodeTemplates().keySet());
+        RelationshipTemplate clientRelationship = parent.getNodeTemplates().get("Client").getRelationships().values().iterator().next();
+        Assert.assertEquals("App_Db_Database", clientRelationship.getTarget());
+        Assert.assertEquals("database_endpoint", clientRelationship.getTargetedCapabilityName());
+        RelationshipTemplate serverRelationship = parent.getNodeTemplates().get("App_Server").getRelationships().values().iterator().next();
+        Assert.assertEquals("App_Db_Database", serverRelationship.getTarget());
+        SubstitutionTarget exposed = parent.getSubstitutionMapping().getCapabilities().get("app_db");
+        Assert.assertEquals("App_Db_Database", exposed.getNodeTemplateName());
+        Assert.assertEquals("database_endpoint", exposed.getTargetId());
+    }
+
+    @Test
+    public void nestedSubstitutionsShouldBeComposed() {
+        Topology parent = parentTopology();
+        compositionService.processTopologyComposition(parent);
+        assertComposed(parent);
+
+        // the second composition uses the cached flattened topologies.
+        Topology otherParent = parentTopology();
+        compositionService.processTopologyComposition(otherParent);
+        assertComposed(otherParent);
+        Mockito.verify(topologyServiceCore, Mockito.times(1)).getOrFail("application-topology");
+        Mockito.verify(topologyServiceCore, Mockito.times(1)).getOrFail("database-topology");
+        // the first composition is not altered by the second one (no shared nodes or substitution targets).
+        assertComposed(parent);
+    }
+
+    @Test
+    public void workflowsShouldBeRebuiltOnlyWhenTopologyOrCatalogChanges() {
+        compositionService.processTopologyComposition(parentTopology());
+        Topology sameTopology = parentTopology();
+        compositionService.processTopologyComposition(sameTopology);
+        Mockito.verify(workflowBuilderService, Mockito.times(1)).buildTopologyContext(Mockito.any(Topology.class));
+        Assert.assertTrue(sameTopology.getWorkflows().containsKey(Workflow.INSTALL_WF));
+        Assert.assertTrue(sameTopology.getWorkflows().containsKey(Workflow.UNINSTALL_WF));
+
+        Topology updated = parentTopology();
+        updated.setLastUpdateDate(new Date(LAST_UPDATE_DATE.getTime() + 1));
+        compositionService.processTopologyComposition(updated);
+        Mockito.verify(workflowBuilderService, Mockito.times(2)).buildTopologyContext(Mockito.any(Topology.class));
+
+        Mockito.when(archiveIndexer.getCatalogGeneration()).thenReturn(2L);
+        compositionService.processTopologyComposition(updated);
+        Mockito.verify(workflowBuilderService, Mockito.times(3)).buildTopologyContext(Mockito.any(Topology.class));
+    }
+}
@@ -23,6 +23,9 @@ import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsRespon
 import org.elasticsearch.action.admin.indices.exists.types.TypesExistsRequest;
 import org.elasticsearch.action.admin.indices.exists.types.TypesExistsResponse;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.index.query.FilterBuilders;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -185,6 +188,23 @@ public class EsDaoCrudTest extends AbstractDAOTest {
         assertDocumentExisit(ElasticSearchDAO.TOSCA_ELEMENT_INDEX, typeName1, indexedNodeTypeTest.getId(), false);
     }
 
+    @Test
+    public void bulkDeleteShouldOnlyDeleteMatchingDocuments() {
+        for (int i = 0; i < 3; i++) {
+            dao.save(TestModelUtil.createIndexedNodeType("deleted" + i, "deleted-archive", "1.0", "", null, null, null, null, null, new Date(), new Date()));
+        }
+        dao.save(TestModelUtil.createIndexedNodeType("kept", "kept-archive", "1.0", "", null, null, null, null, null, new Date(), new Date()));
+        refresh();
+
+        QueryBuilder query = QueryBuilders.filteredQuery(QueryBuilders.matchAllQuery(), FilterBuilders.termFilter("archiveName", "deleted-archive"));
+        assertEquals(3, dao.bulkDelete(AbstractToscaType.class, query));
+        // the index is refreshed by the bulk delete.
+        assertEquals(0, dao.count(NodeType.class, query));
+        assertEquals(1, dao.count(NodeType.class, QueryBuilders.matchAllQuery()));
+        // nothing left to delete.
+        assertEquals(0, dao.bulkDelete(AbstractToscaType.class, query));
+    }
+
     @Test(expected = IndexingServiceException.class)
     public void unsupportedIndexedDeletionTest() throws JsonProcessingException, IndexingServiceException {
         saveDataToES(indexedNodeTypeTest);
@@ -92,6 +92,23 @@ public class NodeTypeScoreServiceTest {
         Assert.assertEquals(1000, ((NodeType) data.getData()[2]).getAlienScore());
         Assert.assertEquals(mordor100Id, ((NodeType) data.getData()[3]).getId());
         Assert.assertEquals(10, ((NodeType) data.getData()[3]).getAlienScore());
+
+        // a new usage of mordor must update the scores of mordor types only
+        Topology mordorTopology = new Topology();
+        mordorTopology.setId("mordor-topology");
+        mordorTopology.setArchiveName("test-archive-mordor");
+        mordorTopology.setArchiveVersion("1.0.0");
+        mordorTopology.setWorkspace(AlienConstants.GLOBAL_WORKSPACE_ID);
+        mordorTopology.setNodeTemplates(MapUtil.newHashMap(new String[] { "mordor" },
+                new NodeTemplate[] { new NodeTemplate(mordor101Id, null, null, null, null, null, null, null) }));
+        dao.save(mordorTopology);
+
+        scoreService.run();
+
+        Assert.assertEquals(1011, dao.findById(NodeType.class, mordor101Id).getAlienScore());
+        Assert.assertEquals(11, dao.findById(NodeType.class, mordor100Id).getAlienScore());
+        Assert.assertEquals(1011, dao.findById(NodeType.class, isengard100Id).getAlienScore());
+        Assert.assertEquals(1000, dao.findById(NodeType.class, osgiliath100Id).getAlienScore());
     }
 
 }
@@ -0,0 +1,128 @@
+package alien4cloud.dao;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.alien4cloud.tosca.model.CSARDependency;
+import org.alien4cloud.tosca.model.definitions.AbstractPropertyValue;
+import org.alien4cloud.tosca.model.definitions.ScalarPropertyValue;
+import org.alien4cloud.tosca.model.templates.NodeTemplate;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import alien4cloud.model.deployment.DeploymentTopology;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class CompactElasticSearchMapperTest {
+    private static final int NODES = 200;
+    private static final int PROPERTIES = 10;
+    private static final int READS = 50;
+
+    private ElasticSearchMapper jsonMapper;
+    private CompactElasticSearchMapper compactMapper;
+    private DeploymentTopology topology;
+
+    @Before
+    public void before() {
+        jsonMapper = ElasticSearchMapper.getInstance();
+        compactMapper = CompactElasticSearchMapper.getInstance(Sets.<Class<?>> newHashSet(DeploymentTopology.class), Sets.newHashSet("dependencies"));
+        compactMapper.setCompactWrites(true);
+
+        topology = new DeploymentTopology();
+        topology.setId("version::environment");
+        topology.setArchiveName("archive");
+        topology.setArchiveVersion("1.0.0-SNAPSHOT");
+        topology.setVersionId("version");
+        topology.setEnvironmentId("environment");
+        topology.setOrchestratorId("orchestrator");
+        topology.setDeployed(true);
+        topology.getDependencies().add(new CSARDependency("tosca-normative-types", "1.0.0-ALIEN11"));
+        Map<String, NodeTemplate> nodeTemplates = Maps.newLinkedHashMap();
+        for (int i = 0; i < NODES; i++) {
+            NodeTemplate nodeTemplate = new NodeTemplate();
+            nodeTemplate.setName("Compute_" + i);
+            nodeTemplate.setType("tosca.nodes.Compute");
+            Map<String, AbstractPropertyValue> properties = Maps.newLinkedHashMap();
+            for (int j = 0; j < PROPERTIES; j++) {
+                properties.put("property_" + j, new ScalarPropertyValue("value of property " + j + " on node " + i));
+            }
+            nodeTemplate.setProperties(properties);
+            nodeTemplates.put(nodeTemplate.getName(), nodeTemplate);
+        }
+        topology.setNodeTemplates(nodeTemplates);
+    }
+
+    private void assertTopology(DeploymentTopology readTopology) {
+        Assert.assertEquals(topology.getId(), readTopology.getId());
+        Assert.assertEquals(topology.getEnvironmentId(), readTopology.getEnvironmentId());
+        Assert.assertTrue(readTopology.isDeployed());
+        Assert.assertEquals(topology.getDependencies(), readTopology.getDependencies());
+        Assert.assertEquals(NODES, readTopology.getNodeTemplates().size());
+        Assert.assertEquals("value of property 3 on node 42",
+                ((ScalarPropertyValue) readTopology.getNodeTemplates().get("Compute_42").getProperties().get("property_3")).getValue());
+    }
+
+    @Test
+    public void compactDocumentShouldOnlyIndexSearchableFields() throws Exception {
+        String compactDocument = compactMapper.writeValueAsString(topology);
+        JsonNode document = jsonMapper.readTree(compactDocument);
+        Assert.assertTrue(document.has(CompactElasticSearchMapper.COMPACT_FIELD));
+        Assert.assertEquals("environment", document.get("environmentId").asText());
+        Assert.assertTrue(document.has("dependencies"));
+        Assert.assertFalse(document.has("nodeTemplates"));
+        assertTopology(compactMapper.readValue(compactDocument, DeploymentTopology.class));
+    }
+
+    @Test
+    public void plainJsonDocumentsShouldBeReadAndWrittenWhenCompactWritesAreDisabled() throws Exception {
+        String jsonDocument = jsonMapper.writeValueAsString(topology);
+        assertTopology(compactMapper.readValue(jsonDocument, DeploymentTopology.class));
+
+        compactMapper.setCompactWrites(false);
+        Assert.assertFalse(jsonMapper.readTree(compactMapper.writeValueAsString(topology)).has(CompactElasticSearchMapper.COMPACT_FIELD));
+    }
+
+    @Test
+    public void plainJsonDocumentsMentioningTheCompactFieldShouldBeRead() throws Exception {
+        // the compact field name used in a nested field and in a value is not taken for the blob.
+        topology.getNodeTemplates().get("Compute_42").getProperties().put(CompactElasticSearchMapper.COMPACT_FIELD,
+                new ScalarPropertyValue("\"" + CompactElasticSearchMapper.COMPACT_FIELD + "\""));
+        DeploymentTopology readTopology = compactMapper.readValue(jsonMapper.writeValueAsString(topology), DeploymentTopology.class);
+        assertTopology(readTopology);
+        Assert.assertEquals("\"" + CompactElasticSearchMapper.COMPACT_FIELD + "\"", ((ScalarPropertyValue) readTopology.getNodeTemplates().get("Compute_42")
+                .getProperties().get(CompactElasticSearchMapper.COMPACT_FIELD)).getValue());
+    }
+
+    /**
+     * Compare the size and the deserialization time of the plain json and compact documents.
+     */
+    @Test
+    public void compactDocumentShouldBeSmallerThanJson() throws Exception {
+        String jsonDocument = jsonMapper.writeValueAsString(topology);
+        String compactDocument = compactMapper.writeValueAsString(topology);
+        // warm up
+        for (int i = 0; i < READS; i++) {
+            jsonMapper.readValue(jsonDocument, DeploymentTopology.class);
+            compactMapper.readValue(compactDocument, DeploymentTopology.class);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < READS; i++) {
+            jsonMapper.readValue(jsonDocument, DeploymentTopology.class);
+        }
+        long jsonReadNanos = (System.nanoTime() - start) / READS;
+        start = System.nanoTime();
+        for (int i = 0; i < READS; i++) {
+            compactMapper.readValue(compactDocument, DeploymentTopology.class);
+        }
+        long compactReadNanos = (System.nanoTime() - start) / READS;
+        log.info("Deployed topology with {} nodes: json {} bytes read in {} us, compact {} bytes read in {} us", NODES, jsonDocument.length(),
+                TimeUnit.NANOSECONDS.toMicros(jsonReadNanos), compactDocument.length(), TimeUnit.NANOSECONDS.toMicros(compactReadNanos));
+        Assert.assertTrue(compactDocument.length() * 3 < jsonDocument.length());
+    }
+}
@@ -0,0 +1,219 @@
+package alien4cloud.deployment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.alien4cloud.tosca.model.definitions.DeploymentArtifact;
+import org.alien4cloud.tosca.model.templates.NodeTemplate;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Maps;
+
+import alien4cloud.deployment.ArtifactCacheService.ArtifactLease;
+import alien4cloud.deployment.exceptions.UnresolvableArtifactException;
+import alien4cloud.model.deployment.DeploymentTopology;
+import alien4cloud.paas.model.PaaSTopology;
+import alien4cloud.paas.model.PaaSTopologyDeploymentContext;
+import alien4cloud.repository.services.RepositoryService;
+import alien4cloud.utils.FileUtil;
+import alien4cloud.utils.services.ExecutorRegistry;
+
+public class ArtifactProcessorServiceTest {
+    private static final Path WORK_DIR = Paths.get("target/alien/artifact-processor-test");
+
+    private RepositoryService repositoryService;
+    private ArtifactCacheService artifactCacheService;
+    private ArtifactProcessorService artifactProcessorService;
+    private ExecutorRegistry executorRegistry;
+    private Path repositoryFile;
+    private Path urlFile;
+
+    @Before
+    public void before() throws IOException {
+        if (Files.exists(WORK_DIR)) {
+            FileUtil.delete(WORK_DIR);
+        }
+        Files.createDirectories(WORK_DIR.resolve("repository"));
+        repositoryFile = Files.write(WORK_DIR.resolve("repository/app.war"), "war content".getBytes("UTF-8"));
+        urlFile = Files.write(WORK_DIR.resolve("repository/install.sh"), "echo install".getBytes("UTF-8"));
+
+        // counting stub resolver: any artifact of the 'http' repository resolves to the repository file.
+        repositoryService = Mockito.mock(RepositoryService.class);
+        Mockito.when(repositoryService.resolveArtifact(Mockito.eq("app.war"), Mockito.anyString(), Mockito.eq("http"), Mockito.anyMap()))
+                .thenReturn(repositoryFile.toString());
+
+        artifactCacheService = new ArtifactCacheService();
+        artifactCacheService.setCacheDirectory(WORK_DIR.resolve("cache").toString());
+        artifactCacheService.init();
+        artifactCacheService.start();
+
+        artifactProcessorService = new ArtifactProcessorService();
+        ReflectionTestUtils.setField(artifactProcessorService, "repositoryService", repositoryService);
+        ReflectionTestUtils.setField(artifactProcessorService, "artifactCacheService", artifactCacheService);
+        executorRegistry = new ExecutorRegistry();
+        ReflectionTestUtils.setField(artifactProcessorService, "executorRegistry", executorRegistry);
+    }
+
+    @After
+    public void after() {
+        executorRegistry.destroy();
+    }
+
+    private DeploymentArtifact repositoryArtifact() {
+        DeploymentArtifact artifact = new DeploymentArtifact();
+        artifact.setArtifactRef("app.war");
+        artifact.setArtifactRepository("http");
+        artifact.setRepositoryName("my-repository");
+        artifact.setRepositoryURL("http://repository.alien4cloud.org");
+        artifact.setRepositoryCredential(Maps.<String, Object> newHashMap());
+        return artifact;
+    }
+
+    private DeploymentArtifact urlArtifact() {
+        DeploymentArtifact artifact = new DeploymentArtifact();
+        artifact.setArtifactRef(urlFile.toUri().toString());
+        return artifact;
+    }
+
+    private PaaSTopologyDeploymentContext deploymentContext(DeploymentArtifact... artifacts) {
+        Map<String, NodeTemplate> nodeTemplates = Maps.newHashMap();
+        for (int i = 0; i < artifacts.length; i++) {
+            NodeTemplate nodeTemplate = new NodeTemplate();
+            Map<String, DeploymentArtifact> nodeArtifacts = Maps.newHashMap();
+            nodeArtifacts.put("artifact", artifacts[i]);
+            nodeTemplate.setArtifacts(nodeArtifacts);
+            nodeTemplates.put("node_" + i, nodeTemplate);
+        }
+        DeploymentTopology deploymentTopology = new DeploymentTopology();
+        deploymentTopology.setNodeTemplates(nodeTemplates);
+        PaaSTopology paaSTopology = new PaaSTopology();
+        paaSTopology.setAllNodes(Maps.newHashMap());
+        PaaSTopologyDeploymentContext deploymentContext = new PaaSTopologyDeploymentContext();
+        deploymentContext.setDeploymentTopology(deploymentTopology);
+        deploymentContext.setPaaSTopology(paaSTopology);
+        return deploymentContext;
+    }
+
+    @Test
+    public void sameArtifactShouldBeResolvedOnlyOnce() throws IOException {
+        DeploymentArtifact first = repositoryArtifact();
+        DeploymentArtifact second = repositoryArtifact();
+        artifactProcessorService.processArtifacts(deploymentContext(first, second));
+
+        Mockito.verify(repositoryService, Mockito.times(1)).resolveArtifact(Mockito.eq("app.war"), Mockito.anyString(), Mockito.eq("http"),
+                Mockito.anyMap());
+        Assert.assertEquals(first.getArtifactPath(), second.getArtifactPath());
+        Assert.assertEquals("war content", FileUtil.readTextFile(Paths.get(first.getArtifactPath())));
+    }
+
+    @Test
+    public void redeploymentShouldUseCachedArtifacts() throws IOException {
+        artifactProcessorService.processArtifacts(deploymentContext(repositoryArtifact(), urlArtifact()));
+        Assert.assertEquals(2, artifactCacheService.getMissCount().get());
+
+        DeploymentArtifact cachedRepositoryArtifact = repositoryArtifact();
+        DeploymentArtifact cachedUrlArtifact = urlArtifact();
+        artifactProcessorService.processArtifacts(deploymentContext(cachedRepositoryArtifact, cachedUrlArtifact));
+
+        Mockito.verify(repositoryService, Mockito.times(1)).resolveArtifact(Mockito.eq("app.war"), Mockito.anyString(), Mockito.eq("http"),
+                Mockito.anyMap());
+        Assert.assertEquals(2, artifactCacheService.getHitCount().get());
+        Assert.assertEquals("war content", FileUtil.readTextFile(Paths.get(cachedRepositoryArtifact.getArtifactPath())));
+        Assert.assertEquals("echo install", FileUtil.readTextFile(Paths.get(cachedUrlArtifact.getArtifactPath())));
+    }
+
+    @Test
+    public void evictedArtifactShouldBeResolvedAgain() throws IOException {
+        artifactProcessorService.processArtifacts(deploymentContext(repositoryArtifact()));
+        artifactCacheService.clear();
+        DeploymentArtifact artifact = repositoryArtifact();
+        artifactProcessorService.processArtifacts(deploymentContext(artifact));
+
+        Mockito.verify(repositoryService, Mockito.times(2)).resolveArtifact(Mockito.eq("app.war"), Mockito.anyString(), Mockito.eq("http"),
+                Mockito.anyMap());
+        Assert.assertTrue(Files.isRegularFile(Paths.get(artifact.getArtifactPath())));
+    }
+
+    @Test
+    public void previousFilesShouldOnlyBeRemovedOnLeaderElection() throws IOException {
+        Path previousFile = Files.write(WORK_DIR.resolve("cache/previous.tmp"), "previous".getBytes("UTF-8"));
+        // a backup instance prepares its context (the directory is shared with the leader).
+        ArtifactCacheService standbyCacheService = new ArtifactCacheService();
+        standbyCacheService.setCacheDirectory(WORK_DIR.resolve("cache").toString());
+        standbyCacheService.init();
+        Assert.assertTrue(Files.exists(previousFile));
+
+        standbyCacheService.start();
+        Assert.assertFalse(Files.exists(previousFile));
+        Assert.assertTrue(Files.isDirectory(WORK_DIR.resolve("cache")));
+    }
+
+    @Test(expected = UnresolvableArtifactException.class)
+    public void unresolvableArtifactShouldFail() {
+        DeploymentArtifact artifact = repositoryArtifact();
+        artifact.setArtifactRef("missing.war");
+        artifactProcessorService.processArtifacts(deploymentContext(artifact));
+    }
+
+    @Test
+    public void leasedArtifactShouldBeKeptUntilReleased() throws IOException {
+        DeploymentArtifact artifact = repositoryArtifact();
+        List<ArtifactLease> leases = artifactProcessorService.processArtifacts(deploymentContext(artifact));
+        Path artifactPath = Paths.get(artifact.getArtifactPath());
+        // evicted while the deployment is still using it.
+        artifactCacheService.clear();
+        Assert.assertTrue(Files.isRegularFile(artifactPath));
+
+        artifactProcessorService.releaseArtifacts(leases);
+        Assert.assertFalse(Files.exists(artifactPath));
+    }
+
+    @Test
+    public void artifactsResolvedWithOtherCredentialsShouldNotShareTheirEntry() throws IOException {
+        DeploymentArtifact first = repositoryArtifact();
+        DeploymentArtifact second = repositoryArtifact();
+        second.getRepositoryCredential().put("user", "other");
+        artifactProcessorService.processArtifacts(deploymentContext(first, second));
+
+        Mockito.verify(repositoryService, Mockito.times(2)).resolveArtifact(Mockito.eq("app.war"), Mockito.anyString(), Mockito.eq("http"),
+                Mockito.anyMap());
+        Assert.assertNotEquals(artifactCacheService.getKey(first), artifactCacheService.getKey(second));
+    }
+
+    @Test
+    public void artifactsShouldBeResolvedOnCallerThreadWhenResolverIsSaturated() throws IOException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        Runnable blocked = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        // one running and one queued task.
+        ReflectionTestUtils.setField(artifactProcessorService, "resolvingThreads", 1);
+        ReflectionTestUtils.setField(executorRegistry, "defaultQueueCapacity", 1);
+        executorRegistry.getExecutor("artifact-resolver", 1).submit(blocked);
+        executorRegistry.getExecutor("artifact-resolver", 1).submit(blocked);
+        try {
+            DeploymentArtifact artifact = repositoryArtifact();
+            artifactProcessorService.processArtifacts(deploymentContext(artifact));
+            Assert.assertEquals("war content", FileUtil.readTextFile(Paths.get(artifact.getArtifactPath())));
+        } finally {
+            latch.countDown();
+        }
+    }
+}
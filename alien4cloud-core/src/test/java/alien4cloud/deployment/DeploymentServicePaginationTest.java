@@ -0,0 +1,121 @@
+package alien4cloud.deployment;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.annotation.Resource;
+
+import org.elasticsearch.index.query.QueryBuilders;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.google.common.collect.Lists;
+
+import alien4cloud.component.dao.AbstractDAOTest;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.deployment.model.DeploymentsPage;
+import alien4cloud.exception.InvalidArgumentException;
+import alien4cloud.model.deployment.Deployment;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:application-context-test.xml")
+public class DeploymentServicePaginationTest extends AbstractDAOTest {
+    @Resource(name = "alien-es-dao")
+    private IGenericSearchDAO dao;
+    @Resource
+    private DeploymentService deploymentService;
+
+    @Before
+    public void before() throws Exception {
+        super.before();
+        dao.delete(Deployment.class, QueryBuilders.matchAllQuery());
+    }
+
+    private void saveDeployment(String id, long startDate) {
+        Deployment deployment = new Deployment();
+        deployment.setId(id);
+        deployment.setOrchestratorId("orchestrator");
+        deployment.setStartDate(new Date(startDate));
+        dao.save(deployment);
+    }
+
+    private void refreshDeployments() {
+        nodeClient.admin().indices().prepareRefresh(Deployment.class.getSimpleName().toLowerCase()).execute().actionGet();
+    }
+
+    /** Browse all the pages and return the ids of the deployments in order. */
+    private List<String> browse(int size) {
+        List<String> ids = Lists.newArrayList();
+        String cursor = null;
+        do {
+            DeploymentsPage page = deploymentService.getDeployments(null, null, false, null, null, cursor, size);
+            Assert.assertFalse("Pages cannot be empty", page.getDeployments().isEmpty());
+            for (Deployment deployment : page.getDeployments()) {
+                ids.add(deployment.getId());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    @Test
+    public void deploymentsStartedAtTheSameDateShouldBeReturnedOnce() {
+        saveDeployment("a", 2000);
+        for (String id : new String[] { "b", "c", "d", "e", "f" }) {
+            saveDeployment(id, 1000);
+        }
+        saveDeployment("g", 500);
+        refreshDeployments();
+
+        List<String> expected = Lists.newArrayList("a", "f", "e", "d", "c", "b", "g");
+        Assert.assertEquals(expected, browse(2));
+        Assert.assertEquals(expected, browse(1));
+        Assert.assertEquals(expected, browse(10));
+    }
+
+    @Test
+    public void lastFullPageShouldNotHaveNextCursor() {
+        for (int i = 0; i < 4; i++) {
+            saveDeployment("deployment-" + i, 1000 + i);
+        }
+        refreshDeployments();
+
+        DeploymentsPage first = deploymentService.getDeployments(null, null, false, null, null, null, 2);
+        Assert.assertEquals(2, first.getDeployments().size());
+        Assert.assertNotNull(first.getNextCursor());
+        DeploymentsPage last = deploymentService.getDeployments(null, null, false, null, null, first.getNextCursor(), 2);
+        Assert.assertEquals(2, last.getDeployments().size());
+        Assert.assertNull(last.getNextCursor());
+        Assert.assertEquals(4, last.getTotalResults());
+    }
+
+    @Test
+    public void pageAfterTheLastDeploymentShouldBeEmpty() {
+        saveDeployment("deployment", 1000);
+        saveDeployment("older", 500);
+        refreshDeployments();
+
+        DeploymentsPage first = deploymentService.getDeployments(null, null, false, null, null, null, 1);
+        Assert.assertNotNull(first.getNextCursor());
+        // the last deployment is deleted while browsing.
+        dao.delete(Deployment.class, "older");
+        refreshDeployments();
+        DeploymentsPage empty = deploymentService.getDeployments(null, null, false, null, null, first.getNextCursor(), 1);
+        Assert.assertTrue(empty.getDeployments().isEmpty());
+        Assert.assertNull(empty.getNextCursor());
+    }
+
+    @Test(expected = InvalidArgumentException.class)
+    public void malformedCursorShouldBeRejected() {
+        deploymentService.getDeployments(null, null, false, null, null, "not a cursor", 2);
+    }
+
+    @Test(expected = InvalidArgumentException.class)
+    public void cursorWithoutIdShouldBeRejected() {
+        deploymentService.getDeployments(null, null, false, null, null, "MTAwMDo=", 2);
+    }
+}
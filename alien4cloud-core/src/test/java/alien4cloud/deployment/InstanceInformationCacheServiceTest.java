@@ -0,0 +1,192 @@
+package alien4cloud.deployment;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Maps;
+
+import alien4cloud.deployment.model.InstancesInformationChanges;
+import alien4cloud.paas.IPaasEventService;
+import alien4cloud.paas.model.AbstractMonitorEvent;
+import alien4cloud.paas.model.DeploymentStatus;
+import alien4cloud.paas.model.InstanceInformation;
+import alien4cloud.paas.model.InstanceStatus;
+import alien4cloud.paas.model.PaaSDeploymentStatusMonitorEvent;
+import alien4cloud.paas.model.PaaSInstancePersistentResourceMonitorEvent;
+import alien4cloud.paas.model.PaaSInstanceStateMonitorEvent;
+
+public class InstanceInformationCacheServiceTest {
+    private static final String DEPLOYMENT_ID = "deployment";
+
+    private InstanceInformationCacheService cacheService;
+
+    @Before
+    public void before() {
+        cacheService = new InstanceInformationCacheService();
+        ReflectionTestUtils.setField(cacheService, "paasEventService", Mockito.mock(IPaasEventService.class));
+        cacheService.init();
+    }
+
+    /** Send an event the same way the monitor does. */
+    private void send(AbstractMonitorEvent event) {
+        event.setDeploymentId(DEPLOYMENT_ID);
+        if (cacheService.canHandle(event)) {
+            cacheService.eventHappened(event);
+        }
+    }
+
+    private PaaSInstanceStateMonitorEvent stateEvent(String nodeId, String instanceId, String state, InstanceStatus status) {
+        PaaSInstanceStateMonitorEvent event = new PaaSInstanceStateMonitorEvent();
+        event.setNodeTemplateId(nodeId);
+        event.setInstanceId(instanceId);
+        event.setInstanceState(state);
+        event.setInstanceStatus(status);
+        event.setAttributes(Maps.<String, String> newHashMap());
+        event.setRuntimeProperties(Maps.<String, String> newHashMap());
+        return event;
+    }
+
+    /** Instance removal as notified by the mock provider: a state event without state. */
+    private PaaSInstanceStateMonitorEvent removedEvent(String nodeId, String instanceId) {
+        PaaSInstanceStateMonitorEvent event = new PaaSInstanceStateMonitorEvent();
+        event.setNodeTemplateId(nodeId);
+        event.setInstanceId(instanceId);
+        return event;
+    }
+
+    private Map<String, Map<String, InstanceInformation>> seedInstances() {
+        Map<String, Map<String, InstanceInformation>> instances = Maps.newHashMap();
+        Map<String, InstanceInformation> computeInstances = Maps.newHashMap();
+        computeInstances.put("0", new InstanceInformation("init", InstanceStatus.PROCESSING, Maps.<String, String> newHashMap(),
+                Maps.<String, String> newHashMap(), Maps.<String, String> newHashMap()));
+        instances.put("Compute", computeInstances);
+        return instances;
+    }
+
+    @Test
+    public void eventsShouldUpdateSeededInstances() {
+        Assert.assertNull(cacheService.getIfSeeded(DEPLOYMENT_ID));
+        cacheService.seed(DEPLOYMENT_ID, 0, seedInstances());
+
+        send(stateEvent("Compute", "0", "creating", InstanceStatus.PROCESSING));
+        send(stateEvent("Compute", "0", "created", InstanceStatus.PROCESSING));
+        send(new PaaSInstancePersistentResourceMonitorEvent("Compute", "0", "volume_id", "volume"));
+        send(stateEvent("Compute", "0", "started", InstanceStatus.SUCCESS));
+        send(stateEvent("Compute", "1", "started", InstanceStatus.SUCCESS));
+
+        Map<String, Map<String, InstanceInformation>> instances = cacheService.getIfSeeded(DEPLOYMENT_ID);
+        Assert.assertEquals(2, instances.get("Compute").size());
+        Assert.assertEquals("started", instances.get("Compute").get("0").getState());
+        Assert.assertEquals(InstanceStatus.SUCCESS, instances.get("Compute").get("0").getInstanceStatus());
+        Assert.assertEquals("volume", instances.get("Compute").get("0").getAttributes().get("volume_id"));
+
+        send(removedEvent("Compute", "1"));
+        instances = cacheService.getIfSeeded(DEPLOYMENT_ID);
+        Assert.assertEquals(1, instances.get("Compute").size());
+
+        // returned information are copies
+        instances.get("Compute").get("0").setState("modified");
+        Assert.assertEquals("started", cacheService.getIfSeeded(DEPLOYMENT_ID).get("Compute").get("0").getState());
+    }
+
+    @Test
+    public void eventsReceivedWhileSeedingShouldBeApplied() {
+        Assert.assertNull(cacheService.getIfSeeded(DEPLOYMENT_ID));
+        send(stateEvent("Compute", "0", "started", InstanceStatus.SUCCESS));
+        Assert.assertNull(cacheService.getIfSeeded(DEPLOYMENT_ID));
+
+        Map<String, Map<String, InstanceInformation>> instances = cacheService.seed(DEPLOYMENT_ID, 0, seedInstances());
+        Assert.assertEquals("started", instances.get("Compute").get("0").getState());
+    }
+
+    @Test
+    public void eventsNotifiedBeforeFetchingShouldNotOverrideSeededInstances() {
+        // events notified before the orchestrator was queried are delivered while it answers.
+        Assert.assertNull(cacheService.getIfSeeded(DEPLOYMENT_ID));
+        PaaSInstanceStateMonitorEvent staleEvent = stateEvent("Compute", "0", "creating", InstanceStatus.PROCESSING);
+        staleEvent.setDate(900);
+        send(staleEvent);
+        PaaSInstanceStateMonitorEvent removedInstanceEvent = stateEvent("Compute", "1", "started", InstanceStatus.SUCCESS);
+        removedInstanceEvent.setDate(950);
+        send(removedInstanceEvent);
+        PaaSInstanceStateMonitorEvent newEvent = stateEvent("Compute", "2", "creating", InstanceStatus.PROCESSING);
+        newEvent.setDate(1000);
+        send(newEvent);
+
+        Map<String, Map<String, InstanceInformation>> instances = cacheService.seed(DEPLOYMENT_ID, 1000, seedInstances());
+        Assert.assertEquals("init", instances.get("Compute").get("0").getState());
+        // the instance removed before the fetch must not be restored.
+        Assert.assertFalse(instances.get("Compute").containsKey("1"));
+        Assert.assertEquals("creating", instances.get("Compute").get("2").getState());
+    }
+
+    @Test
+    public void eventsOfUntrackedDeploymentsShouldBeIgnored() {
+        send(stateEvent("Compute", "0", "started", InstanceStatus.SUCCESS));
+        Assert.assertNull(cacheService.getChanges(DEPLOYMENT_ID, 0));
+    }
+
+    @Test
+    public void changesShouldOnlyContainChangedInstances() {
+        cacheService.seed(DEPLOYMENT_ID, 0, seedInstances());
+        send(stateEvent("Compute", "1", "started", InstanceStatus.SUCCESS));
+
+        InstancesInformationChanges changes = cacheService.getChanges(DEPLOYMENT_ID, 0);
+        Assert.assertTrue(changes.isFull());
+        Assert.assertEquals(2, changes.getInstances().get("Compute").size());
+
+        long version = changes.getVersion();
+        changes = cacheService.getChanges(DEPLOYMENT_ID, version);
+        Assert.assertFalse(changes.isFull());
+        Assert.assertTrue(changes.getInstances().isEmpty());
+        Assert.assertEquals(version, changes.getVersion());
+
+        send(stateEvent("Compute", "0", "started", InstanceStatus.SUCCESS));
+        send(removedEvent("Compute", "1"));
+        changes = cacheService.getChanges(DEPLOYMENT_ID, version);
+        Assert.assertFalse(changes.isFull());
+        Assert.assertEquals(2, changes.getInstances().get("Compute").size());
+        Assert.assertEquals("started", changes.getInstances().get("Compute").get("0").getState());
+        Assert.assertTrue(changes.getInstances().get("Compute").containsKey("1"));
+        Assert.assertNull(changes.getInstances().get("Compute").get("1"));
+        Assert.assertTrue(changes.getVersion() > version);
+    }
+
+    @Test
+    public void undeployedDeploymentShouldBeEvicted() {
+        cacheService.seed(DEPLOYMENT_ID, 0, seedInstances());
+        PaaSDeploymentStatusMonitorEvent event = new PaaSDeploymentStatusMonitorEvent();
+        event.setDeploymentStatus(DeploymentStatus.UNDEPLOYED);
+        send(event);
+        Assert.assertNull(cacheService.getChanges(DEPLOYMENT_ID, 0));
+    }
+
+    @Test
+    public void failedSeedShouldOnlyEvictUnseededInstances() {
+        // a request failed to seed the instances while a concurrent request succeeded.
+        Assert.assertNull(cacheService.getIfSeeded(DEPLOYMENT_ID));
+        cacheService.seed(DEPLOYMENT_ID, 0, seedInstances());
+        cacheService.evictIfNotSeeded(DEPLOYMENT_ID);
+        Assert.assertNotNull(cacheService.getIfSeeded(DEPLOYMENT_ID));
+
+        // no request succeeded.
+        cacheService.evict(DEPLOYMENT_ID);
+        Assert.assertNull(cacheService.getIfSeeded(DEPLOYMENT_ID));
+        cacheService.evictIfNotSeeded(DEPLOYMENT_ID);
+        Assert.assertNull(cacheService.getChanges(DEPLOYMENT_ID, 0));
+    }
+
+    @Test
+    public void instancesShouldBeSeededAgainAfterExpiration() {
+        ReflectionTestUtils.setField(cacheService, "expireAfterWriteMinutes", 0);
+        cacheService.init();
+        cacheService.seed(DEPLOYMENT_ID, 0, seedInstances());
+        // even when viewed, the instances must be retrieved again from the orchestrator.
+        Assert.assertNull(cacheService.getIfSeeded(DEPLOYMENT_ID));
+    }
+}
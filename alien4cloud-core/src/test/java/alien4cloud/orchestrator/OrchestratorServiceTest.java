@@ -13,6 +13,8 @@ import alien4cloud.orchestrators.services.OrchestratorService;
 import alien4cloud.orchestrators.services.OrchestratorStateService;
 import alien4cloud.paas.OrchestratorPluginService;
 import alien4cloud.paas.exception.PluginConfigurationException;
+import alien4cloud.plugin.PluginStartupProfiler;
+import alien4cloud.utils.services.ExecutorRegistry;
 import com.google.common.collect.Lists;
 import java.io.IOException;
 import java.lang.reflect.Field;
@@ -57,6 +59,8 @@ public class OrchestratorServiceTest {
         setPrivateField(orchestratorStateService, "deploymentService", deploymentService);
         setPrivateField(orchestratorStateService, "orchestratorService", orchestratorService);
         setPrivateField(orchestratorStateService, "archiveIndexer", archiveIndexer);
+        setPrivateField(orchestratorStateService, "startupProfiler", new PluginStartupProfiler());
+        setPrivateField(orchestratorStateService, "executorRegistry", new ExecutorRegistry());
     }
 
     @Test
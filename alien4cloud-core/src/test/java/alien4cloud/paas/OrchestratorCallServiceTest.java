@@ -0,0 +1,213 @@
+package alien4cloud.paas;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.util.concurrent.SettableFuture;
+
+import alien4cloud.paas.exception.OrchestratorUnavailableException;
+import alien4cloud.paas.model.DeploymentStatus;
+import alien4cloud.utils.services.ExecutorRegistry;
+
+public class OrchestratorCallServiceTest {
+    private static final String ORCHESTRATOR_ID = "orchestrator";
+
+    private ExecutorRegistry executorRegistry;
+    private OrchestratorCallService callService;
+
+    @Before
+    public void before() {
+        executorRegistry = new ExecutorRegistry();
+        callService = new OrchestratorCallService();
+        ReflectionTestUtils.setField(callService, "executorRegistry", executorRegistry);
+        ReflectionTestUtils.setField(callService, "threads", 1);
+        ReflectionTestUtils.setField(callService, "queueCapacity", 1);
+        ReflectionTestUtils.setField(callService, "timeoutMs", 200L);
+        callService.init();
+    }
+
+    @After
+    public void after() {
+        executorRegistry.destroy();
+    }
+
+    /** Call that answers with the given status or fails if the status is null. */
+    private OrchestratorCallService.IOrchestratorCall<DeploymentStatus> answer(final DeploymentStatus status) {
+        return new OrchestratorCallService.IOrchestratorCall<DeploymentStatus>() {
+            @Override
+            public void execute(IPaaSCallback<DeploymentStatus> callback) {
+                if (status == null) {
+                    callback.onFailure(new RuntimeException("orchestrator error"));
+                } else {
+                    callback.onSuccess(status);
+                }
+            }
+        };
+    }
+
+    /** Call that never answers until the latch is released. */
+    private OrchestratorCallService.IOrchestratorCall<DeploymentStatus> block(final CountDownLatch latch) {
+        return new OrchestratorCallService.IOrchestratorCall<DeploymentStatus>() {
+            @Override
+            public void execute(IPaaSCallback<DeploymentStatus> callback) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    /** Call that returns immediately and answers with the given status from another thread once the latch is released (like most orchestrator plugins). */
+    private OrchestratorCallService.IOrchestratorCall<DeploymentStatus> answerLater(final DeploymentStatus status, final CountDownLatch latch) {
+        return new OrchestratorCallService.IOrchestratorCall<DeploymentStatus>() {
+            @Override
+            public void execute(final IPaaSCallback<DeploymentStatus> callback) {
+                executorRegistry.getExecutor("plugin-answers", 4).submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            latch.await();
+                            callback.onSuccess(status);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+    private SettableFuture<DeploymentStatus> call(String key, OrchestratorCallService.IOrchestratorCall<DeploymentStatus> call) {
+        return call(ORCHESTRATOR_ID, key, call);
+    }
+
+    private SettableFuture<DeploymentStatus> call(String orchestratorId, String key, OrchestratorCallService.IOrchestratorCall<DeploymentStatus> call) {
+        final SettableFuture<DeploymentStatus> result = SettableFuture.create();
+        callService.call(orchestratorId, "status", key, call, new IPaaSCallback<DeploymentStatus>() {
+            @Override
+            public void onSuccess(DeploymentStatus data) {
+                result.set(data);
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                result.setException(throwable);
+            }
+        });
+        return result;
+    }
+
+    private Throwable failure(SettableFuture<DeploymentStatus> result) throws Exception {
+        try {
+            result.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        Assert.fail("The call should have failed");
+        return null;
+    }
+
+    @Test
+    public void failedCallShouldReturnLastKnownValue() throws Exception {
+        Assert.assertEquals(DeploymentStatus.DEPLOYED, call("status:1", answer(DeploymentStatus.DEPLOYED)).get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(DeploymentStatus.DEPLOYED, call("status:1", answer(null)).get(5, TimeUnit.SECONDS));
+        // no last known value for other keys
+        Assert.assertEquals("orchestrator error", failure(call("status:2", answer(null))).getMessage());
+    }
+
+    @Test
+    public void callShouldFailAfterTimeout() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            Assert.assertTrue(failure(call(null, block(latch))) instanceof OrchestratorUnavailableException);
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    public void callsShouldBeRejectedWhenOrchestratorIsSaturated() throws Exception {
+        ReflectionTestUtils.setField(callService, "timeoutMs", 0L);
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            // one running and one queued call.
+            SettableFuture<DeploymentStatus> running = call(null, block(latch));
+            SettableFuture<DeploymentStatus> queued = call(null, block(latch));
+            SettableFuture<DeploymentStatus> rejected = call(null, block(latch));
+            Assert.assertTrue(rejected.isDone());
+            Assert.assertTrue(failure(rejected) instanceof OrchestratorUnavailableException);
+            Assert.assertFalse(running.isDone());
+            Assert.assertFalse(queued.isDone());
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    public void callsAnsweredAsynchronouslyShouldBeRejectedWhenOrchestratorIsSaturated() throws Exception {
+        ReflectionTestUtils.setField(callService, "timeoutMs", 0L);
+        CountDownLatch latch = new CountDownLatch(1);
+        // the calls return immediately, the orchestrator thread is free but the calls are still pending.
+        SettableFuture<DeploymentStatus> first = call(null, answerLater(DeploymentStatus.DEPLOYED, latch));
+        SettableFuture<DeploymentStatus> second = call(null, answerLater(DeploymentStatus.DEPLOYED, latch));
+        SettableFuture<DeploymentStatus> rejected = call(null, answerLater(DeploymentStatus.DEPLOYED, latch));
+        Assert.assertTrue(rejected.isDone());
+        Assert.assertTrue(failure(rejected) instanceof OrchestratorUnavailableException);
+        Assert.assertFalse(first.isDone());
+        Assert.assertFalse(second.isDone());
+
+        latch.countDown();
+        Assert.assertEquals(DeploymentStatus.DEPLOYED, first.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(DeploymentStatus.DEPLOYED, second.get(5, TimeUnit.SECONDS));
+        // permits are released once the calls are answered.
+        Assert.assertEquals(DeploymentStatus.DEPLOYED, call(null, answer(DeploymentStatus.DEPLOYED)).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void timedOutCallsShouldReleaseTheirPermits() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            Assert.assertTrue(failure(call(null, answerLater(DeploymentStatus.DEPLOYED, latch))) instanceof OrchestratorUnavailableException);
+            Assert.assertTrue(failure(call(null, answerLater(DeploymentStatus.DEPLOYED, latch))) instanceof OrchestratorUnavailableException);
+            Assert.assertEquals(DeploymentStatus.DEPLOYED, call(null, answer(DeploymentStatus.DEPLOYED)).get(5, TimeUnit.SECONDS));
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    public void slowOrchestratorShouldNotStarveOtherOrchestrators() throws Exception {
+        ReflectionTestUtils.setField(callService, "timeoutMs", 0L);
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            // saturate the slow orchestrator with calls that block its thread and with calls answered later.
+            call("slow", null, block(latch));
+            call("slow", null, answerLater(DeploymentStatus.DEPLOYED, latch));
+            Assert.assertTrue(failure(call("slow", null, answer(DeploymentStatus.DEPLOYED))) instanceof OrchestratorUnavailableException);
+            // other orchestrators are still answering.
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals(DeploymentStatus.DEPLOYED, call("fast", null, answer(DeploymentStatus.DEPLOYED)).get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    public void lastKnownValueShouldNotBeReturnedAfterItsTtl() throws Exception {
+        ReflectionTestUtils.setField(callService, "lastKnownValuesTtlMs", 100L);
+        callService.init();
+        Assert.assertEquals(DeploymentStatus.DEPLOYED, call("status:1", answer(DeploymentStatus.DEPLOYED)).get(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        Assert.assertEquals("orchestrator error", failure(call("status:1", answer(null))).getMessage());
+    }
+}
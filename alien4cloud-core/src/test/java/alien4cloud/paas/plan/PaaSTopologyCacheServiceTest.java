@@ -0,0 +1,120 @@
+package alien4cloud.paas.plan;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.alien4cloud.tosca.model.templates.NodeTemplate;
+import org.alien4cloud.tosca.model.templates.RelationshipTemplate;
+import org.alien4cloud.tosca.model.templates.Topology;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import alien4cloud.paas.model.PaaSNodeTemplate;
+import alien4cloud.paas.model.PaaSRelationshipTemplate;
+import alien4cloud.paas.model.PaaSTopology;
+
+public class PaaSTopologyCacheServiceTest {
+    private static final String DEPLOYMENT_ID = "deployment";
+
+    private TopologyTreeBuilderService topologyTreeBuilderService;
+    private PaaSTopologyCacheService cacheService;
+
+    @Before
+    public void before() {
+        topologyTreeBuilderService = Mockito.mock(TopologyTreeBuilderService.class);
+        Mockito.when(topologyTreeBuilderService.buildPaaSTopology(Mockito.any(Topology.class))).thenAnswer(new Answer<PaaSTopology>() {
+            @Override
+            public PaaSTopology answer(InvocationOnMock invocation) {
+                return build((Topology) invocation.getArguments()[0]);
+            }
+        });
+        cacheService = new PaaSTopologyCacheService();
+        ReflectionTestUtils.setField(cacheService, "topologyTreeBuilderService", topologyTreeBuilderService);
+        ReflectionTestUtils.setField(cacheService, "maxSize", 10);
+        ReflectionTestUtils.setField(cacheService, "expireAfterAccessMinutes", 10);
+        cacheService.init();
+    }
+
+    /** Topology with a software hosted on a compute. */
+    private Topology topology(Date lastUpdateDate) {
+        RelationshipTemplate hostedOn = new RelationshipTemplate();
+        hostedOn.setTarget("Compute");
+        Map<String, RelationshipTemplate> relationships = Maps.newHashMap();
+        relationships.put("hostedOnCompute", hostedOn);
+        NodeTemplate software = new NodeTemplate();
+        software.setRelationships(relationships);
+        Topology topology = new Topology();
+        topology.setLastUpdateDate(lastUpdateDate);
+        topology.setNodeTemplates(Maps.<String, NodeTemplate> newHashMap());
+        topology.getNodeTemplates().put("Compute", new NodeTemplate());
+        topology.getNodeTemplates().put("Software", software);
+        return topology;
+    }
+
+    private PaaSTopology build(Topology topology) {
+        PaaSNodeTemplate compute = new PaaSNodeTemplate("Compute", topology.getNodeTemplates().get("Compute"));
+        PaaSNodeTemplate software = new PaaSNodeTemplate("Software", topology.getNodeTemplates().get("Software"));
+        PaaSRelationshipTemplate hostedOn = new PaaSRelationshipTemplate("hostedOnCompute",
+                topology.getNodeTemplates().get("Software").getRelationships().get("hostedOnCompute"), "Software");
+        software.getRelationshipTemplates().add(hostedOn);
+        compute.getRelationshipTemplates().add(hostedOn);
+        software.setParent(compute);
+        compute.getChildren().add(software);
+        Map<String, PaaSNodeTemplate> allNodes = Maps.newHashMap();
+        allNodes.put("Compute", compute);
+        allNodes.put("Software", software);
+        List<PaaSNodeTemplate> empty = Lists.newArrayList();
+        return new PaaSTopology(Lists.newArrayList(compute), empty, empty, Lists.newArrayList(software), allNodes,
+                Maps.<String, List<PaaSNodeTemplate>> newHashMap());
+    }
+
+    @Test
+    public void callersShouldGetTheirOwnCopyOfTheCachedTopology() {
+        Date lastUpdateDate = new Date();
+        Topology firstTopology = topology(lastUpdateDate);
+        PaaSTopology first = cacheService.get(DEPLOYMENT_ID, firstTopology);
+        Topology secondTopology = topology(lastUpdateDate);
+        PaaSTopology second = cacheService.get(DEPLOYMENT_ID, secondTopology);
+        Mockito.verify(topologyTreeBuilderService, Mockito.times(1)).buildPaaSTopology(Mockito.any(Topology.class));
+
+        PaaSNodeTemplate compute = second.getAllNodes().get("Compute");
+        PaaSNodeTemplate software = second.getAllNodes().get("Software");
+        Assert.assertNotSame(first.getAllNodes().get("Compute"), compute);
+        Assert.assertSame(compute, second.getComputes().get(0));
+        Assert.assertSame(software, second.getNonNatives().get(0));
+        // the copy is linked to its own nodes and wraps the templates of the topology given by the caller.
+        Assert.assertSame(compute, software.getParent());
+        Assert.assertSame(software, compute.getChildren().get(0));
+        Assert.assertSame(secondTopology.getNodeTemplates().get("Software"), software.getTemplate());
+        PaaSRelationshipTemplate hostedOn = software.getRelationshipTemplates().get(0);
+        Assert.assertSame(hostedOn, compute.getRelationshipTemplates().get(0));
+        Assert.assertNotSame(first.getAllNodes().get("Software").getRelationshipTemplates().get(0), hostedOn);
+        Assert.assertSame(secondTopology.getNodeTemplates().get("Software").getRelationships().get("hostedOnCompute"), hostedOn.getTemplate());
+
+        // modifications of a copy are not seen by the other callers.
+        compute.getChildren().clear();
+        Assert.assertEquals(1, cacheService.get(DEPLOYMENT_ID, topology(lastUpdateDate)).getAllNodes().get("Compute").getChildren().size());
+    }
+
+    @Test
+    public void topologyShouldBeRebuiltWhenItIsUpdated() {
+        Date lastUpdateDate = new Date();
+        cacheService.get(DEPLOYMENT_ID, topology(lastUpdateDate));
+        cacheService.get(DEPLOYMENT_ID, topology(lastUpdateDate));
+        Mockito.verify(topologyTreeBuilderService, Mockito.times(1)).buildPaaSTopology(Mockito.any(Topology.class));
+        cacheService.get(DEPLOYMENT_ID, topology(new Date(lastUpdateDate.getTime() + 1)));
+        Mockito.verify(topologyTreeBuilderService, Mockito.times(2)).buildPaaSTopology(Mockito.any(Topology.class));
+        cacheService.evict(DEPLOYMENT_ID);
+        cacheService.get(DEPLOYMENT_ID, topology(new Date(lastUpdateDate.getTime() + 1)));
+        Mockito.verify(topologyTreeBuilderService, Mockito.times(3)).buildPaaSTopology(Mockito.any(Topology.class));
+    }
+}
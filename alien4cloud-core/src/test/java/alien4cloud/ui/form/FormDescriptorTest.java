@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.Map;
 
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -69,4 +70,14 @@ public class FormDescriptorTest {
         String expected = FileUtil.readTextFile(Paths.get("./src/test/resources/alien/ui/form/FormToscaTypeExampleObject.json"));
         YamlJsonAssert.assertEquals(expected, actual, DocumentType.JSON);
     }
+
+    @Test
+    public void testDescriptorIsCachedUntilPluginsChange() throws IOException {
+        Map<String, Object> metaModel = generator.generateDescriptor(FormExampleObject.class);
+        Assert.assertSame(metaModel, generator.generateDescriptor(FormExampleObject.class));
+        generator.onPluginClosed(null);
+        Map<String, Object> regenerated = generator.generateDescriptor(FormExampleObject.class);
+        Assert.assertNotSame(metaModel, regenerated);
+        YamlJsonAssert.assertEquals(JsonUtil.toString(metaModel), JsonUtil.toString(regenerated), DocumentType.JSON);
+    }
 }
@@ -1,16 +1,32 @@
 package alien4cloud.utils.services;
 
+import java.beans.IntrospectionException;
 import java.util.ArrayList;
+import java.util.List;
 
+import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Ignore;
 import org.junit.Test;
 
 import org.alien4cloud.tosca.model.definitions.PropertyConstraint;
 import org.alien4cloud.tosca.model.definitions.PropertyDefinition;
+import org.alien4cloud.tosca.model.definitions.constraints.InRangeConstraint;
 import org.alien4cloud.tosca.model.definitions.constraints.LengthConstraint;
+import org.alien4cloud.tosca.model.definitions.constraints.MaxLengthConstraint;
+import org.alien4cloud.tosca.model.definitions.constraints.PatternConstraint;
+
+import com.google.common.collect.Lists;
+
+import alien4cloud.tosca.normative.IPropertyType;
+import alien4cloud.tosca.normative.ToscaType;
+import alien4cloud.tosca.properties.constraints.ConstraintUtil;
+import alien4cloud.tosca.properties.constraints.ConstraintUtil.ConstraintInformation;
 import alien4cloud.tosca.properties.constraints.exception.ConstraintValueDoNotMatchPropertyTypeException;
 import alien4cloud.tosca.properties.constraints.exception.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 public class ConstraintPropertyServiceTest {
 
     private ConstraintPropertyService constraintPropertyService;
@@ -132,4 +148,129 @@ public class ConstraintPropertyServiceTest {
         constraintPropertyService.checkSimplePropertyConstraint("test", "aaa", propertyDefinition);
     }
 
+    @Test(expected = ConstraintViolationException.class)
+    public void testConstraintAddedAfterFirstCheckShouldBeValidated() throws Exception {
+        PropertyDefinition propertyDefinition = new PropertyDefinition();
+        propertyDefinition.setType("string");
+        propertyDefinition.setConstraints(new ArrayList<PropertyConstraint>());
+        MaxLengthConstraint maxLengthConstraint = new MaxLengthConstraint();
+        maxLengthConstraint.setMaxLength(10);
+        propertyDefinition.getConstraints().add(maxLengthConstraint);
+        constraintPropertyService.checkSimplePropertyConstraint("test", "value", propertyDefinition);
+
+        // compiled constraints must not hide constraints added to the definition
+        LengthConstraint lengthConstraint = new LengthConstraint();
+        lengthConstraint.setLength(3);
+        propertyDefinition.getConstraints().add(lengthConstraint);
+        constraintPropertyService.checkSimplePropertyConstraint("test", "value", propertyDefinition);
+    }
+
+    @Test(expected = ConstraintViolationException.class)
+    public void testConstraintUpdatedAfterFirstCheckShouldBeValidated() throws Exception {
+        PropertyDefinition propertyDefinition = new PropertyDefinition();
+        propertyDefinition.setType("integer");
+        InRangeConstraint inRangeConstraint = inRange("1", "10");
+        propertyDefinition.setConstraints(Lists.<PropertyConstraint> newArrayList(inRangeConstraint));
+        constraintPropertyService.checkSimplePropertyConstraint("test", "5", propertyDefinition);
+
+        // compiled constraints must not keep the range of a constraint updated in place
+        inRangeConstraint.setInRange(Lists.newArrayList("1", "3"));
+        constraintPropertyService.checkSimplePropertyConstraint("test", "5", propertyDefinition);
+    }
+
+    @Test(expected = ConstraintViolationException.class)
+    public void testConstraintReplacedAfterFirstCheckShouldBeValidated() throws Exception {
+        PropertyDefinition propertyDefinition = new PropertyDefinition();
+        propertyDefinition.setType("integer");
+        propertyDefinition.setConstraints(Lists.<PropertyConstraint> newArrayList(inRange("1", "10")));
+        constraintPropertyService.checkSimplePropertyConstraint("test", "5", propertyDefinition);
+
+        // same number of constraints but a different one
+        propertyDefinition.getConstraints().set(0, inRange("6", "10"));
+        constraintPropertyService.checkSimplePropertyConstraint("test", "5", propertyDefinition);
+    }
+
+    @Test
+    public void testViolationShouldReportConstraintPath() throws Exception {
+        PropertyDefinition propertyDefinition = new PropertyDefinition();
+        propertyDefinition.setType("integer");
+        propertyDefinition.setConstraints(Lists.<PropertyConstraint> newArrayList(inRange("1", "10")));
+        constraintPropertyService.checkSimplePropertyConstraint("test", "5", propertyDefinition);
+        try {
+            constraintPropertyService.checkSimplePropertyConstraint("test", "11", propertyDefinition);
+            Assert.fail("Value out of range should be rejected.");
+        } catch (ConstraintViolationException e) {
+            Assert.assertEquals("test.constraints[inRange]", e.getConstraintInformation().getPath());
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark, run manually.")
+    public void benchmarkCheckConstraints() throws Exception {
+        int properties = 1000;
+        int iterations = 200;
+        List<PropertyDefinition> stringDefinitions = Lists.newArrayList();
+        List<PropertyDefinition> integerDefinitions = Lists.newArrayList();
+        for (int i = 0; i < properties; i++) {
+            PropertyDefinition stringDefinition = new PropertyDefinition();
+            stringDefinition.setType("string");
+            PatternConstraint patternConstraint = new PatternConstraint();
+            patternConstraint.setPattern("[a-z]+_[0-9]+");
+            MaxLengthConstraint maxLengthConstraint = new MaxLengthConstraint();
+            maxLengthConstraint.setMaxLength(32);
+            stringDefinition.setConstraints(Lists.newArrayList(patternConstraint, maxLengthConstraint));
+            stringDefinitions.add(stringDefinition);
+
+            PropertyDefinition integerDefinition = new PropertyDefinition();
+            integerDefinition.setType("integer");
+            integerDefinition.setConstraints(Lists.<PropertyConstraint> newArrayList(inRange("0", String.valueOf(properties))));
+            integerDefinitions.add(integerDefinition);
+        }
+        // warm up
+        runChecks(iterations, stringDefinitions, integerDefinitions, false);
+        runChecks(iterations, stringDefinitions, integerDefinitions, true);
+
+        long start = System.nanoTime();
+        runChecks(iterations, stringDefinitions, integerDefinitions, false);
+        long legacyDuration = System.nanoTime() - start;
+        start = System.nanoTime();
+        runChecks(iterations, stringDefinitions, integerDefinitions, true);
+        long compiledDuration = System.nanoTime() - start;
+
+        log.info("Check of {} properties: per call initialization {} ms, compiled constraints {} ms", 2 * properties * iterations, legacyDuration / 1000000,
+                compiledDuration / 1000000);
+    }
+
+    private void runChecks(int iterations, List<PropertyDefinition> stringDefinitions, List<PropertyDefinition> integerDefinitions, boolean useService)
+            throws Exception {
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (int i = 0; i < stringDefinitions.size(); i++) {
+                if (useService) {
+                    constraintPropertyService.checkSimplePropertyConstraint("string_" + i, "value_" + i, stringDefinitions.get(i));
+                    constraintPropertyService.checkSimplePropertyConstraint("integer_" + i, String.valueOf(i), integerDefinitions.get(i));
+                } else {
+                    legacyCheck("string_" + i, "value_" + i, stringDefinitions.get(i));
+                    legacyCheck("integer_" + i, String.valueOf(i), integerDefinitions.get(i));
+                }
+            }
+        }
+    }
+
+    /** Validation as performed before constraints compilation: introspection and initialization of every constraint on every check. */
+    private static void legacyCheck(String propertyName, String stringValue, PropertyDefinition propertyDefinition)
+            throws ConstraintViolationException, ConstraintValueDoNotMatchPropertyTypeException, IntrospectionException {
+        IPropertyType<?> toscaType = ToscaType.fromYamlTypeName(propertyDefinition.getType());
+        for (PropertyConstraint constraint : propertyDefinition.getConstraints()) {
+            ConstraintInformation consInformation = ConstraintUtil.getConstraintInformation(constraint);
+            consInformation.setPath(propertyName + ".constraints[" + consInformation.getName() + "]");
+            constraint.initialize(toscaType);
+            constraint.validate(toscaType, stringValue);
+        }
+    }
+
+    private static InRangeConstraint inRange(String min, String max) {
+        InRangeConstraint inRangeConstraint = new InRangeConstraint();
+        inRangeConstraint.setInRange(Lists.newArrayList(min, max));
+        return inRangeConstraint;
+    }
 }
@@ -0,0 +1,60 @@
+package alien4cloud.utils.services;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExecutorRegistryTest {
+    private static final Runnable NOOP = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private ExecutorRegistry executorRegistry;
+
+    @Before
+    public void before() {
+        executorRegistry = new ExecutorRegistry();
+    }
+
+    @After
+    public void after() {
+        executorRegistry.destroy();
+    }
+
+    @Test
+    public void executorShouldBeSharedWhenRequestedWithTheSameSize() {
+        Assert.assertSame(executorRegistry.getExecutor("test", 2, 10), executorRegistry.getExecutor("test", 2, 10));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void executorShouldNotBeReusedWithAnotherSize() {
+        executorRegistry.getExecutor("test", 2, 10);
+        executorRegistry.getExecutor("test", 4, 10);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void scheduledExecutorShouldNotBeReusedWithAnotherQueueCapacity() {
+        executorRegistry.getScheduledExecutor("test", 1, 10);
+        executorRegistry.getScheduledExecutor("test", 1);
+    }
+
+    @Test
+    public void scheduledExecutorShouldRejectTasksWhenFull() {
+        ScheduledExecutorService executor = executorRegistry.getScheduledExecutor("test", 1, 2);
+        executor.schedule(NOOP, 1, TimeUnit.HOURS);
+        executor.scheduleAtFixedRate(NOOP, 1, 1, TimeUnit.HOURS);
+        try {
+            executor.schedule(NOOP, 1, TimeUnit.HOURS);
+            Assert.fail("The executor should be full");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+    }
+}
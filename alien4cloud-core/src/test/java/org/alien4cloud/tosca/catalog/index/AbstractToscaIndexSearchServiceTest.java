@@ -0,0 +1,113 @@
+package org.alien4cloud.tosca.catalog.index;
+
+import java.util.Map;
+
+import org.alien4cloud.tosca.model.types.AbstractToscaType;
+import org.alien4cloud.tosca.model.types.NodeType;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Maps;
+
+import alien4cloud.dao.IAggregationQueryManager;
+import alien4cloud.dao.IESSearchQueryBuilderHelper;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.FacetedSearchResult;
+
+public class AbstractToscaIndexSearchServiceTest {
+    private ArchiveIndexer archiveIndexer;
+    private IESSearchQueryBuilderHelper queryBuilder;
+    private AbstractToscaIndexSearchService<AbstractToscaType> searchService;
+
+    @Before
+    public void before() {
+        IGenericSearchDAO alienDAO = Mockito.mock(IGenericSearchDAO.class);
+        // the query builder returns itself on every builder call and a new result on every search.
+        queryBuilder = Mockito.mock(IESSearchQueryBuilderHelper.class, new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Class<?> returnType = invocation.getMethod().getReturnType();
+                if (returnType.isInstance(invocation.getMock())) {
+                    return invocation.getMock();
+                }
+                return FacetedSearchResult.class.equals(returnType) ? new FacetedSearchResult() : null;
+            }
+        });
+        Mockito.when(alienDAO.buildSearchQuery(Mockito.any(Class.class), Mockito.anyString())).thenReturn(queryBuilder);
+
+        archiveIndexer = new ArchiveIndexer();
+        searchService = new AbstractToscaIndexSearchService<AbstractToscaType>() {
+            @Override
+            protected String getAggregationField() {
+                return "elementId";
+            }
+
+            @Override
+            protected AbstractToscaType[] getArray(int size) {
+                return new AbstractToscaType[size];
+            }
+        };
+        ReflectionTestUtils.setField(searchService, "alienDAO", alienDAO);
+        ReflectionTestUtils.setField(searchService, "archiveIndexer", archiveIndexer);
+        searchService.initSearchCache();
+    }
+
+    private Map<String, String[]> filters() {
+        Map<String, String[]> filters = Maps.newHashMap();
+        filters.put("abstract", new String[] { "false" });
+        return filters;
+    }
+
+    private FacetedSearchResult search(String query) {
+        return searchService.search(NodeType.class, query, 20, filters());
+    }
+
+    private void assertSearches(int count) {
+        Mockito.verify(queryBuilder, Mockito.times(count)).facetedSearch(Mockito.any(IAggregationQueryManager.class));
+    }
+
+    @Test
+    public void sameSearchShouldBeServedFromCache() {
+        archiveIndexer.start();
+        FacetedSearchResult result = search("compute");
+        Assert.assertSame(result, search("compute"));
+        assertSearches(1);
+
+        // other requests are not served with the cached result.
+        Assert.assertNotSame(result, search("network"));
+        Assert.assertNotSame(result, searchService.search(NodeType.class, "compute", 50, filters()));
+        assertSearches(3);
+    }
+
+    @Test
+    public void searchShouldNotBeServedFromCacheAfterCatalogChange() {
+        archiveIndexer.start();
+        FacetedSearchResult result = search("compute");
+        archiveIndexer.catalogChanged();
+        FacetedSearchResult refreshed = search("compute");
+        Assert.assertNotSame(result, refreshed);
+        assertSearches(2);
+
+        // the new result is cached for the new generation.
+        Assert.assertSame(refreshed, search("compute"));
+        assertSearches(2);
+    }
+
+    @Test
+    public void searchShouldNotBeCachedWhenIndexerIsNotStarted() {
+        // backup instances do not see the catalog updates of the leader.
+        FacetedSearchResult result = search("compute");
+        Assert.assertNotSame(result, search("compute"));
+        assertSearches(2);
+
+        // results computed before the leader election are not reused after it.
+        archiveIndexer.start();
+        Assert.assertNotSame(result, search("compute"));
+        assertSearches(3);
+    }
+}
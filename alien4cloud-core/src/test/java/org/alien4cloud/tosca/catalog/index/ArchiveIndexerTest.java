@@ -0,0 +1,141 @@
+package org.alien4cloud.tosca.catalog.index;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.alien4cloud.tosca.catalog.repository.ICsarRepositry;
+import org.alien4cloud.tosca.model.CSARDependency;
+import org.alien4cloud.tosca.model.Csar;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import alien4cloud.model.components.CSARSource;
+import alien4cloud.tosca.model.ArchiveRoot;
+import alien4cloud.tosca.parser.ParsingError;
+
+public class ArchiveIndexerTest {
+    private static final int ARCHIVES = 20;
+
+    private ICsarService csarService;
+    private ArchiveIndexer archiveIndexer;
+    private ExecutorService executorService;
+
+    @Before
+    public void before() {
+        csarService = Mockito.mock(ICsarService.class);
+        archiveIndexer = new ArchiveIndexer();
+        ReflectionTestUtils.setField(archiveIndexer, "csarService", csarService);
+        ReflectionTestUtils.setField(archiveIndexer, "publisher", Mockito.mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(archiveIndexer, "archiveIndexerAuthorizationFilter", Mockito.mock(IArchiveIndexerAuthorizationFilter.class));
+        ReflectionTestUtils.setField(archiveIndexer, "archiveRepositry", Mockito.mock(ICsarRepositry.class));
+        ReflectionTestUtils.setField(archiveIndexer, "imageLoader", Mockito.mock(ArchiveImageLoader.class));
+        ReflectionTestUtils.setField(archiveIndexer, "indexerService", Mockito.mock(IToscaTypeIndexerService.class));
+        executorService = Executors.newFixedThreadPool(ARCHIVES);
+    }
+
+    @After
+    public void after() {
+        executorService.shutdownNow();
+    }
+
+    private ArchiveRoot archive(String name, CSARDependency... dependencies) {
+        ArchiveRoot archiveRoot = new ArchiveRoot();
+        archiveRoot.getArchive().setName(name);
+        archiveRoot.getArchive().setVersion("1.0.0-SNAPSHOT");
+        archiveRoot.getArchive().setDependencies(Sets.newHashSet(dependencies));
+        return archiveRoot;
+    }
+
+    private Future<?> importArchive(ArchiveRoot archiveRoot) {
+        return executorService.submit(() -> {
+            List<ParsingError> parsingErrors = Lists.newArrayList();
+            archiveIndexer.importArchive(archiveRoot, CSARSource.UPLOAD, null, parsingErrors);
+            return null;
+        });
+    }
+
+    private String archiveName(InvocationOnMock invocation) {
+        return ((Csar) invocation.getArguments()[0]).getName();
+    }
+
+    @Test
+    public void independentArchivesShouldBeImportedConcurrently() throws Exception {
+        // every import waits for all the others to be indexing, this would time out if imports were serialized.
+        CyclicBarrier barrier = new CyclicBarrier(ARCHIVES);
+        Mockito.doAnswer(invocation -> barrier.await(10, TimeUnit.SECONDS)).when(csarService).save(Mockito.any(Csar.class));
+
+        List<Future<?>> futures = Lists.newArrayList();
+        for (int i = 0; i < ARCHIVES; i++) {
+            futures.add(importArchive(archive("archive-" + i)));
+        }
+        for (Future<?> future : futures) {
+            future.get(20, TimeUnit.SECONDS);
+        }
+        Mockito.verify(csarService, Mockito.times(ARCHIVES)).save(Mockito.any(Csar.class));
+    }
+
+    @Test
+    public void importsOfTheSameArchiveShouldBeSerialized() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Mockito.doAnswer(invocation -> {
+            int current = running.incrementAndGet();
+            maxRunning.set(Math.max(maxRunning.get(), current));
+            Thread.sleep(10);
+            running.decrementAndGet();
+            return null;
+        }).when(csarService).save(Mockito.any(Csar.class));
+
+        List<Future<?>> futures = Lists.newArrayList();
+        for (int i = 0; i < ARCHIVES; i++) {
+            futures.add(importArchive(archive("archive")));
+        }
+        for (Future<?> future : futures) {
+            future.get(20, TimeUnit.SECONDS);
+        }
+        Assert.assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    public void archiveShouldNotBeImportedWhileItsDependencyIsImported() throws Exception {
+        CountDownLatch dependencyIndexing = new CountDownLatch(1);
+        CountDownLatch releaseDependency = new CountDownLatch(1);
+        List<String> savedArchives = Lists.newCopyOnWriteArrayList();
+        Mockito.doAnswer(invocation -> {
+            if ("dependency".equals(archiveName(invocation))) {
+                dependencyIndexing.countDown();
+                releaseDependency.await(10, TimeUnit.SECONDS);
+            }
+            savedArchives.add(archiveName(invocation));
+            return null;
+        }).when(csarService).save(Mockito.any(Csar.class));
+
+        Future<?> dependencyImport = importArchive(archive("dependency"));
+        Assert.assertTrue(dependencyIndexing.await(10, TimeUnit.SECONDS));
+        Future<?> dependentImport = importArchive(archive("dependent", new CSARDependency("dependency", "1.0.0-SNAPSHOT")));
+        Future<?> otherImport = importArchive(archive("other"));
+        otherImport.get(10, TimeUnit.SECONDS);
+        // the dependent archive is still waiting for its dependency while the unrelated one is already imported.
+        Assert.assertEquals(Lists.newArrayList("other"), savedArchives);
+
+        releaseDependency.countDown();
+        dependencyImport.get(10, TimeUnit.SECONDS);
+        dependentImport.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(Lists.newArrayList("other", "dependency", "dependent"), savedArchives);
+    }
+}
@@ -10,17 +10,22 @@ import java.util.function.Function;
 
 import javax.annotation.Resource;
 
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.count.CountRequestBuilder;
+import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.common.lucene.search.function.CombineFunction;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.FilterBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.query.functionscore.ScoreFunctionBuilders;
 import org.elasticsearch.mapping.*;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.aggregations.Aggregation;
 import org.elasticsearch.search.aggregations.bucket.terms.InternalTerms;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
@@ -35,6 +40,7 @@ import com.google.common.collect.Maps;
 import alien4cloud.dao.model.FacetedSearchFacet;
 import alien4cloud.dao.model.FacetedSearchResult;
 import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.exception.IndexingServiceException;
 import alien4cloud.rest.utils.JsonUtil;
 import alien4cloud.utils.ElasticSearchUtil;
 import alien4cloud.utils.MapUtil;
@@ -48,6 +54,9 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public abstract class ESGenericSearchDAO extends ESGenericIdDAO implements IGenericSearchDAO {
+    private static final int BULK_DELETE_PAGE_SIZE = 1000;
+    private static final TimeValue BULK_DELETE_SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
     @Resource
     private ElasticSearchClient esClient;
     @Resource
@@ -98,6 +107,44 @@ public abstract class ESGenericSearchDAO extends ESGenericIdDAO implements IGene
         }
     }
 
+    @Override
+    public long bulkDelete(Class<?> clazz, QueryBuilder query) {
+        String indexName = getIndexForType(clazz);
+        // scan the ids of the matching documents and delete them page by page without refreshing the index.
+        SearchResponse response = getClient().prepareSearch(indexName).setTypes(getTypesFromClass(clazz)).setQuery(query).setNoFields().setFetchSource(false)
+                .setSearchType(SearchType.SCAN).setScroll(BULK_DELETE_SCROLL_KEEP_ALIVE).setSize(BULK_DELETE_PAGE_SIZE).execute().actionGet();
+        long deleted = 0;
+        try {
+            while (true) {
+                response = getClient().prepareSearchScroll(response.getScrollId()).setScroll(BULK_DELETE_SCROLL_KEEP_ALIVE).execute().actionGet();
+                SearchHit[] hits = response.getHits().hits();
+                if (hits.length == 0) {
+                    break;
+                }
+                BulkRequestBuilder bulkRequestBuilder = getClient().prepareBulk();
+                for (SearchHit hit : hits) {
+                    bulkRequestBuilder.add(getClient().prepareDelete(indexName, hit.getType(), hit.getId()));
+                }
+                BulkResponse bulkResponse = bulkRequestBuilder.execute().actionGet();
+                if (bulkResponse.hasFailures()) {
+                    throw new IndexingServiceException("Failed to delete documents from index <" + indexName + ">: " + bulkResponse.buildFailureMessage());
+                }
+                for (BulkItemResponse itemResponse : bulkResponse.getItems()) {
+                    if (((DeleteResponse) itemResponse.getResponse()).isFound()) {
+                        deleted++;
+                    }
+                }
+            }
+        } finally {
+            // the deleted documents remain visible to searches until the refresh.
+            if (deleted > 0) {
+                getClient().admin().indices().prepareRefresh(indexName).execute().actionGet();
+            }
+            getClient().prepareClearScroll().addScrollId(response.getScrollId()).execute().actionGet();
+        }
+        return deleted;
+    }
+
     @SneakyThrows({ IOException.class })
     private <T> List<T> doCustomFind(Class<T> clazz, QueryBuilder query, SortBuilder sortBuilder, int size) {
         String indexName = getIndexForType(clazz);
@@ -62,6 +62,17 @@ public interface IGenericSearchDAO extends IGenericIdDAO {
      */
     void delete(Class<?> clazz, QueryBuilder query);
 
+    /**
+     * Delete all the data matching a query using bulk requests. Matching data is browsed in a single pass and the index is refreshed only once all data has
+     * been deleted.
+     *
+     * @param clazz The type of data to delete (may be an abstract class to delete data of all the sub-types stored in the same index).
+     * @param query The query to select the data to delete.
+     * @return The number of deleted objects.
+     * @throws alien4cloud.exception.IndexingServiceException If some data could not be deleted (data deleted before the failure remains deleted).
+     */
+    long bulkDelete(Class<?> clazz, QueryBuilder query);
+
     /**
      * Run a custom query on elastic search for the given class.
      *
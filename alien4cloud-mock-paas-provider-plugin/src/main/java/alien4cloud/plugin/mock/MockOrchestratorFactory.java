@@ -39,7 +39,8 @@ public class MockOrchestratorFactory implements IOrchestratorPluginFactory<MockO
 
     @Override
     public void destroy(MockOrchestrator instance) {
-        // nothing specific, the plugin will be garbaged collected when all references are lost.
+        // prototype beans are not destroyed by spring, stop the updates of the instance, it will be garbaged collected when all references are lost.
+        instance.destroy();
     }
 
     @Override
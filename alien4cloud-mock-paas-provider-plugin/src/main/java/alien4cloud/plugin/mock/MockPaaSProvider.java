@@ -2,10 +2,11 @@ package alien4cloud.plugin.mock;
 
 import java.util.*;
 import java.util.Map.Entry;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -30,6 +31,7 @@ import alien4cloud.tosca.ToscaUtils;
 import alien4cloud.tosca.normative.NormativeBlockStorageConstants;
 import alien4cloud.tosca.normative.NormativeComputeConstants;
 import alien4cloud.tosca.normative.NormativeRelationshipConstants;
+import alien4cloud.utils.services.ExecutorRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -38,7 +40,9 @@ public abstract class MockPaaSProvider extends AbstractPaaSProvider {
     public static final String TOSCA_ID = "tosca_id";
     public static final String TOSCA_NAME = "tosca_name";
 
-    private final ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
+    private ScheduledExecutorService executorService;
+
+    private ScheduledFuture<?> updateFuture;
 
     private ProviderConfig providerConfiguration;
 
@@ -54,14 +58,20 @@ public abstract class MockPaaSProvider extends AbstractPaaSProvider {
     @Resource(name = "alien-monitor-es-dao")
     private MonitorESDAO alienMonitorDao;
 
+    @Inject
+    private ExecutorRegistry executorRegistry;
+
     private static final String BAD_APPLICATION_THAT_NEVER_WORKS = "BAD-APPLICATION";
 
     private static final String WARN_APPLICATION_THAT_NEVER_WORKS = "WARN-APPLICATION";
 
     private static final String BLOCKSTORAGE_APPLICATION = "BLOCKSTORAGE-APPLICATION";
 
-    public MockPaaSProvider() {
-        executorService.scheduleWithFixedDelay(new Runnable() {
+    @PostConstruct
+    public void startUpdates() {
+        // all mock instances share the same pool so that an instance does not leak a thread when dropped.
+        executorService = executorRegistry.getScheduledExecutor("mock-paas-provider", 1);
+        updateFuture = executorService.scheduleWithFixedDelay(new Runnable() {
             @Override
             public void run() {
                 for (Map.Entry<String, MockRuntimeDeploymentInfo> runtimeDeloymentInfoEntry : runtimeDeploymentInfos.entrySet()) {
@@ -70,15 +80,12 @@ public abstract class MockPaaSProvider extends AbstractPaaSProvider {
                 }
             }
         }, 2L, 2L, TimeUnit.SECONDS);
-
     }
 
     @PreDestroy
     public void destroy() {
-        executorService.shutdown();
-        try {
-            executorService.awaitTermination(5, TimeUnit.MINUTES);
-        } catch (InterruptedException e) {
+        if (updateFuture != null) {
+            updateFuture.cancel(false);
         }
     }
 
@@ -438,17 +445,38 @@ public abstract class MockPaaSProvider extends AbstractPaaSProvider {
     }
 
     @Override
-    public void getStatus(PaaSDeploymentContext deploymentContext, IPaaSCallback<DeploymentStatus> callback) {
-        DeploymentStatus status = doGetStatus(deploymentContext.getDeploymentPaaSId(), false);
-        callback.onSuccess(status);
+    public void getStatus(final PaaSDeploymentContext deploymentContext, final IPaaSCallback<DeploymentStatus> callback) {
+        answer(new Runnable() {
+            @Override
+            public void run() {
+                DeploymentStatus status = doGetStatus(deploymentContext.getDeploymentPaaSId(), false);
+                callback.onSuccess(status);
+            }
+        });
     }
 
     @Override
-    public void getInstancesInformation(PaaSTopologyDeploymentContext deploymentContext,
-            IPaaSCallback<Map<String, Map<String, InstanceInformation>>> callback) {
-        MockRuntimeDeploymentInfo runtimeDeploymentInfo = runtimeDeploymentInfos.get(deploymentContext.getDeploymentPaaSId());
-        if (runtimeDeploymentInfo != null) {
-            callback.onSuccess(runtimeDeploymentInfo.getInstanceInformations());
+    public void getInstancesInformation(final PaaSTopologyDeploymentContext deploymentContext,
+            final IPaaSCallback<Map<String, Map<String, InstanceInformation>>> callback) {
+        answer(new Runnable() {
+            @Override
+            public void run() {
+                MockRuntimeDeploymentInfo runtimeDeploymentInfo = runtimeDeploymentInfos.get(deploymentContext.getDeploymentPaaSId());
+                if (runtimeDeploymentInfo != null) {
+                    callback.onSuccess(runtimeDeploymentInfo.getInstanceInformations());
+                }
+            }
+        });
+    }
+
+    /**
+     * Answer a read request, from the provider thread after the configured read delay (like a slow orchestrator would) or immediately.
+     */
+    private void answer(Runnable answer) {
+        if (providerConfiguration != null && providerConfiguration.getReadDelayMs() > 0) {
+            executorService.schedule(answer, providerConfiguration.getReadDelayMs(), TimeUnit.MILLISECONDS);
+        } else {
+            answer.run();
         }
     }
 
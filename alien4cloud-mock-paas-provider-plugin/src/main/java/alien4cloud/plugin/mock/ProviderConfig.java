@@ -19,7 +19,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 @Setter
 @NoArgsConstructor
 @FormProperties({ "firstArgument", "secondArgument", "thirdArgument", "withBadConfiguraton", "tags", "properties", "javaVersion", "provideResourceIds",
-        "resourceIdsCount", "shuffleStateChange" })
+        "resourceIdsCount", "shuffleStateChange", "readDelayMs" })
 @JsonIgnoreProperties(ignoreUnknown = true)
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class ProviderConfig {
@@ -44,4 +44,7 @@ public class ProviderConfig {
     private int resourceIdsCount;
 
     private boolean shuffleStateChange;
+
+    /** Delay (in milliseconds) before answering the status and instances information requests to simulate a slow orchestrator. */
+    private long readDelayMs;
 }
@@ -36,6 +36,7 @@ import alien4cloud.deployment.DeploymentTopologyService;
 import alien4cloud.deployment.UndeployService;
 import alien4cloud.deployment.WorkflowExecutionService;
 import alien4cloud.deployment.model.DeploymentConfiguration;
+import alien4cloud.deployment.model.InstancesInformationChanges;
 import alien4cloud.exception.AlreadyExistException;
 import alien4cloud.exception.NotFoundException;
 import alien4cloud.model.application.Application;
@@ -44,6 +45,7 @@ import alien4cloud.model.deployment.Deployment;
 import alien4cloud.model.deployment.DeploymentTopology;
 import alien4cloud.model.orchestrators.locations.Location;
 import alien4cloud.paas.IPaaSCallback;
+import alien4cloud.paas.OrchestratorCallService;
 import alien4cloud.paas.exception.MaintenanceModeException;
 import alien4cloud.paas.exception.OrchestratorDisabledException;
 import alien4cloud.paas.exception.PaaSDeploymentException;
@@ -61,7 +63,11 @@ import alien4cloud.security.model.ApplicationRole;
 import alien4cloud.security.model.DeployerRole;
 import alien4cloud.topology.TopologyValidationResult;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 @Slf4j
 @RestController
@@ -86,6 +92,8 @@ public class ApplicationDeploymentController {
     private DeploymentRuntimeService deploymentRuntimeService;
     @Inject
     private WorkflowExecutionService workflowExecutionService;
+    @Inject
+    private OrchestratorCallService orchestratorCallService;
 
     /**
      * Trigger deployment of the application on the current configured PaaS.
@@ -195,29 +203,43 @@ public class ApplicationDeploymentController {
     @ApiOperation(value = "Get the deployment status for the environements that the current user is allowed to see for a given application.", notes = "Returns the current status of an application list from the PaaS it is deployed on for all environments.")
     @RequestMapping(value = "/statuses", method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
-    public RestResponse<Map<String, Map<String, EnvironmentStatusDTO>>> getApplicationsStatuses(@RequestBody List<String> applicationIds) {
-        Map<String, Map<String, EnvironmentStatusDTO>> statuses = Maps.newHashMap();
+    public DeferredResult<RestResponse<Map<String, Map<String, EnvironmentStatusDTO>>>> getApplicationsStatuses(@RequestBody List<String> applicationIds) {
+        final Map<String, Map<String, EnvironmentStatusDTO>> statuses = Maps.newHashMap();
+        final List<EnvironmentStatusDTO> environmentStatuses = Lists.newArrayList();
+        List<ListenableFuture<DeploymentStatus>> statusFutures = Lists.newArrayList();
 
         for (String applicationId : applicationIds) {
-            Map<String, EnvironmentStatusDTO> environmentStatuses = Maps.newHashMap();
+            Map<String, EnvironmentStatusDTO> applicationStatuses = Maps.newHashMap();
             Application application = applicationService.checkAndGetApplication(applicationId);
-            // get all environments status for the current application
+            // get all environments status for the current application, orchestrators are requested concurrently.
             ApplicationEnvironment[] environments = applicationEnvironmentService.getByApplicationId(application.getId());
             for (ApplicationEnvironment env : environments) {
                 if (AuthorizationUtil.hasAuthorizationForEnvironment(env, ApplicationEnvironmentRole.values())) {
-                    DeploymentStatus status = DeploymentStatus.UNKNOWN;
-                    try {
-                        status = applicationEnvironmentService.getStatus(env);
-                    } catch (Exception e) {
-                        log.debug("Getting status for the environment <" + env.getId()
-                                + "> failed because the associated orchestrator seems disabled. Returned status is UNKNOWN.", e);
-                    }
-                    environmentStatuses.put(env.getId(), new EnvironmentStatusDTO(env.getName(), status));
+                    EnvironmentStatusDTO environmentStatus = new EnvironmentStatusDTO(env.getName(), DeploymentStatus.UNKNOWN);
+                    applicationStatuses.put(env.getId(), environmentStatus);
+                    environmentStatuses.add(environmentStatus);
+                    statusFutures.add(applicationEnvironmentService.getStatusOrUnknownAsync(env));
                 }
             }
-            statuses.put(applicationId, environmentStatuses);
+            statuses.put(applicationId, applicationStatuses);
         }
-        return RestResponseBuilder.<Map<String, Map<String, EnvironmentStatusDTO>>> builder().data(statuses).build();
+
+        final DeferredResult<RestResponse<Map<String, Map<String, EnvironmentStatusDTO>>>> statusesDeferredResult = new DeferredResult<>(orchestratorCallService.getRequestTimeoutMs());
+        Futures.addCallback(Futures.allAsList(statusFutures), new FutureCallback<List<DeploymentStatus>>() {
+            @Override
+            public void onSuccess(List<DeploymentStatus> result) {
+                for (int i = 0; i < result.size(); i++) {
+                    environmentStatuses.get(i).setEnvironmentStatus(result.get(i));
+                }
+                statusesDeferredResult.setResult(RestResponseBuilder.<Map<String, Map<String, EnvironmentStatusDTO>>> builder().data(statuses).build());
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                statusesDeferredResult.setErrorResult(t);
+            }
+        });
+        return statusesDeferredResult;
     }
 
     /**
@@ -238,7 +260,7 @@ public class ApplicationDeploymentController {
         }
 
         Deployment deployment = applicationEnvironmentService.getActiveDeployment(environment.getId());
-        final DeferredResult<RestResponse<Map<String, Map<String, InstanceInformation>>>> instancesDeferredResult = new DeferredResult<>(5L * 60L * 1000L);
+        final DeferredResult<RestResponse<Map<String, Map<String, InstanceInformation>>>> instancesDeferredResult = new DeferredResult<>(orchestratorCallService.getRequestTimeoutMs());
         if (deployment == null) { // if there is no topology associated with the version it could not have been deployed.
             instancesDeferredResult.setResult(RestResponseBuilder.<Map<String, Map<String, InstanceInformation>>> builder().build());
         } else {
@@ -262,6 +284,50 @@ public class ApplicationDeploymentController {
         return instancesDeferredResult;
     }
 
+    /**
+     * Get the instances of the application on the PaaS that changed since a given version.
+     *
+     * @param applicationId The id of the application.
+     * @param since The version returned with the last changes retrieved by the client, 0 to get all instances.
+     * @return A {@link RestResponse} that contains the changed instances (removed instances have a null information) and the version to use for the next
+     *         request.
+     */
+    @ApiOperation(value = "Get the instances of the application on the PaaS that changed since a given version.", notes = "Application role required [ APPLICATION_MANAGER | APPLICATION_DEVOPS ] and Application environment role required [ APPLICATION_USER | DEPLOYMENT_MANAGER ]")
+    @RequestMapping(value = "/{applicationId:.+}/environments/{applicationEnvironmentId}/deployment/informations/changes", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public DeferredResult<RestResponse<InstancesInformationChanges>> getInstanceInformationChanges(@PathVariable String applicationId,
+            @PathVariable String applicationEnvironmentId, @RequestParam(value = "since", required = false, defaultValue = "0") long since) {
+        Application application = applicationService.checkAndGetApplication(applicationId);
+        ApplicationEnvironment environment = applicationEnvironmentService.getEnvironmentByIdOrDefault(application.getId(), applicationEnvironmentId);
+        if (!AuthorizationUtil.hasAuthorizationForApplication(application, ApplicationRole.APPLICATION_MANAGER)) {
+            AuthorizationUtil.checkAuthorizationForEnvironment(environment, ApplicationEnvironmentRole.values());
+        }
+
+        Deployment deployment = applicationEnvironmentService.getActiveDeployment(environment.getId());
+        final DeferredResult<RestResponse<InstancesInformationChanges>> changesDeferredResult = new DeferredResult<>(orchestratorCallService.getRequestTimeoutMs());
+        if (deployment == null) {
+            changesDeferredResult.setResult(RestResponseBuilder.<InstancesInformationChanges> builder().build());
+        } else {
+            try {
+                deploymentRuntimeStateService.getInstancesInformationChanges(deployment, since, new IPaaSCallback<InstancesInformationChanges>() {
+                    @Override
+                    public void onSuccess(InstancesInformationChanges data) {
+                        changesDeferredResult.setResult(RestResponseBuilder.<InstancesInformationChanges> builder().data(data).build());
+                    }
+
+                    @Override
+                    public void onFailure(Throwable throwable) {
+                        changesDeferredResult.setErrorResult(throwable);
+                    }
+                });
+            } catch (OrchestratorDisabledException e) {
+                log.error("Cannot get instance informations as topology plugin cannot be found.", e);
+                changesDeferredResult.setResult(RestResponseBuilder.<InstancesInformationChanges> builder().build());
+            }
+        }
+        return changesDeferredResult;
+    }
+
     @RequestMapping(value = "/{applicationId:.+}/environments/{applicationEnvironmentId}/deployment/maintenance", method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
     @Audit
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Resource;
+import javax.inject.Inject;
 
 import org.elasticsearch.index.query.FilterBuilder;
 import org.springframework.http.HttpStatus;
@@ -17,8 +18,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import com.google.common.base.Function;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import alien4cloud.application.ApplicationEnvironmentService;
 import alien4cloud.application.ApplicationService;
@@ -32,6 +38,7 @@ import alien4cloud.exception.DeleteLastApplicationEnvironmentException;
 import alien4cloud.model.application.Application;
 import alien4cloud.model.application.ApplicationEnvironment;
 import alien4cloud.model.application.ApplicationVersion;
+import alien4cloud.paas.OrchestratorCallService;
 import alien4cloud.paas.exception.OrchestratorDisabledException;
 import alien4cloud.paas.model.DeploymentStatus;
 import alien4cloud.rest.application.model.ApplicationEnvironmentDTO;
@@ -66,6 +73,8 @@ public class ApplicationEnvironmentController {
     private ApplicationService applicationService;
     @Resource
     private ApplicationVersionService applicationVersionService;
+    @Inject
+    private OrchestratorCallService orchestratorCallService;
 
     /**
      * Search for application environment for a given application id
@@ -77,18 +86,33 @@ public class ApplicationEnvironmentController {
     @ApiOperation(value = "Search for application environments", notes = "Returns a search result with that contains application environments DTO matching the request. A application environment is returned only if the connected user has at least one application role in [ APPLICATION_USER | DEPLOYMENT_MANAGER ]")
     @RequestMapping(value = "/search", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
-    public RestResponse<GetMultipleDataResult<ApplicationEnvironmentDTO>> search(@PathVariable String applicationId, @RequestBody SearchRequest searchRequest) {
+    public DeferredResult<RestResponse<GetMultipleDataResult<ApplicationEnvironmentDTO>>> search(@PathVariable String applicationId,
+            @RequestBody SearchRequest searchRequest) {
         FilterBuilder authorizationFilter = getEnvrionmentAuthorizationFilters(applicationId);
         Map<String, String[]> applicationEnvironmentFilters = getApplicationEnvironmentFilters(applicationId);
         GetMultipleDataResult<ApplicationEnvironment> searchResult = alienDAO.search(ApplicationEnvironment.class, searchRequest.getQuery(),
                 applicationEnvironmentFilters, authorizationFilter, null, searchRequest.getFrom(), searchRequest.getSize());
 
-        GetMultipleDataResult<ApplicationEnvironmentDTO> searchResultDTO = new GetMultipleDataResult<ApplicationEnvironmentDTO>();
+        final GetMultipleDataResult<ApplicationEnvironmentDTO> searchResultDTO = new GetMultipleDataResult<ApplicationEnvironmentDTO>();
         searchResultDTO.setQueryDuration(searchResult.getQueryDuration());
         searchResultDTO.setTypes(searchResult.getTypes());
-        searchResultDTO.setData(getApplicationEnvironmentDTO(searchResult.getData()));
         searchResultDTO.setTotalResults(searchResult.getTotalResults());
-        return RestResponseBuilder.<GetMultipleDataResult<ApplicationEnvironmentDTO>> builder().data(searchResultDTO).build();
+        final DeferredResult<RestResponse<GetMultipleDataResult<ApplicationEnvironmentDTO>>> searchDeferredResult = new DeferredResult<>(
+                orchestratorCallService.getRequestTimeoutMs());
+        // the response is sent once the orchestrators answered the statuses of the environments, without holding the request thread.
+        Futures.addCallback(getApplicationEnvironmentDTO(searchResult.getData()), new FutureCallback<ApplicationEnvironmentDTO[]>() {
+            @Override
+            public void onSuccess(ApplicationEnvironmentDTO[] environmentDTOs) {
+                searchResultDTO.setData(environmentDTOs);
+                searchDeferredResult.setResult(RestResponseBuilder.<GetMultipleDataResult<ApplicationEnvironmentDTO>> builder().data(searchResultDTO).build());
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                searchDeferredResult.setErrorResult(t);
+            }
+        });
+        return searchDeferredResult;
     }
 
     private FilterBuilder getEnvrionmentAuthorizationFilters(String applicationId) {
@@ -126,21 +150,31 @@ public class ApplicationEnvironmentController {
      * @param applicationId the id of the application to be deployed.
      * @param applicationEnvironmentId the environment for which to get the status
      * @return A {@link RestResponse} that contains the application's current {@link DeploymentStatus}.
-     * @throws Exception
      */
     @ApiOperation(value = "Get an application environment from its id", notes = "Returns the application environment. Application role required [ APPLICATION_USER | DEPLOYMENT_MANAGER ]")
     @RequestMapping(value = "/{applicationEnvironmentId:.+}/status", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
-    public RestResponse<DeploymentStatus> getApplicationEnvironmentStatus(@PathVariable String applicationId, @PathVariable String applicationEnvironmentId)
-            throws Exception {
+    public DeferredResult<RestResponse<DeploymentStatus>> getApplicationEnvironmentStatus(@PathVariable String applicationId,
+            @PathVariable String applicationEnvironmentId) {
         Application application = applicationService.checkAndGetApplication(applicationId);
         ApplicationEnvironment environment = applicationEnvironmentService.getOrFail(applicationEnvironmentId);
         AuthorizationUtil.checkAuthorizationForEnvironment(environment, ApplicationEnvironmentRole.values());
         if (!AuthorizationUtil.hasAuthorizationForApplication(application, ApplicationRole.APPLICATION_MANAGER)) {
             AuthorizationUtil.checkAuthorizationForEnvironment(environment, ApplicationEnvironmentRole.values());
         }
-        DeploymentStatus status = applicationEnvironmentService.getStatus(environment);
-        return RestResponseBuilder.<DeploymentStatus> builder().data(status).build();
+        final DeferredResult<RestResponse<DeploymentStatus>> statusDeferredResult = new DeferredResult<>(orchestratorCallService.getRequestTimeoutMs());
+        Futures.addCallback(applicationEnvironmentService.getStatusAsync(environment), new FutureCallback<DeploymentStatus>() {
+            @Override
+            public void onSuccess(DeploymentStatus status) {
+                statusDeferredResult.setResult(RestResponseBuilder.<DeploymentStatus> builder().data(status).build());
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                statusDeferredResult.setErrorResult(t);
+            }
+        });
+        return statusDeferredResult;
     }
 
     /**
@@ -249,10 +283,15 @@ public class ApplicationEnvironmentController {
      * Get a list a application environment DTO
      *
      * @param applicationEnvironments
-     * @return
+     * @return A future of the DTOs, completed once the statuses of all environments are known.
      */
-    private ApplicationEnvironmentDTO[] getApplicationEnvironmentDTO(ApplicationEnvironment[] applicationEnvironments) {
-        List<ApplicationEnvironmentDTO> listApplicationEnvironmentsDTO = Lists.newArrayList();
+    private ListenableFuture<ApplicationEnvironmentDTO[]> getApplicationEnvironmentDTO(ApplicationEnvironment[] applicationEnvironments) {
+        final List<ApplicationEnvironmentDTO> listApplicationEnvironmentsDTO = Lists.newArrayList();
+        List<ListenableFuture<DeploymentStatus>> statusFutures = Lists.newArrayList();
+        // request the orchestrators concurrently, each call is bounded by the orchestrator calls timeout.
+        for (ApplicationEnvironment env : applicationEnvironments) {
+            statusFutures.add(applicationEnvironmentService.getStatusOrUnknownAsync(env));
+        }
         ApplicationEnvironmentDTO tempEnvDTO = null;
         for (ApplicationEnvironment env : applicationEnvironments) {
             tempEnvDTO = new ApplicationEnvironmentDTO();
@@ -265,16 +304,17 @@ public class ApplicationEnvironmentController {
             tempEnvDTO.setGroupRoles(env.getGroupRoles());
             ApplicationVersion applicationVersion = applicationVersionService.get(env.getCurrentVersionId());
             tempEnvDTO.setCurrentVersionName(applicationVersion != null ? applicationVersion.getVersion() : null);
-            try {
-                tempEnvDTO.setStatus(applicationEnvironmentService.getStatus(env));
-            } catch (Exception e) {
-                log.debug("Getting status for the environment <" + env.getId()
-                        + "> failed because the associated orchestrator cannot be reached. Returned status is UNKNOWN.", e);
-                tempEnvDTO.setStatus(DeploymentStatus.UNKNOWN);
-            }
             listApplicationEnvironmentsDTO.add(tempEnvDTO);
         }
-        return listApplicationEnvironmentsDTO.toArray(new ApplicationEnvironmentDTO[listApplicationEnvironmentsDTO.size()]);
+        return Futures.transform(Futures.allAsList(statusFutures), new Function<List<DeploymentStatus>, ApplicationEnvironmentDTO[]>() {
+            @Override
+            public ApplicationEnvironmentDTO[] apply(List<DeploymentStatus> statuses) {
+                for (int i = 0; i < statuses.size(); i++) {
+                    listApplicationEnvironmentsDTO.get(i).setStatus(statuses.get(i));
+                }
+                return listApplicationEnvironmentsDTO.toArray(new ApplicationEnvironmentDTO[listApplicationEnvironmentsDTO.size()]);
+            }
+        });
     }
 
     @ApiOperation(value = "Get the id of the topology linked to the environment", notes = "Application role required [ APPLICATION_MANAGER | APPLICATION_DEVOPS ]")
@@ -1,6 +1,7 @@
 package alien4cloud.rest.deployment;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -30,6 +31,7 @@ import alien4cloud.dao.model.GetMultipleDataResult;
 import alien4cloud.deployment.DeploymentRuntimeStateService;
 import alien4cloud.deployment.DeploymentService;
 import alien4cloud.deployment.UndeployService;
+import alien4cloud.deployment.model.DeploymentsPage;
 import alien4cloud.model.deployment.Deployment;
 import alien4cloud.model.deployment.DeploymentSourceType;
 import alien4cloud.model.deployment.IDeploymentSource;
@@ -49,6 +51,9 @@ import io.swagger.annotations.Authorization;
 @RestController
 @RequestMapping({ "/rest/deployments", "/rest/v1/deployments", "/rest/latest/deployments" })
 public class DeploymentController {
+    /** Maximum number of deployments in a page. */
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDAO;
     @Resource
@@ -82,6 +87,31 @@ public class DeploymentController {
         return RestResponseBuilder.<List<DeploymentDTO>> builder().data(buildDeploymentsDTO(orchestratorId, sourceId, includeSourceSummary)).build();
     }
 
+    /**
+     * Get a page of deployments (from the most recent to the oldest), including if asked some details of the related applications.
+     *
+     * @return A {@link RestResponse} with as data a {@link DeploymentsPageDTO} that contains the deployments of the page and the cursor of the next page.
+     */
+    @ApiOperation(value = "Get a page of deployments.", notes = "Deployments are sorted from the most recent to the oldest, use the next cursor of a page to get the following one.", authorizations = { @Authorization("ADMIN") })
+    @RequestMapping(value = "/page", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public RestResponse<DeploymentsPageDTO> getPage(
+            @ApiParam(value = "Id of the orchestrator for which to get deployments. If not provided, get deployments for all orchestrators") @RequestParam(required = false) String orchestratorId,
+            @ApiParam(value = "Id of the application for which to get deployments. if not provided, get deployments for all applications") @RequestParam(required = false) String sourceId,
+            @ApiParam(value = "Get only the deployments that are not undeployed") @RequestParam(required = false, defaultValue = "false") boolean activeOnly,
+            @ApiParam(value = "Get only the deployments started at or after this date (in milliseconds since epoch)") @RequestParam(required = false) Long fromDate,
+            @ApiParam(value = "Get only the deployments started at or before this date (in milliseconds since epoch)") @RequestParam(required = false) Long toDate,
+            @ApiParam(value = "Cursor of the page to get as returned with the previous page, if not provided get the first page") @RequestParam(required = false) String cursor,
+            @ApiParam(value = "Maximum number of deployments in the page") @RequestParam(required = false, defaultValue = "50") int size,
+            @ApiParam(value = "include or not the source (application or csar) summary in the results") @RequestParam(required = false, defaultValue = "false") boolean includeSourceSummary) {
+        DeploymentsPage page = deploymentService.getDeployments(orchestratorId, sourceId, activeOnly, fromDate == null ? null : new Date(fromDate),
+                toDate == null ? null : new Date(toDate), cursor, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        // summaries are fetched only for the deployments of the page
+        List<DeploymentDTO> deployments = buildDeploymentsDTO(page.getDeployments(), includeSourceSummary);
+        return RestResponseBuilder.<DeploymentsPageDTO> builder().data(new DeploymentsPageDTO(deployments, page.getTotalResults(), page.getNextCursor()))
+                .build();
+    }
+
     /**
      * Get deployments for a given orchestrator, and some info about the related applications and locations
      *
@@ -91,7 +121,10 @@ public class DeploymentController {
      * @return A list of {@link DeploymentDTO} that contains deployments and applications info.
      */
     private List<DeploymentDTO> buildDeploymentsDTO(String orchestratorId, String sourceId, boolean includeSourceSummary) {
-        List<Deployment> deployments = deploymentService.getDeployments(orchestratorId, sourceId);
+        return buildDeploymentsDTO(deploymentService.getDeployments(orchestratorId, sourceId), includeSourceSummary);
+    }
+
+    private List<DeploymentDTO> buildDeploymentsDTO(List<Deployment> deployments, boolean includeSourceSummary) {
         List<DeploymentDTO> dtos = Lists.newArrayList();
         if (deployments != null && deployments.size() > 0) {
             Map<String, ? extends IDeploymentSource> sources = Maps.newHashMap();
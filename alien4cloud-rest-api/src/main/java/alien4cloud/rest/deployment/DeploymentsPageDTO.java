@@ -0,0 +1,23 @@
+package alien4cloud.rest.deployment;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A page of deployments with the informations of the related applications.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor(suppressConstructorProperties = true)
+public class DeploymentsPageDTO {
+    private List<DeploymentDTO> data;
+    /** Total number of deployments matching the filters (in all pages). */
+    private long totalResults;
+    /** Cursor to get the next page or null if this is the last page. */
+    private String nextCursor;
+}
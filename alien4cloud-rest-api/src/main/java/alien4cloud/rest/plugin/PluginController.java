@@ -33,10 +33,12 @@ import alien4cloud.dao.model.GetMultipleDataResult;
 import alien4cloud.plugin.IPluginConfigurator;
 import alien4cloud.plugin.Plugin;
 import alien4cloud.plugin.PluginManager;
+import alien4cloud.plugin.PluginStartupProfiler;
 import alien4cloud.plugin.exception.MissingPlugingDescriptorFileException;
 import alien4cloud.plugin.exception.PluginConfigurationException;
 import alien4cloud.plugin.exception.PluginLoadingException;
 import alien4cloud.plugin.model.PluginConfiguration;
+import alien4cloud.plugin.model.PluginStartupReport;
 import alien4cloud.plugin.model.PluginUsage;
 import alien4cloud.rest.model.BasicSearchRequest;
 import alien4cloud.rest.model.RestError;
@@ -60,6 +62,8 @@ import io.swagger.annotations.ApiOperation;
 public class PluginController {
     @Resource
     private PluginManager pluginManager;
+    @Resource
+    private PluginStartupProfiler pluginStartupProfiler;
 
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDAO;
@@ -145,6 +149,13 @@ public class PluginController {
         return RestResponseBuilder.<GetMultipleDataResult<Plugin>> builder().data(result).build();
     }
 
+    @ApiOperation(value = "Get the timings of the plugins loading phases.", notes = "Returns the duration of each loading phase (unzip, class loader, context refresh, link, archive indexing, orchestrator load) for every plugin. Role required [ ADMIN ]")
+    @RequestMapping(value = "/startup-report", method = RequestMethod.GET)
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public RestResponse<PluginStartupReport> getStartupReport() {
+        return RestResponseBuilder.<PluginStartupReport> builder().data(pluginStartupProfiler.getReport()).build();
+    }
+
     @ApiOperation(value = "Enable a plugin.", notes = "Enable and load a plugin. Role required [ ADMIN ]")
     @RequestMapping(value = "/{pluginId:.+}/enable", method = RequestMethod.GET)
     @PreAuthorize("hasAuthority('ADMIN')")
@@ -6,6 +6,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import alien4cloud.exception.InitializationException;
 import alien4cloud.exception.NotFoundException;
@@ -14,13 +15,16 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.alien4cloud.tosca.editor.EditorService;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.ResourceProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+import org.springframework.web.servlet.resource.GzipResourceResolver;
 import org.springframework.web.servlet.resource.ResourceResolver;
 import org.springframework.web.servlet.resource.ResourceResolverChain;
 
@@ -31,6 +35,14 @@ import javax.servlet.http.HttpServletRequest;
 @Configuration
 public class StaticResourcesConfiguration extends WebMvcConfigurerAdapter {
     public final static String PLUGIN_STATIC_ENDPOINT = "/static/plugins/";
+    /**
+     * Cache control of the resources of which url changes when their content changes: ui scripts and styles are renamed with a content hash by the ui build
+     * and plugins ui are stored in a directory specific to every plugin upload.
+     */
+    private final static CacheControl IMMUTABLE_CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic();
+
+    @Inject
+    private ResourceProperties resourceProperties;
 
     @Setter
     private EditorService editorService = null;
@@ -48,7 +60,9 @@ public class StaticResourcesConfiguration extends WebMvcConfigurerAdapter {
 
         log.info("Serving {} as tosca repo content.", absToscaRepo);
         log.info("Serving {} as plugin ui content.", absPluginUi);
-        registry.addResourceHandler("/static/tosca/{csarId:.+}/**").addResourceLocations(absToscaRepo).resourceChain(false)
+        // csar files may change (snapshots) so they must be revalidated, the handler answers 304 based on the last modification date of the file.
+        registry.addResourceHandler("/static/tosca/{csarId:.+}/**").addResourceLocations(absToscaRepo).setCacheControl(CacheControl.noCache())
+                .resourceChain(false)
                 .addResolver(new ResourceResolver() {
                     @Override
                     public Resource resolveResource(HttpServletRequest request, String requestPath, List<? extends Resource> locations,
@@ -76,7 +90,24 @@ public class StaticResourcesConfiguration extends WebMvcConfigurerAdapter {
 
                     }
                 });
-        registry.addResourceHandler(PLUGIN_STATIC_ENDPOINT + "**").addResourceLocations(absPluginUi);
+        // gzip variants of plugins ui files are written when the plugin is uploaded.
+        registry.addResourceHandler(PLUGIN_STATIC_ENDPOINT + "**").addResourceLocations(absPluginUi).setCacheControl(IMMUTABLE_CACHE_CONTROL)
+                .resourceChain(true).addResolver(new GzipResourceResolver());
+
+        // revisioned ui files (see the rev task of the ui build that also writes their gzip variants), other static files are served by the default handler.
+        registry.addResourceHandler("/scripts/*.js", "/scripts/*/*.js").addResourceLocations(getStaticLocations("scripts/"))
+                .setCacheControl(IMMUTABLE_CACHE_CONTROL).resourceChain(true).addResolver(new GzipResourceResolver());
+        registry.addResourceHandler("/styles/*.css", "/styles/*/*.css").addResourceLocations(getStaticLocations("styles/"))
+                .setCacheControl(IMMUTABLE_CACHE_CONTROL).resourceChain(true).addResolver(new GzipResourceResolver());
+    }
+
+    private String[] getStaticLocations(String directory) {
+        String[] staticLocations = resourceProperties.getStaticLocations();
+        String[] locations = new String[staticLocations.length];
+        for (int i = 0; i < staticLocations.length; i++) {
+            locations[i] = staticLocations[i].endsWith("/") ? staticLocations[i] + directory : staticLocations[i] + "/" + directory;
+        }
+        return locations;
     }
 
     private String safeGetRealPath(String pathStr) {
@@ -1,21 +1,36 @@
 package org.alien4cloud.bootstrap;
 
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
 import javax.annotation.Resource;
-import javax.inject.Inject;
+import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
-import alien4cloud.audit.annotation.Audit;
 import alien4cloud.audit.rest.AuditController;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.PriorityOrdered;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.servlet.HandlerExecutionChain;
 import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.UrlPathHelper;
+
+import com.codahale.metrics.MetricRegistry;
 
 import alien4cloud.FullApplicationConfiguration;
 import alien4cloud.events.HALeaderElectionEvent;
@@ -23,19 +38,76 @@ import alien4cloud.events.HALeaderElectionEvent;
 /**
  * Manage the child context defined in {@link FullApplicationConfiguration}: this context is launched when the current alien instance is elected as leader and
  * eventually destroyed in case of banish.
+ *
+ * In warm standby mode (HA only), backup instances prepare the child context (beans creation, caches, request mappings) without starting it. The components
+ * that require the leadership (catalog indexing, default data writes, plugins and orchestrators loading, scheduled tasks etc.) must not write anything when
+ * created: they implement {@link org.springframework.context.SmartLifecycle} (not auto started, ordered by phase) and are only started on promotion.
+ *
+ * In read only serving mode (HA only), backup instances also serve the read requests (catalog, applications, deployments and monitor events) from the
+ * prepared context as data is read from the shared elasticsearch cluster. Other requests targeting the full context are redirected to the leader url when
+ * configured or rejected as unavailable.
  */
 @Component
 @Slf4j
 public class ApplicationManager implements ApplicationListener<HALeaderElectionEvent>, HandlerMapping, PriorityOrdered {
+    private static final String PROMOTION_METRIC = "alien4cloud.ha.promotion";
+
+    /**
+     * Requests (GET, POST searches) that backup instances can serve in read only mode. Only the endpoints that neither write data (edition contexts, topology
+     * recovery etc.) nor require the orchestrators (only loaded on the leader) are listed.
+     */
+    private static final String[] READ_ONLY_GET_PATHS = { "/rest/**/catalog/topologies/*", "/rest/**/catalog/topologies/*/versions", "/rest/**/components/*",
+            "/rest/**/components/element/*/version/*", "/rest/**/components/element/*/versions", "/rest/**/components/recommendation/*", "/rest/**/csars/*",
+            "/rest/**/applications/*", "/rest/**/applications/*/versions", "/rest/**/applications/*/versions/*", "/rest/**/applications/*/environments/*",
+            "/rest/**/applications/*/environments/*/topology", "/rest/**/applications/*/environments/*/active-deployment", "/rest/**/deployments",
+            "/rest/**/deployments/page", "/rest/**/deployments/*/events", "/rest/**/runtime/*/environment/*/topology", "/rest/**/topologies/*/isvalid" };
+    private static final String[] READ_ONLY_POST_PATHS = { "/rest/**/search", "/rest/**/quicksearch", "/rest/**/components/getInArchives" };
+
     @Resource
     private ApplicationContext bootstrapContext;
+    @Autowired(required = false)
+    private MetricRegistry metricRegistry;
+
+    @Value("${ha.ha_enabled:#{false}}")
+    private boolean haEnabled;
+    @Value("${ha.warm_standby:#{false}}")
+    private boolean warmStandby;
+    @Value("${ha.read_only_serving:#{false}}")
+    private boolean readOnlyServing;
+    @Value("${ha.leader_url:}")
+    private String leaderUrl;
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    private Class<?> fullApplicationConfiguration = FullApplicationConfiguration.class;
 
     private AnnotationConfigApplicationContext fullApplicationContext;
 
-    private RequestMappingHandlerMapping mapper;
+    /** Mapper of the full application context, exposed only once the context is launched (or for read only requests in read only serving mode). */
+    private volatile RequestMappingHandlerMapping fullApplicationMapper;
+
+    private volatile RequestMappingHandlerMapping mapper;
 
     private volatile boolean childContextLaunched;
 
+    /** Backup instances prepare the full application context in warm standby and read only serving modes. */
+    private boolean isStandbyPrepared() {
+        return haEnabled && (warmStandby || readOnlyServing);
+    }
+
+    /**
+     * Prepare the full application context as soon as the bootstrap context is ready when warm standby or read only serving is enabled.
+     */
+    @EventListener
+    public synchronized void onBootstrapContextRefreshed(ContextRefreshedEvent event) {
+        // child context also dispatch context refresh event, we just want to process the ones of the main context.
+        if (isStandbyPrepared() && event.getApplicationContext() == bootstrapContext && fullApplicationContext == null) {
+            log.info("Warm standby or read only serving is enabled, preparing the full application context");
+            prepareFullApplicationContext();
+        }
+    }
+
     /**
      * A synchronized method is enough since the boolean <code>childContextLaunched</code> is only read/write in it.
      */
@@ -44,23 +116,25 @@ public class ApplicationManager implements ApplicationListener<HALeaderElectionE
         if (event.isLeader()) {
             log.info("Leader Election event received, this instance is now known as the leader");
             if (!childContextLaunched) {
+                long start = System.nanoTime();
+                boolean warm = fullApplicationContext != null;
+                if (!warm) {
+                    prepareFullApplicationContext();
+                }
                 log.info("Launching the full application context");
-
-                fullApplicationContext = new AnnotationConfigApplicationContext();
-                fullApplicationContext.setParent(this.bootstrapContext);
-                fullApplicationContext.setId(this.bootstrapContext.getId() + ":full");
-                fullApplicationContext.register(FullApplicationConfiguration.class);
-                fullApplicationContext.refresh();
+                // starts the components that requires the leadership.
                 fullApplicationContext.start();
 
-                mapper = new RequestMappingHandlerMapping();
-                mapper.setApplicationContext(fullApplicationContext);
-                mapper.afterPropertiesSet();
-
                 AuditController auditController = fullApplicationContext.getBean(AuditController.class);
-                auditController.register(mapper);
+                auditController.register(fullApplicationMapper);
+                mapper = fullApplicationMapper;
 
                 childContextLaunched = true;
+                long durationNanos = System.nanoTime() - start;
+                if (metricRegistry != null) {
+                    metricRegistry.timer(MetricRegistry.name(PROMOTION_METRIC, warm ? "warm" : "cold")).update(durationNanos, TimeUnit.NANOSECONDS);
+                }
+                log.info("Full application context launched in {} ms ({} start)", TimeUnit.NANOSECONDS.toMillis(durationNanos), warm ? "warm" : "cold");
             } else {
                 log.warn("The full application context is already launched, something seems wrong in the current state !");
             }
@@ -69,24 +143,99 @@ public class ApplicationManager implements ApplicationListener<HALeaderElectionE
                 log.info("Destroying the full application context");
 
                 mapper = null;
+                fullApplicationMapper = null;
                 fullApplicationContext.destroy();
+                fullApplicationContext = null;
 
                 childContextLaunched = false;
+                if (isStandbyPrepared()) {
+                    log.info("Warm standby or read only serving is enabled, preparing a new full application context");
+                    prepareFullApplicationContext();
+                }
             } else {
                 log.warn("The full application context is already destroyed, something seems wrong in the current state !");
             }
         }
+    }
 
+    /**
+     * Create and refresh the full application context and its request mappings without starting it.
+     */
+    private void prepareFullApplicationContext() {
+        long start = System.nanoTime();
+        fullApplicationContext = new AnnotationConfigApplicationContext();
+        fullApplicationContext.setParent(this.bootstrapContext);
+        fullApplicationContext.setId(this.bootstrapContext.getId() + ":full");
+        fullApplicationContext.register(fullApplicationConfiguration);
+        fullApplicationContext.refresh();
+
+        fullApplicationMapper = new RequestMappingHandlerMapping();
+        fullApplicationMapper.setApplicationContext(fullApplicationContext);
+        fullApplicationMapper.afterPropertiesSet();
+        log.info("Full application context prepared in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     }
 
     @Override
     public HandlerExecutionChain getHandler(HttpServletRequest request) throws Exception {
-        if (mapper != null) {
-            return mapper.getHandler(request);
+        RequestMappingHandlerMapping currentMapper = mapper;
+        if (currentMapper != null) {
+            return currentMapper.getHandler(request);
+        }
+        RequestMappingHandlerMapping standbyMapper = fullApplicationMapper;
+        if (readOnlyServing && standbyMapper != null) {
+            HandlerExecutionChain chain = standbyMapper.getHandler(request);
+            if (chain == null || isReadOnly(request)) {
+                return chain;
+            }
+            // the request targets the full context but requires the leader.
+            return new HandlerExecutionChain(new LeaderRequestHandler());
         }
         return null;
     }
 
+    private boolean isReadOnly(HttpServletRequest request) {
+        String path = urlPathHelper.getLookupPathForRequest(request);
+        String[] readOnlyPaths;
+        if (RequestMethod.GET.name().equals(request.getMethod())) {
+            readOnlyPaths = READ_ONLY_GET_PATHS;
+        } else if (RequestMethod.POST.name().equals(request.getMethod())) {
+            readOnlyPaths = READ_ONLY_POST_PATHS;
+        } else {
+            return false;
+        }
+        return matchesAny(readOnlyPaths, path);
+    }
+
+    private boolean matchesAny(String[] patterns, String path) {
+        for (String pattern : patterns) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Handle the requests that only the leader can process when received by a backup instance.
+     */
+    private class LeaderRequestHandler implements HttpRequestHandler {
+        @Override
+        public void handleRequest(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+            if (StringUtils.hasText(leaderUrl)) {
+                StringBuilder location = new StringBuilder(StringUtils.trimTrailingCharacter(leaderUrl, '/')).append(request.getRequestURI());
+                if (request.getQueryString() != null) {
+                    location.append('?').append(request.getQueryString());
+                }
+                // 307 so that the client replays the same method and body on the leader.
+                response.setStatus(HttpServletResponse.SC_TEMPORARY_REDIRECT);
+                response.setHeader("Location", location.toString());
+            } else {
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                        "This instance is a backup serving read only requests, please send the request to the leader.");
+            }
+        }
+    }
+
     @Override
     public int getOrder() {
         return PriorityOrdered.HIGHEST_PRECEDENCE;
@@ -53,6 +53,7 @@ import alien4cloud.paas.exception.ComputeConflictNameException;
 import alien4cloud.paas.exception.EmptyMetaPropertyException;
 import alien4cloud.paas.exception.MissingPluginException;
 import alien4cloud.paas.exception.OrchestratorDeploymentIdConflictException;
+import alien4cloud.paas.exception.OrchestratorUnavailableException;
 import alien4cloud.paas.exception.PaaSDeploymentException;
 import alien4cloud.paas.exception.PaaSDeploymentIOException;
 import alien4cloud.paas.exception.PaaSUndeploymentException;
@@ -193,6 +194,15 @@ public class RestTechnicalExceptionHandler {
                 .message("The cloud plugin cannot be found. Make sure that the plugin is installed and enabled.").build()).build();
     }
 
+    @ExceptionHandler(value = OrchestratorUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ResponseBody
+    public RestResponse<Void> orchestratorUnavailableErrorHandler(OrchestratorUnavailableException e) {
+        log.warn("Orchestrator call cannot be processed: {}", e.getMessage());
+        return RestResponseBuilder.<Void> builder().error(RestErrorBuilder.builder(RestErrorCode.ORCHESTRATOR_UNAVAILABLE_ERROR).message(e.getMessage()).build())
+                .build();
+    }
+
     @ExceptionHandler(value = InvalidArgumentException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ResponseBody
@@ -1,34 +1,61 @@
 package org.alien4cloud.tosca.editor;
 
-import javax.annotation.PostConstruct;
-import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
 import alien4cloud.webconfiguration.StaticResourcesConfiguration;
+import org.alien4cloud.tosca.catalog.index.ArchiveIndexer;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Component;
 
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Defer the injection of the editor service into static resource configuration bean.
+ * Defer the injection of the editor service into static resource configuration bean. The editor service is linked when the context is started so that
+ * backup instances (that prepare the context without starting it in case of HA) don't serve the editor static resources.
  */
 @Slf4j
 @Component
-public class EditorStaticResourcesConfigurer {
+public class EditorStaticResourcesConfigurer implements SmartLifecycle {
     @Inject
     private EditorService editorService;
     @Inject
     private StaticResourcesConfiguration configuration;
 
-    @PostConstruct
-    public void register() {
+    private volatile boolean running = false;
+
+    @Override
+    public void start() {
         log.info("Initializing context: linking editor service from static resource provider.");
         configuration.setEditorService(editorService);
+        running = true;
     }
 
-    @PreDestroy
-    public void unregister() {
+    @Override
+    public void stop() {
         log.info("Destroying context: unlinking editor service from static resource provider.");
         configuration.setEditorService(null);
+        running = false;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        stop();
+        callback.run();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        // started on leader election only.
+        return false;
+    }
+
+    @Override
+    public int getPhase() {
+        return ArchiveIndexer.PHASE;
     }
-}
\ No newline at end of file
+}
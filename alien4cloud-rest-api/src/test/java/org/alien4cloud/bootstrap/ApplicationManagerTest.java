@@ -0,0 +1,301 @@
+package org.alien4cloud.bootstrap;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.Lifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import alien4cloud.audit.rest.AuditController;
+import alien4cloud.dao.MonitorESDAO;
+import alien4cloud.deployment.DeployedTopologiesMigration;
+import alien4cloud.events.HALeaderElectionEvent;
+
+import com.google.common.collect.Lists;
+
+public class ApplicationManagerTest {
+    private static int startedComponents;
+    private static final List<String> startOrder = Lists.newArrayList();
+
+    private GenericApplicationContext bootstrapContext;
+    private AuditController auditController;
+    private ApplicationManager applicationManager;
+
+    @Before
+    public void before() {
+        startedComponents = 0;
+        startOrder.clear();
+        auditController = Mockito.mock(AuditController.class);
+        bootstrapContext = new GenericApplicationContext();
+        bootstrapContext.getBeanFactory().registerSingleton("auditController", auditController);
+        bootstrapContext.refresh();
+
+        applicationManager = new ApplicationManager();
+        ReflectionTestUtils.setField(applicationManager, "bootstrapContext", bootstrapContext);
+        ReflectionTestUtils.setField(applicationManager, "fullApplicationConfiguration", TestFullApplicationConfiguration.class);
+        ReflectionTestUtils.setField(applicationManager, "haEnabled", true);
+    }
+
+    @After
+    public void after() {
+        Object fullApplicationContext = getFullApplicationContext();
+        if (fullApplicationContext != null) {
+            ((ConfigurableApplicationContext) fullApplicationContext).close();
+        }
+        bootstrapContext.close();
+    }
+
+    private boolean isServing() throws Exception {
+        return applicationManager.getHandler(new MockHttpServletRequest("GET", "/test")) != null;
+    }
+
+    private Object getHandler(String method, String path) throws Exception {
+        HandlerExecutionChain chain = applicationManager.getHandler(new MockHttpServletRequest(method, path));
+        return chain == null ? null : chain.getHandler();
+    }
+
+    private Object getFullApplicationContext() {
+        return ReflectionTestUtils.getField(applicationManager, "fullApplicationContext");
+    }
+
+    @Test
+    public void warmStandbyShouldPrepareContextWithoutStartingIt() throws Exception {
+        ReflectionTestUtils.setField(applicationManager, "warmStandby", true);
+        applicationManager.onBootstrapContextRefreshed(new ContextRefreshedEvent(bootstrapContext));
+        Object standbyContext = getFullApplicationContext();
+        Assert.assertNotNull(standbyContext);
+        Assert.assertEquals(0, startedComponents);
+        Assert.assertFalse(isServing());
+        Mockito.verify(auditController, Mockito.never()).register(Mockito.any(RequestMappingHandlerMapping.class));
+
+        applicationManager.onApplicationEvent(new HALeaderElectionEvent(this, true));
+        // the prepared context is promoted
+        Assert.assertSame(standbyContext, getFullApplicationContext());
+        Assert.assertEquals(1, startedComponents);
+        Assert.assertTrue(isServing());
+        Mockito.verify(auditController).register(Mockito.any(RequestMappingHandlerMapping.class));
+
+        applicationManager.onApplicationEvent(new HALeaderElectionEvent(this, false));
+        Assert.assertEquals(0, startedComponents);
+        Assert.assertFalse(isServing());
+        // a new standby context is prepared
+        Assert.assertNotNull(getFullApplicationContext());
+        Assert.assertNotSame(standbyContext, getFullApplicationContext());
+    }
+
+    @Test
+    public void contextShouldBeLaunchedOnPromotionWithoutWarmStandby() throws Exception {
+        applicationManager.onBootstrapContextRefreshed(new ContextRefreshedEvent(bootstrapContext));
+        Assert.assertNull(getFullApplicationContext());
+
+        applicationManager.onApplicationEvent(new HALeaderElectionEvent(this, true));
+        Assert.assertEquals(1, startedComponents);
+        Assert.assertTrue(isServing());
+
+        applicationManager.onApplicationEvent(new HALeaderElectionEvent(this, false));
+        Assert.assertEquals(0, startedComponents);
+        Assert.assertFalse(isServing());
+        Assert.assertNull(getFullApplicationContext());
+    }
+
+    @Test
+    public void backupShouldOnlyServeReadOnlyRequestsInReadOnlyServingMode() throws Exception {
+        ReflectionTestUtils.setField(applicationManager, "readOnlyServing", true);
+        ReflectionTestUtils.setField(applicationManager, "leaderUrl", "http://leader:8088/");
+        applicationManager.onBootstrapContextRefreshed(new ContextRefreshedEvent(bootstrapContext));
+        Assert.assertNotNull(getFullApplicationContext());
+        Assert.assertEquals(0, startedComponents);
+
+        Assert.assertTrue(getHandler("GET", "/rest/v1/catalog/topologies/test") instanceof HandlerMethod);
+        Assert.assertTrue(getHandler("POST", "/rest/v1/catalog/topologies/search") instanceof HandlerMethod);
+        Assert.assertTrue(getHandler("PUT", "/rest/v1/catalog/topologies/test") instanceof HttpRequestHandler);
+        Assert.assertTrue(getHandler("GET", "/rest/v1/applications/app/environments/env/deployment-topology") instanceof HttpRequestHandler);
+        Assert.assertTrue(getHandler("GET", "/rest/v1/applications/app") instanceof HandlerMethod);
+        // getting a topology initializes an edition context.
+        Assert.assertTrue(getHandler("GET", "/rest/v1/topologies/topology") instanceof HttpRequestHandler);
+        Assert.assertTrue(getHandler("GET", "/rest/v1/topologies/topology/isvalid") instanceof HandlerMethod);
+        // requests that are not handled by the full context are left to the bootstrap context
+        Assert.assertNull(getHandler("GET", "/rest/v1/unknown"));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/rest/v1/catalog/topologies/test");
+        request.setQueryString("force=true");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ((HttpRequestHandler) getHandler("PUT", "/rest/v1/catalog/topologies/test")).handleRequest(request, response);
+        Assert.assertEquals(307, response.getStatus());
+        Assert.assertEquals("http://leader:8088/rest/v1/catalog/topologies/test?force=true", response.getHeader("Location"));
+
+        ReflectionTestUtils.setField(applicationManager, "leaderUrl", "");
+        response = new MockHttpServletResponse();
+        ((HttpRequestHandler) getHandler("PUT", "/rest/v1/catalog/topologies/test")).handleRequest(request, response);
+        Assert.assertEquals(503, response.getStatus());
+
+        // once leader every request is served
+        applicationManager.onApplicationEvent(new HALeaderElectionEvent(this, true));
+        Assert.assertTrue(getHandler("PUT", "/rest/v1/catalog/topologies/test") instanceof HandlerMethod);
+    }
+
+    @Test
+    public void leaderComponentsShouldBeStartedByPhaseOnPromotion() throws Exception {
+        ReflectionTestUtils.setField(applicationManager, "fullApplicationConfiguration", PhasedFullApplicationConfiguration.class);
+        ReflectionTestUtils.setField(applicationManager, "warmStandby", true);
+        applicationManager.onBootstrapContextRefreshed(new ContextRefreshedEvent(bootstrapContext));
+        // smart lifecycle components are not auto started on the backup.
+        Assert.assertTrue(startOrder.isEmpty());
+
+        applicationManager.onApplicationEvent(new HALeaderElectionEvent(this, true));
+        Assert.assertEquals(Arrays.asList("indexer", "bootstrap"), startOrder);
+    }
+
+    @Test
+    public void deployedTopologiesShouldBeMigratedOnLeaderElectionOnly() throws Exception {
+        MonitorESDAO monitorDao = Mockito.mock(MonitorESDAO.class);
+        Mockito.when(monitorDao.isCompactDeployedTopologies()).thenReturn(true);
+        // the monitor dao belongs to the bootstrap context.
+        bootstrapContext.close();
+        bootstrapContext = new GenericApplicationContext();
+        bootstrapContext.getBeanFactory().registerSingleton("auditController", auditController);
+        bootstrapContext.getBeanFactory().registerSingleton("alien-monitor-es-dao", monitorDao);
+        bootstrapContext.refresh();
+        ReflectionTestUtils.setField(applicationManager, "bootstrapContext", bootstrapContext);
+        ReflectionTestUtils.setField(applicationManager, "fullApplicationConfiguration", MigrationFullApplicationConfiguration.class);
+        ReflectionTestUtils.setField(applicationManager, "warmStandby", true);
+
+        applicationManager.onBootstrapContextRefreshed(new ContextRefreshedEvent(bootstrapContext));
+        Mockito.verify(monitorDao, Mockito.never()).migrateDeployedTopologies();
+
+        applicationManager.onApplicationEvent(new HALeaderElectionEvent(this, true));
+        Mockito.verify(monitorDao).migrateDeployedTopologies();
+    }
+
+    @Configuration
+    public static class MigrationFullApplicationConfiguration {
+        @Bean
+        public DeployedTopologiesMigration deployedTopologiesMigration() {
+            return new DeployedTopologiesMigration();
+        }
+    }
+
+    @Configuration
+    public static class PhasedFullApplicationConfiguration {
+        @Bean
+        public PhasedComponent bootstrap() {
+            return new PhasedComponent("bootstrap", 1);
+        }
+
+        @Bean
+        public PhasedComponent indexer() {
+            return new PhasedComponent("indexer", 0);
+        }
+    }
+
+    public static class PhasedComponent implements SmartLifecycle {
+        private final String name;
+        private final int phase;
+        private boolean running;
+
+        public PhasedComponent(String name, int phase) {
+            this.name = name;
+            this.phase = phase;
+        }
+
+        @Override
+        public void start() {
+            running = true;
+            startOrder.add(name);
+        }
+
+        @Override
+        public void stop() {
+            running = false;
+        }
+
+        @Override
+        public void stop(Runnable callback) {
+            stop();
+            callback.run();
+        }
+
+        @Override
+        public boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public boolean isAutoStartup() {
+            return false;
+        }
+
+        @Override
+        public int getPhase() {
+            return phase;
+        }
+    }
+
+    @Configuration
+    public static class TestFullApplicationConfiguration {
+        @Bean
+        public LeaderComponent leaderComponent() {
+            return new LeaderComponent();
+        }
+
+        @Bean
+        public TestController testController() {
+            return new TestController();
+        }
+    }
+
+    public static class LeaderComponent implements Lifecycle {
+        private boolean running;
+
+        @Override
+        public void start() {
+            running = true;
+            startedComponents++;
+        }
+
+        @Override
+        public void stop() {
+            running = false;
+            startedComponents--;
+        }
+
+        @Override
+        public boolean isRunning() {
+            return running;
+        }
+    }
+
+    @RestController
+    public static class TestController {
+        @RequestMapping("/test")
+        public String test() {
+            return "test";
+        }
+
+        @RequestMapping({ "/rest/v1/catalog/topologies/test", "/rest/v1/catalog/topologies/search",
+                "/rest/v1/applications/app/environments/env/deployment-topology", "/rest/v1/applications/app", "/rest/v1/topologies/topology",
+                "/rest/v1/topologies/topology/isvalid" })
+        public String catalog() {
+            return "catalog";
+        }
+    }
+}
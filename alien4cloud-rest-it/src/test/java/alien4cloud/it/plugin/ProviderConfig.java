@@ -17,7 +17,7 @@ import alien4cloud.ui.form.annotation.FormPropertyDefinition;
 @Setter
 @NoArgsConstructor
 @FormProperties({ "firstArgument", "secondArgument", "thirdArgument", "withBadConfiguraton", "tags", "properties", "javaVersion", "provideResourceIds",
-        "resourceIdsCount", "shuffleStateChange" })
+        "resourceIdsCount", "shuffleStateChange", "readDelayMs" })
 public class ProviderConfig {
 
     private String firstArgument;
@@ -40,4 +40,7 @@ public class ProviderConfig {
     private int resourceIdsCount;
 
     private boolean shuffleStateChange;
+
+    /** Delay (in milliseconds) before answering the status and instances information requests to simulate a slow orchestrator. */
+    private long readDelayMs;
 }
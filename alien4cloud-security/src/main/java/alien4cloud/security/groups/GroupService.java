@@ -53,9 +53,7 @@ public class GroupService {
     public void deleteGroup(String groupId) {
         Group group = retrieveGroup(groupId);
         if (CollectionUtils.isNotEmpty(group.getUsers())) {
-            for (String username : group.getUsers()) {
-                userService.removeGroupFromUser(username, group);
-            }
+            userService.removeGroupFromUsers(group.getUsers(), group);
         }
         alienGroupDao.delete(groupId);
     }
@@ -131,9 +129,7 @@ public class GroupService {
         alienGroupDao.save(group);
 
         if (CollectionUtils.isNotEmpty(usersList)) {
-            for (User user : usersList) {
-                userService.addGroupToUser(group, user);
-            }
+            userService.addGroupToUsers(group, usersList);
         }
 
         return group.getId();
@@ -150,9 +146,7 @@ public class GroupService {
 
         // update groupRoles in users objects
         if (CollectionUtils.isNotEmpty(group.getUsers())) {
-            for (String username : group.getUsers()) {
-                userService.addGroupRoleToUser(username, role);
-            }
+            userService.addGroupRoleToUsers(group.getUsers(), role);
         }
     }
 
@@ -175,9 +169,7 @@ public class GroupService {
 
         // update groupRoles in users objects
         if (CollectionUtils.isNotEmpty(group.getUsers())) {
-            for (String username : group.getUsers()) {
-                userService.updateUserGroupRoles(username);
-            }
+            userService.updateUsersGroupRoles(group.getUsers());
         }
 
     }
@@ -2,6 +2,7 @@ package alien4cloud.security.spring.ldap;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
@@ -21,8 +22,10 @@ import alien4cloud.security.users.IAlienUserDao;
 import alien4cloud.security.model.Role;
 import alien4cloud.security.model.User;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 /**
  * Provider responsible to authenticate agains LDAP.
@@ -32,6 +35,8 @@ import com.google.common.collect.Maps;
 @Conditional(LdapCondition.class)
 @Component("ldap-provider")
 public class LdapAuthenticationProvider implements AuthenticationProvider {
+    /** Maximum number of users read or saved in a single request. */
+    private static final int BULK_SIZE = 1000;
 
     @Resource
     private LdapUserDao ldapUserDao;
@@ -63,25 +68,53 @@ public class LdapAuthenticationProvider implements AuthenticationProvider {
         }
 
         if (ldapUserDao.getLdapTemplate().getContextSource() != null) {
-            List<User> users = ldapUserDao.getUsers();
             checkRoles();
-            for (User user : users) {
-                // refresh roles based on ldap.
-                User alienUser = alienUserDao.find(user.getUsername());
-                if (alienUser == null) {
-                    // eventually update if a mapping exists for this user.
-                    mapLdapRoles(user, user);
-                    if(user.getRoles() == null || user.getRoles().length == 0) {
-                        // initialize the user with default roles.
-                        user.setRoles(defaultRoles);
-                    }
-                    alienUserDao.save(user);
-                } else {
-                    mapLdapRoles(user, alienUser);
-                    alienUserDao.save(alienUser);
+            synchronizeUsers();
+        }
+    }
+
+    /**
+     * Synchronize the alien users with the LDAP directory: users that don't exist yet are created and roles of existing users are refreshed from the LDAP
+     * role mappings. Only the users that actually changed are saved, using bulk requests.
+     *
+     * @return The number of users created or updated.
+     */
+    public synchronized int synchronizeUsers() {
+        List<User> ldapUsers = ldapUserDao.getUsers();
+        Map<String, User> alienUsers = Maps.newHashMap();
+        for (List<User> batch : Iterables.partition(ldapUsers, BULK_SIZE)) {
+            String[] usernames = new String[batch.size()];
+            for (int i = 0; i < usernames.length; i++) {
+                usernames[i] = batch.get(i).getUsername();
+            }
+            List<User> found = alienUserDao.find(usernames);
+            if (found != null) {
+                for (User alienUser : found) {
+                    alienUsers.put(alienUser.getUsername(), alienUser);
                 }
             }
         }
+
+        List<User> changedUsers = Lists.newArrayList();
+        for (User user : ldapUsers) {
+            User alienUser = alienUsers.get(user.getUsername());
+            if (alienUser == null) {
+                // eventually update if a mapping exists for this user.
+                mapLdapRoles(user, user);
+                if (user.getRoles() == null || user.getRoles().length == 0) {
+                    // initialize the user with default roles.
+                    user.setRoles(defaultRoles);
+                }
+                changedUsers.add(user);
+            } else if (mapLdapRoles(user, alienUser)) {
+                changedUsers.add(alienUser);
+            }
+        }
+        for (List<User> batch : Iterables.partition(changedUsers, BULK_SIZE)) {
+            alienUserDao.save(batch.toArray(new User[batch.size()]));
+        }
+        log.debug("LDAP synchronization: {} users read from the directory, {} users created or updated", ldapUsers.size(), changedUsers.size());
+        return changedUsers.size();
     }
 
     @Override
@@ -102,20 +135,27 @@ public class LdapAuthenticationProvider implements AuthenticationProvider {
 
     private void updateLdapUserRoles(String login, Authentication auth) {
         if (auth.isAuthenticated() && parsedRoleMappings != null) {
-            // refresh roles if loaded from mapping
+            // refresh roles if loaded from mapping, users unknown to alien yet are created by the alien authentication provider.
             User ldapUser = ldapUserDao.getById(login);
             User user = alienUserDao.find(login);
 
-            if (ldapUser != null) {
-                mapLdapRoles(ldapUser, user);
+            if (ldapUser != null && user != null && mapLdapRoles(ldapUser, user)) {
+                // save only if roles actually changed so that logins don't result in writes.
+                alienUserDao.save(user);
             }
-            alienUserDao.save(user);
         }
     }
 
-    private void mapLdapRoles(User ldapUser, User user) {
-        if(ldapUser.getRoles() == null || parsedRoleMappings == null) {
-            return;
+    /**
+     * Set the alien roles of a user based on the roles of the LDAP user and the role mappings.
+     *
+     * @param ldapUser The user read from LDAP.
+     * @param user The user to update.
+     * @return True if the roles of the user changed.
+     */
+    private boolean mapLdapRoles(User ldapUser, User user) {
+        if (ldapUser.getRoles() == null || parsedRoleMappings == null) {
+            return false;
         }
 
         List<String> userRoles = Lists.newArrayList();
@@ -125,8 +165,12 @@ public class LdapAuthenticationProvider implements AuthenticationProvider {
                 userRoles.add(alienRole);
             }
         }
+        Set<String> currentRoles = user.getRoles() == null ? Sets.<String> newHashSet() : Sets.newHashSet(user.getRoles());
+        if (currentRoles.equals(Sets.newHashSet(userRoles))) {
+            return false;
+        }
         user.setRoles(userRoles.toArray(new String[userRoles.size()]));
-
+        return true;
     }
 
     @Override
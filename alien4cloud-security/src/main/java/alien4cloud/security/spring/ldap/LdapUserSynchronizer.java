@@ -0,0 +1,77 @@
+package alien4cloud.security.spring.ldap;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import alien4cloud.events.HALeaderElectionEvent;
+
+/**
+ * Periodically synchronize the alien users with the LDAP directory so that roles changes are applied without writing the users on every login. In case of HA
+ * the synchronization is performed only by the leader instance.
+ */
+@Slf4j
+@Component
+@Conditional(LdapCondition.class)
+public class LdapUserSynchronizer implements ApplicationListener<HALeaderElectionEvent>, Runnable {
+    @Resource
+    private LdapAuthenticationProvider ldapAuthenticationProvider;
+    @Resource
+    private LdapUserDao ldapUserDao;
+
+    /** Period of the synchronization in minutes, 0 or less disables the periodic synchronization. */
+    @Value("${ldap.synchronization_period_minutes:60}")
+    private long periodMinutes = 60;
+
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> scheduledSynchronization;
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("ldap-synchronizer-%d").setDaemon(true).build());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public synchronized void onApplicationEvent(HALeaderElectionEvent event) {
+        if (event.isLeader()) {
+            if (scheduledSynchronization == null && periodMinutes > 0 && ldapUserDao.getLdapTemplate().getContextSource() != null) {
+                log.info("LDAP users synchronization is scheduled every {} minutes", periodMinutes);
+                scheduledSynchronization = scheduler.scheduleWithFixedDelay(this, periodMinutes, periodMinutes, TimeUnit.MINUTES);
+            }
+        } else if (scheduledSynchronization != null) {
+            scheduledSynchronization.cancel(false);
+            scheduledSynchronization = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            long start = System.currentTimeMillis();
+            int changed = ldapAuthenticationProvider.synchronizeUsers();
+            log.info("LDAP users synchronized in {} ms, {} users created or updated", System.currentTimeMillis() - start, changed);
+        } catch (RuntimeException e) {
+            // an exception would cancel the next executions.
+            log.error("Failed to synchronize users with LDAP", e);
+        }
+    }
+}
@@ -20,6 +20,13 @@ public interface IAlienUserDao {
      */
     void save(User user);
 
+    /**
+     * Create or update multiple users in the store using a single request.
+     * 
+     * @param users The users to store.
+     */
+    void save(User[] users);
+
     /**
      * Read a user from the store.
      * 
@@ -2,8 +2,10 @@ package alien4cloud.security.users;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -25,10 +27,18 @@ import alien4cloud.security.model.User;
 import alien4cloud.security.users.rest.UpdateUserRequest;
 import alien4cloud.utils.ReflectionUtil;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @Component
 public class UserService {
+    /** Maximum number of users read or saved in a single request. */
+    private static final int BULK_SIZE = 1000;
 
     @Resource
     private IAlienUserDao alienUserDao;
@@ -247,6 +257,129 @@ public class UserService {
         }
     }
 
+    /**
+     * Add a group to multiple users, including all the group roles. Users are saved using bulk requests.
+     * 
+     * @param group The group to add.
+     * @param users The users to process.
+     */
+    public void addGroupToUsers(Group group, Collection<User> users) {
+        for (User user : users) {
+            Set<String> groupSet = user.getGroups() == null ? new HashSet<String>() : user.getGroups();
+            groupSet.add(group.getId());
+            user.setGroups(groupSet);
+            if (CollectionUtils.isNotEmpty(group.getRoles())) {
+                Set<String> groupRolesSet = user.getGroupRoles() == null ? new HashSet<String>() : user.getGroupRoles();
+                groupRolesSet.addAll(group.getRoles());
+                user.setGroupRoles(groupRolesSet);
+            }
+        }
+        saveUsers(users);
+    }
+
+    /**
+     * Add a group role to multiple users. Users are saved using bulk requests.
+     * 
+     * @param usernames The usernames of the users to process.
+     * @param role The group role to add.
+     */
+    public void addGroupRoleToUsers(Collection<String> usernames, String role) {
+        String formatedRole = Role.getStringFormatedRole(role);
+        List<User> users = findUsers(usernames);
+        for (User user : users) {
+            Set<String> groupRolesSet = user.getGroupRoles() == null ? new HashSet<String>() : user.getGroupRoles();
+            groupRolesSet.add(formatedRole);
+            user.setGroupRoles(groupRolesSet);
+        }
+        saveUsers(users);
+    }
+
+    /**
+     * Regenerate the group roles of multiple users. Groups of the users are read once and users are saved using bulk requests.
+     * 
+     * @param usernames The usernames of the users for which to regenerate the group roles.
+     */
+    public void updateUsersGroupRoles(Collection<String> usernames) {
+        List<User> users = findUsers(usernames);
+        updateGroupRoles(users);
+        saveUsers(users);
+    }
+
+    /**
+     * Remove a group from multiple users and regenerate their group roles. Users are saved using bulk requests.
+     * 
+     * @param usernames The usernames of the users to process.
+     * @param group The group to remove.
+     */
+    public void removeGroupFromUsers(Collection<String> usernames, Group group) {
+        List<User> users = Lists.newArrayList();
+        for (User user : findUsers(usernames)) {
+            if (CollectionUtils.isNotEmpty(user.getGroups()) && user.getGroups().remove(group.getId())) {
+                users.add(user);
+            }
+        }
+        if (CollectionUtils.isNotEmpty(group.getRoles())) {
+            updateGroupRoles(users);
+        }
+        saveUsers(users);
+    }
+
+    private List<User> findUsers(Collection<String> usernames) {
+        List<User> users = Lists.newArrayList();
+        for (List<String> batch : Iterables.partition(usernames, BULK_SIZE)) {
+            List<User> found = alienUserDao.find(batch.toArray(new String[batch.size()]));
+            if (found != null) {
+                users.addAll(found);
+            }
+        }
+        if (users.size() < usernames.size()) {
+            log.warn("{} users referenced cannot be found", usernames.size() - users.size());
+        }
+        return users;
+    }
+
+    /** Regenerate the group roles of the given users, reading every group only once. */
+    private void updateGroupRoles(Collection<User> users) {
+        Set<String> groupIds = Sets.newHashSet();
+        for (User user : users) {
+            if (user.getGroups() != null) {
+                groupIds.addAll(user.getGroups());
+            }
+        }
+        Map<String, Group> groups = Maps.newHashMap();
+        for (List<String> batch : Iterables.partition(groupIds, BULK_SIZE)) {
+            List<Group> found = alienGroupDao.find(batch.toArray(new String[batch.size()]));
+            if (found != null) {
+                for (Group group : found) {
+                    groups.put(group.getId(), group);
+                }
+            }
+        }
+        for (User user : users) {
+            if (CollectionUtils.isEmpty(user.getGroups())) {
+                user.setGroupRoles(null);
+                continue;
+            }
+            Set<String> groupRolesSet = Sets.newHashSet();
+            for (String groupId : user.getGroups()) {
+                Group group = groups.get(groupId);
+                if (group == null) {
+                    throw new NotFoundException("Group [" + groupId + "] cannot be found");
+                }
+                if (CollectionUtils.isNotEmpty(group.getRoles())) {
+                    groupRolesSet.addAll(group.getRoles());
+                }
+            }
+            user.setGroupRoles(groupRolesSet);
+        }
+    }
+
+    private void saveUsers(Collection<User> users) {
+        for (List<User> batch : Iterables.partition(users, BULK_SIZE)) {
+            alienUserDao.save(batch.toArray(new User[batch.size()]));
+        }
+    }
+
     public boolean isAdmin(String username) {
         User user = retrieveUser(username);
         if (user.getRoles() == null) {
@@ -0,0 +1,121 @@
+package alien4cloud.security;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import alien4cloud.security.groups.GroupService;
+import alien4cloud.security.groups.IAlienGroupDao;
+import alien4cloud.security.model.Group;
+import alien4cloud.security.model.User;
+import alien4cloud.security.users.IAlienUserDao;
+import alien4cloud.security.users.UserService;
+
+public class GroupServiceTest {
+    private static final int MEMBERS = 2500;
+
+    private IAlienUserDao alienUserDao;
+    private IAlienGroupDao alienGroupDao;
+    private GroupService groupService;
+    private Group group;
+    private Group otherGroup;
+    private List<User> members;
+
+    @Before
+    public void before() {
+        alienUserDao = Mockito.mock(IAlienUserDao.class);
+        alienGroupDao = Mockito.mock(IAlienGroupDao.class);
+        UserService userService = new UserService();
+        ReflectionTestUtils.setField(userService, "alienUserDao", alienUserDao);
+        ReflectionTestUtils.setField(userService, "alienGroupDao", alienGroupDao);
+        groupService = new GroupService();
+        ReflectionTestUtils.setField(groupService, "alienGroupDao", alienGroupDao);
+        ReflectionTestUtils.setField(groupService, "userService", userService);
+
+        group = new Group("group");
+        group.setId("group");
+        group.setRoles(Sets.newHashSet("ARCHITECT"));
+        otherGroup = new Group("other");
+        otherGroup.setId("other");
+        otherGroup.setRoles(Sets.newHashSet("APPLICATIONS_MANAGER"));
+
+        members = Lists.newArrayList();
+        Set<String> usernames = Sets.newHashSet();
+        for (int i = 0; i < MEMBERS; i++) {
+            User user = new User();
+            user.setUsername("user" + i);
+            user.setGroups(Sets.newHashSet("group", "other"));
+            user.setGroupRoles(Sets.newHashSet("ARCHITECT", "APPLICATIONS_MANAGER"));
+            members.add(user);
+            usernames.add(user.getUsername());
+        }
+        group.setUsers(usernames);
+
+        Mockito.when(alienGroupDao.find("group")).thenReturn(group);
+        Mockito.when(alienUserDao.find((String[]) Mockito.anyVararg())).thenAnswer(invocation -> {
+            List<User> found = Lists.newArrayList();
+            for (Object username : invocation.getArguments()) {
+                found.add(members.get(Integer.parseInt(((String) username).substring("user".length()))));
+            }
+            return found;
+        });
+        Mockito.when(alienGroupDao.find((String[]) Mockito.anyVararg())).thenAnswer(invocation -> {
+            List<Group> found = Lists.newArrayList();
+            for (Object id : invocation.getArguments()) {
+                found.add("group".equals(id) ? group : otherGroup);
+            }
+            return found;
+        });
+    }
+
+    private List<User> verifyBulkSaves() {
+        ArgumentCaptor<User[]> captor = ArgumentCaptor.forClass(User[].class);
+        // members are saved in batches, never one by one.
+        Mockito.verify(alienUserDao, Mockito.times(3)).save(captor.capture());
+        Mockito.verify(alienUserDao, Mockito.never()).save(Mockito.any(User.class));
+        List<User> saved = Lists.newArrayList();
+        for (User[] batch : captor.getAllValues()) {
+            saved.addAll(Lists.newArrayList(batch));
+        }
+        Assert.assertEquals(MEMBERS, saved.size());
+        return saved;
+    }
+
+    @Test
+    public void addRoleToGroupShouldUpdateMembersInBulk() {
+        groupService.addRoleToGroup("group", "COMPONENTS_MANAGER");
+
+        for (User user : verifyBulkSaves()) {
+            Assert.assertTrue(user.getGroupRoles().contains("COMPONENTS_MANAGER"));
+        }
+    }
+
+    @Test
+    public void removeRoleFromGroupShouldUpdateMembersInBulk() {
+        groupService.removeRoleFromGroup("group", "ARCHITECT");
+
+        for (User user : verifyBulkSaves()) {
+            Assert.assertEquals(Sets.newHashSet("APPLICATIONS_MANAGER"), user.getGroupRoles());
+        }
+    }
+
+    @Test
+    public void deleteGroupShouldUpdateMembersInBulk() {
+        groupService.deleteGroup("group");
+
+        for (User user : verifyBulkSaves()) {
+            Assert.assertEquals(Sets.newHashSet("other"), user.getGroups());
+            Assert.assertEquals(Sets.newHashSet("APPLICATIONS_MANAGER"), user.getGroupRoles());
+        }
+        Mockito.verify(alienGroupDao).delete("group");
+    }
+}
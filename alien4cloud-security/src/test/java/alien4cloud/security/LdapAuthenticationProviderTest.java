@@ -1,23 +1,32 @@
 package alien4cloud.security;
 
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Resource;
 import javax.naming.NamingException;
 
 import alien4cloud.security.model.User;
 import alien4cloud.security.users.IAlienUserDao;
+import org.junit.Assert;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.MethodSorters;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.springframework.ldap.core.ContextSource;
 import org.springframework.ldap.core.LdapTemplate;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import alien4cloud.security.spring.ldap.LdapAuthenticationProvider;
 
@@ -34,24 +43,86 @@ public class LdapAuthenticationProviderTest extends AbstractLdapTest {
 
     @Test
     public void testLdapUserImport() throws NamingException {
+        Mockito.reset(alienUserDao);
         Mockito.when(ldapTemplate.getContextSource()).thenReturn(Mockito.mock(ContextSource.class));
         int userCount = 10;
         List<User> users = prepareGetAllUserMock(userCount);
 
-        // for each user we should check if it exists in the user repository and only if not then we add it.
-        for (int i = 0; i < users.size(); i++) {
-            User user = users.get(i);
-            if (i % 2 == 0) {
-                user.setLastName("test");
-                Mockito.when(alienUserDao.find(user.getUsername())).thenReturn(user);
-            } else {
-                Mockito.when(alienUserDao.find(user.getUsername())).thenReturn(user);
+        // all users already exist in the user repository and roles are not mapped from ldap so nothing has to be saved.
+        Mockito.when(alienUserDao.find(Mockito.<String> anyVararg())).thenReturn(users);
+
+        ldapAuthenticationProvider.importLdapUsers();
+
+        Mockito.verify(alienUserDao, Mockito.never()).save(Mockito.any(User.class));
+        Mockito.verify(alienUserDao, Mockito.never()).save(Mockito.any(User[].class));
+    }
+
+    @Test
+    public void testLdapUserSynchronizationShouldOnlySaveChangedUsers() throws NamingException {
+        Mockito.reset(alienUserDao);
+        Mockito.when(ldapTemplate.getContextSource()).thenReturn(Mockito.mock(ContextSource.class));
+        List<User> users = prepareGetAllUserMock(10);
+        // half of the users are already known by alien
+        final Map<String, User> alienUsers = Maps.newHashMap();
+        for (int i = 0; i < users.size(); i += 2) {
+            alienUsers.put(users.get(i).getUsername(), users.get(i));
+        }
+        Mockito.when(alienUserDao.find(Mockito.<String> anyVararg())).thenAnswer(new Answer<List<User>>() {
+            @Override
+            public List<User> answer(InvocationOnMock invocation) {
+                List<User> found = Lists.newArrayList();
+                for (Object argument : invocation.getArguments()) {
+                    for (String username : argument instanceof String[] ? (String[]) argument : new String[] { (String) argument }) {
+                        if (alienUsers.containsKey(username)) {
+                            found.add(alienUsers.get(username));
+                        }
+                    }
+                }
+                return found;
             }
+        });
+
+        Assert.assertEquals(5, ldapAuthenticationProvider.synchronizeUsers());
+
+        ArgumentCaptor<User[]> savedUsers = ArgumentCaptor.forClass(User[].class);
+        Mockito.verify(alienUserDao, Mockito.times(1)).save(savedUsers.capture());
+        Mockito.verify(alienUserDao, Mockito.never()).save(Mockito.any(User.class));
+        Assert.assertEquals(5, savedUsers.getValue().length);
+        for (User user : savedUsers.getValue()) {
+            Assert.assertFalse(alienUsers.containsKey(user.getUsername()));
+            Assert.assertArrayEquals(new String[] { "COMPONENTS_BROWSER" }, user.getRoles());
         }
+    }
 
-        ldapAuthenticationProvider.importLdapUsers();
+    @Test
+    public void testAuthenticateShouldSaveUserOnlyIfRolesChanged() throws NamingException {
+        String userName = "admin";
+        String password = "admin";
+        Map<String, String> roleMappings = Maps.newHashMap();
+        roleMappings.put("ROLE_ADMINS", "ADMIN");
+        ReflectionTestUtils.setField(ldapAuthenticationProvider, "parsedRoleMappings", roleMappings);
+        try {
+            Mockito.reset(alienUserDao);
+            User ldapUser = new User();
+            ldapUser.setUsername(userName);
+            ldapUser.setRoles(new String[] { "ROLE_ADMINS" });
+            Mockito.when(ldapTemplate.search("", "(" + getUserIdKey() + "=" + userName + ")", attributeMapper)).thenReturn(Lists.newArrayList(ldapUser));
+            Mockito.when(ldapTemplate.authenticate("", getUserIdKey() + "=" + userName, password)).thenReturn(true);
 
-        Mockito.verify(alienUserDao, Mockito.times(users.size())).save(Mockito.any(User.class));
+            User alienUser = new User();
+            alienUser.setUsername(userName);
+            alienUser.setRoles(new String[] { "ADMIN" });
+            Mockito.when(alienUserDao.find(userName)).thenReturn(alienUser);
+            ldapAuthenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(userName, password));
+            Mockito.verify(alienUserDao, Mockito.never()).save(Mockito.any(User.class));
+
+            alienUser.setRoles(new String[0]);
+            ldapAuthenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(userName, password));
+            Mockito.verify(alienUserDao, Mockito.times(1)).save(alienUser);
+            Assert.assertArrayEquals(new String[] { "ADMIN" }, alienUser.getRoles());
+        } finally {
+            ReflectionTestUtils.setField(ldapAuthenticationProvider, "parsedRoleMappings", null);
+        }
     }
 
     @Test
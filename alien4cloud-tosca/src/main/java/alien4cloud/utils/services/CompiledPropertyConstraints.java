@@ -0,0 +1,129 @@
+package alien4cloud.utils.services;
+
+import java.beans.IntrospectionException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.alien4cloud.tosca.model.definitions.PropertyConstraint;
+
+import com.google.common.collect.Lists;
+
+import alien4cloud.tosca.normative.IPropertyType;
+import alien4cloud.tosca.normative.ToscaType;
+import alien4cloud.tosca.properties.constraints.ConstraintUtil;
+import alien4cloud.tosca.properties.constraints.ConstraintUtil.ConstraintInformation;
+import alien4cloud.tosca.properties.constraints.exception.ConstraintTechnicalException;
+import alien4cloud.tosca.properties.constraints.exception.ConstraintValueDoNotMatchPropertyTypeException;
+import alien4cloud.tosca.properties.constraints.exception.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Constraints of a property definition (and of the primitive data type it derives from) ready for validation.
+ *
+ * Constraints are initialized against the property type and their description (name and reference used in error reports) is computed once at compilation,
+ * validation of a value then only performs the constraints checks.
+ */
+@Slf4j
+final class CompiledPropertyConstraints {
+    /** Lists from which the constraints have been compiled and hash of their content, used to detect that the definition changed. */
+    private final List<PropertyConstraint> definitionConstraints;
+    private final List<PropertyConstraint> typeConstraints;
+    private final int constraintsHash;
+    private final String primitiveType;
+    private final IPropertyType<?> toscaType;
+    private final List<CompiledConstraint> constraints;
+
+    private CompiledPropertyConstraints(List<PropertyConstraint> definitionConstraints, List<PropertyConstraint> typeConstraints, String primitiveType,
+            IPropertyType<?> toscaType, List<CompiledConstraint> constraints) {
+        this.definitionConstraints = definitionConstraints;
+        this.typeConstraints = typeConstraints;
+        this.constraintsHash = hash(definitionConstraints, typeConstraints);
+        this.primitiveType = primitiveType;
+        this.toscaType = toscaType;
+        this.constraints = constraints;
+    }
+
+    /**
+     * Compile the constraints of a property.
+     *
+     * @param propertyName The name of the property for which to compile constraints (used for error messages).
+     * @param stringValue The value under validation (used for error messages).
+     * @param primitiveType The primitive type of the property.
+     * @param definitionConstraints The constraints defined on the property definition.
+     * @param typeConstraints The constraints defined on the data type the property derives from.
+     * @return The compiled constraints.
+     * @throws ConstraintValueDoNotMatchPropertyTypeException In case a constraint cannot be applied on the property type.
+     */
+    static CompiledPropertyConstraints compile(String propertyName, String stringValue, String primitiveType, List<PropertyConstraint> definitionConstraints,
+            List<PropertyConstraint> typeConstraints) throws ConstraintValueDoNotMatchPropertyTypeException {
+        IPropertyType<?> toscaType = ToscaType.fromYamlTypeName(primitiveType);
+        List<CompiledConstraint> compiledConstraints = Lists.newArrayList();
+        for (List<PropertyConstraint> constraints : new List[] { definitionConstraints, typeConstraints }) {
+            if (constraints == null) {
+                continue;
+            }
+            for (PropertyConstraint constraint : constraints) {
+                try {
+                    ConstraintInformation consInformation = ConstraintUtil.getConstraintInformation(constraint);
+                    constraint.initialize(toscaType);
+                    compiledConstraints.add(new CompiledConstraint(constraint, consInformation.getName(), consInformation.getReference()));
+                } catch (IntrospectionException e) {
+                    // ConstraintValueDoNotMatchPropertyTypeException is not supposed to be raised here (only in constraint definition validation)
+                    log.info("Constraint introspection error for property <" + propertyName + "> value <" + stringValue + ">", e);
+                    throw new ConstraintTechnicalException("Constraint introspection error for property <" + propertyName + "> value <" + stringValue + ">",
+                            e);
+                }
+            }
+        }
+        return new CompiledPropertyConstraints(definitionConstraints, typeConstraints, primitiveType, toscaType,
+                Collections.unmodifiableList(compiledConstraints));
+    }
+
+    /**
+     * Check if these constraints have been compiled from the given definition. Constraints added, removed, replaced or updated in place since the compilation
+     * change the hash of the lists content (constraints hash codes are computed from their values).
+     *
+     * @return True if the constraints are compiled from the given type and constraint lists.
+     */
+    boolean isCompiledFrom(String primitiveType, List<PropertyConstraint> definitionConstraints, List<PropertyConstraint> typeConstraints) {
+        return this.primitiveType.equals(primitiveType) && this.definitionConstraints == definitionConstraints && this.typeConstraints == typeConstraints
+                && constraintsHash == hash(definitionConstraints, typeConstraints);
+    }
+
+    /**
+     * Validate a value against the compiled constraints.
+     *
+     * @param propertyName The name of the property (used in error reports).
+     * @param stringValue The value to validate.
+     * @throws ConstraintViolationException In case the value doesn't match one of the constraints.
+     * @throws ConstraintValueDoNotMatchPropertyTypeException In case the value cannot be converted to the property type.
+     */
+    void validate(String propertyName, String stringValue) throws ConstraintViolationException, ConstraintValueDoNotMatchPropertyTypeException {
+        for (CompiledConstraint compiledConstraint : constraints) {
+            try {
+                compiledConstraint.constraint.validate(toscaType, stringValue);
+            } catch (ConstraintViolationException e) {
+                ConstraintInformation consInformation = new ConstraintInformation(compiledConstraint.name, compiledConstraint.reference, null, null);
+                consInformation.setPath(propertyName + ".constraints[" + compiledConstraint.name + "]");
+                throw new ConstraintViolationException(e.getMessage(), e, consInformation);
+            }
+        }
+    }
+
+    private static int hash(List<PropertyConstraint> definitionConstraints, List<PropertyConstraint> typeConstraints) {
+        return Objects.hash(definitionConstraints, typeConstraints);
+    }
+
+    private static final class CompiledConstraint {
+        private final PropertyConstraint constraint;
+        private final String name;
+        private final Object reference;
+
+        private CompiledConstraint(PropertyConstraint constraint, String name, Object reference) {
+            this.constraint = constraint;
+            this.name = name;
+            this.reference = reference;
+        }
+    }
+}
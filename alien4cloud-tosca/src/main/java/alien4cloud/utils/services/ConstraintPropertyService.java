@@ -2,24 +2,23 @@ package alien4cloud.utils.services;
 
 import static alien4cloud.utils.AlienUtils.safe;
 
-import java.beans.IntrospectionException;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 
 import org.springframework.stereotype.Service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import alien4cloud.exception.InvalidArgumentException;
 import org.alien4cloud.tosca.model.types.DataType;
 import org.alien4cloud.tosca.model.types.PrimitiveDataType;
 import org.alien4cloud.tosca.model.definitions.PropertyConstraint;
 import org.alien4cloud.tosca.model.definitions.PropertyDefinition;
 import alien4cloud.tosca.context.ToscaContext;
-import alien4cloud.tosca.normative.IPropertyType;
 import alien4cloud.tosca.normative.ToscaType;
-import alien4cloud.tosca.properties.constraints.ConstraintUtil;
 import alien4cloud.tosca.properties.constraints.ConstraintUtil.ConstraintInformation;
-import alien4cloud.tosca.properties.constraints.exception.ConstraintTechnicalException;
 import alien4cloud.tosca.properties.constraints.exception.ConstraintValueDoNotMatchPropertyTypeException;
 import alien4cloud.tosca.properties.constraints.exception.ConstraintViolationException;
 import alien4cloud.utils.VersionUtil;
@@ -32,6 +31,11 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @Service
 public class ConstraintPropertyService {
+    /**
+     * Constraints compiled for a property definition. Keys are weak (and so compared by identity) so definitions are compiled once while they are in use
+     * (in the tosca context or in a cached type).
+     */
+    private final Cache<PropertyDefinition, CompiledPropertyConstraints> compiledConstraints = CacheBuilder.newBuilder().weakKeys().build();
 
     /**
      * Check the constraints on an unwrapped property value (basically a string, map or list).
@@ -104,27 +108,11 @@ public class ConstraintPropertyService {
      */
     public void checkSimplePropertyConstraint(final String propertyName, final String stringValue, final PropertyDefinition propertyDefinition)
             throws ConstraintViolationException, ConstraintValueDoNotMatchPropertyTypeException {
-        ConstraintInformation consInformation = null;
-
         // check any property definition without constraints (type/value)
         checkBasicType(propertyName, propertyDefinition.getType(), stringValue);
 
         if (propertyDefinition.getConstraints() != null && !propertyDefinition.getConstraints().isEmpty()) {
-            IPropertyType<?> toscaType = ToscaType.fromYamlTypeName(propertyDefinition.getType());
-            for (PropertyConstraint constraint : propertyDefinition.getConstraints()) {
-                try {
-                    consInformation = ConstraintUtil.getConstraintInformation(constraint);
-                    consInformation.setPath(propertyName + ".constraints[" + consInformation.getName() + "]");
-                    constraint.initialize(toscaType);
-                    constraint.validate(toscaType, stringValue);
-                } catch (ConstraintViolationException e) {
-                    throw new ConstraintViolationException(e.getMessage(), e, consInformation);
-                } catch (IntrospectionException e) {
-                    // ConstraintValueDoNotMatchPropertyTypeException is not supposed to be raised here (only in constraint definition validation)
-                    log.info("Constraint introspection error for property <" + propertyName + "> value <" + stringValue + ">", e);
-                    throw new ConstraintTechnicalException("Constraint introspection error for property <" + propertyName + "> value <" + stringValue + ">", e);
-                }
-            }
+            getCompiledConstraints(propertyName, stringValue, propertyDefinition, propertyDefinition.getType(), null).validate(propertyName, stringValue);
         }
     }
 
@@ -134,44 +122,32 @@ public class ConstraintPropertyService {
     private void checkComplexPropertyDerivedFromPrimitiveTypeConstraints(final String propertyName, final String stringValue,
             final PropertyDefinition propertyDefinition, final DataType dataType)
             throws ConstraintViolationException, ConstraintValueDoNotMatchPropertyTypeException {
-        ConstraintInformation consInformation = null;
         boolean hasDefinitionConstraints = propertyDefinition.getConstraints() != null && !propertyDefinition.getConstraints().isEmpty();
-        boolean hasTypeConstraints = false;
+        List<PropertyConstraint> typeConstraints = null;
         if (dataType instanceof PrimitiveDataType && ((PrimitiveDataType) dataType).getConstraints() != null
                 && !((PrimitiveDataType) dataType).getConstraints().isEmpty()) {
-            hasTypeConstraints = true;
+            typeConstraints = ((PrimitiveDataType) dataType).getConstraints();
         }
         String derivedFromPrimitiveType = dataType.getDerivedFrom().get(0);
         // Check the type of the property even if there is no constraints.
         checkBasicType(propertyName, derivedFromPrimitiveType, stringValue);
-        if (hasDefinitionConstraints || hasTypeConstraints) { // check the constraints if there is any defined
-            if (hasDefinitionConstraints) {
-                checkConstraints(propertyName, stringValue, derivedFromPrimitiveType, propertyDefinition.getConstraints());
-            }
-            if (hasTypeConstraints) {
-                checkConstraints(propertyName, stringValue, derivedFromPrimitiveType, ((PrimitiveDataType) dataType).getConstraints());
-            }
+        if (hasDefinitionConstraints || typeConstraints != null) { // check the constraints if there is any defined
+            getCompiledConstraints(propertyName, stringValue, propertyDefinition, derivedFromPrimitiveType, typeConstraints).validate(propertyName,
+                    stringValue);
         }
     }
 
-    private void checkConstraints(final String propertyName, final String stringValue, final String typeName, List<PropertyConstraint> constraints)
-            throws ConstraintViolationException, ConstraintValueDoNotMatchPropertyTypeException {
-        ConstraintInformation consInformation = null;
-        for (PropertyConstraint constraint : constraints) {
-            IPropertyType<?> toscaType = ToscaType.fromYamlTypeName(typeName);
-            try {
-                consInformation = ConstraintUtil.getConstraintInformation(constraint);
-                consInformation.setPath(propertyName + ".constraints[" + consInformation.getName() + "]");
-                constraint.initialize(toscaType);
-                constraint.validate(toscaType, stringValue);
-            } catch (ConstraintViolationException e) {
-                throw new ConstraintViolationException(e.getMessage(), e, consInformation);
-            } catch (IntrospectionException e) {
-                // ConstraintValueDoNotMatchPropertyTypeException is not supposed to be raised here (only in constraint definition validation)
-                log.info("Constraint introspection error for property <" + propertyName + "> value <" + stringValue + ">", e);
-                throw new ConstraintTechnicalException("Constraint introspection error for property <" + propertyName + "> value <" + stringValue + ">", e);
-            }
+    /**
+     * Get the compiled constraints of a property definition, compile them if not yet cached or if the definition changed since last compilation.
+     */
+    private CompiledPropertyConstraints getCompiledConstraints(String propertyName, String stringValue, PropertyDefinition propertyDefinition,
+            String primitiveType, List<PropertyConstraint> typeConstraints) throws ConstraintValueDoNotMatchPropertyTypeException {
+        CompiledPropertyConstraints compiled = compiledConstraints.getIfPresent(propertyDefinition);
+        if (compiled == null || !compiled.isCompiledFrom(primitiveType, propertyDefinition.getConstraints(), typeConstraints)) {
+            compiled = CompiledPropertyConstraints.compile(propertyName, stringValue, primitiveType, propertyDefinition.getConstraints(), typeConstraints);
+            compiledConstraints.put(propertyDefinition, compiled);
         }
+        return compiled;
     }
 
     private void checkDataTypePropertyConstraint(String propertyName, Map<String, Object> complexPropertyValue, PropertyDefinition propertyDefinition,
@@ -0,0 +1,20 @@
+// Write gzip variants of the revisioned files so they are served precompressed
+module.exports = {
+  dist: {
+    options: {
+      mode: 'gzip'
+    },
+    files: [{
+      expand: true,
+      cwd: '<%= yeoman.dist %>',
+      src: [
+        'scripts/{,*/}*.js',
+        'styles/{,*/}*.css'
+      ],
+      dest: '<%= yeoman.dist %>',
+      rename: function(dest, src) {
+        return dest + '/' + src + '.gz';
+      }
+    }]
+  }
+};
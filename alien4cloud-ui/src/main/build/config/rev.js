@@ -4,8 +4,17 @@ module.exports = {
     files: {
       src: [
         '<%= yeoman.dist %>/scripts/{,*/}*.js',
+        '!<%= yeoman.dist %>/scripts/require.config.js',
         '<%= yeoman.dist %>/styles/{,*/}*.css'
       ]
     }
+  },
+  // the require configuration references the revisioned bootstrap file (see execute:revrename) so it is renamed once updated
+  requireconfig: {
+    files: {
+      src: [
+        '<%= yeoman.dist %>/scripts/require.config.js'
+      ]
+    }
   }
 };
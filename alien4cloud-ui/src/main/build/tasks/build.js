@@ -11,10 +11,12 @@ module.exports = function (grunt) {
       'useminPrepare',
       'concat', // concat css files
       'cssmin', // minify css
-      'rev', // rename files for caching purpose
-      'usemin',
+      'rev:dist', // rename files for caching purpose
       'execute:revrename',
-      'htmlmin'
+      'rev:requireconfig',
+      'usemin',
+      'htmlmin',
+      'compress:dist' // write gzip variants of the revisioned files
     ]
   );
 };